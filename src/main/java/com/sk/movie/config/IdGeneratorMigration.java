@@ -0,0 +1,76 @@
+package com.sk.movie.config;
+
+import com.sk.movie.entities.IdGenerators;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Migrates existing tables from IDENTITY ids to the pooled table generators //
+// Runs once the schema is up to date and before the web server accepts requests; //
+// each generator row is moved past the highest id already in its table //
+
+@Component
+@DependsOn("entityManagerFactory")
+public class IdGeneratorMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorMigration.class);
+
+    // generator name (= table) -> id column
+    private static final Map<String, String> ID_COLUMNS = Map.of(
+            "users", "user_id",
+            "movies", "movie_id",
+            "shows", "show_id",
+            "screen_seats", "seat_id",
+            "booked_seats", "booked_seat_id",
+            "bookings", "booking_id",
+            "promo_codes", "promo_code_id",
+            "screens", "screen_id",
+            "idempotency_keys", "idempotency_record_id"
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void migrate() {
+        ID_COLUMNS.forEach(this::seedGenerator);
+    }
+
+    private void seedGenerator(String table, String idColumn) {
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + table, Long.class);
+        // Clear of the highest existing id whichever end of the pooled range is handed out first
+        long floor = maxId + IdGenerators.ALLOCATION_SIZE + 1;
+
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + IdGenerators.TABLE + " WHERE " + IdGenerators.NAME_COLUMN + " = ?",
+                Integer.class, table);
+        if ((rows == null || rows == 0) && insertGenerator(table, floor)) {
+            log.info("Seeded id generator '{}' at {}", table, floor);
+        } else if (jdbcTemplate.update("UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN
+                + " = ? WHERE " + IdGenerators.NAME_COLUMN + " = ? AND " + IdGenerators.VALUE_COLUMN + " < ?",
+                floor, table, floor) > 0) {
+            log.info("Moved id generator '{}' to {}", table, floor);
+        }
+    }
+
+    // False when another node starting at the same time seeded the row first; //
+    // the caller then only moves it forward, which is safe to repeat //
+
+    private boolean insertGenerator(String table, long floor) {
+        try {
+            jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.NAME_COLUMN + ", "
+                    + IdGenerators.VALUE_COLUMN + ") VALUES (?, ?)", table, floor);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.sk.movie.config;
+
+import com.sk.movie.entities.BookedSeat;
+import com.sk.movie.entities.Booking;
+import com.sk.movie.entities.Screen;
+import com.sk.movie.entities.Seat;
+import com.sk.movie.entities.Show;
+import com.sk.movie.repositories.BookedSeatRepository;
+import com.sk.movie.repositories.ScreenRepository;
+import com.sk.movie.repositories.SeatRepository;
+import com.sk.movie.repositories.ShowRepository;
+import com.sk.movie.services.ScreenService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Moves shows created with per-show seat rows onto shared screen layouts //
+// Each legacy show is attached to a screen whose seat labels cover its seats, creating one if needed; //
+// booking_seats history is copied to booking_layout_seats and confirmed seats to booked_seats. //
+// The legacy seats and booking_seats tables are only read and can be dropped once this has run //
+
+@Component
+@DependsOn("idGeneratorMigration")
+public class SeatLayoutMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatLayoutMigration.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShowRepository showRepository;
+
+    @Autowired
+    private ScreenRepository screenRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private BookedSeatRepository bookedSeatRepository;
+
+    @Autowired
+    private ScreenService screenService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @PostConstruct
+    void migrate() {
+        List<Long> showIds = jdbcTemplate.queryForList("SELECT show_id FROM shows WHERE screen_id IS NULL", Long.class);
+        if (showIds.isEmpty()) {
+            return;
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int migrated = 0;
+        for (Long showId : showIds) {
+            try {
+                tx.executeWithoutResult(status -> migrateShow(showId));
+                migrated++;
+            } catch (RuntimeException ex) {
+                log.warn("Could not move show {} to a screen layout: {}", showId, ex.getMessage());
+            }
+        }
+        log.info("Moved {} of {} shows to screen layouts", migrated, showIds.size());
+    }
+
+    private void migrateShow(Long showId) {
+        Show show = showRepository.findById(showId).orElseThrow();
+        Map<Long, String> legacyLabels = new HashMap<>();
+        jdbcTemplate.query("SELECT seat_id, row_name, seat_number FROM seats WHERE show_id = ?",
+                rs -> {
+                    legacyLabels.put(rs.getLong(1), rs.getString(2) + rs.getString(3));
+                }, showId);
+        if (legacyLabels.isEmpty()) {
+            throw new IllegalStateException("show has no seats");
+        }
+
+        Set<String> labels = new HashSet<>(legacyLabels.values());
+        Screen screen = screenFor(show, labels);
+        Map<String, Seat> layout = layoutByLabel(screen);
+        if (!layout.keySet().containsAll(labels)) {
+            throw new IllegalStateException("seat labels do not fit a screen layout");
+        }
+
+        List<LegacyBookingSeat> links = jdbcTemplate.query(
+                "SELECT bs.booking_id, bs.seat_id, b.booking_status = 'CONFIRMED' AND s.is_booked " +
+                        "FROM booking_seats bs " +
+                        "JOIN seats s ON s.seat_id = bs.seat_id " +
+                        "JOIN bookings b ON b.booking_id = bs.booking_id " +
+                        "WHERE s.show_id = ?",
+                (rs, i) -> new LegacyBookingSeat(rs.getLong(1), rs.getLong(2), rs.getBoolean(3)), showId);
+
+        List<Object[]> history = new ArrayList<>();
+        List<BookedSeat> bookedSeats = new ArrayList<>();
+        for (LegacyBookingSeat link : links) {
+            Seat seat = layout.get(legacyLabels.get(link.seatId()));
+            history.add(new Object[] {link.bookingId(), seat.getSeatId()});
+            if (link.active()) {
+                bookedSeats.add(new BookedSeat(show, seat, entityManager.getReference(Booking.class, link.bookingId())));
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO booking_layout_seats (booking_id, seat_id) VALUES (?, ?)", history);
+        bookedSeatRepository.saveAll(bookedSeats);
+        show.setScreen(screen);
+    }
+
+    // Reuses the screen named after the show when it has every seat, else derives a grid from the labels //
+
+    private Screen screenFor(Show show, Set<String> labels) {
+        Optional<Screen> named = screenRepository.findByName(show.getScreenName());
+        if (named.isPresent() && layoutByLabel(named.get()).keySet().containsAll(labels)) {
+            return named.get();
+        }
+
+        int rowCount = 0;
+        int seatsPerRow = 0;
+        for (String label : labels) {
+            int[] position = ScreenService.parseLabel(label);
+            if (position == null) {
+                throw new IllegalStateException("unrecognised seat label " + label);
+            }
+            rowCount = Math.max(rowCount, position[0]);
+            seatsPerRow = Math.max(seatsPerRow, position[1]);
+        }
+        Set<String> blocked = new LinkedHashSet<>();
+        for (int r = 0; r < rowCount; r++) {
+            for (int n = 1; n <= seatsPerRow; n++) {
+                String label = ScreenService.rowLabel(r) + n;
+                if (!labels.contains(label)) {
+                    blocked.add(label);
+                }
+            }
+        }
+        String name = named.isPresent() ? show.getScreenName() + " #" + show.getShowId() : show.getScreenName();
+        return screenService.createScreen(name, rowCount, seatsPerRow, blocked);
+    }
+
+    private Map<String, Seat> layoutByLabel(Screen screen) {
+        return seatRepository.findByScreenScreenIdOrderByRowIndexAscSeatIndexAsc(screen.getScreenId()).stream()
+                .collect(Collectors.toMap(seat -> seat.getRowName() + seat.getSeatNumber(), Function.identity()));
+    }
+
+    private record LegacyBookingSeat(long bookingId, long seatId, boolean active) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.sk.movie.controllers;
+
+import com.sk.movie.dto.ShowContentionResponse;
+import com.sk.movie.entities.UserRole;
+import com.sk.movie.security.RequiresRole;
+import com.sk.movie.services.BookingMetrics;
+import com.sk.movie.services.ContentionMonitor;
+import com.sk.movie.services.PromoCatalogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Controller for operational admin endpoints //
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private ContentionMonitor contentionMonitor;
+
+    @Autowired
+    private PromoCatalogService promoCatalogService;
+
+    // Booking concurrency counters (Admin only) //
+
+    @GetMapping("/booking-metrics")
+    @RequiresRole(UserRole.ADMIN)
+    public ResponseEntity<Map<String, Long>> getBookingMetrics() {
+        return ResponseEntity.ok(bookingMetrics.snapshot());
+    }
+
+    // Per-show contention stats and current booking strategy (Admin only) //
+
+    @GetMapping("/booking-contention")
+    @RequiresRole(UserRole.ADMIN)
+    public ResponseEntity<List<ShowContentionResponse>> getBookingContention() {
+        return ResponseEntity.ok(contentionMonitor.snapshot());
+    }
+
+    // Drops cached promo codes after they were changed outside the application (Admin only) //
+
+    @PostMapping("/promo-catalog/evict")
+    @RequiresRole(UserRole.ADMIN)
+    public ResponseEntity<Map<String, Integer>> evictPromoCatalog() {
+        return ResponseEntity.ok(Map.of("evicted", promoCatalogService.evictAll()));
+    }
+}
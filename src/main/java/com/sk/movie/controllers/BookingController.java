@@ -1,16 +1,28 @@
 package com.sk.movie.controllers;
 
+import com.sk.movie.dto.BookingFilter;
+import com.sk.movie.dto.BookingPageResponse;
 import com.sk.movie.dto.BookingRequest;
 import com.sk.movie.dto.BookingResponse;
+import com.sk.movie.dto.GroupBookingRequest;
+import com.sk.movie.dto.GroupBookingResponse;
+import com.sk.movie.dto.HoldRequest;
+import com.sk.movie.dto.HoldResponse;
 import com.sk.movie.entities.UserRole;
 import com.sk.movie.security.RequiresRole;
 import com.sk.movie.security.CurrentUser;
+import com.sk.movie.services.BookingExportService;
 import com.sk.movie.services.BookingService;
+import com.sk.movie.services.SeatHoldService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.validation.Valid;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 // Controller for booking operations //
@@ -22,17 +34,70 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
-    // Create a new booking (Customer only) //
+    @Autowired
+    private SeatHoldService seatHoldService;
+
+    @Autowired
+    private BookingExportService bookingExportService;
+
+    // Create a new booking (Customer only); retries with the same Idempotency-Key get the first response //
 
     @PostMapping
     @RequiresRole(UserRole.CUSTOMER)
     public ResponseEntity<BookingResponse> createBooking(
             @Valid @RequestBody BookingRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @CurrentUser Long userId) {
-        BookingResponse response = bookingService.createBooking(request, userId);
+        BookingResponse response = bookingService.createBooking(request, userId, idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    // Book seats in several shows at once, all or nothing (Customer only) //
+
+    @PostMapping("/group")
+    @RequiresRole(UserRole.CUSTOMER)
+    public ResponseEntity<GroupBookingResponse> createGroupBooking(
+            @Valid @RequestBody GroupBookingRequest request,
+            @CurrentUser Long userId) {
+        GroupBookingResponse response = bookingService.createGroupBooking(request, userId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    // Hold seats for a limited time before checkout (Customer only) //
+
+    @PostMapping("/holds")
+    @RequiresRole(UserRole.CUSTOMER)
+    public ResponseEntity<HoldResponse> createHold(
+            @Valid @RequestBody HoldRequest request,
+            @CurrentUser Long userId) {
+        HoldResponse response = seatHoldService.createHold(request, userId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    // Confirm a seat hold into a booking (Customer only) //
+
+    @PostMapping("/holds/{holdId}/confirm")
+    @RequiresRole(UserRole.CUSTOMER)
+    public ResponseEntity<BookingResponse> confirmHold(
+            @PathVariable String holdId,
+            @RequestParam(required = false) String promoCode,
+            @RequestParam(required = false) Long priceVersion,
+            @CurrentUser Long userId) {
+        BookingResponse response = seatHoldService.confirmHold(holdId, promoCode, priceVersion, userId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    // Release a seat hold early (Customer only) //
+
+    @DeleteMapping("/holds/{holdId}")
+    @RequiresRole(UserRole.CUSTOMER)
+    public ResponseEntity<Void> releaseHold(
+            @PathVariable String holdId,
+            @CurrentUser Long userId) {
+        seatHoldService.releaseHold(holdId, userId);
+        return ResponseEntity.noContent().build();
+    }
+
     // Get user's own bookings (Customer) //
 
     @GetMapping("/my-bookings")
@@ -42,13 +107,33 @@ public class BookingController {
         return ResponseEntity.ok(bookings);
     }
 
-    // Get all bookings (Admin only) //
+    //     * Get bookings page by page, newest first (Admin only) //
+    //     * Filter by showId, status and booking time (from inclusive, to exclusive); //
+    //     * pass nextCursor back as cursor to get the following page //
 
     @GetMapping
     @RequiresRole(UserRole.ADMIN)
-    public ResponseEntity<List<BookingResponse>> getAllBookings() {
-        List<BookingResponse> bookings = bookingService.getAllBookings();
-        return ResponseEntity.ok(bookings);
+    public ResponseEntity<BookingPageResponse> getAllBookings(
+            BookingFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        BookingPageResponse page = bookingService.getBookingsPage(filter, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    // Stream every matching booking as NDJSON or CSV, for reconciliation jobs (Admin only) //
+
+    @GetMapping("/export")
+    @RequiresRole(UserRole.ADMIN)
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            BookingFilter filter,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        boolean csv = bookingExportService.isCsv(format);
+        StreamingResponseBody body = out -> bookingExportService.export(filter, format, out);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bookings." + (csv ? "csv" : "ndjson"))
+                .body(body);
     }
 
     // Cancel a booking //
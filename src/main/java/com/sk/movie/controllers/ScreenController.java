@@ -0,0 +1,40 @@
+package com.sk.movie.controllers;
+
+import com.sk.movie.dto.ScreenRequest;
+import com.sk.movie.dto.ScreenResponse;
+import com.sk.movie.entities.UserRole;
+import com.sk.movie.security.RequiresRole;
+import com.sk.movie.services.ScreenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import jakarta.validation.Valid;
+import java.util.List;
+
+// Controller for screen layout templates //
+
+@RestController
+@RequestMapping("/api/admin/screens")
+public class ScreenController {
+
+    @Autowired
+    private ScreenService screenService;
+
+    // Add a screen layout (Admin only) //
+
+    @PostMapping
+    @RequiresRole(UserRole.ADMIN)
+    public ResponseEntity<ScreenResponse> addScreen(@Valid @RequestBody ScreenRequest request) {
+        ScreenResponse response = screenService.addScreen(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    // List screen layouts (Admin only) //
+
+    @GetMapping
+    @RequiresRole(UserRole.ADMIN)
+    public ResponseEntity<List<ScreenResponse>> listScreens() {
+        return ResponseEntity.ok(screenService.listScreens());
+    }
+}
@@ -1,10 +1,23 @@
 package com.sk.movie.controllers;
 
+import com.sk.movie.dto.BulkShowRequest;
+import com.sk.movie.dto.SeatMapResponse;
 import com.sk.movie.dto.ShowRequest;
 import com.sk.movie.dto.ShowResponse;
+import com.sk.movie.entities.UserRole;
+import com.sk.movie.security.RequiresRole;
+import com.sk.movie.services.SeatEventPublisher;
+import com.sk.movie.services.SeatMapService;
 import com.sk.movie.services.ShowService;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -14,9 +27,82 @@ public class ShowController {
     @Autowired
     private ShowService showService;
 
+    @Autowired
+    private SeatMapService seatMapService;
+
+    @Autowired
+    private SeatEventPublisher seatEventPublisher;
+
     @PostMapping
     public ShowResponse add(@RequestBody ShowRequest req) { return showService.addShow(req); }
 
+    // Create shows for several screens and times from their layouts (Admin only) //
+
+    @PostMapping("/bulk")
+    @RequiresRole(UserRole.ADMIN)
+    public ResponseEntity<List<ShowResponse>> addBulk(@Valid @RequestBody BulkShowRequest req) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(showService.addShows(req));
+    }
+
     @GetMapping
     public List<ShowResponse> list() { return showService.listShows(); }
-}
\ No newline at end of file
+
+    //     * Seat map with availability and seat prices, served from memory //
+    //     * Send the ETag back as If-None-Match (or ?epoch=<epoch>&since=<version>&priceVersion=<priceVersion>) //
+    //     * to get 304 or only the changed seats; repriced shows and other epochs always send the full map //
+
+    @GetMapping("/{id}/seats")
+    public ResponseEntity<SeatMapResponse> seats(@PathVariable Long id,
+                                                 @RequestParam(required = false) String epoch,
+                                                 @RequestParam(required = false) Long since,
+                                                 @RequestParam(required = false) Long priceVersion,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String clientEpoch = epoch;
+        Long clientVersion = since;
+        Long clientPriceVersion = priceVersion;
+        if (since == null && ifNoneMatch != null) {
+            // ETag is "<epoch>-<version>-<priceVersion>"; anything shorter has no epoch and gets the full map
+            String[] parts = unquote(ifNoneMatch).split("-", 3);
+            if (parts.length > 1) {
+                clientEpoch = parts[0];
+                clientVersion = parseVersion(parts[1]);
+                clientPriceVersion = parts.length > 2 ? parseVersion(parts[2]) : null;
+            }
+        }
+        SeatMapResponse seatMap = seatMapService.getSeatMap(id, clientEpoch, clientVersion, clientPriceVersion);
+        if (seatMap == null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(clientEpoch + "-" + clientVersion
+                            + (clientPriceVersion == null ? "" : "-" + clientPriceVersion))
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(seatMap.getEpoch() + "-" + seatMap.getVersion() + "-" + seatMap.getPriceVersion())
+                .cacheControl(CacheControl.noCache())
+                .body(seatMap);
+    }
+
+    // Live seat changes as Server-Sent Events: a "snapshot" event, then "seats" events //
+
+    @GetMapping(value = "/{id}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter seatStream(@PathVariable Long id) {
+        return seatEventPublisher.subscribe(id);
+    }
+
+    private String unquote(String eTag) {
+        String value = eTag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        return value.replace("\"", "");
+    }
+
+    private Long parseVersion(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.sk.movie.dto;
+
+import com.sk.movie.entities.BookingStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+// Optional filters for the admin booking listing and export, bound from query parameters //
+
+public class BookingFilter {
+    private Long showId;
+    private BookingStatus status;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from; // booking time, inclusive
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to; // booking time, exclusive
+
+    // Getters and setters
+    public Long getShowId() { return showId; }
+    public void setShowId(Long showId) { this.showId = showId; }
+
+    public BookingStatus getStatus() { return status; }
+    public void setStatus(BookingStatus status) { this.status = status; }
+
+    public LocalDateTime getFrom() { return from; }
+    public void setFrom(LocalDateTime from) { this.from = from; }
+
+    public LocalDateTime getTo() { return to; }
+    public void setTo(LocalDateTime to) { this.to = to; }
+}
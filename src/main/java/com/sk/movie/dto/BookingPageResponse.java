@@ -0,0 +1,15 @@
+package com.sk.movie.dto;
+
+import java.util.List;
+
+public class BookingPageResponse {
+    private List<BookingResponse> bookings;
+    private String nextCursor; // null on the last page
+
+    // Getters and setters
+    public List<BookingResponse> getBookings() { return bookings; }
+    public void setBookings(List<BookingResponse> bookings) { this.bookings = bookings; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
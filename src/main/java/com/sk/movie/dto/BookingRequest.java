@@ -1,6 +1,6 @@
 package com.sk.movie.dto;
 
-import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import java.util.List;
 
@@ -8,11 +8,15 @@ public class BookingRequest {
     @NotNull(message = "Show ID is required")
     private Long showId;
 
-    @NotEmpty(message = "At least one seat must be selected")
-    private List<Long> seatIds;
+    private List<Long> seatIds; // either explicit seats
+
+    @Min(value = 1, message = "At least one seat must be selected")
+    private Integer seatCount; // or the best available block of this many adjacent seats
 
     private String promoCode; // Optional
 
+    private Long priceVersion; // Optional, the seat map price version the user was shown
+
     // Getters and setters
     public Long getShowId() { return showId; }
     public void setShowId(Long showId) { this.showId = showId; }
@@ -20,6 +24,12 @@ public class BookingRequest {
     public List<Long> getSeatIds() { return seatIds; }
     public void setSeatIds(List<Long> seatIds) { this.seatIds = seatIds; }
 
+    public Integer getSeatCount() { return seatCount; }
+    public void setSeatCount(Integer seatCount) { this.seatCount = seatCount; }
+
     public String getPromoCode() { return promoCode; }
     public void setPromoCode(String promoCode) { this.promoCode = promoCode; }
+
+    public Long getPriceVersion() { return priceVersion; }
+    public void setPriceVersion(Long priceVersion) { this.priceVersion = priceVersion; }
 }
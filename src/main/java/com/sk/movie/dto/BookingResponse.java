@@ -1,6 +1,7 @@
 package com.sk.movie.dto;
 
-import java.math.BigDecimal;
+import com.sk.movie.entities.Money;
+
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -12,9 +13,10 @@ public class BookingResponse {
     private String screenName;
     private Integer totalSeats;
     private List<String> seatNumbers;
-    private BigDecimal totalAmount;
-    private BigDecimal discountAmount;
-    private BigDecimal finalAmount;
+    private Money totalAmount;
+    private Money discountAmount;
+    private Money finalAmount;
+    private Long priceVersion;
     private String promoCodeUsed;
     private String bookingStatus;
     private LocalDateTime bookingTime;
@@ -41,14 +43,17 @@ public class BookingResponse {
     public List<String> getSeatNumbers() { return seatNumbers; }
     public void setSeatNumbers(List<String> seatNumbers) { this.seatNumbers = seatNumbers; }
 
-    public BigDecimal getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+    public Money getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(Money totalAmount) { this.totalAmount = totalAmount; }
+
+    public Money getDiscountAmount() { return discountAmount; }
+    public void setDiscountAmount(Money discountAmount) { this.discountAmount = discountAmount; }
 
-    public BigDecimal getDiscountAmount() { return discountAmount; }
-    public void setDiscountAmount(BigDecimal discountAmount) { this.discountAmount = discountAmount; }
+    public Money getFinalAmount() { return finalAmount; }
+    public void setFinalAmount(Money finalAmount) { this.finalAmount = finalAmount; }
 
-    public BigDecimal getFinalAmount() { return finalAmount; }
-    public void setFinalAmount(BigDecimal finalAmount) { this.finalAmount = finalAmount; }
+    public Long getPriceVersion() { return priceVersion; }
+    public void setPriceVersion(Long priceVersion) { this.priceVersion = priceVersion; }
 
     public String getPromoCodeUsed() { return promoCodeUsed; }
     public void setPromoCodeUsed(String promoCodeUsed) { this.promoCodeUsed = promoCodeUsed; }
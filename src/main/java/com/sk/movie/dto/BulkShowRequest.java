@@ -0,0 +1,35 @@
+package com.sk.movie.dto;
+
+import com.sk.movie.entities.Money;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class BulkShowRequest {
+    @NotNull
+    private Long movieId;
+
+    @NotEmpty
+    private List<Long> screenIds;
+
+    @NotEmpty
+    private List<LocalDateTime> showTimes; // one show per screen per time
+
+    @NotNull
+    private Money pricePerSeat;
+
+    // Getters and setters
+    public Long getMovieId() { return movieId; }
+    public void setMovieId(Long movieId) { this.movieId = movieId; }
+
+    public List<Long> getScreenIds() { return screenIds; }
+    public void setScreenIds(List<Long> screenIds) { this.screenIds = screenIds; }
+
+    public List<LocalDateTime> getShowTimes() { return showTimes; }
+    public void setShowTimes(List<LocalDateTime> showTimes) { this.showTimes = showTimes; }
+
+    public Money getPricePerSeat() { return pricePerSeat; }
+    public void setPricePerSeat(Money pricePerSeat) { this.pricePerSeat = pricePerSeat; }
+}
@@ -0,0 +1,16 @@
+package com.sk.movie.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class GroupBookingRequest {
+    @NotEmpty(message = "At least one show must be booked")
+    @Valid
+    private List<BookingRequest> bookings; // one entry per show
+
+    // Getters and setters
+    public List<BookingRequest> getBookings() { return bookings; }
+    public void setBookings(List<BookingRequest> bookings) { this.bookings = bookings; }
+}
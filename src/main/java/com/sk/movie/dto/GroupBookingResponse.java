@@ -0,0 +1,29 @@
+package com.sk.movie.dto;
+
+import com.sk.movie.entities.Money;
+
+import java.util.List;
+
+public class GroupBookingResponse {
+    private Integer totalSeats;
+    private Money totalAmount;
+    private Money discountAmount;
+    private Money finalAmount;
+    private List<BookingResponse> bookings;
+
+    // Getters and setters
+    public Integer getTotalSeats() { return totalSeats; }
+    public void setTotalSeats(Integer totalSeats) { this.totalSeats = totalSeats; }
+
+    public Money getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(Money totalAmount) { this.totalAmount = totalAmount; }
+
+    public Money getDiscountAmount() { return discountAmount; }
+    public void setDiscountAmount(Money discountAmount) { this.discountAmount = discountAmount; }
+
+    public Money getFinalAmount() { return finalAmount; }
+    public void setFinalAmount(Money finalAmount) { this.finalAmount = finalAmount; }
+
+    public List<BookingResponse> getBookings() { return bookings; }
+    public void setBookings(List<BookingResponse> bookings) { this.bookings = bookings; }
+}
@@ -0,0 +1,24 @@
+package com.sk.movie.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class HoldResponse {
+    private String holdId;
+    private Long showId;
+    private List<Long> seatIds;
+    private LocalDateTime expiresAt;
+
+    // Getters and setters
+    public String getHoldId() { return holdId; }
+    public void setHoldId(String holdId) { this.holdId = holdId; }
+
+    public Long getShowId() { return showId; }
+    public void setShowId(Long showId) { this.showId = showId; }
+
+    public List<Long> getSeatIds() { return seatIds; }
+    public void setSeatIds(List<Long> seatIds) { this.seatIds = seatIds; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,38 @@
+package com.sk.movie.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class ScreenRequest {
+    @NotBlank
+    private String name;
+
+    @NotNull
+    @Min(1)
+    @Max(100)
+    private Integer rowCount;
+
+    @NotNull
+    @Min(1)
+    @Max(200)
+    private Integer seatsPerRow;
+
+    private List<String> blockedSeats; // Optional, e.g. ["A1", "A2"]
+
+    // Getters and setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Integer getRowCount() { return rowCount; }
+    public void setRowCount(Integer rowCount) { this.rowCount = rowCount; }
+
+    public Integer getSeatsPerRow() { return seatsPerRow; }
+    public void setSeatsPerRow(Integer seatsPerRow) { this.seatsPerRow = seatsPerRow; }
+
+    public List<String> getBlockedSeats() { return blockedSeats; }
+    public void setBlockedSeats(List<String> blockedSeats) { this.blockedSeats = blockedSeats; }
+}
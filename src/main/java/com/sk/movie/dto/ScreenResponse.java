@@ -0,0 +1,31 @@
+package com.sk.movie.dto;
+
+import java.util.List;
+
+public class ScreenResponse {
+    private Long screenId;
+    private String name;
+    private int rowCount;
+    private int seatsPerRow;
+    private List<String> blockedSeats;
+    private int totalSeats;
+
+    // Getters and setters
+    public Long getScreenId() { return screenId; }
+    public void setScreenId(Long screenId) { this.screenId = screenId; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public int getRowCount() { return rowCount; }
+    public void setRowCount(int rowCount) { this.rowCount = rowCount; }
+
+    public int getSeatsPerRow() { return seatsPerRow; }
+    public void setSeatsPerRow(int seatsPerRow) { this.seatsPerRow = seatsPerRow; }
+
+    public List<String> getBlockedSeats() { return blockedSeats; }
+    public void setBlockedSeats(List<String> blockedSeats) { this.blockedSeats = blockedSeats; }
+
+    public int getTotalSeats() { return totalSeats; }
+    public void setTotalSeats(int totalSeats) { this.totalSeats = totalSeats; }
+}
@@ -0,0 +1,21 @@
+package com.sk.movie.dto;
+
+public class SeatChangeResponse {
+    private Long seatId;
+    private String status; // BOOKED, HELD or RELEASED
+
+    public SeatChangeResponse() {
+    }
+
+    public SeatChangeResponse(Long seatId, String status) {
+        this.seatId = seatId;
+        this.status = status;
+    }
+
+    // Getters and setters
+    public Long getSeatId() { return seatId; }
+    public void setSeatId(Long seatId) { this.seatId = seatId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
@@ -0,0 +1,23 @@
+package com.sk.movie.dto;
+
+import java.util.List;
+
+public class SeatEventResponse {
+    private Long showId;
+    private String epoch;   // epoch of the version, as in the seat map
+    private Long version;   // seat map version the event was built at; null when the show has no cached map
+    private List<SeatChangeResponse> changes;
+
+    // Getters and setters
+    public Long getShowId() { return showId; }
+    public void setShowId(Long showId) { this.showId = showId; }
+
+    public String getEpoch() { return epoch; }
+    public void setEpoch(String epoch) { this.epoch = epoch; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public List<SeatChangeResponse> getChanges() { return changes; }
+    public void setChanges(List<SeatChangeResponse> changes) { this.changes = changes; }
+}
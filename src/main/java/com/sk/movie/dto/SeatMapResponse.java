@@ -0,0 +1,35 @@
+package com.sk.movie.dto;
+
+import java.util.List;
+
+public class SeatMapResponse {
+    private Long showId;
+    private String epoch; // send back with since; versions from another epoch get the full map
+    private long version;
+    private long priceVersion; // send back as priceVersion when booking to keep these prices
+    private boolean delta; // true when seats only lists the seats changed since the client's version
+    private int availableSeats;
+    private List<SeatStatusResponse> seats;
+
+    // Getters and setters
+    public Long getShowId() { return showId; }
+    public void setShowId(Long showId) { this.showId = showId; }
+
+    public String getEpoch() { return epoch; }
+    public void setEpoch(String epoch) { this.epoch = epoch; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public long getPriceVersion() { return priceVersion; }
+    public void setPriceVersion(long priceVersion) { this.priceVersion = priceVersion; }
+
+    public boolean isDelta() { return delta; }
+    public void setDelta(boolean delta) { this.delta = delta; }
+
+    public int getAvailableSeats() { return availableSeats; }
+    public void setAvailableSeats(int availableSeats) { this.availableSeats = availableSeats; }
+
+    public List<SeatStatusResponse> getSeats() { return seats; }
+    public void setSeats(List<SeatStatusResponse> seats) { this.seats = seats; }
+}
@@ -0,0 +1,31 @@
+package com.sk.movie.dto;
+
+import com.sk.movie.entities.Money;
+
+public class SeatStatusResponse {
+    private Long seatId;
+    private String rowName;
+    private String seatNumber;
+    private boolean available;
+    private Money price;
+    private String zone; // FRONT, MIDDLE or BACK; null until the show is priced
+
+    // Getters and setters
+    public Long getSeatId() { return seatId; }
+    public void setSeatId(Long seatId) { this.seatId = seatId; }
+
+    public String getRowName() { return rowName; }
+    public void setRowName(String rowName) { this.rowName = rowName; }
+
+    public String getSeatNumber() { return seatNumber; }
+    public void setSeatNumber(String seatNumber) { this.seatNumber = seatNumber; }
+
+    public boolean isAvailable() { return available; }
+    public void setAvailable(boolean available) { this.available = available; }
+
+    public Money getPrice() { return price; }
+    public void setPrice(Money price) { this.price = price; }
+
+    public String getZone() { return zone; }
+    public void setZone(String zone) { this.zone = zone; }
+}
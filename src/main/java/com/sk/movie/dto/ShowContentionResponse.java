@@ -0,0 +1,33 @@
+package com.sk.movie.dto;
+
+public class ShowContentionResponse {
+    private Long showId;
+    private String mode;
+    private int inFlight;
+    private long attempts;
+    private long conflicts;
+    private double conflictRate;
+    private long avgLockWaitMs;
+
+    // Getters and setters
+    public Long getShowId() { return showId; }
+    public void setShowId(Long showId) { this.showId = showId; }
+
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+
+    public int getInFlight() { return inFlight; }
+    public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+
+    public long getAttempts() { return attempts; }
+    public void setAttempts(long attempts) { this.attempts = attempts; }
+
+    public long getConflicts() { return conflicts; }
+    public void setConflicts(long conflicts) { this.conflicts = conflicts; }
+
+    public double getConflictRate() { return conflictRate; }
+    public void setConflictRate(double conflictRate) { this.conflictRate = conflictRate; }
+
+    public long getAvgLockWaitMs() { return avgLockWaitMs; }
+    public void setAvgLockWaitMs(long avgLockWaitMs) { this.avgLockWaitMs = avgLockWaitMs; }
+}
@@ -1,5 +1,6 @@
 package com.sk.movie.dto;
 
+import com.sk.movie.entities.Money;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -16,11 +17,12 @@ public class ShowRequest {
     @NotBlank
     private String screenName;
 
-    @NotNull
-    private Integer totalSeats;
+    private Long screenId; // Optional, seat map is generated from this screen's layout
+
+    private Integer totalSeats; // Used only when no screen layout is found
 
     @NotNull
-    private Double pricePerSeat;
+    private Money pricePerSeat;
 
 
     // Getters and setters
@@ -50,6 +52,14 @@ public class ShowRequest {
         this.screenName = screenName;
     }
 
+    public Long getScreenId() {
+        return screenId;
+    }
+
+    public void setScreenId(Long screenId) {
+        this.screenId = screenId;
+    }
+
     public Integer getTotalSeats() {
         return totalSeats;
     }
@@ -58,11 +68,11 @@ public class ShowRequest {
         this.totalSeats = totalSeats;
     }
 
-    public Double getPricePerSeat() {
+    public Money getPricePerSeat() {
         return pricePerSeat;
     }
 
-    public void setPricePerSeat(Double pricePerSeat) {
+    public void setPricePerSeat(Money pricePerSeat) {
         this.pricePerSeat = pricePerSeat;
     }
 }
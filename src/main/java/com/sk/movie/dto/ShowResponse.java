@@ -1,5 +1,7 @@
 package com.sk.movie.dto;
 
+import com.sk.movie.entities.Money;
+
 import java.time.LocalDateTime;
 
 public class ShowResponse {
@@ -10,17 +12,17 @@ public class ShowResponse {
     private String screenName;
     private int totalSeats;
     private int availableSeats;
-    private double pricePerSeat;
+    private Money pricePerSeat;
 
 
     // Getters and setters
 
 
-    public double getPricePerSeat() {
+    public Money getPricePerSeat() {
         return pricePerSeat;
     }
 
-    public void setPricePerSeat(double pricePerSeat) {
+    public void setPricePerSeat(Money pricePerSeat) {
         this.pricePerSeat = pricePerSeat;
     }
 
@@ -0,0 +1,52 @@
+package com.sk.movie.entities;
+
+import jakarta.persistence.*;
+
+// Occupancy of one layout seat for one show; a row exists only while the seat is booked //
+// The unique key is what finally rules out double booking across nodes //
+
+@Entity
+@Table(name = "booked_seats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_booked_seats_show_seat", columnNames = {"show_id", "seat_id"}))
+public class BookedSeat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "booked_seats_id_gen")
+    @TableGenerator(name = "booked_seats_id_gen", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "booked_seats", allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long bookedSeatId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "show_id", nullable = false)
+    private Show show;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "seat_id", nullable = false)
+    private Seat seat;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booking_id", nullable = false)
+    private Booking booking;
+
+    public BookedSeat() {
+    }
+
+    public BookedSeat(Show show, Seat seat, Booking booking) {
+        this.show = show;
+        this.seat = seat;
+        this.booking = booking;
+    }
+
+    // Getters and setters
+    public Long getBookedSeatId() { return bookedSeatId; }
+    public void setBookedSeatId(Long bookedSeatId) { this.bookedSeatId = bookedSeatId; }
+
+    public Show getShow() { return show; }
+    public void setShow(Show show) { this.show = show; }
+
+    public Seat getSeat() { return seat; }
+    public void setSeat(Seat seat) { this.seat = seat; }
+
+    public Booking getBooking() { return booking; }
+    public void setBooking(Booking booking) { this.booking = booking; }
+}
@@ -3,16 +3,29 @@ package com.sk.movie.entities;
 
 import jakarta.persistence.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
+// Booking.details is the fetch plan for listings: everything a BookingResponse shows, in one query //
+// The indexes serve the admin keyset pages, newest first, optionally within one show //
+
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_time_id", columnList = "booking_time, booking_id"),
+        @Index(name = "idx_bookings_show_time_id", columnList = "show_id, booking_time, booking_id")
+})
+@NamedEntityGraph(name = "Booking.details", attributeNodes = {
+        @NamedAttributeNode(value = "show", subgraph = "show"),
+        @NamedAttributeNode("promoCode"),
+        @NamedAttributeNode("seats")
+}, subgraphs = @NamedSubgraph(name = "show", attributeNodes = @NamedAttributeNode("movie")))
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "bookings_id_gen")
+    @TableGenerator(name = "bookings_id_gen", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "bookings", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long bookingId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -30,13 +43,16 @@ public class Booking {
     private Integer totalSeats;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal totalAmount;
+    private Money totalAmount;
 
     @Column(precision = 10, scale = 2)
-    private BigDecimal discountAmount = BigDecimal.ZERO;
+    private Money discountAmount = Money.ZERO;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal finalAmount;
+    private Money finalAmount;
+
+    // Version of the seat price table the booking was priced from; 0 for the show's base price
+    private Long priceVersion;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "promo_code_id")
@@ -48,9 +64,10 @@ public class Booking {
 
     private LocalDateTime bookingTime;
 
+    // Layout seats of the booking, kept after cancellation as booking history
     @ManyToMany
     @JoinTable(
-            name = "booking_seats",
+            name = "booking_layout_seats",
             joinColumns = @JoinColumn(name = "booking_id"),
             inverseJoinColumns = @JoinColumn(name = "seat_id")
     )
@@ -77,14 +94,17 @@ public class Booking {
     public Integer getTotalSeats() { return totalSeats; }
     public void setTotalSeats(Integer totalSeats) { this.totalSeats = totalSeats; }
 
-    public BigDecimal getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+    public Money getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(Money totalAmount) { this.totalAmount = totalAmount; }
+
+    public Money getDiscountAmount() { return discountAmount; }
+    public void setDiscountAmount(Money discountAmount) { this.discountAmount = discountAmount; }
 
-    public BigDecimal getDiscountAmount() { return discountAmount; }
-    public void setDiscountAmount(BigDecimal discountAmount) { this.discountAmount = discountAmount; }
+    public Money getFinalAmount() { return finalAmount; }
+    public void setFinalAmount(Money finalAmount) { this.finalAmount = finalAmount; }
 
-    public BigDecimal getFinalAmount() { return finalAmount; }
-    public void setFinalAmount(BigDecimal finalAmount) { this.finalAmount = finalAmount; }
+    public Long getPriceVersion() { return priceVersion; }
+    public void setPriceVersion(Long priceVersion) { this.priceVersion = priceVersion; }
 
     public PromoCode getPromoCode() { return promoCode; }
     public void setPromoCode(PromoCode promoCode) { this.promoCode = promoCode; }
@@ -2,5 +2,7 @@ package com.sk.movie.entities;
 
 public enum DiscountType {
     FREE_SEAT,
-    FLAT_DISCOUNT
+    FLAT_DISCOUNT,
+    PERCENTAGE,
+    RULE  // discount and conditions come from PromoCode.rule
 }
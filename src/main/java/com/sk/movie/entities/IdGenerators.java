@@ -0,0 +1,14 @@
+package com.sk.movie.entities;
+
+// Shared settings for the pooled table id generators used by all entities //
+// IDENTITY ids force Hibernate to insert rows one by one; pooled ids let inserts be JDBC-batched //
+
+public final class IdGenerators {
+    public static final String TABLE = "id_generators";
+    public static final String NAME_COLUMN = "gen_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {
+    }
+}
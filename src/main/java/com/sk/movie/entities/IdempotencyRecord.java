@@ -0,0 +1,70 @@
+package com.sk.movie.entities;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Result of a booking request sent with an Idempotency-Key header //
+// Keys are scoped per user; retries with the same key get the stored response back //
+// A pending row reserves the key while its booking runs; the booking transaction stores the response //
+
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_user_key", columnNames = {"user_id", "idempotency_key"}),
+        indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "idempotency_keys_id_gen")
+    @TableGenerator(name = "idempotency_keys_id_gen", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "idempotency_keys", allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long idempotencyRecordId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body, so a reused key with a different request is detected
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    // Empty while the key is pending
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String responseBody;
+
+    @Column(nullable = false)
+    private boolean pending;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Getters and setters
+    public Long getIdempotencyRecordId() { return idempotencyRecordId; }
+    public void setIdempotencyRecordId(Long idempotencyRecordId) { this.idempotencyRecordId = idempotencyRecordId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+
+    public boolean isPending() { return pending; }
+    public void setPending(boolean pending) { this.pending = pending; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,107 @@
+package com.sk.movie.entities;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+// Exact amount of money as a whole number of minor units (paise) plus its currency //
+// Immutable; arithmetic is plain long arithmetic that fails on overflow instead of wrapping. //
+// Stored in the existing DECIMAL columns by MoneyConverter and written to JSON as a plain number //
+
+public final class Money implements Comparable<Money> {
+
+    // Currency of every stored amount; the columns hold no currency of their own
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("INR");
+
+    public static final Money ZERO = new Money(0, DEFAULT_CURRENCY);
+
+    private final long minor;
+    private final Currency currency;
+
+    private Money(long minor, Currency currency) {
+        this.minor = minor;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minor) {
+        return minor == 0 ? ZERO : new Money(minor, DEFAULT_CURRENCY);
+    }
+
+    public static Money ofMinor(long minor, Currency currency) {
+        return currency == DEFAULT_CURRENCY ? ofMinor(minor) : new Money(minor, currency);
+    }
+
+    //     * Amount in major units, e.g. 250.50 rupees //
+    //     * Throws IllegalArgumentException for fractions of a minor unit or amounts too large for a long //
+
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        try {
+            return ofMinor(amount.movePointRight(DEFAULT_CURRENCY.getDefaultFractionDigits()).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Not an exact amount of " + DEFAULT_CURRENCY + ": " + amount);
+        }
+    }
+
+    public long getMinor() { return minor; }
+
+    public Currency getCurrency() { return currency; }
+
+    public Money plus(Money other) {
+        checkCurrency(other);
+        return ofMinor(Math.addExact(minor, other.minor), currency);
+    }
+
+    public Money minus(Money other) {
+        checkCurrency(other);
+        return ofMinor(Math.subtractExact(minor, other.minor), currency);
+    }
+
+    public Money times(long factor) {
+        return ofMinor(Math.multiplyExact(minor, factor), currency);
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minor), currency);
+    }
+
+    public boolean isZero() { return minor == 0; }
+
+    public boolean isNegative() { return minor < 0; }
+
+    // Amount in major units, for JSON and JDBC //
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minor, currency.getDefaultFractionDigits());
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkCurrency(other);
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && minor == other.minor && currency == other.currency;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minor) * 31 + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return currency.getCurrencyCode() + " " + toBigDecimal().toPlainString();
+    }
+
+    private void checkCurrency(Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Cannot combine " + currency + " and " + other.currency + " amounts");
+        }
+    }
+}
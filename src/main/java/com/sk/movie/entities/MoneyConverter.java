@@ -0,0 +1,28 @@
+package com.sk.movie.entities;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+// Stores Money attributes in DECIMAL columns, in the default currency //
+
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        if (money == null) {
+            return null;
+        }
+        if (money.getCurrency() != Money.DEFAULT_CURRENCY) {
+            throw new IllegalArgumentException("Only " + Money.DEFAULT_CURRENCY + " amounts can be stored: " + money);
+        }
+        return money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.of(amount);
+    }
+}
@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 @Table(name = "movies")
 public class Movie {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "movies_id_gen")
+    @TableGenerator(name = "movies_id_gen", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "movies", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long movieId;
 
     @Column(nullable = false, length = 200)
@@ -7,9 +7,13 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "promo_codes")
+@EntityListeners(PromoCodeChangeListener.class)
 public class PromoCode {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "promo_codes_id_gen")
+    @TableGenerator(name = "promo_codes_id_gen", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "promo_codes", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long promoCodeId;
 
     @Column(unique = true, nullable = false, length = 50)
@@ -38,6 +42,18 @@ public class PromoCode {
     @Column(nullable = false)
     private Boolean isActive = true;
 
+    // Promo rule text, see PromoRuleParser; when null the discount type and value apply
+    @Column(length = 1000)
+    private String rule;
+
+    // Added on top of the best non-stackable promotion instead of competing with it
+    @Column(nullable = false)
+    private Boolean stackable = false;
+
+    // Applied to every booking that meets the rule, without the customer entering the code
+    @Column(nullable = false)
+    private Boolean autoApply = false;
+
     private LocalDateTime createdAt;
 
     @PrePersist
@@ -76,5 +92,14 @@ public class PromoCode {
     public Boolean getIsActive() { return isActive; }
     public void setIsActive(Boolean isActive) { this.isActive = isActive; }
 
+    public String getRule() { return rule; }
+    public void setRule(String rule) { this.rule = rule; }
+
+    public Boolean getStackable() { return stackable; }
+    public void setStackable(Boolean stackable) { this.stackable = stackable; }
+
+    public Boolean getAutoApply() { return autoApply; }
+    public void setAutoApply(Boolean autoApply) { this.autoApply = autoApply; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
 }
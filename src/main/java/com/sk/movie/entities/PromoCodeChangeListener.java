@@ -0,0 +1,23 @@
+package com.sk.movie.entities;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+// Turns promo code writes into application events, so cached copies are dropped //
+// Hibernate creates this through Spring, which injects the publisher //
+
+public class PromoCodeChangeListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void promoCodeChanged(PromoCode promoCode) {
+        eventPublisher.publishEvent(new PromoCodeChangedEvent(promoCode.getPromoCodeId(), promoCode.getCode()));
+    }
+}
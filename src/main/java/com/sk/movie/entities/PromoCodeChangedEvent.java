@@ -0,0 +1,6 @@
+package com.sk.movie.entities;
+
+// Published when a promo code is created, changed or deleted through JPA //
+
+public record PromoCodeChangedEvent(Long promoCodeId, String code) {
+}
@@ -0,0 +1,56 @@
+package com.sk.movie.entities;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Reusable seat layout of an auditorium: rows x seats per row, minus blocked seats //
+
+@Entity
+@Table(name = "screens")
+public class Screen {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "screens_id_gen")
+    @TableGenerator(name = "screens_id_gen", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "screens", allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long screenId;
+
+    @Column(unique = true, nullable = false, length = 50)
+    private String name;
+
+    @Column(nullable = false)
+    private Integer rowCount;
+
+    @Column(nullable = false)
+    private Integer seatsPerRow;
+
+    // Comma-separated seat labels that are never sold, e.g. "A1,A2,J10"
+    @Column(columnDefinition = "TEXT")
+    private String blockedSeats;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Getters and setters
+    public Long getScreenId() { return screenId; }
+    public void setScreenId(Long screenId) { this.screenId = screenId; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Integer getRowCount() { return rowCount; }
+    public void setRowCount(Integer rowCount) { this.rowCount = rowCount; }
+
+    public Integer getSeatsPerRow() { return seatsPerRow; }
+    public void setSeatsPerRow(Integer seatsPerRow) { this.seatsPerRow = seatsPerRow; }
+
+    public String getBlockedSeats() { return blockedSeats; }
+    public void setBlockedSeats(String blockedSeats) { this.blockedSeats = blockedSeats; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
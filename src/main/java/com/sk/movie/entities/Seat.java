@@ -2,16 +2,22 @@ package com.sk.movie.entities;
 
 import jakarta.persistence.*;
 
+// One physical seat of a screen layout, shared by every show on that screen //
+
 @Entity
-@Table(name = "seats")
+@Table(name = "screen_seats",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"screen_id", "row_name", "seat_number"}))
 public class Seat {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "screen_seats_id_gen")
+    @TableGenerator(name = "screen_seats_id_gen", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "screen_seats", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long seatId;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "show_id", nullable = false)
-    private Show show;
+    @JoinColumn(name = "screen_id", nullable = false)
+    private Screen screen;
 
     @Column(nullable = false, length = 10)
     private String seatNumber;
@@ -19,18 +25,19 @@ public class Seat {
     @Column(nullable = false, length = 5)
     private String rowName;
 
+    // Zero-based position in the layout grid
     @Column(nullable = false)
-    private Boolean isBooked = false;
+    private Integer rowIndex;
 
-    @Version
-    private Long version; // Optimistic locking
+    @Column(nullable = false)
+    private Integer seatIndex;
 
     // Getters and setters
     public Long getSeatId() { return seatId; }
     public void setSeatId(Long seatId) { this.seatId = seatId; }
 
-    public Show getShow() { return show; }
-    public void setShow(Show show) { this.show = show; }
+    public Screen getScreen() { return screen; }
+    public void setScreen(Screen screen) { this.screen = screen; }
 
     public String getSeatNumber() { return seatNumber; }
     public void setSeatNumber(String seatNumber) { this.seatNumber = seatNumber; }
@@ -38,9 +45,9 @@ public class Seat {
     public String getRowName() { return rowName; }
     public void setRowName(String rowName) { this.rowName = rowName; }
 
-    public Boolean getIsBooked() { return isBooked; }
-    public void setIsBooked(Boolean isBooked) { this.isBooked = isBooked; }
+    public Integer getRowIndex() { return rowIndex; }
+    public void setRowIndex(Integer rowIndex) { this.rowIndex = rowIndex; }
 
-    public Long getVersion() { return version; }
-    public void setVersion(Long version) { this.version = version; }
+    public Integer getSeatIndex() { return seatIndex; }
+    public void setSeatIndex(Integer seatIndex) { this.seatIndex = seatIndex; }
 }
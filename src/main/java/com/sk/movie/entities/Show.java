@@ -2,14 +2,16 @@ package com.sk.movie.entities;
 
 import jakarta.persistence.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "shows")
 public class Show {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "shows_id_gen")
+    @TableGenerator(name = "shows_id_gen", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "shows", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long showId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -19,6 +21,11 @@ public class Show {
     @Column(nullable = false)
     private LocalDateTime showTime;
 
+    // Seat layout of the show; null only for shows not yet migrated off per-show seat rows
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "screen_id")
+    private Screen screen;
+
     @Column(nullable = false, length = 50)
     private String screenName;
 
@@ -29,7 +36,7 @@ public class Show {
     private Integer availableSeats;
 
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal pricePerSeat;
+    private Money pricePerSeat;
 
     @Column(nullable = false)
     private Boolean isActive = true;
@@ -64,6 +71,9 @@ public class Show {
     public LocalDateTime getShowTime() { return showTime; }
     public void setShowTime(LocalDateTime showTime) { this.showTime = showTime; }
 
+    public Screen getScreen() { return screen; }
+    public void setScreen(Screen screen) { this.screen = screen; }
+
     public String getScreenName() { return screenName; }
     public void setScreenName(String screenName) { this.screenName = screenName; }
 
@@ -73,8 +83,8 @@ public class Show {
     public Integer getAvailableSeats() { return availableSeats; }
     public void setAvailableSeats(Integer availableSeats) { this.availableSeats = availableSeats; }
 
-    public BigDecimal getPricePerSeat() { return pricePerSeat; }
-    public void setPricePerSeat(BigDecimal pricePerSeat) { this.pricePerSeat = pricePerSeat; }
+    public Money getPricePerSeat() { return pricePerSeat; }
+    public void setPricePerSeat(Money pricePerSeat) { this.pricePerSeat = pricePerSeat; }
 
     public Boolean getIsActive() { return isActive; }
     public void setIsActive(Boolean isActive) { this.isActive = isActive; }
@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 @Table(name = "users")
 public class User {
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_id_gen")
+    @TableGenerator(name = "users_id_gen", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "users", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long userId;
 
     @Column(unique = true, nullable = false, length = 50)
@@ -0,0 +1,40 @@
+package com.sk.movie.entities;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Running totals of a user's confirmed bookings, read by promo eligibility checks //
+// Bookings and cancellations adjust the row incrementally; the rebuild job recomputes it from bookings //
+
+@Entity
+@Table(name = "user_promo_stats")
+public class UserPromoStats {
+    // Same id as the user, so no generator is needed
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "confirmed_bookings", nullable = false)
+    private Long confirmedBookings = 0L;
+
+    @Column(name = "total_spending", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalSpending = BigDecimal.ZERO;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Getters and setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getConfirmedBookings() { return confirmedBookings; }
+    public void setConfirmedBookings(Long confirmedBookings) { this.confirmedBookings = confirmedBookings; }
+
+    public BigDecimal getTotalSpending() { return totalSpending; }
+    public void setTotalSpending(BigDecimal totalSpending) { this.totalSpending = totalSpending; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
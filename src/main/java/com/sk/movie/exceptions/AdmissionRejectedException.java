@@ -0,0 +1,18 @@
+package com.sk.movie.exceptions;
+
+// Request turned away by admission control; queueFull maps to 429, otherwise 503 //
+
+public class AdmissionRejectedException extends RuntimeException {
+    private final boolean queueFull;
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, boolean queueFull, long retryAfterSeconds) {
+        super(message);
+        this.queueFull = queueFull;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public boolean isQueueFull() { return queueFull; }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
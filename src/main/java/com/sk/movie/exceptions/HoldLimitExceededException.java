@@ -0,0 +1,9 @@
+package com.sk.movie.exceptions;
+
+// A user already has the most seat holds allowed at once; maps to 429 //
+
+public class HoldLimitExceededException extends BusinessException {
+    public HoldLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.sk.movie.exceptions;
+
+// Thrown when a request reuses an Idempotency-Key whose first request is still running //
+
+public class IdempotencyKeyConflictException extends RuntimeException {
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
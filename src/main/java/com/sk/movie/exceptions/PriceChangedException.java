@@ -0,0 +1,7 @@
+package com.sk.movie.exceptions;
+
+public class PriceChangedException extends RuntimeException {
+    public PriceChangedException(String message) {
+        super(message);
+    }
+}
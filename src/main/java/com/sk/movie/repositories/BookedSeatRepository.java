@@ -0,0 +1,29 @@
+package com.sk.movie.repositories;
+
+import com.sk.movie.entities.BookedSeat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookedSeatRepository extends JpaRepository<BookedSeat, Long> {
+    @Query("SELECT b.seat.seatId FROM BookedSeat b WHERE b.show.showId = :showId")
+    List<Long> findBookedSeatIds(Long showId);
+
+    // Which of the given seats are already booked for the show //
+    @Query("SELECT b.seat.seatId FROM BookedSeat b WHERE b.show.showId = :showId AND b.seat.seatId IN :seatIds")
+    List<Long> findBookedSeatIds(Long showId, Collection<Long> seatIds);
+
+    // Booked (showId, seatId) pairs among the given shows and seats, for checking several shows in one query //
+    @Query("SELECT b.show.showId, b.seat.seatId FROM BookedSeat b WHERE b.show.showId IN :showIds AND b.seat.seatId IN :seatIds")
+    List<Object[]> findBookedSeats(Collection<Long> showIds, Collection<Long> seatIds);
+
+    // Frees every seat of the booking; returns how many rows were removed //
+    @Modifying
+    @Query("DELETE FROM BookedSeat b WHERE b.booking.bookingId = :bookingId")
+    int deleteByBookingId(Long bookingId);
+}
@@ -2,19 +2,46 @@ package com.sk.movie.repositories;
 
 import com.sk.movie.entities.Booking;
 import com.sk.movie.entities.BookingStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    @EntityGraph("Booking.details")
     List<Booking> findByUserUserIdOrderByBookingTimeDesc(Long userId);
 
+    //     * Keyset page of booking ids, newest first //
+    //     * afterTime/afterId are the last booking of the previous page, null for the first page //
+    @Query("SELECT b.bookingId FROM Booking b " +
+            "WHERE (:showId IS NULL OR b.show.showId = :showId) " +
+            "AND (:status IS NULL OR b.bookingStatus = :status) " +
+            "AND (:from IS NULL OR b.bookingTime >= :from) " +
+            "AND (:to IS NULL OR b.bookingTime < :to) " +
+            "AND (:afterTime IS NULL OR b.bookingTime < :afterTime " +
+            "     OR (b.bookingTime = :afterTime AND b.bookingId < :afterId)) " +
+            "ORDER BY b.bookingTime DESC, b.bookingId DESC")
+    List<Long> findPageIds(Long showId, BookingStatus status, LocalDateTime from, LocalDateTime to,
+                           LocalDateTime afterTime, Long afterId, Limit limit);
+
+    // Bookings of one page with show, movie, promo code and seats; the order is up to the caller //
+    @EntityGraph("Booking.details")
+    @Query("SELECT b FROM Booking b WHERE b.bookingId IN :bookingIds")
+    List<Booking> findAllWithDetailsByIds(Collection<Long> bookingIds);
+
     List<Booking> findByShowShowIdAndBookingStatus(Long showId, BookingStatus status);
 
+    @Query("SELECT b.show.showId FROM Booking b WHERE b.bookingId = :bookingId")
+    Optional<Long> findShowId(Long bookingId);
+
     @Query("SELECT COUNT(b) FROM Booking b WHERE b.user.userId = :userId AND b.bookingStatus = 'CONFIRMED'")
     Long countConfirmedBookingsByUser(Long userId);
 
@@ -0,0 +1,41 @@
+package com.sk.movie.repositories;
+
+import com.sk.movie.entities.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    // Removes keys past their TTL; returns how many rows were removed //
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+
+    // Removes one key if it is past its TTL, so a key is only taken over once it is stale //
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyRecordId = :id AND r.expiresAt < :now")
+    int deleteIfExpired(Long id, LocalDateTime now);
+
+    // Releases a reservation whose booking failed; a completed key is kept //
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyRecordId = :id AND r.pending = true")
+    int deletePending(Long id);
+
+    // Stores the response of a reserved key; returns 0 when the reservation is gone //
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.responseBody = :responseBody, r.pending = false, r.expiresAt = :expiresAt "
+            + "WHERE r.idempotencyRecordId = :id AND r.pending = true")
+    int complete(Long id, String responseBody, LocalDateTime expiresAt);
+}
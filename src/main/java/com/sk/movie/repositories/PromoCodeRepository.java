@@ -2,11 +2,32 @@ package com.sk.movie.repositories;
 
 import com.sk.movie.entities.PromoCode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PromoCodeRepository extends JpaRepository<PromoCode, Long> {
     Optional<PromoCode> findByCodeAndIsActiveTrue(String code);
+
+    List<PromoCode> findByAutoApplyTrueAndIsActiveTrue();
+
+    // Uses still available to lease, null when the code is unlimited or gone //
+    @Query("SELECT p.maxUses - p.currentUses FROM PromoCode p WHERE p.promoCodeId = :promoCodeId")
+    Integer findRemainingUses(Long promoCodeId);
+
+    //     * Takes uses off a limited code in one conditional statement //
+    //     * Returns 0 when fewer than that many are left, so the limit can never be passed //
+    @Modifying
+    @Query("UPDATE PromoCode p SET p.currentUses = p.currentUses + :uses " +
+            "WHERE p.promoCodeId = :promoCodeId AND p.maxUses IS NOT NULL AND p.currentUses + :uses <= p.maxUses")
+    int leaseUses(Long promoCodeId, int uses);
+
+    // Adds redeemed uses of an unlimited code, or hands back unused leased ones with a negative count //
+    @Modifying
+    @Query("UPDATE PromoCode p SET p.currentUses = p.currentUses + :uses WHERE p.promoCodeId = :promoCodeId")
+    int addUses(Long promoCodeId, int uses);
 }
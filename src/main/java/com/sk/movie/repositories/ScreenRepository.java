@@ -0,0 +1,13 @@
+package com.sk.movie.repositories;
+
+import com.sk.movie.entities.Screen;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ScreenRepository extends JpaRepository<Screen, Long> {
+    Optional<Screen> findByName(String name);
+    boolean existsByName(String name);
+}
@@ -1,6 +1,7 @@
 package com.sk.movie.repositories;
 
 
+import com.sk.movie.entities.Money;
 import com.sk.movie.entities.Show;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,8 +24,30 @@ public interface ShowRepository extends JpaRepository<Show, Long> {
     @Query("SELECT s FROM Show s WHERE s.showId = :showId")
     Optional<Show> findByIdWithLock(Long showId);
 
+    // Row-locks several shows; ordered by id so concurrent callers lock them in the same order //
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Show s WHERE s.showId IN :showIds ORDER BY s.showId")
+    List<Show> findAllByIdWithLock(Collection<Long> showIds);
+
     @Query("SELECT s FROM Show s WHERE s.movie.movieId = :movieId " +
             "AND s.showTime >= :startTime AND s.isActive = true " +
             "ORDER BY s.showTime")
     List<Show> findUpcomingShowsForMovie(Long movieId, LocalDateTime startTime);
+
+    // Pricing inputs of active shows with a layout starting after the given time: //
+    // show id, screen id, show time, total seats, available seats, base price //
+    @Query("SELECT s.showId, s.screen.screenId, s.showTime, s.totalSeats, s.availableSeats, s.pricePerSeat " +
+            "FROM Show s WHERE s.isActive = true AND s.showTime > :after")
+    List<Object[]> findPricingInputs(LocalDateTime after);
+
+    // Of the given shows, those that have started or were deactivated //
+    @Query("SELECT s.showId FROM Show s WHERE s.showId IN :showIds " +
+            "AND (s.showTime <= :now OR s.isActive = false)")
+    List<Long> findClosedShowIds(Collection<Long> showIds, LocalDateTime now);
+
+    @Query("SELECT s.pricePerSeat FROM Show s WHERE s.showId = :showId")
+    Optional<Money> findPricePerSeat(Long showId);
+
+    @Query("SELECT s.screen.screenId FROM Show s WHERE s.showId = :showId")
+    Optional<Long> findScreenId(Long showId);
 }
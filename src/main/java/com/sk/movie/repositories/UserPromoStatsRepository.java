@@ -0,0 +1,50 @@
+package com.sk.movie.repositories;
+
+import com.sk.movie.entities.UserPromoStats;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserPromoStatsRepository extends JpaRepository<UserPromoStats, Long> {
+
+    //     * Adds to a user's totals in place, so concurrent bookings never lose an update //
+    //     * Returns 0 when the user has no stats row yet //
+    @Modifying
+    @Query("UPDATE UserPromoStats s SET s.confirmedBookings = s.confirmedBookings + :bookings, " +
+            "s.totalSpending = s.totalSpending + :spending, s.updatedAt = :now WHERE s.userId = :userId")
+    int addToTotals(Long userId, long bookings, BigDecimal spending, LocalDateTime now);
+
+    // Creates rows, computed from bookings, for users that have none; returns how many were created //
+    @Modifying
+    @Query(value = "INSERT INTO user_promo_stats (user_id, confirmed_bookings, total_spending, updated_at) " +
+            "SELECT u.user_id, " +
+            "(SELECT COUNT(*) FROM bookings b WHERE b.user_id = u.user_id AND b.booking_status = 'CONFIRMED'), " +
+            "(SELECT COALESCE(SUM(b.final_amount), 0) FROM bookings b " +
+            "    WHERE b.user_id = u.user_id AND b.booking_status = 'CONFIRMED'), " +
+            ":now FROM users u " +
+            "WHERE NOT EXISTS (SELECT 1 FROM user_promo_stats s WHERE s.user_id = u.user_id)", nativeQuery = true)
+    int insertMissing(LocalDateTime now);
+
+    // Next chunk of user ids for the rebuild job //
+    @Query("SELECT s.userId FROM UserPromoStats s WHERE s.userId > :afterUserId ORDER BY s.userId")
+    List<Long> findUserIdsAfter(Long afterUserId, Limit limit);
+
+    //     * Recomputes the totals of users fromUserId..toUserId from the bookings table //
+    //     * One statement, so each row is replaced atomically with the bookings committed at that point //
+    @Modifying
+    @Query(value = "UPDATE user_promo_stats s SET " +
+            "confirmed_bookings = (SELECT COUNT(*) FROM bookings b " +
+            "    WHERE b.user_id = s.user_id AND b.booking_status = 'CONFIRMED'), " +
+            "total_spending = (SELECT COALESCE(SUM(b.final_amount), 0) FROM bookings b " +
+            "    WHERE b.user_id = s.user_id AND b.booking_status = 'CONFIRMED'), " +
+            "updated_at = :now " +
+            "WHERE s.user_id BETWEEN :fromUserId AND :toUserId", nativeQuery = true)
+    int recomputeRange(Long fromUserId, Long toUserId, LocalDateTime now);
+}
@@ -19,6 +19,9 @@ public class AuthService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserPromoStatsService userPromoStatsService;
+
     public AuthResponse register(RegisterRequest request) {
         if (userRepository.existsByUsername(request.getUsername()))
             throw new RuntimeException("Username already taken");
@@ -30,6 +33,7 @@ public class AuthService {
         user.setRole(request.getRole() != null ?
                 UserRole.valueOf(request.getRole()) : UserRole.CUSTOMER);
         userRepository.save(user);
+        userPromoStatsService.createFor(user.getUserId());
 
         AuthResponse response = new AuthResponse();
         response.setUserId(user.getUserId());
@@ -0,0 +1,106 @@
+package com.sk.movie.services;
+
+import com.sk.movie.exceptions.AdmissionRejectedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Per-show admission control in front of the booking transaction //
+// Each show runs a few bookings at a time; the rest wait in a bounded FIFO queue and are turned away //
+// with 429 (queue full) or 503 (waited too long) plus a Retry-After estimate, so a release spike //
+// drains at a steady rate instead of exhausting Tomcat threads and Hikari connections //
+
+@Service
+public class BookingAdmissionService {
+
+    @Value("${booking.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${booking.admission.per-show-concurrency:4}")
+    private int perShowConcurrency;
+
+    @Value("${booking.admission.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${booking.admission.max-wait-ms:5000}")
+    private long maxWaitMs;
+
+    private final Map<Long, ShowGate> gates = new ConcurrentHashMap<>();
+
+    public <T> T admit(Long showId, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        // Counted inside compute, so an idle gate is never evicted under a new request
+        ShowGate gate = gates.compute(showId, (id, current) -> {
+            ShowGate joined = current != null ? current : new ShowGate();
+            joined.waiting.incrementAndGet();
+            return joined;
+        });
+        if (gate.waiting.get() > queueCapacity) {
+            gate.waiting.decrementAndGet();
+            throw new AdmissionRejectedException("Too many bookings waiting for this show, please retry",
+                    true, gate.retryAfterSeconds());
+        }
+        boolean admitted;
+        try {
+            // Timed tryAcquire honours the fair ordering, so waiters are admitted first come, first served
+            admitted = gate.permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Booking was interrupted, please retry", false, 1);
+        } finally {
+            gate.waiting.decrementAndGet();
+        }
+        if (!admitted) {
+            throw new AdmissionRejectedException("Booking service is busy for this show, please retry",
+                    false, gate.retryAfterSeconds());
+        }
+
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            gate.recordServiceTime(System.nanoTime() - start);
+            gate.permits.release();
+        }
+    }
+
+    // Forgets shows with nothing running or waiting //
+
+    @Scheduled(fixedDelayString = "${booking.admission.cleanup-interval-ms:60000}")
+    public void evictIdleGates() {
+        gates.keySet().forEach(showId -> gates.computeIfPresent(showId, (id, gate) -> gate.isIdle() ? null : gate));
+    }
+
+    // Concurrency slots and wait queue of one show //
+
+    private class ShowGate {
+        private final Semaphore permits = new Semaphore(perShowConcurrency, true);
+        private final AtomicInteger waiting = new AtomicInteger();
+        private volatile double avgServiceMs = 50;
+
+        void recordServiceTime(long nanos) {
+            // Exponentially weighted; a lost update under contention only skews the estimate slightly
+            avgServiceMs = avgServiceMs * 0.9 + nanos / 1_000_000.0 * 0.1;
+        }
+
+        // Time until everyone queued now has been served, rounded up to whole seconds //
+
+        long retryAfterSeconds() {
+            double queuedRounds = (double) (waiting.get() + perShowConcurrency) / perShowConcurrency;
+            return Math.max(1, (long) Math.ceil(queuedRounds * avgServiceMs / 1000));
+        }
+
+        boolean isIdle() {
+            return waiting.get() == 0 && permits.availablePermits() == perShowConcurrency;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.sk.movie.services;
+
+// How createBooking serializes concurrent bookings //
+
+public enum BookingConcurrencyMode {
+    SERIALIZABLE,   // SERIALIZABLE transaction with a pessimistic show lock
+    STRIPED_LOCK,   // in-process lock per show, READ_COMMITTED, show guarded by @Version
+    OPTIMISTIC,     // no in-process lock, @Version check on the show with bounded retries
+    QUEUED,         // per-show queue, one writer applies bookings in batched transactions
+    ADAPTIVE        // per show, chosen by ContentionMonitor from recent contention
+}
@@ -0,0 +1,194 @@
+package com.sk.movie.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sk.movie.dto.BookingFilter;
+import com.sk.movie.exceptions.BusinessException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Streams bookings to admin exports as NDJSON or CSV //
+// Rows come from a forward-only JDBC cursor in booking id order and are written as they arrive, //
+// so memory stays constant however many bookings match; only the seats of one booking are buffered //
+
+@Service
+public class BookingExportService {
+
+    private static final String CSV_HEADER = "booking_id,booking_reference,user_id,show_id,movie_title,show_time,"
+            + "total_seats,total_amount,discount_amount,final_amount,promo_code,booking_status,booking_time,seats";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows one by one instead of buffering the result
+    @Value("${booking.export.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    private JdbcTemplate cursorTemplate;
+
+    @PostConstruct
+    void initCursorTemplate() {
+        cursorTemplate = new JdbcTemplate(dataSource);
+        cursorTemplate.setFetchSize(fetchSize);
+    }
+
+    public void export(BookingFilter filter, String format, OutputStream out) {
+        boolean csv = isCsv(format);
+        StringBuilder sql = new StringBuilder(
+                "SELECT b.booking_id, b.booking_reference, b.user_id, b.show_id, m.title, s.show_time, "
+                        + "b.total_seats, b.total_amount, b.discount_amount, b.final_amount, p.code, "
+                        + "b.booking_status, b.booking_time, ss.row_name, ss.seat_number "
+                        + "FROM bookings b "
+                        + "JOIN shows s ON s.show_id = b.show_id "
+                        + "JOIN movies m ON m.movie_id = s.movie_id "
+                        + "LEFT JOIN promo_codes p ON p.promo_code_id = b.promo_code_id "
+                        + "LEFT JOIN booking_layout_seats bls ON bls.booking_id = b.booking_id "
+                        + "LEFT JOIN screen_seats ss ON ss.seat_id = bls.seat_id "
+                        + "WHERE 1 = 1");
+        // Only the filters that are set, so MySQL can pick the matching index
+        List<Object> args = new ArrayList<>();
+        if (filter.getShowId() != null) {
+            sql.append(" AND b.show_id = ?");
+            args.add(filter.getShowId());
+        }
+        if (filter.getStatus() != null) {
+            sql.append(" AND b.booking_status = ?");
+            args.add(filter.getStatus().name());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" AND b.booking_time >= ?");
+            args.add(Timestamp.valueOf(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND b.booking_time < ?");
+            args.add(Timestamp.valueOf(filter.getTo()));
+        }
+        // Seat rows of a booking arrive together, so each booking is complete when the id changes
+        sql.append(" ORDER BY b.booking_id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        BookingRowWriter rowWriter = new BookingRowWriter(writer, csv);
+        try {
+            if (csv) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            cursorTemplate.query(sql.toString(), rowWriter, args.toArray());
+            rowWriter.finish();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Rejects unknown formats before the response is committed //
+
+    public boolean isCsv(String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return true;
+        }
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return false;
+        }
+        throw new BusinessException("Export format must be ndjson or csv");
+    }
+
+    // Folds the seat rows of each booking into one output line //
+
+    private class BookingRowWriter implements RowCallbackHandler {
+        private final Writer writer;
+        private final boolean csv;
+        private Map<String, Object> current;
+        private List<String> seats;
+
+        BookingRowWriter(Writer writer, boolean csv) {
+            this.writer = writer;
+            this.csv = csv;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long bookingId = rs.getLong("booking_id");
+            if (current == null || !current.get("bookingId").equals(bookingId)) {
+                finish();
+                current = new LinkedHashMap<>();
+                current.put("bookingId", bookingId);
+                current.put("bookingReference", rs.getString("booking_reference"));
+                current.put("userId", rs.getLong("user_id"));
+                current.put("showId", rs.getLong("show_id"));
+                current.put("movieTitle", rs.getString("title"));
+                current.put("showTime", toIso(rs.getTimestamp("show_time")));
+                current.put("totalSeats", rs.getInt("total_seats"));
+                current.put("totalAmount", rs.getBigDecimal("total_amount"));
+                current.put("discountAmount", rs.getBigDecimal("discount_amount"));
+                current.put("finalAmount", rs.getBigDecimal("final_amount"));
+                current.put("promoCode", rs.getString("code"));
+                current.put("bookingStatus", rs.getString("booking_status"));
+                current.put("bookingTime", toIso(rs.getTimestamp("booking_time")));
+                seats = new ArrayList<>();
+            }
+            String rowName = rs.getString("row_name");
+            if (rowName != null) {
+                seats.add(rowName + rs.getString("seat_number"));
+            }
+        }
+
+        void finish() {
+            if (current == null) {
+                return;
+            }
+            current.put("seatNumbers", seats);
+            try {
+                writer.write(csv ? toCsv(current) : objectMapper.writeValueAsString(current));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            current = null;
+        }
+
+        private String toCsv(Map<String, Object> booking) {
+            StringBuilder line = new StringBuilder();
+            for (Map.Entry<String, Object> field : booking.entrySet()) {
+                if (line.length() > 0) {
+                    line.append(',');
+                }
+                Object value = field.getValue();
+                String text = value == null ? ""
+                        : value instanceof List<?> list ? String.join(" ", list.stream().map(String::valueOf).toList())
+                        : value.toString();
+                if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0) {
+                    text = '"' + text.replace("\"", "\"\"") + '"';
+                }
+                line.append(text);
+            }
+            return line.toString();
+        }
+
+        private String toIso(Timestamp timestamp) {
+            return timestamp == null ? null : timestamp.toLocalDateTime().toString();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.sk.movie.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters for the booking concurrency paths, exposed through the admin API //
+
+@Component
+public class BookingMetrics {
+
+    private final LongAdder optimisticAttempts = new LongAdder();
+    private final LongAdder optimisticConflicts = new LongAdder();
+    private final LongAdder optimisticRetries = new LongAdder();
+    private final LongAdder optimisticExhausted = new LongAdder();
+    private final LongAdder idempotentExecutions = new LongAdder();
+    private final LongAdder idempotentReplays = new LongAdder();
+    private final LongAdder promoRedemptions = new LongAdder();
+    private final LongAdder promoLeases = new LongAdder();
+    private final LongAdder promoExhausted = new LongAdder();
+    private final LongAdder promoCatalogHits = new LongAdder();
+    private final LongAdder promoCatalogMisses = new LongAdder();
+    private final LongAdder pricePublications = new LongAdder();
+    private final LongAdder priceQuotesHonoured = new LongAdder();
+    private final LongAdder priceQuotesRejected = new LongAdder();
+
+    public void recordOptimisticAttempt() { optimisticAttempts.increment(); }
+    public void recordOptimisticConflict() { optimisticConflicts.increment(); }
+    public void recordOptimisticRetry() { optimisticRetries.increment(); }
+    public void recordOptimisticExhausted() { optimisticExhausted.increment(); }
+    public void recordIdempotentExecution() { idempotentExecutions.increment(); }
+    public void recordIdempotentReplay() { idempotentReplays.increment(); }
+    public void recordPromoRedemption() { promoRedemptions.increment(); }
+    public void recordPromoLease() { promoLeases.increment(); }
+    public void recordPromoExhausted() { promoExhausted.increment(); }
+    public void recordPromoCatalogHit() { promoCatalogHits.increment(); }
+    public void recordPromoCatalogMiss() { promoCatalogMisses.increment(); }
+    public void recordPricePublication() { pricePublications.increment(); }
+    public void recordPriceQuoteHonoured() { priceQuotesHonoured.increment(); }
+    public void recordPriceQuoteRejected() { priceQuotesRejected.increment(); }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("optimistic.attempts", optimisticAttempts.sum());
+        counters.put("optimistic.conflicts", optimisticConflicts.sum());
+        counters.put("optimistic.retries", optimisticRetries.sum());
+        counters.put("optimistic.exhausted", optimisticExhausted.sum());
+        counters.put("idempotency.executions", idempotentExecutions.sum());
+        counters.put("idempotency.replays", idempotentReplays.sum());
+        counters.put("promo.redemptions", promoRedemptions.sum());
+        counters.put("promo.leases", promoLeases.sum());
+        counters.put("promo.exhausted", promoExhausted.sum());
+        counters.put("promo.catalog.hits", promoCatalogHits.sum());
+        counters.put("promo.catalog.misses", promoCatalogMisses.sum());
+        counters.put("pricing.publications", pricePublications.sum());
+        counters.put("pricing.quotes.honoured", priceQuotesHonoured.sum());
+        counters.put("pricing.quotes.rejected", priceQuotesRejected.sum());
+        return counters;
+    }
+}
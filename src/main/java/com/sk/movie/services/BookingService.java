@@ -1,19 +1,45 @@
 package com.sk.movie.services;
 
 import com.sk.movie.dto.BookingRequest;
+import com.sk.movie.dto.BookingFilter;
+import com.sk.movie.dto.BookingPageResponse;
 import com.sk.movie.dto.BookingResponse;
+import com.sk.movie.dto.GroupBookingRequest;
+import com.sk.movie.dto.GroupBookingResponse;
 import com.sk.movie.entities.*;
 import com.sk.movie.exceptions.*;
 import com.sk.movie.repositories.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class BookingService {
@@ -28,28 +54,552 @@ public class BookingService {
     private SeatRepository seatRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private BookedSeatRepository bookedSeatRepository;
 
     @Autowired
-    private PromoCodeRepository promoCodeRepository;
+    private UserRepository userRepository;
 
     @Autowired
     private PromotionService promotionService;
 
+    @Autowired
+    private UserPromoStatsService userPromoStatsService;
+
+    @Autowired
+    private PromoRedemptionService promoRedemptionService;
+
+    @Autowired
+    private PromoCatalogService promoCatalogService;
+
+    @Autowired
+    private DiscountRuleEngine discountRuleEngine;
+
+    @Autowired
+    private DemandPricingService demandPricingService;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private ShowLockManager showLockManager;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private ContentionMonitor contentionMonitor;
+
+    @Autowired
+    private SeatEventPublisher seatEventPublisher;
+
+    @Autowired
+    private ConnectionAdmissionLimiter connectionAdmissionLimiter;
+
+    @Autowired
+    private BookingAdmissionService bookingAdmissionService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${booking.concurrency.mode:SERIALIZABLE}")
+    private BookingConcurrencyMode concurrencyMode;
+
+    @Value("${booking.optimistic.max-attempts:5}")
+    private int optimisticMaxAttempts;
+
+    @Value("${booking.optimistic.backoff-ms:10}")
+    private long optimisticBackoffMs;
+
+    @Value("${booking.queue.writer-threads:8}")
+    private int queueWriterThreads;
+
+    @Value("${booking.queue.max-batch-size:50}")
+    private int queueMaxBatchSize;
+
+    @Value("${booking.queue.max-pending:2000}")
+    private int queueMaxPending;
+
+    @Value("${booking.queue.timeout-ms:10000}")
+    private long queueTimeoutMs;
+
+    @Value("${booking.group.max-shows:20}")
+    private int groupMaxShows;
+
+    @Value("${booking.admin.max-page-size:500}")
+    private int maxPageSize;
+
+    // For bookings made without an Idempotency-Key
+    private static final Consumer<BookingResponse> NO_RECORDER = response -> {
+    };
+
+    private TransactionTemplate serializableTx;
+    private TransactionTemplate readCommittedTx;
+    private ShowBookingQueue showBookingQueue;
+
+    @PostConstruct
+    void initTransactionTemplates() {
+        serializableTx = new TransactionTemplate(transactionManager);
+        serializableTx.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        readCommittedTx = new TransactionTemplate(transactionManager);
+        readCommittedTx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        showBookingQueue = new ShowBookingQueue(this::persistBatch, queueWriterThreads,
+                queueMaxBatchSize, queueMaxPending, queueTimeoutMs);
+    }
+
+    @PreDestroy
+    void shutdownBookingQueue() {
+        showBookingQueue.shutdown();
+    }
+
+    // Creates a booking, or replays the earlier response when the Idempotency-Key was already used //
+
+    public BookingResponse createBooking(BookingRequest request, Long userId, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return createBooking(request, userId);
+        }
+        return idempotencyService.execute(userId, idempotencyKey, request,
+                recorder -> createBooking(request, userId, recorder));
+    }
+
     //     * Creates a new booking with concurrency safety //
-    //     * Uses SERIALIZABLE isolation level and pessimistic locking to ensure //
-    //     * that seats cannot be double-booked even under high concurrency //
+    //     * Seats are first claimed in the in-memory seat map so competing requests fail fast, //
+    //     * then written under the configured concurrency mode; the booked_seats unique key //
+    //     * ensures seats cannot be double-booked even if the in-memory map is stale //
 
-    @Transactional(isolation = Isolation.SERIALIZABLE, rollbackFor = Exception.class)
     public BookingResponse createBooking(BookingRequest request, Long userId) {
+        return createBooking(request, userId, NO_RECORDER);
+    }
+
+    // recorder is called with the response inside the booking transaction //
+
+    private BookingResponse createBooking(BookingRequest request, Long userId, Consumer<BookingResponse> recorder) {
+        Long showId = request.getShowId();
+        boolean claimed;
+        try {
+            claimed = claimSeats(request);
+        } catch (SeatAlreadyBookedException ex) {
+            contentionMonitor.recordAttempt(showId);
+            contentionMonitor.recordConflict(showId);
+            throw ex;
+        }
+        List<Long> seatIds = request.getSeatIds();
+        BookingResponse response;
+        try {
+            response = executeBooking(request, userId, recorder);
+        } catch (RuntimeException ex) {
+            if (claimed) {
+                seatInventoryService.releaseClaim(showId, seatIds);
+                // Seat map readers may have seen the claim
+                seatEventPublisher.publish(showId, seatIds, SeatEventType.RELEASED);
+            }
+            if (ex instanceof SeatAlreadyBookedException) {
+                // Database disagrees with the in-memory map
+                seatInventoryService.reload(showId);
+            }
+            throw ex;
+        }
+        if (claimed) {
+            seatInventoryService.confirm(showId, seatIds);
+        }
+        seatEventPublisher.publish(showId, seatIds, SeatEventType.BOOKED);
+        return response;
+    }
+
+    //     * Claims the requested seats in memory; with only a seat count, the best available block //
+    //     * is picked and claimed, and the request is filled in with its seats //
+    //     * Returns whether the seats are now held in the in-memory map //
+
+    private boolean claimSeats(BookingRequest request) {
+        if (request.getSeatIds() == null || request.getSeatIds().isEmpty()) {
+            if (request.getSeatCount() == null) {
+                throw new BusinessException("At least one seat must be selected");
+            }
+            request.setSeatIds(seatInventoryService.claimBestAvailable(request.getShowId(), request.getSeatCount()));
+            return seatInventoryService.isEnabled();
+        }
+        return seatInventoryService.claim(request.getShowId(), request.getSeatIds());
+    }
+
+    //     * Books seats that the caller already claimed through a seat hold //
+    //     * On a seat conflict the claim is released; on any other failure it stays with the caller //
+
+    public BookingResponse bookHeldSeats(BookingRequest request, Long userId) {
+        Long showId = request.getShowId();
+        BookingResponse response;
+        try {
+            response = executeBooking(request, userId, NO_RECORDER);
+        } catch (SeatAlreadyBookedException ex) {
+            seatInventoryService.releaseClaim(showId, request.getSeatIds());
+            seatEventPublisher.publish(showId, request.getSeatIds(), SeatEventType.RELEASED);
+            seatInventoryService.reload(showId);
+            throw ex;
+        }
+        seatInventoryService.confirm(showId, request.getSeatIds());
+        seatEventPublisher.publish(showId, request.getSeatIds(), SeatEventType.BOOKED);
+        return response;
+    }
+
+    //     * Books seats in several shows at once, all or nothing //
+    //     * Seats are claimed in memory show by show in showId order, then one READ_COMMITTED transaction //
+    //     * locks the show rows in that same order, checks every seat in one query and inserts all //
+    //     * occupancy rows in one batch; the in-process show locks are held too, in stripe order, so //
+    //     * groups serialize with STRIPED_LOCK bookings and two groups can never wait on each other //
+
+    public GroupBookingResponse createGroupBooking(GroupBookingRequest request, Long userId) {
+        List<BookingRequest> bookings = request.getBookings().stream()
+                .sorted(Comparator.comparing(BookingRequest::getShowId))
+                .toList();
+        List<Long> showIds = bookings.stream().map(BookingRequest::getShowId).toList();
+        if (bookings.size() > groupMaxShows) {
+            throw new BusinessException("A group booking can include at most " + groupMaxShows + " shows");
+        }
+        if (showIds.stream().distinct().count() != showIds.size()) {
+            throw new BusinessException("Each show can appear only once in a group booking");
+        }
+
+        List<BookingRequest> claimed = new ArrayList<>();
+        try {
+            for (BookingRequest booking : bookings) {
+                if (claimSeats(booking)) {
+                    claimed.add(booking);
+                }
+            }
+        } catch (RuntimeException ex) {
+            releaseClaims(claimed);
+            throw ex;
+        }
+
+        try {
+            List<BookingResponse> responses = showLockManager.withShowLocks(showIds, () ->
+                    withPromoUses(bookings, () -> connectionAdmissionLimiter.withPermit(() ->
+                            readCommittedTx.execute(status -> persistGroup(bookings, userId)))));
+            claimed.forEach(booking -> seatInventoryService.confirm(booking.getShowId(), booking.getSeatIds()));
+            bookings.forEach(booking ->
+                    seatEventPublisher.publish(booking.getShowId(), booking.getSeatIds(), SeatEventType.BOOKED));
+            return mapToGroupBookingResponse(responses);
+        } catch (RuntimeException ex) {
+            releaseClaims(claimed);
+            if (ex instanceof SeatAlreadyBookedException) {
+                // At least one show's map disagrees with the database
+                showIds.forEach(seatInventoryService::reload);
+            }
+            throw ex;
+        }
+    }
+
+    private void releaseClaims(List<BookingRequest> claimed) {
+        for (BookingRequest booking : claimed) {
+            seatInventoryService.releaseClaim(booking.getShowId(), booking.getSeatIds());
+            seatEventPublisher.publish(booking.getShowId(), booking.getSeatIds(), SeatEventType.RELEASED);
+        }
+    }
+
+    //     * Runs the booking under the configured mode, or the per-show mode when ADAPTIVE //
+    //     * Seats are already claimed here, so only requests that can still succeed wait for admission //
+    //     * QUEUED bookings skip the per-show admission gate: the show's queue bounds them already, and //
+    //     * a caller holding a permit while it waits for the writer would cap every batch at the permits //
+
+    private BookingResponse executeBooking(BookingRequest request, Long userId, Consumer<BookingResponse> recorder) {
+        Long showId = request.getShowId();
+        BookingConcurrencyMode mode = concurrencyMode == BookingConcurrencyMode.ADAPTIVE
+                ? contentionMonitor.modeFor(showId)
+                : concurrencyMode;
+        Supplier<BookingResponse> booking = () -> {
+            contentionMonitor.recordAttempt(showId);
+            contentionMonitor.enter(showId);
+            try {
+                return executeBooking(request, userId, mode, recorder);
+            } catch (SeatAlreadyBookedException ex) {
+                contentionMonitor.recordConflict(showId);
+                throw ex;
+            } finally {
+                contentionMonitor.exit(showId);
+            }
+        };
+        if (mode == BookingConcurrencyMode.QUEUED) {
+            return booking.get();
+        }
+        return bookingAdmissionService.admit(showId, booking);
+    }
+
+    //     * Seats are always claimed by inserting booked_seats rows, unique per (show, seat) //
+    //     * SERIALIZABLE: database-wide isolation plus a row lock on the show //
+    //     * STRIPED_LOCK: only bookings for the same show are serialized, in-process, and the //
+    //     * transaction runs at READ_COMMITTED; the show row is guarded by its @Version column, //
+    //     * which other nodes and OPTIMISTIC bookings in flight under ADAPTIVE can still bump //
+    //     * OPTIMISTIC: nothing is locked up front, the show's @Version detects conflicts //
+    //     * QUEUED: the request joins the show's queue and is written in a batch by one writer //
+
+    private BookingResponse executeBooking(BookingRequest request, Long userId, BookingConcurrencyMode mode,
+                                           Consumer<BookingResponse> recorder) {
+        switch (mode) {
+            case STRIPED_LOCK:
+                return retryVersionConflicts(request.getShowId(), () -> {
+                    long queuedAt = System.nanoTime();
+                    return showLockManager.withShowLock(request.getShowId(), () -> {
+                        contentionMonitor.recordLockWait(request.getShowId(), System.nanoTime() - queuedAt);
+                        return inTransaction(readCommittedTx, request, userId, BookingConcurrencyMode.STRIPED_LOCK,
+                                recorder);
+                    });
+                });
+            case OPTIMISTIC:
+                return retryVersionConflicts(request.getShowId(), () ->
+                        inTransaction(readCommittedTx, request, userId, BookingConcurrencyMode.OPTIMISTIC, recorder));
+            case QUEUED:
+                return showBookingQueue.submit(request, userId, recorder);
+            default:
+                return inTransaction(serializableTx, request, userId, BookingConcurrencyMode.SERIALIZABLE, recorder);
+        }
+    }
+
+    // Runs persistBooking in the given transaction once the connection admission limiter lets it in //
+
+    private BookingResponse inTransaction(TransactionTemplate tx, BookingRequest request, Long userId,
+                                          BookingConcurrencyMode mode, Consumer<BookingResponse> recorder) {
+        return withPromoUses(List.of(request), () -> connectionAdmissionLimiter.withPermit(() ->
+                tx.execute(status -> persistBooking(request, userId, mode, recorder))));
+    }
+
+    //     * Runs a booking transaction with a use of every limited code its bookings may redeem taken //
+    //     * beforehand, so no promo lease is needed while the transaction holds its connection //
+    //     * Entered codes are reserved once per booking; automatic promotions once per transaction, as //
+    //     * the block leased for the first leaves uses in memory for the other bookings of a batch //
+
+    private <T> T withPromoUses(List<BookingRequest> requests, Supplier<T> work) {
+        List<PromoCode> promoCodes = new ArrayList<>(discountRuleEngine.getAutoPromoCodes());
+        for (BookingRequest request : requests) {
+            if (request.getPromoCode() != null && !request.getPromoCode().isEmpty()) {
+                promoCatalogService.peek(request.getPromoCode()).ifPresent(promoCodes::add);
+            }
+        }
+        return promoRedemptionService.withReservedUses(promoCodes, work);
+    }
+
+    //     * Retries show @Version conflicts with bounded, jittered exponential backoff //
+    //     * Every retry is a contention attempt of its own, so the show's conflict rate stays within 0..1 //
+
+    private BookingResponse retryVersionConflicts(Long showId, Supplier<BookingResponse> booking) {
+        for (int attempt = 1; ; attempt++) {
+            bookingMetrics.recordOptimisticAttempt();
+            try {
+                return booking.get();
+            } catch (OptimisticLockingFailureException ex) {
+                bookingMetrics.recordOptimisticConflict();
+                contentionMonitor.recordConflict(showId);
+                if (attempt >= optimisticMaxAttempts) {
+                    bookingMetrics.recordOptimisticExhausted();
+                    throw new AdmissionRejectedException("Booking could not be completed due to high demand, please retry",
+                            false, 1);
+                }
+                bookingMetrics.recordOptimisticRetry();
+                backoff(attempt);
+                contentionMonitor.recordAttempt(showId);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = optimisticBackoffMs << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Booking was interrupted, please retry", false, 1);
+        }
+    }
+
+    // Writes the booking inside the caller's transaction //
+
+    private BookingResponse persistBooking(BookingRequest request, Long userId, BookingConcurrencyMode mode,
+                                           Consumer<BookingResponse> recorder) {
         // Validate user
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        // Lock the show to prevent concurrent modifications
-        Show show = showRepository.findByIdWithLock(request.getShowId())
+        // Load the show, row-locked unless the caller already serializes per show
+        Show show = (mode == BookingConcurrencyMode.SERIALIZABLE
+                ? showRepository.findByIdWithLock(request.getShowId())
+                : showRepository.findById(request.getShowId()))
                 .orElseThrow(() -> new ResourceNotFoundException("Show not found"));
+        validateShow(show);
+
+        // Validate seat availability
+        int requestedSeats = request.getSeatIds().size();
+        checkSeatCount(requestedSeats, show.getAvailableSeats());
+
+        // Read the layout seats; they are claimed atomically when the booking is applied
+        List<Seat> seats = seatRepository.findAllById(request.getSeatIds());
+        if (seats.size() != requestedSeats
+                || !bookedSeatRepository.findBookedSeatIds(show.getShowId(), request.getSeatIds()).isEmpty()) {
+            throw new SeatAlreadyBookedException("One or more selected seats are no longer available");
+        }
+
+        Booking booking = buildBooking(request, user, show, seats);
+        applyBookings(List.of(booking));
+        BookingResponse response = mapToBookingResponse(booking);
+        recorder.accept(response);
+        return response;
+    }
+
+    //     * Writes the bookings of a group inside the caller's transaction //
+    //     * Any failing show fails the whole group //
+
+    private List<BookingResponse> persistGroup(List<BookingRequest> requests, Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
+        List<Long> showIds = requests.stream().map(BookingRequest::getShowId).toList();
+        Map<Long, Show> shows = showRepository.findAllByIdWithLock(showIds).stream()
+                .collect(Collectors.toMap(Show::getShowId, Function.identity()));
+        if (shows.size() != showIds.size()) {
+            throw new ResourceNotFoundException("Show not found");
+        }
+
+        List<Long> seatIds = requests.stream()
+                .flatMap(r -> r.getSeatIds().stream()).distinct().toList();
+        Map<Long, Seat> seats = seatRepository.findAllById(seatIds).stream()
+                .collect(Collectors.toMap(Seat::getSeatId, Function.identity()));
+        Map<Long, Set<Long>> bookedByShow = bookedSeatRepository.findBookedSeats(showIds, seatIds).stream()
+                .collect(Collectors.groupingBy(row -> (Long) row[0],
+                        Collectors.mapping(row -> (Long) row[1], Collectors.toSet())));
+
+        List<Booking> bookings = new ArrayList<>();
+        for (BookingRequest request : requests) {
+            Show show = shows.get(request.getShowId());
+            validateShow(show);
+            checkSeatCount(request.getSeatIds().size(), show.getAvailableSeats());
+
+            Set<Long> taken = bookedByShow.getOrDefault(show.getShowId(), Set.of());
+            List<Seat> requested = request.getSeatIds().stream()
+                    .distinct().map(seats::get).filter(Objects::nonNull).toList();
+            if (requested.size() != request.getSeatIds().size()
+                    || request.getSeatIds().stream().anyMatch(taken::contains)) {
+                throw new SeatAlreadyBookedException("One or more selected seats are no longer available");
+            }
+            bookings.add(buildBooking(request, user, show, requested));
+        }
+
+        applyBookings(bookings);
+        return bookings.stream().map(this::mapToBookingResponse).toList();
+    }
+
+    //     * Writes a batch of queued bookings for one show in a single transaction //
+    //     * The show row is locked once and occupancy for the whole batch is read in one query; //
+    //     * each request succeeds or fails on its own without affecting the others //
+    //     * A seat taken by another node after the read fails the insert for the whole batch, so the //
+    //     * batch is written again: the new read finds that seat and fails only its request. Should //
+    //     * that conflict too, each request is written in a transaction of its own. A batch chosen as //
+    //     * a deadlock victim by the database is written again the same way //
+    //     * A request whose recorder fails keeps that failure and the batch is written again without it //
+
+    private void persistBatch(Long showId, List<ShowBookingQueue.PendingBooking> batch) {
+        List<ShowBookingQueue.PendingBooking> remaining = new ArrayList<>(batch);
+        int conflicts = 0;
+        while (conflicts < 2) {
+            List<ShowBookingQueue.PendingBooking> unrecorded;
+            try {
+                unrecorded = writeBatch(showId, remaining);
+            } catch (SeatAlreadyBookedException | PessimisticLockingFailureException ex) {
+                remaining.forEach(ShowBookingQueue.PendingBooking::reset);
+                conflicts++;
+                continue;
+            }
+            if (unrecorded.isEmpty()) {
+                return;
+            }
+            remaining.removeAll(unrecorded);
+            remaining.forEach(ShowBookingQueue.PendingBooking::reset);
+            if (remaining.isEmpty()) {
+                return;
+            }
+        }
+        for (ShowBookingQueue.PendingBooking pending : remaining) {
+            try {
+                writeBatch(showId, List.of(pending));
+            } catch (RuntimeException ex) {
+                pending.fail(ex);
+            }
+        }
+    }
+
+    //     * Returns the requests whose recorder failed; the transaction was then rolled back, so that //
+    //     * no booking commits without its recorded response //
+
+    private List<ShowBookingQueue.PendingBooking> writeBatch(Long showId, List<ShowBookingQueue.PendingBooking> batch) {
+        List<BookingRequest> requests = batch.stream().map(ShowBookingQueue.PendingBooking::getRequest).toList();
+        return withPromoUses(requests, () -> connectionAdmissionLimiter.withPermit(() -> readCommittedTx.execute(status -> {
+            Show show = showRepository.findByIdWithLock(showId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Show not found"));
+            validateShow(show);
+
+            Map<Long, User> users = userRepository.findAllById(
+                    batch.stream().map(ShowBookingQueue.PendingBooking::getUserId).distinct().toList()
+            ).stream().collect(Collectors.toMap(User::getUserId, Function.identity()));
+
+            List<Long> requestedIds = batch.stream()
+                    .flatMap(p -> p.getRequest().getSeatIds().stream()).distinct().toList();
+            Map<Long, Seat> freeSeats = seatRepository.findAllById(requestedIds).stream()
+                    .collect(Collectors.toMap(Seat::getSeatId, Function.identity()));
+            bookedSeatRepository.findBookedSeatIds(showId, requestedIds).forEach(freeSeats::remove);
+
+            int remaining = show.getAvailableSeats();
+            List<Booking> bookings = new ArrayList<>();
+            List<ShowBookingQueue.PendingBooking> accepted = new ArrayList<>();
+            for (ShowBookingQueue.PendingBooking pending : batch) {
+                try {
+                    BookingRequest request = pending.getRequest();
+                    User user = users.get(pending.getUserId());
+                    if (user == null) {
+                        throw new ResourceNotFoundException("User not found");
+                    }
+                    checkSeatCount(request.getSeatIds().size(), remaining);
+                    if (!freeSeats.keySet().containsAll(request.getSeatIds())) {
+                        throw new SeatAlreadyBookedException("One or more selected seats are no longer available");
+                    }
+                    List<Seat> seats = request.getSeatIds().stream().distinct().map(freeSeats::get).toList();
+                    if (seats.size() != request.getSeatIds().size()) {
+                        throw new SeatAlreadyBookedException("One or more selected seats are no longer available");
+                    }
+
+                    Booking booking = buildBooking(request, user, show, seats);
+                    seats.forEach(seat -> freeSeats.remove(seat.getSeatId()));
+                    remaining -= seats.size();
+                    bookings.add(booking);
+                    accepted.add(pending);
+                } catch (RuntimeException ex) {
+                    pending.fail(ex);
+                }
+            }
+
+            if (!bookings.isEmpty()) {
+                applyBookings(bookings);
+            }
+            List<ShowBookingQueue.PendingBooking> unrecorded = new ArrayList<>();
+            for (int i = 0; i < accepted.size(); i++) {
+                ShowBookingQueue.PendingBooking pending = accepted.get(i);
+                try {
+                    BookingResponse response = mapToBookingResponse(bookings.get(i));
+                    pending.getRecorder().accept(response);
+                    pending.succeed(response);
+                } catch (RuntimeException ex) {
+                    pending.fail(ex);
+                    unrecorded.add(pending);
+                }
+            }
+            if (!unrecorded.isEmpty()) {
+                status.setRollbackOnly();
+            }
+            return unrecorded;
+        })));
+    }
+
+    private void validateShow(Show show) {
+        if (show.getScreen() == null) {
+            throw new BusinessException("Show has no seat layout");
+        }
         // Validate show is active and in future
         if (!show.getIsActive()) {
             throw new BusinessException("Show is not active");
@@ -57,46 +607,59 @@ public class BookingService {
         if (show.getShowTime().isBefore(LocalDateTime.now())) {
             throw new BusinessException("Cannot book seats for past shows");
         }
+    }
 
-        // Validate seat availability
-        int requestedSeats = request.getSeatIds().size();
+    private void checkSeatCount(int requestedSeats, int availableSeats) {
         if (requestedSeats == 0) {
             throw new BusinessException("At least one seat must be selected");
         }
-        if (requestedSeats > show.getAvailableSeats()) {
+        if (requestedSeats > availableSeats) {
             throw new InsufficientSeatsException(
-                    "Only " + show.getAvailableSeats() + " seats available, requested " + requestedSeats
+                    "Only " + availableSeats + " seats available, requested " + requestedSeats
             );
         }
+    }
 
-        // Lock and validate specific seats
-        List<Seat> seats = seatRepository.findAvailableSeatsWithLock(request.getSeatIds());
-        if (seats.size() != requestedSeats) {
-            throw new SeatAlreadyBookedException("One or more selected seats are no longer available");
-        }
+    //     * Prices the booking and applies the promo code, without writing anything //
+    //     * Seat prices come from the show's published price table, the version the user was quoted //
+    //     * when it is still honoured; nothing is priced here //
+    //     * A use of every applied promo code is taken from the uses reserved before the transaction or //
+    //     * this node's lease, and given back if the booking fails or the transaction rolls back //
 
-        // Verify all seats belong to the correct show
+    private Booking buildBooking(BookingRequest request, User user, Show show, List<Seat> seats) {
+        // Verify all seats belong to the screen of the show
         boolean allSeatsValid = seats.stream()
-                .allMatch(seat -> seat.getShow().getShowId().equals(show.getShowId()));
+                .allMatch(seat -> seat.getScreen().getScreenId().equals(show.getScreen().getScreenId()));
         if (!allSeatsValid) {
             throw new BusinessException("Invalid seat selection for this show");
         }
-
-        // Calculate pricing
-        BigDecimal basePrice = show.getPricePerSeat();
-        BigDecimal totalAmount = basePrice.multiply(BigDecimal.valueOf(requestedSeats));
-        BigDecimal discountAmount = BigDecimal.ZERO;
+        int requestedSeats = seats.size();
+
+        // Calculate pricing, in minor units
+        SeatPriceTable prices = demandPricingService.quote(show, request.getPriceVersion());
+        long totalAmount = 0;
+        long cheapestSeat = Long.MAX_VALUE;
+        for (Seat seat : seats) {
+            long price = prices.priceOf(seat.getSeatId());
+            totalAmount = Math.addExact(totalAmount, price);
+            cheapestSeat = Math.min(cheapestSeat, price);
+        }
+        long discountAmount = 0;
+        PromoCode enteredPromo = null;
         PromoCode appliedPromo = null;
 
-        // Apply promo code if provided
+        // Validate promo code if provided
         if (request.getPromoCode() != null && !request.getPromoCode().isEmpty()) {
-            appliedPromo = validateAndApplyPromo(
-                    request.getPromoCode(), user, totalAmount, requestedSeats
-            );
-            discountAmount = calculateDiscount(appliedPromo, basePrice, requestedSeats);
+            enteredPromo = validateAndApplyPromo(request.getPromoCode(), user, requestedSeats);
         }
 
-        BigDecimal finalAmount = totalAmount.subtract(discountAmount);
+        // Price the entered code together with the automatic promotions and count their uses;
+        // nothing below can fail once the uses are taken
+        PricingContext pricing = priceAndRedeem(user, show, requestedSeats, totalAmount, cheapestSeat, enteredPromo);
+        if (pricing != null && pricing.getPrimary() != null) {
+            discountAmount = pricing.getDiscount();
+            appliedPromo = pricing.getPrimary().getPromoCode();
+        }
 
         // Create booking //
 
@@ -105,39 +668,98 @@ public class BookingService {
         booking.setShow(show);
         booking.setBookingReference(generateBookingReference());
         booking.setTotalSeats(requestedSeats);
-        booking.setTotalAmount(totalAmount);
-        booking.setDiscountAmount(discountAmount);
-        booking.setFinalAmount(finalAmount);
+        booking.setTotalAmount(Money.ofMinor(totalAmount));
+        booking.setDiscountAmount(Money.ofMinor(discountAmount));
+        booking.setFinalAmount(Money.ofMinor(totalAmount - discountAmount));
+        booking.setPriceVersion(prices.getVersion());
         booking.setPromoCode(appliedPromo);
         booking.setBookingStatus(BookingStatus.CONFIRMED);
         booking.getSeats().addAll(seats);
+        return booking;
+    }
 
-        // Mark seats as booked
-        seats.forEach(seat -> seat.setIsBooked(true));
-        seatRepository.saveAll(seats);
+    //     * Prices the promotions and takes one use of every code that applies, entered or automatic //
+    //     * An entered code that is used up fails the booking; a used-up automatic promotion is left out //
+    //     * and the booking priced again. An entered code beaten by a better promotion is not used up //
+    //     * A failing booking gives back the uses it took, since a queued batch commits without it //
+
+    private PricingContext priceAndRedeem(User user, Show show, int seatCount, long totalAmount, long cheapestSeat,
+                                          PromoCode enteredPromo) {
+        List<PromoRedemptionService.Redemption> redemptions = new ArrayList<>();
+        try {
+            return priceAndRedeem(user, show, seatCount, totalAmount, cheapestSeat, enteredPromo, redemptions);
+        } catch (RuntimeException ex) {
+            redemptions.forEach(PromoRedemptionService.Redemption::giveBack);
+            throw ex;
+        }
+    }
 
-        // Update show available seats
-        show.setAvailableSeats(show.getAvailableSeats() - requestedSeats);
-        showRepository.save(show);
+    private PricingContext priceAndRedeem(User user, Show show, int seatCount, long totalAmount, long cheapestSeat,
+                                          PromoCode enteredPromo, List<PromoRedemptionService.Redemption> redemptions) {
+        Set<Long> usedUp = Set.of();
+        Set<Long> redeemed = new HashSet<>();
+        while (true) {
+            PricingContext pricing = discountRuleEngine.price(user, show, seatCount, totalAmount, cheapestSeat,
+                    enteredPromo, usedUp);
+            if (pricing == null) {
+                return null;
+            }
+            PromoCode exhausted = null;
+            for (int i = 0; i < pricing.getAppliedCount() && exhausted == null; i++) {
+                PromoCode promoCode = pricing.getApplied(i).getPromoCode();
+                if (redeemed.contains(promoCode.getPromoCodeId())) {
+                    continue;
+                }
+                try {
+                    redemptions.add(promoRedemptionService.redeem(promoCode));
+                    redeemed.add(promoCode.getPromoCodeId());
+                } catch (InvalidPromoCodeException ex) {
+                    if (promoCode == enteredPromo) {
+                        throw ex;
+                    }
+                    exhausted = promoCode;
+                }
+            }
+            if (exhausted == null) {
+                return pricing;
+            }
+            // Promotions redeemed so far still apply, since leaving one out only removes a competitor
+            usedUp = new HashSet<>(usedUp);
+            usedUp.add(exhausted.getPromoCodeId());
+        }
+    }
 
-        // Save booking
-        booking = bookingRepository.save(booking);
+    //     * Updates each show once, saves the bookings and inserts their occupancy rows in one batch //
+    //     * A seat booked by another transaction fails the batch with SeatAlreadyBookedException //
+
+    private void applyBookings(List<Booking> bookings) {
+        List<BookedSeat> bookedSeats = bookings.stream()
+                .flatMap(b -> b.getSeats().stream().map(seat -> new BookedSeat(b.getShow(), seat, b)))
+                .toList();
 
-        // Update promo code usage if applied
-        if (appliedPromo != null) {
-            appliedPromo.setCurrentUses(appliedPromo.getCurrentUses() + 1);
-            promoCodeRepository.save(appliedPromo);
+        // Update show available seats
+        Map<Show, Integer> seatsPerShow = new LinkedHashMap<>();
+        bookings.forEach(b -> seatsPerShow.merge(b.getShow(), b.getTotalSeats(), Integer::sum));
+        seatsPerShow.forEach((show, count) -> show.setAvailableSeats(show.getAvailableSeats() - count));
+        showRepository.saveAll(seatsPerShow.keySet());
+
+        // Save bookings, then claim the seats; the (show, seat) unique key rejects any seat taken meanwhile
+        bookingRepository.saveAll(bookings);
+        try {
+            bookedSeatRepository.saveAllAndFlush(bookedSeats);
+        } catch (DataIntegrityViolationException ex) {
+            throw new SeatAlreadyBookedException("One or more selected seats are no longer available");
         }
 
-        return mapToBookingResponse(booking);
+        // Keep the users' promo eligibility totals current
+        userPromoStatsService.recordConfirmed(bookings);
     }
 
     //Validates promo code and checks user eligibility//
 
-    private PromoCode validateAndApplyPromo(String promoCodeStr, User user,
-                                            BigDecimal totalAmount, int seatCount) {
-        // Find promo code
-        PromoCode promoCode = promoCodeRepository.findByCodeAndIsActiveTrue(promoCodeStr)
+    private PromoCode validateAndApplyPromo(String promoCodeStr, User user, int seatCount) {
+        // Find promo code, usually without a query
+        PromoCode promoCode = promoCatalogService.find(promoCodeStr)
                 .orElseThrow(() -> new InvalidPromoCodeException("Invalid or inactive promo code"));
 
         // Check validity period
@@ -146,16 +768,12 @@ public class BookingService {
             throw new InvalidPromoCodeException("Promo code has expired");
         }
 
-        // Check usage limit
-        if (promoCode.getMaxUses() != null &&
-                promoCode.getCurrentUses() >= promoCode.getMaxUses()) {
-            throw new InvalidPromoCodeException("Promo code usage limit reached");
-        }
+        // The usage limit is enforced when the use is redeemed
 
-        // Check user eligibility (>5 bookings OR >1500 spent)
+        // Check user eligibility (promo.rules.eligibility, by default >5 bookings OR >1500 spent)
         if (!promotionService.isUserEligibleForPromo(user.getUserId())) {
             throw new InvalidPromoCodeException(
-                    "You are not eligible for promotions. Complete 5+ bookings or spend ₹1500+ to qualify"
+                    "You are not eligible for promotions yet. Complete more bookings to qualify"
             );
         }
 
@@ -167,22 +785,6 @@ public class BookingService {
         return promoCode;
     }
 
-    //Calculates discount amount based on promo type//
-
-    private BigDecimal calculateDiscount(PromoCode promoCode, BigDecimal pricePerSeat, int seatCount) {
-        switch (promoCode.getDiscountType()) {
-            case FREE_SEAT:
-                // One seat free
-                return pricePerSeat.multiply(BigDecimal.ONE);
-            case FLAT_DISCOUNT:
-                // Flat 250 discount (or promo value)
-                return promoCode.getDiscountValue();
-            default:
-                return BigDecimal.ZERO;
-        }
-    }
-
-
     //Generates unique booking reference//
 
     private String generateBookingReference() {
@@ -199,20 +801,69 @@ public class BookingService {
                 .toList();
     }
 
-    //Retrieves all bookings (Admin only)//
+    //     * Retrieves one page of bookings, newest first (Admin only) //
+    //     * Keyset paging: the cursor is the last booking of the previous page, so every page //
+    //     * is an index seek however deep the client has paged //
 
     @Transactional(readOnly = true)
-    public List<BookingResponse> getAllBookings() {
-        List<Booking> bookings = bookingRepository.findAll();
-        return bookings.stream()
+    public BookingPageResponse getBookingsPage(BookingFilter filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        LocalDateTime afterTime = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                afterTime = LocalDateTime.parse(parts[0]);
+                afterId = Long.valueOf(parts[1]);
+            } catch (RuntimeException ex) {
+                throw new BusinessException("Invalid page cursor");
+            }
+        }
+
+        // Ids first, so the seat collection fetch does not defeat the LIMIT
+        List<Long> ids = bookingRepository.findPageIds(filter.getShowId(), filter.getStatus(),
+                filter.getFrom(), filter.getTo(), afterTime, afterId, Limit.of(pageSize + 1));
+        boolean hasMore = ids.size() > pageSize;
+        List<Long> pageIds = hasMore ? ids.subList(0, pageSize) : ids;
+
+        Map<Long, Booking> bookings = bookingRepository.findAllWithDetailsByIds(pageIds).stream()
+                .collect(Collectors.toMap(Booking::getBookingId, Function.identity()));
+        List<BookingResponse> page = pageIds.stream()
+                .map(bookings::get)
                 .map(this::mapToBookingResponse)
                 .toList();
+
+        BookingPageResponse response = new BookingPageResponse();
+        response.setBookings(page);
+        if (hasMore) {
+            BookingResponse last = page.get(page.size() - 1);
+            response.setNextCursor(encodeCursor(last.getBookingTime(), last.getBookingId()));
+        }
+        return response;
+    }
+
+    private String encodeCursor(LocalDateTime bookingTime, Long bookingId) {
+        String plain = bookingTime + "|" + bookingId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
     }
 
-    //Cancels a booking and releases seats//
+    //     * Cancels a booking and releases seats //
+    //     * Runs under the show's lock with the show row locked, like a booking of that show, so the //
+    //     * seat count update cannot fail a concurrent booking's versioned update of the same row //
 
-    @Transactional
     public void cancelBooking(Long bookingId, Long userId, boolean isAdmin) {
+        Long showId = bookingRepository.findShowId(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking not found"));
+        showLockManager.withShowLock(showId, () -> readCommittedTx.execute(status -> {
+            cancelInTransaction(bookingId, showId, userId, isAdmin);
+            return null;
+        }));
+    }
+
+    private void cancelInTransaction(Long bookingId, Long showId, Long userId, boolean isAdmin) {
+        // Show row first, as bookings lock it before touching booked_seats
+        Show show = showRepository.findByIdWithLock(showId)
+                .orElseThrow(() -> new ResourceNotFoundException("Show not found"));
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking not found"));
 
@@ -228,16 +879,34 @@ public class BookingService {
         // Update booking status
         booking.setBookingStatus(BookingStatus.CANCELLED);
 
-        // Release seats
-        booking.getSeats().forEach(seat -> seat.setIsBooked(false));
+        // Release seats with one set-based DELETE of the show's occupancy rows
+        List<Long> seatIds = booking.getSeats().stream().map(Seat::getSeatId).toList();
+        bookedSeatRepository.deleteByBookingId(bookingId);
+        seatInventoryService.releaseAfterCommit(showId, seatIds);
+        seatEventPublisher.publishAfterCommit(showId, seatIds, SeatEventType.RELEASED);
 
         // Update show available seats
-        Show show = booking.getShow();
         show.setAvailableSeats(show.getAvailableSeats() + booking.getTotalSeats());
+        userPromoStatsService.recordCancelled(booking);
 
         bookingRepository.save(booking);
     }
 
+    //Combines the bookings of a group into one result//
+
+    private GroupBookingResponse mapToGroupBookingResponse(List<BookingResponse> bookings) {
+        GroupBookingResponse response = new GroupBookingResponse();
+        response.setBookings(bookings);
+        response.setTotalSeats(bookings.stream().mapToInt(BookingResponse::getTotalSeats).sum());
+        response.setTotalAmount(bookings.stream()
+                .map(BookingResponse::getTotalAmount).reduce(Money.ZERO, Money::plus));
+        response.setDiscountAmount(bookings.stream()
+                .map(BookingResponse::getDiscountAmount).reduce(Money.ZERO, Money::plus));
+        response.setFinalAmount(bookings.stream()
+                .map(BookingResponse::getFinalAmount).reduce(Money.ZERO, Money::plus));
+        return response;
+    }
+
     //Maps Booking entity to BookingResponse DTO//
 
     private BookingResponse mapToBookingResponse(Booking booking) {
@@ -251,6 +920,7 @@ public class BookingService {
         response.setTotalAmount(booking.getTotalAmount());
         response.setDiscountAmount(booking.getDiscountAmount());
         response.setFinalAmount(booking.getFinalAmount());
+        response.setPriceVersion(booking.getPriceVersion());
         response.setBookingStatus(booking.getBookingStatus().toString());
         response.setBookingTime(booking.getBookingTime());
         response.setSeatNumbers(
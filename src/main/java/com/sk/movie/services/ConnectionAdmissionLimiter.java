@@ -0,0 +1,61 @@
+package com.sk.movie.services;
+
+import com.sk.movie.exceptions.AdmissionRejectedException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Caps how many booking requests are inside a database transaction at once //
+// With virtual threads every request has its own thread, so without a cap they would all queue //
+// inside Hikari and time out together; here they wait briefly in FIFO order or are turned away fast //
+
+@Component
+public class ConnectionAdmissionLimiter {
+
+    // On by default whenever the servlet stack runs on virtual threads
+    @Value("${booking.db-admission.enabled:${spring.threads.virtual.enabled:false}}")
+    private boolean enabled;
+
+    // Keep below spring.datasource.hikari.maximum-pool-size so other paths still get connections
+    @Value("${booking.db-admission.permits:16}")
+    private int permits;
+
+    @Value("${booking.db-admission.wait-ms:2000}")
+    private long waitMs;
+
+    private Semaphore semaphore;
+
+    @PostConstruct
+    void initSemaphore() {
+        semaphore = new Semaphore(permits, true);
+    }
+
+    public <T> T withPermit(Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Booking was interrupted, please retry", false, 1);
+        }
+        if (!acquired) {
+            throw new AdmissionRejectedException("Booking service is busy, please retry", false, 1);
+        }
+        try {
+            return work.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    public int getAvailablePermits() {
+        return enabled ? semaphore.availablePermits() : permits;
+    }
+}
@@ -0,0 +1,202 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.ShowContentionResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Tracks per-show booking contention in a sliding window and picks a booking strategy per show //
+// Hot shows go to the serialized path, quiet shows to the cheap optimistic path //
+
+@Component
+public class ContentionMonitor {
+
+    private static final int BUCKETS = 10;
+
+    @Value("${booking.adaptive.window-seconds:10}")
+    private long windowSeconds;
+
+    @Value("${booking.adaptive.min-samples:20}")
+    private long minSamples;
+
+    @Value("${booking.adaptive.hot-conflict-rate:0.2}")
+    private double hotConflictRate;
+
+    @Value("${booking.adaptive.cold-conflict-rate:0.05}")
+    private double coldConflictRate;
+
+    @Value("${booking.adaptive.hot-in-flight:8}")
+    private int hotInFlight;
+
+    @Value("${booking.adaptive.hot-lock-wait-ms:50}")
+    private long hotLockWaitMs;
+
+    @Value("${booking.adaptive.hot-mode:STRIPED_LOCK}")
+    private BookingConcurrencyMode hotMode;
+
+    @Value("${booking.adaptive.cold-mode:OPTIMISTIC}")
+    private BookingConcurrencyMode coldMode;
+
+    private final Map<Long, ShowContention> shows = new ConcurrentHashMap<>();
+
+    // Milliseconds since the epoch; tests move it by hand
+    private LongSupplier clock = System::currentTimeMillis;
+
+    // One per try of a booking, retries included; each try records at most one conflict //
+
+    public void recordAttempt(Long showId) {
+        stats(showId).add(clock.getAsLong(), 1, 0, 0);
+    }
+
+    public void recordConflict(Long showId) {
+        stats(showId).add(clock.getAsLong(), 0, 1, 0);
+    }
+
+    public void recordLockWait(Long showId, long waitNanos) {
+        stats(showId).add(clock.getAsLong(), 0, 0, waitNanos);
+    }
+
+    public void enter(Long showId) {
+        stats(showId).inFlight.incrementAndGet();
+    }
+
+    public void exit(Long showId) {
+        ShowContention contention = shows.get(showId);
+        if (contention != null) {
+            contention.inFlight.updateAndGet(n -> n > 0 ? n - 1 : 0);
+        }
+    }
+
+    //     * Current strategy for the show //
+    //     * Switches to the hot mode above the high-water marks and back to the cold mode //
+    //     * only once the conflict rate drops below the low-water mark (hysteresis) //
+
+    public BookingConcurrencyMode modeFor(Long showId) {
+        ShowContention contention = stats(showId);
+        long now = clock.getAsLong();
+        if (now - contention.decidedAt >= bucketMillis()) {
+            contention.decide(now);
+        }
+        return contention.mode;
+    }
+
+    public List<ShowContentionResponse> snapshot() {
+        long now = clock.getAsLong();
+        List<ShowContentionResponse> result = new ArrayList<>();
+        shows.forEach((showId, contention) -> result.add(contention.snapshot(showId, now)));
+        return result;
+    }
+
+    // Forgets shows that have been idle for a whole window //
+
+    @Scheduled(fixedDelayString = "${booking.adaptive.cleanup-interval-ms:60000}")
+    public void evictIdleShows() {
+        long now = clock.getAsLong();
+        shows.entrySet().removeIf(entry -> entry.getValue().isIdle(now));
+    }
+
+    private ShowContention stats(Long showId) {
+        return shows.computeIfAbsent(showId, id -> new ShowContention(coldMode));
+    }
+
+    private long bucketMillis() {
+        return Math.max(1, windowSeconds * 1000 / BUCKETS);
+    }
+
+    // Ring of time buckets for one show, guarded by its lock //
+
+    private class ShowContention {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[] epochs = new long[BUCKETS];
+        private final long[] attempts = new long[BUCKETS];
+        private final long[] conflicts = new long[BUCKETS];
+        private final long[] lockWaitNanos = new long[BUCKETS];
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile BookingConcurrencyMode mode;
+        private volatile long decidedAt;
+
+        ShowContention(BookingConcurrencyMode initialMode) {
+            this.mode = initialMode;
+        }
+
+        void add(long now, long attempt, long conflict, long waitNanos) {
+            long epoch = now / bucketMillis();
+            int i = (int) (epoch % BUCKETS);
+            lock.lock();
+            try {
+                if (epochs[i] != epoch) {
+                    epochs[i] = epoch;
+                    attempts[i] = 0;
+                    conflicts[i] = 0;
+                    lockWaitNanos[i] = 0;
+                }
+                attempts[i] += attempt;
+                conflicts[i] += conflict;
+                lockWaitNanos[i] += waitNanos;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long[] totals(long now) {
+            long oldest = now / bucketMillis() - BUCKETS + 1;
+            long[] totals = new long[3];
+            lock.lock();
+            try {
+                for (int i = 0; i < BUCKETS; i++) {
+                    if (epochs[i] >= oldest) {
+                        totals[0] += attempts[i];
+                        totals[1] += conflicts[i];
+                        totals[2] += lockWaitNanos[i];
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            return totals;
+        }
+
+        void decide(long now) {
+            decidedAt = now;
+            long[] totals = totals(now);
+            double conflictRate = totals[0] == 0 ? 0 : (double) totals[1] / totals[0];
+            long avgLockWaitMs = totals[0] == 0 ? 0 : totals[2] / totals[0] / 1_000_000;
+
+            boolean hot = inFlight.get() >= hotInFlight
+                    || (totals[0] >= minSamples && (conflictRate >= hotConflictRate || avgLockWaitMs >= hotLockWaitMs));
+            boolean cold = inFlight.get() < hotInFlight
+                    && conflictRate <= coldConflictRate && avgLockWaitMs < hotLockWaitMs;
+
+            if (hot) {
+                mode = hotMode;
+            } else if (cold) {
+                mode = coldMode;
+            }
+        }
+
+        boolean isIdle(long now) {
+            return inFlight.get() == 0 && totals(now)[0] == 0;
+        }
+
+        ShowContentionResponse snapshot(Long showId, long now) {
+            long[] totals = totals(now);
+            ShowContentionResponse response = new ShowContentionResponse();
+            response.setShowId(showId);
+            response.setMode(mode.name());
+            response.setInFlight(inFlight.get());
+            response.setAttempts(totals[0]);
+            response.setConflicts(totals[1]);
+            response.setConflictRate(totals[0] == 0 ? 0 : (double) totals[1] / totals[0]);
+            response.setAvgLockWaitMs(totals[0] == 0 ? 0 : totals[2] / totals[0] / 1_000_000);
+            return response;
+        }
+    }
+}
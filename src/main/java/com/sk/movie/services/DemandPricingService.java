@@ -0,0 +1,222 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.Money;
+import com.sk.movie.entities.Show;
+import com.sk.movie.exceptions.PriceChangedException;
+import com.sk.movie.repositories.ShowRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Demand-based seat prices, computed in the background and published as immutable tables //
+// Off unless pricing.dynamic.enabled is set; until then every seat costs the show's base price. //
+// A seat costs the show's base price times its zone, occupancy and time-to-show multipliers, rounded //
+// to pricing.dynamic.rounding-minor; a multiplier of exactly 1 keeps the base price as is. Bookings and seat maps only look the current table up; every change of price gets //
+// a new version, and a checkout quoting the version just replaced keeps its prices for quote-grace-ms. //
+// Versions are derived from the prices, so a version quoted by one node means the same on the others //
+
+@Service
+public class DemandPricingService {
+
+    private static final Logger log = LoggerFactory.getLogger(DemandPricingService.class);
+
+    @Autowired
+    private ShowRepository showRepository;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Value("${pricing.dynamic.enabled:false}")
+    private boolean enabled;
+
+    // FRONT, MIDDLE, BACK
+    @Value("${pricing.dynamic.zone-multipliers:0.9,1.0,1.2}")
+    private double[] zoneMultipliers;
+
+    // Occupancy above the threshold raises prices linearly, up to max-surge when the show is full
+    @Value("${pricing.dynamic.occupancy-threshold:0.5}")
+    private double occupancyThreshold;
+
+    @Value("${pricing.dynamic.occupancy-max-surge:0.3}")
+    private double occupancyMaxSurge;
+
+    @Value("${pricing.dynamic.last-minute-hours:3}")
+    private long lastMinuteHours;
+
+    @Value("${pricing.dynamic.last-minute-surge:0.1}")
+    private double lastMinuteSurge;
+
+    @Value("${pricing.dynamic.early-bird-days:7}")
+    private long earlyBirdDays;
+
+    @Value("${pricing.dynamic.early-bird-discount:0.1}")
+    private double earlyBirdDiscount;
+
+    @Value("${pricing.dynamic.min-multiplier:0.7}")
+    private double minMultiplier;
+
+    @Value("${pricing.dynamic.max-multiplier:1.6}")
+    private double maxMultiplier;
+
+    // Prices are rounded to a multiple of this many minor units; 100 is whole rupees, 1 leaves them as is
+    @Value("${pricing.dynamic.rounding-minor:100}")
+    private long roundingMinor;
+
+    @Value("${pricing.dynamic.quote-grace-ms:120000}")
+    private long quoteGraceMs;
+
+    // Current and just-replaced table per show; written only by the pricer
+    private final Map<Long, SeatPriceTable> tables = new ConcurrentHashMap<>();
+    private final Map<Long, SeatPriceTable> superseded = new ConcurrentHashMap<>();
+
+    private final ReentrantLock repriceLock = new ReentrantLock();
+
+    @PostConstruct
+    void checkZoneMultipliers() {
+        if (zoneMultipliers.length != SeatZone.values().length) {
+            throw new IllegalStateException("pricing.dynamic.zone-multipliers needs one multiplier per seat zone");
+        }
+        if (roundingMinor < 1) {
+            throw new IllegalStateException("pricing.dynamic.rounding-minor must be at least 1");
+        }
+    }
+
+    //     * Prices a checkout from the published table; never computes a price //
+    //     * quotedVersion is the price version the client was shown, null to take the current prices //
+    //     * Throws PriceChangedException when that version is no longer honoured //
+
+    public SeatPriceTable quote(Show show, Long quotedVersion) {
+        SeatPriceTable current = tables.get(show.getShowId());
+        if (current == null) {
+            current = SeatPriceTable.base(show.getShowId(), show.getPricePerSeat().getMinor());
+        }
+        if (quotedVersion == null || quotedVersion == current.getVersion()) {
+            return current;
+        }
+        SeatPriceTable previous = superseded.get(show.getShowId());
+        if (previous != null && previous.getVersion() == quotedVersion
+                && System.currentTimeMillis() - current.getPublishedAt() <= quoteGraceMs) {
+            bookingMetrics.recordPriceQuoteHonoured();
+            return previous;
+        }
+        bookingMetrics.recordPriceQuoteRejected();
+        throw new PriceChangedException("Seat prices have changed since they were quoted, please review the new prices");
+    }
+
+    // Current table of a show, or null until the pricer has priced it //
+
+    public SeatPriceTable current(Long showId) {
+        return tables.get(showId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void priceOnStartup() {
+        reprice();
+    }
+
+    //     * Recomputes the prices of every upcoming active show and publishes the ones that changed //
+    //     * Shows that started or were deactivated are dropped //
+    //     * The first scheduled run waits one interval, since priceOnStartup has just priced everything //
+
+    @Scheduled(fixedDelayString = "${pricing.dynamic.refresh-ms:30000}",
+            initialDelayString = "${pricing.dynamic.refresh-ms:30000}")
+    public void reprice() {
+        if (!enabled || !repriceLock.tryLock()) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Set<Long> priced = new HashSet<>();
+            int published = 0;
+            for (Object[] row : showRepository.findPricingInputs(now)) {
+                Long showId = (Long) row[0];
+                ScreenLayout layout = seatInventoryService.getLayout((Long) row[1]);
+                if (layout.size() == 0) {
+                    continue;
+                }
+                priced.add(showId);
+                if (publish(showId, layout, (LocalDateTime) row[2], (Integer) row[3], (Integer) row[4],
+                        ((Money) row[5]).getMinor(), now)) {
+                    published++;
+                }
+            }
+            tables.keySet().retainAll(priced);
+            superseded.keySet().retainAll(priced);
+            if (published > 0) {
+                log.debug("Published new seat prices for {} of {} shows", published, priced.size());
+            }
+        } finally {
+            repriceLock.unlock();
+        }
+    }
+
+    private boolean publish(Long showId, ScreenLayout layout, LocalDateTime showTime, int totalSeats,
+                            int availableSeats, long basePrice, LocalDateTime now) {
+        byte[] zones = SeatZone.of(layout);
+        long[] prices = prices(zones, basePrice, totalSeats, availableSeats, Duration.between(now, showTime));
+        SeatPriceTable current = tables.get(showId);
+        // A layout loaded again after eviction is republished, so the table keeps matching the seat map's
+        if (current != null && current.getLayout() == layout && current.samePrices(prices, basePrice)) {
+            return false;
+        }
+        SeatPriceTable next = new SeatPriceTable(showId,
+                SeatPriceTable.versionOf(basePrice, prices), layout, prices, zones, basePrice);
+        // Clients shown the base price before the first table keep it for the grace period too
+        superseded.put(showId, current != null ? current : SeatPriceTable.base(showId, basePrice));
+        tables.put(showId, next);
+        bookingMetrics.recordPricePublication();
+        return true;
+    }
+
+    // Price of every seat by layout index //
+
+    long[] prices(byte[] zones, long basePrice, int totalSeats, int availableSeats, Duration untilShow) {
+        double demand = occupancyMultiplier(totalSeats, availableSeats) * timeMultiplier(untilShow);
+        long[] prices = new long[zones.length];
+        for (int i = 0; i < zones.length; i++) {
+            double multiplier = Math.max(minMultiplier, Math.min(maxMultiplier, demand * zoneMultipliers[zones[i]]));
+            prices[i] = multiplier == 1
+                    ? basePrice
+                    : Math.round(basePrice * multiplier / roundingMinor) * roundingMinor;
+        }
+        return prices;
+    }
+
+    private double occupancyMultiplier(int totalSeats, int availableSeats) {
+        if (totalSeats <= 0 || occupancyThreshold >= 1) {
+            return 1;
+        }
+        double occupancy = 1 - (double) availableSeats / totalSeats;
+        if (occupancy <= occupancyThreshold) {
+            return 1;
+        }
+        return 1 + occupancyMaxSurge * (occupancy - occupancyThreshold) / (1 - occupancyThreshold);
+    }
+
+    private double timeMultiplier(Duration untilShow) {
+        if (untilShow.toHours() < lastMinuteHours) {
+            return 1 + lastMinuteSurge;
+        }
+        if (untilShow.toDays() >= earlyBirdDays) {
+            return 1 - earlyBirdDiscount;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,200 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.PromoCode;
+import com.sk.movie.entities.PromoCodeChangedEvent;
+import com.sk.movie.entities.Show;
+import com.sk.movie.entities.User;
+import com.sk.movie.exceptions.InvalidPromoCodeException;
+import com.sk.movie.repositories.PromoCodeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Prices promotions for a booking from compiled promo rules //
+// Each code's rule is parsed once and cached until the code changes; automatic promotions are //
+// compiled into an immutable PromoRuleSet that is reloaded after changes or every auto-refresh-ms //
+
+@Service
+public class DiscountRuleEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(DiscountRuleEngine.class);
+
+    @Autowired
+    private PromoCodeRepository promoCodeRepository;
+
+    @Autowired
+    private UserPromoStatsService userPromoStatsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Who may use promo codes at all
+    @Value("${promo.rules.eligibility:bookings > 5 or spending > 1500}")
+    private String eligibilityRule;
+
+    @Value("${promo.rules.auto-refresh-ms:60000}")
+    private long autoRefreshMs;
+
+    private PromoRule.Condition eligibility;
+
+    // Compiled rules by promo code id; replaced when the catalog hands out a reloaded code
+    private final Map<Long, PromoRule> compiled = new ConcurrentHashMap<>();
+
+    private volatile PromoRuleSet autoRules;
+    private volatile long autoRulesExpireAt;
+    private final ReentrantLock autoRulesLock = new ReentrantLock();
+
+    // Bumped by every change; a reload that overlaps one expires at once
+    private final AtomicLong changes = new AtomicLong();
+
+    private TransactionTemplate loadTx;
+
+    @PostConstruct
+    void initLoadTx() {
+        // Reloads are triggered by bookings; reading the promo rows in the booking's own transaction
+        // would share-lock them under SERIALIZABLE and block their promo leases until it commits
+        loadTx = new TransactionTemplate(transactionManager);
+        loadTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        loadTx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        loadTx.setReadOnly(true);
+    }
+
+    @PostConstruct
+    void compileEligibility() {
+        try {
+            eligibility = PromoRule.compileCondition(eligibilityRule);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("promo.rules.eligibility is not a valid condition", e);
+        }
+    }
+
+    public boolean isUserEligible(UserPromoStatsService.Totals totals) {
+        return eligibility.test(new PricingContext().user(totals.confirmedBookings(), totals.totalSpending().getMinor()));
+    }
+
+    //     * Prices the promotions of a booking: the entered code, if any, and every automatic promotion //
+    //     * the user is eligible for; automatic promotions with ids in excluded are left out //
+    //     * totalAmount and cheapestSeat are the booking's seat prices, in minor units //
+    //     * Returns null when there is nothing to price. Throws when the entered code's conditions are not met //
+
+    public PricingContext price(User user, Show show, int seatCount, long totalAmount, long cheapestSeat,
+                                PromoCode promoCode, Set<Long> excluded) {
+        PromoRule explicit = promoCode == null ? null : ruleFor(promoCode);
+        PromoRuleSet rules = autoRules();
+        if (explicit == null && rules.isEmpty()) {
+            return null;
+        }
+
+        // Only look up what some rule needs; the movie is a lazy association
+        boolean needsGenre = rules.usesGenre() || (explicit != null && explicit.usesGenre());
+        PricingContext ctx = new PricingContext().booking(seatCount, totalAmount, cheapestSeat,
+                show.getShowTime(), needsGenre ? show.getMovie().getGenre() : null);
+        // Automatic promotions need the totals for the same eligibility rule as entered codes
+        if (!rules.isEmpty() || explicit.usesUserTotals()) {
+            UserPromoStatsService.Totals totals = userPromoStatsService.getTotals(user.getUserId());
+            ctx.user(totals.confirmedBookings(), totals.totalSpending().getMinor());
+        }
+        if (!rules.isEmpty() && !eligibility.test(ctx)) {
+            rules = PromoRuleSet.EMPTY;
+        }
+
+        if (explicit != null && !explicit.applies(ctx)) {
+            throw new InvalidPromoCodeException("Promo code does not apply to this booking");
+        }
+        rules.price(ctx, explicit, excluded);
+        return ctx;
+    }
+
+    public int getAutoRuleCount() {
+        return autoRules().size();
+    }
+
+    // Codes of the automatic promotions in force //
+
+    public List<PromoCode> getAutoPromoCodes() {
+        return autoRules().getPromoCodes();
+    }
+
+    // Drops the compiled rule of a changed code and reloads the automatic promotions //
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromoCodeChanged(PromoCodeChangedEvent event) {
+        changes.incrementAndGet();
+        compiled.remove(event.promoCodeId());
+        autoRulesExpireAt = 0;
+    }
+
+    private PromoRule ruleFor(PromoCode promoCode) {
+        PromoRule rule = compiled.get(promoCode.getPromoCodeId());
+        if (rule != null && rule.getPromoCode() == promoCode) {
+            return rule;
+        }
+        try {
+            rule = PromoRule.compile(promoCode);
+        } catch (IllegalArgumentException e) {
+            log.warn("Promo code {} has an invalid rule: {}", promoCode.getCode(), e.getMessage());
+            throw new InvalidPromoCodeException("Promo code is not available");
+        }
+        compiled.put(promoCode.getPromoCodeId(), rule);
+        return rule;
+    }
+
+    private PromoRuleSet autoRules() {
+        PromoRuleSet current = autoRules;
+        if (current != null && System.currentTimeMillis() < autoRulesExpireAt) {
+            return current;
+        }
+        // One thread reloads, the others keep using the current set; only the first load is waited for
+        if (current == null) {
+            autoRulesLock.lock();
+        } else if (!autoRulesLock.tryLock()) {
+            return current;
+        }
+        try {
+            if (autoRules != current && autoRules != null) {
+                return autoRules;
+            }
+            long changesBefore = changes.get();
+            List<PromoRule> rules = new ArrayList<>();
+            List<PromoCode> autoCodes = loadTx.execute(status -> {
+                List<PromoCode> loaded = promoCodeRepository.findByAutoApplyTrueAndIsActiveTrue();
+                // Shared between threads, so they must not stay attached to a session
+                loaded.stream().filter(entityManager::contains).forEach(entityManager::detach);
+                return loaded;
+            });
+            for (PromoCode promoCode : autoCodes) {
+                try {
+                    rules.add(PromoRule.compile(promoCode));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Skipping automatic promo {}: {}", promoCode.getCode(), e.getMessage());
+                }
+            }
+            PromoRuleSet loaded = new PromoRuleSet(rules);
+            autoRules = loaded;
+            autoRulesExpireAt = changes.get() == changesBefore ? System.currentTimeMillis() + autoRefreshMs : 0;
+            return loaded;
+        } finally {
+            autoRulesLock.unlock();
+        }
+    }
+}
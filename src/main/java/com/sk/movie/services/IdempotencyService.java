@@ -0,0 +1,367 @@
+package com.sk.movie.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sk.movie.dto.BookingRequest;
+import com.sk.movie.dto.BookingResponse;
+import com.sk.movie.entities.IdempotencyRecord;
+import com.sk.movie.exceptions.BusinessException;
+import com.sk.movie.exceptions.IdempotencyKeyConflictException;
+import com.sk.movie.repositories.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Replays booking responses for retried requests carrying the same Idempotency-Key //
+// Recent keys live in a bounded in-memory LRU, every key is also persisted so other nodes and //
+// restarts see it; a replay never claims seats or opens a booking transaction //
+// A key is reserved in the database before its booking runs, so a retry on another node waits //
+// for the first attempt instead of booking again //
+
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${booking.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${booking.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${booking.idempotency.in-flight-wait-ms:10000}")
+    private long inFlightWaitMs;
+
+    @Value("${booking.idempotency.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    @Value("${booking.idempotency.pending-timeout-ms:60000}")
+    private long pendingTimeoutMs;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate reserveTx;
+
+    // Access-ordered, so the least recently replayed key is dropped first; guarded by cacheLock
+    private final Map<String, StoredResponse> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private final ReentrantLock cacheLock = new ReentrantLock();
+
+    // Requests currently executing, so a retry arriving mid-flight waits instead of booking again
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    //     * Runs the booking once per user and key //
+    //     * A repeat with the same request gets the stored response; a repeat with a different //
+    //     * request is rejected. Failed attempts are not stored, so the client may retry them //
+    //     * The booking is handed a recorder it must call inside its transaction with the response //
+
+    public BookingResponse execute(Long userId, String idempotencyKey, BookingRequest request,
+                                   Function<Consumer<BookingResponse>, BookingResponse> booking) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = userId + ":" + idempotencyKey;
+        String requestHash = hash(request);
+
+        StoredResponse stored = getCached(cacheKey);
+        if (stored != null) {
+            return replay(stored, requestHash);
+        }
+
+        InFlight mine = new InFlight(requestHash);
+        InFlight running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            return awaitRunning(running, requestHash);
+        }
+        try {
+            BookingResponse response = executeOnce(userId, idempotencyKey, cacheKey, requestHash, booking);
+            mine.result.complete(response);
+            return response;
+        } catch (RuntimeException ex) {
+            mine.result.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    @PostConstruct
+    void initTransactionTemplates() {
+        reserveTx = new TransactionTemplate(transactionManager);
+        reserveTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Drops keys past their TTL from memory and the database //
+
+    @Scheduled(fixedDelayString = "${booking.idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        cacheLock.lock();
+        try {
+            cache.values().removeIf(stored -> stored.expiresAt <= now);
+        } finally {
+            cacheLock.unlock();
+        }
+        idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    //     * Reserves the key with a pending row before booking; the unique (user, key) index lets only //
+    //     * one node win, the others poll the row until its response is stored or the wait runs out //
+
+    private BookingResponse executeOnce(Long userId, String idempotencyKey, String cacheKey, String requestHash,
+                                        Function<Consumer<BookingResponse>, BookingResponse> booking) {
+        long deadline = System.currentTimeMillis() + inFlightWaitMs;
+        boolean mayReserve = true;
+        while (true) {
+            if (mayReserve) {
+                IdempotencyRecord reservation = reserve(userId, idempotencyKey, requestHash);
+                if (reservation != null) {
+                    return run(reservation, cacheKey, requestHash, booking);
+                }
+            }
+
+            // Another node or an earlier run of this one holds the key
+            Optional<IdempotencyRecord> persisted =
+                    idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            if (persisted.isEmpty()) {
+                // Released since the insert failed
+                mayReserve = true;
+                continue;
+            }
+            IdempotencyRecord record = persisted.get();
+            LocalDateTime now = LocalDateTime.now();
+            if (!record.getExpiresAt().isAfter(now)) {
+                // Past its TTL, or left pending by a node that stopped mid-booking
+                idempotencyRecordRepository.deleteIfExpired(record.getIdempotencyRecordId(), now);
+                mayReserve = true;
+                continue;
+            }
+            if (!record.getRequestHash().equals(requestHash)) {
+                throw mismatch();
+            }
+            if (!record.isPending()) {
+                StoredResponse stored = new StoredResponse(record.getRequestHash(),
+                        fromJson(record.getResponseBody()),
+                        record.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                putCached(cacheKey, stored);
+                return replay(stored, requestHash);
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw stillProcessing();
+            }
+            mayReserve = false;
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw stillProcessing();
+            }
+        }
+    }
+
+    //     * Inserts the pending row in a transaction of its own, so other nodes see it at once //
+    //     * Returns null when the key is already taken //
+
+    private IdempotencyRecord reserve(Long userId, String idempotencyKey, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setUserId(userId);
+        record.setIdempotencyKey(idempotencyKey);
+        record.setRequestHash(requestHash);
+        record.setResponseBody("");
+        record.setPending(true);
+        record.setCreatedAt(now);
+        record.setExpiresAt(now.plusNanos(pendingTimeoutMs * 1_000_000));
+        try {
+            return reserveTx.execute(status -> idempotencyRecordRepository.saveAndFlush(record));
+        } catch (DataIntegrityViolationException ex) {
+            return null;
+        }
+    }
+
+    //     * Runs the booking; the booking stores the response in its own transaction through the //
+    //     * recorder, so the booking and its key commit or roll back together //
+
+    private BookingResponse run(IdempotencyRecord reservation, String cacheKey, String requestHash,
+                                Function<Consumer<BookingResponse>, BookingResponse> booking) {
+        bookingMetrics.recordIdempotentExecution();
+        BookingResponse response;
+        try {
+            response = booking.apply(completed -> complete(reservation, completed));
+        } catch (RuntimeException ex) {
+            release(reservation);
+            throw ex;
+        }
+        putCached(cacheKey, new StoredResponse(requestHash, response, System.currentTimeMillis() + ttlSeconds * 1000));
+        return response;
+    }
+
+    //     * Called inside the booking transaction; a reservation taken over after its pending timeout //
+    //     * fails the booking rather than letting two nodes book for one key //
+
+    private void complete(IdempotencyRecord reservation, BookingResponse response) {
+        int updated = idempotencyRecordRepository.complete(reservation.getIdempotencyRecordId(), toJson(response),
+                LocalDateTime.now().plusSeconds(ttlSeconds));
+        if (updated != 1) {
+            throw new IdempotencyKeyConflictException("The Idempotency-Key reservation expired before the booking completed");
+        }
+    }
+
+    //     * Frees the key so the client may retry a failed attempt; if this fails the key stays //
+    //     * pending until its timeout and retries get 409 until then //
+
+    private void release(IdempotencyRecord reservation) {
+        try {
+            idempotencyRecordRepository.deletePending(reservation.getIdempotencyRecordId());
+        } catch (RuntimeException ex) {
+            log.warn("Could not release Idempotency-Key {} of user {}",
+                    reservation.getIdempotencyKey(), reservation.getUserId(), ex);
+        }
+    }
+
+    private BookingResponse awaitRunning(InFlight running, String requestHash) {
+        if (!running.requestHash.equals(requestHash)) {
+            throw mismatch();
+        }
+        try {
+            BookingResponse response = running.result.get(inFlightWaitMs, TimeUnit.MILLISECONDS);
+            bookingMetrics.recordIdempotentReplay();
+            return response;
+        } catch (ExecutionException ex) {
+            // The original attempt failed; report the same outcome
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw stillProcessing();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw stillProcessing();
+        }
+    }
+
+    private IdempotencyKeyConflictException stillProcessing() {
+        return new IdempotencyKeyConflictException("A request with this Idempotency-Key is still being processed");
+    }
+
+    private BookingResponse replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash.equals(requestHash)) {
+            throw mismatch();
+        }
+        bookingMetrics.recordIdempotentReplay();
+        return stored.response;
+    }
+
+    private BusinessException mismatch() {
+        return new BusinessException("Idempotency-Key was already used for a different booking request");
+    }
+
+    private StoredResponse getCached(String cacheKey) {
+        cacheLock.lock();
+        try {
+            StoredResponse stored = cache.get(cacheKey);
+            if (stored != null && stored.expiresAt <= System.currentTimeMillis()) {
+                cache.remove(cacheKey);
+                return null;
+            }
+            return stored;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private void putCached(String cacheKey, StoredResponse stored) {
+        cacheLock.lock();
+        try {
+            cache.put(cacheKey, stored);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    // Seat order does not change the booking, so seats are hashed sorted //
+
+    private String hash(BookingRequest request) {
+        String canonical = request.getShowId() + "|"
+                + (request.getSeatIds() == null ? "" : request.getSeatIds().stream().sorted().toList()) + "|"
+                + (request.getSeatCount() == null ? "" : request.getSeatCount()) + "|"
+                + (request.getPromoCode() == null ? "" : request.getPromoCode());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String toJson(BookingResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize booking response", e);
+        }
+    }
+
+    private BookingResponse fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, BookingResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored booking response", e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, BookingResponse response, long expiresAt) {
+    }
+
+    private static class InFlight {
+        private final String requestHash;
+        private final CompletableFuture<BookingResponse> result = new CompletableFuture<>();
+
+        InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+}
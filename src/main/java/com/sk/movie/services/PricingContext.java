@@ -0,0 +1,95 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.PromoCode;
+
+import java.time.LocalDateTime;
+
+// Facts about one booking that promo rules look at, and the outcome of pricing it //
+// Amounts are in minor units (paise). One context is filled per booking and shared by all rules, //
+// so evaluating a rule reads fields and allocates nothing //
+
+public final class PricingContext {
+
+    int seatCount;
+    long pricePerSeat;       // the cheapest seat of the booking; free seats are given at this price
+    long totalAmount;
+    int showMinuteOfDay;
+    int showDayOfWeek;       // 1 = Monday .. 7 = Sunday
+    String genre;            // lower case, null when unknown or not needed
+    long userBookings;
+    long userSpending;
+    long now;
+
+    private long discount;
+    private PromoRule[] applied = new PromoRule[4];
+    private int appliedCount;
+    private PromoRule primary;
+
+    public PricingContext booking(int seatCount, long pricePerSeat, LocalDateTime showTime, String genre) {
+        return booking(seatCount, pricePerSeat * seatCount, pricePerSeat, showTime, genre);
+    }
+
+    // Booking of seats with different prices //
+
+    public PricingContext booking(int seatCount, long totalAmount, long cheapestSeat, LocalDateTime showTime,
+                                  String genre) {
+        this.seatCount = seatCount;
+        this.pricePerSeat = cheapestSeat;
+        this.totalAmount = totalAmount;
+        this.showMinuteOfDay = showTime.getHour() * 60 + showTime.getMinute();
+        this.showDayOfWeek = showTime.getDayOfWeek().getValue();
+        this.genre = genre == null ? null : genre.toLowerCase();
+        this.now = System.currentTimeMillis();
+        return this;
+    }
+
+    public PricingContext user(long confirmedBookings, long totalSpending) {
+        this.userBookings = confirmedBookings;
+        this.userSpending = totalSpending;
+        return this;
+    }
+
+    public long getTotalAmount() { return totalAmount; }
+
+    // Total discount of the applied rules, never more than the booking total //
+    public long getDiscount() { return discount; }
+
+    public int getAppliedCount() { return appliedCount; }
+
+    public PromoRule getApplied(int index) { return applied[index]; }
+
+    // The winning non-stackable rule, else the first stackable one; recorded on the booking //
+    public PromoRule getPrimary() { return primary; }
+
+    public boolean isApplied(PromoCode promoCode) {
+        for (int i = 0; i < appliedCount; i++) {
+            if (applied[i].getPromoCode() == promoCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void clearResult() {
+        discount = 0;
+        appliedCount = 0;
+        primary = null;
+    }
+
+    void setPrimary(PromoRule primary) {
+        this.primary = primary;
+    }
+
+    void setDiscount(long discount) {
+        this.discount = Math.min(discount, totalAmount);
+    }
+
+    void addApplied(PromoRule rule) {
+        if (appliedCount == applied.length) {
+            PromoRule[] grown = new PromoRule[applied.length * 2];
+            System.arraycopy(applied, 0, grown, 0, appliedCount);
+            applied = grown;
+        }
+        applied[appliedCount++] = rule;
+    }
+}
@@ -0,0 +1,226 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.PromoCode;
+import com.sk.movie.entities.PromoCodeChangedEvent;
+import com.sk.movie.repositories.PromoCodeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Read-through cache of active promo codes keyed by code, so promo validation needs no query //
+// A valid code stays cached until validUntil at the latest, a code not yet valid is cached and starts //
+// to pass validation at validFrom without a reload. Unknown and expired codes are cached briefly so //
+// repeated bad codes do not reach the database. Writes through JPA evict the code once they commit; //
+// the TTL bounds how long changes made on other nodes or directly in the database go unseen. //
+// Valid codes and bad ones are capped separately, so a flood of bad codes cannot push valid ones out; //
+// a full part makes room by dropping its entry closest to expiry, so new codes are still cached //
+// Misses are loaded in a transaction of their own, never in the booking that asked //
+
+@Service
+public class PromoCatalogService {
+
+    @Autowired
+    private PromoCodeRepository promoCodeRepository;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${promo.catalog.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${promo.catalog.negative-ttl-ms:30000}")
+    private long negativeTtlMs;
+
+    @Value("${promo.catalog.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${promo.catalog.max-negative-entries:1000}")
+    private int maxNegativeEntries;
+
+    // Codes that load as valid or not yet valid
+    private final Shelf codes = new Shelf();
+
+    // Unknown and expired codes
+    private final Shelf negatives = new Shelf();
+
+    // Bumped by every eviction; a load that started before one is not cached
+    private final AtomicLong evictions = new AtomicLong();
+
+    private TransactionTemplate loadTx;
+
+    @PostConstruct
+    void initLoadTx() {
+        // A read inside a SERIALIZABLE booking share-locks the promo row until the booking commits,
+        // and the promo lease, which updates that row in a transaction of its own, would wait on it
+        loadTx = new TransactionTemplate(transactionManager);
+        loadTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        loadTx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        loadTx.setReadOnly(true);
+    }
+
+    //     * Active promo code by code, empty when there is none //
+    //     * The caller still checks the validity window; the entry is never older than validUntil //
+
+    public Optional<PromoCode> find(String code) {
+        long now = System.currentTimeMillis();
+        Entry entry = cached(code, now);
+        if (entry != null) {
+            bookingMetrics.recordPromoCatalogHit();
+            return Optional.ofNullable(entry.promoCode);
+        }
+        bookingMetrics.recordPromoCatalogMiss();
+        return Optional.ofNullable(load(code, now));
+    }
+
+    // As find, without counting a hit or miss; for lookups ahead of the one that validates the code //
+
+    public Optional<PromoCode> peek(String code) {
+        long now = System.currentTimeMillis();
+        Entry entry = cached(code, now);
+        return Optional.ofNullable(entry != null ? entry.promoCode : load(code, now));
+    }
+
+    // Drops a changed code once its transaction commits, or at once outside a transaction //
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromoCodeChanged(PromoCodeChangedEvent event) {
+        evictions.incrementAndGet();
+        // The code may have been renamed, so look for the entry by id as well
+        codes.entries.entrySet().removeIf(e -> e.getKey().equals(event.code())
+                || e.getValue().promoCode.getPromoCodeId().equals(event.promoCodeId()));
+        negatives.entries.entrySet().removeIf(e -> e.getKey().equals(event.code())
+                || (e.getValue().promoCode != null
+                && e.getValue().promoCode.getPromoCodeId().equals(event.promoCodeId())));
+    }
+
+    // Drops every entry, e.g. after codes were changed directly in the database //
+
+    public int evictAll() {
+        evictions.incrementAndGet();
+        int size = size();
+        codes.clear();
+        negatives.clear();
+        return size;
+    }
+
+    // Removes entries that are past their expiry //
+
+    @Scheduled(fixedDelayString = "${promo.catalog.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        codes.sweep(now);
+        negatives.sweep(now);
+    }
+
+    public int size() {
+        return codes.entries.size() + negatives.entries.size();
+    }
+
+    private Entry cached(String code, long now) {
+        Entry entry = codes.entries.get(code);
+        if (entry == null || entry.expiresAt <= now) {
+            entry = negatives.entries.get(code);
+        }
+        return entry != null && entry.expiresAt > now ? entry : null;
+    }
+
+    private PromoCode load(String code, long now) {
+        long evictionsBefore = evictions.get();
+        PromoCode promoCode = loadTx.execute(status -> {
+            PromoCode loaded = promoCodeRepository.findByCodeAndIsActiveTrue(code).orElse(null);
+            // Shared between threads from now on, so it must not stay attached to a session
+            if (loaded != null && entityManager.contains(loaded)) {
+                entityManager.detach(loaded);
+            }
+            return loaded;
+        });
+        long validUntil = promoCode != null ? toMillis(promoCode.getValidUntil()) : now;
+        if (evictions.get() == evictionsBefore) {
+            if (validUntil > now) {
+                codes.put(code, new Entry(promoCode, Math.min(now + ttlSeconds * 1000, validUntil)), maxEntries);
+                negatives.remove(code);
+            } else {
+                negatives.put(code, new Entry(promoCode, now + negativeTtlMs), maxNegativeEntries);
+                codes.remove(code);
+            }
+        }
+        return promoCode;
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // One part of the catalog, with its entries indexed by expiry time, so the sweep and //
+    // the eviction of a full part only look at the entries closest to expiry //
+
+    private static class Shelf {
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<Expiry> expiries = new ConcurrentSkipListSet<>(
+                Comparator.comparingLong(Expiry::at).thenComparing(Expiry::code));
+
+        void put(String code, Entry entry, int maxEntries) {
+            // Approximate under concurrent loads; an expiry left by a replaced entry frees nothing
+            while (entries.size() >= maxEntries && !entries.containsKey(code)) {
+                Expiry first = expiries.pollFirst();
+                if (first == null) {
+                    break;
+                }
+                drop(first);
+            }
+            entries.put(code, entry);
+            expiries.add(new Expiry(entry.expiresAt, code));
+        }
+
+        void remove(String code) {
+            entries.remove(code);
+        }
+
+        void sweep(long now) {
+            while (!expiries.isEmpty() && expiries.first().at <= now) {
+                Expiry due = expiries.pollFirst();
+                if (due != null) {
+                    drop(due);
+                }
+            }
+        }
+
+        void clear() {
+            entries.clear();
+            expiries.clear();
+        }
+
+        private void drop(Expiry expiry) {
+            entries.computeIfPresent(expiry.code, (code, entry) -> entry.expiresAt == expiry.at ? null : entry);
+        }
+    }
+
+    private record Entry(PromoCode promoCode, long expiresAt) {
+    }
+
+    private record Expiry(long at, String code) {
+    }
+}
@@ -0,0 +1,288 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.PromoCode;
+import com.sk.movie.exceptions.InvalidPromoCodeException;
+import com.sk.movie.repositories.PromoCodeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Counts promo code uses without making every booking update the promo_codes row //
+// Limited codes: each node leases a block of uses from the row with one conditional UPDATE and hands //
+// them out from memory, so the row is written once per block and maxUses can never be passed. //
+// Blocks are leased before the booking transaction opens, never inside it, so a booking holding a //
+// connection never waits for a second one. //
+// Unleased uses go back after a quiet period and on shutdown; a crashed node only strands its lease. //
+// Unlimited codes: uses are counted in memory and added to the row in batches //
+
+@Service
+public class PromoRedemptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PromoRedemptionService.class);
+
+    private static final int MAX_LEASE_ATTEMPTS = 5;
+
+    @Autowired
+    private PromoCodeRepository promoCodeRepository;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${promo.redemption.lease-size:50}")
+    private int leaseSize;
+
+    @Value("${promo.redemption.lease-idle-ms:30000}")
+    private long leaseIdleMs;
+
+    private final Map<Long, Allowance> allowances = new ConcurrentHashMap<>();
+
+    // Uses taken by withReservedUses on this thread, by promo code id, for redeem to hand out
+    private final ThreadLocal<Map<Long, Integer>> reservedUses = new ThreadLocal<>();
+
+    private TransactionTemplate leaseTx;
+    private TransactionTemplate flushTx;
+
+    @PostConstruct
+    void initTransactionTemplates() {
+        // Leases commit on their own so the promo row is locked only for the UPDATE, not the booking;
+        // read committed so a retry sees what other nodes leased meanwhile
+        leaseTx = new TransactionTemplate(transactionManager);
+        leaseTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        leaseTx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        flushTx = new TransactionTemplate(transactionManager);
+    }
+
+    //     * Runs work, which opens a booking transaction, with a use of each limited code taken beforehand //
+    //     * List a code once for every booking in work that may redeem it; redeem hands these out first, //
+    //     * and uses that work did not redeem go back to this node's lease afterwards //
+
+    public <T> T withReservedUses(Collection<PromoCode> promoCodes, Supplier<T> work) {
+        Map<Long, Integer> reserved = new HashMap<>();
+        for (PromoCode promoCode : promoCodes) {
+            if (promoCode.getMaxUses() != null && take(promoCode.getPromoCodeId())) {
+                reserved.merge(promoCode.getPromoCodeId(), 1, Integer::sum);
+            }
+        }
+        reservedUses.set(reserved);
+        try {
+            return work.get();
+        } finally {
+            reservedUses.remove();
+            reserved.forEach((promoCodeId, uses) -> allowances.get(promoCodeId).tokens.addAndGet(uses));
+        }
+    }
+
+    //     * Takes one use of the code for the booking being written //
+    //     * The use is given back if the booking transaction rolls back, or earlier through //
+    //     * Redemption.giveBack when the booking fails but the transaction goes on, as in a queued batch //
+    //     * Inside a transaction only reserved or already leased uses are handed out: leasing there would //
+    //     * hold the booking's connection while waiting for another one, so the code counts as used up //
+
+    public Redemption redeem(PromoCode promoCode) {
+        Allowance allowance = allowances.computeIfAbsent(promoCode.getPromoCodeId(), id -> new Allowance());
+        allowance.lastUsedAt = System.currentTimeMillis();
+
+        Redemption redemption;
+        if (promoCode.getMaxUses() == null) {
+            // Unlimited uses are only counted once the booking commits
+            redemption = new Redemption(allowance.pendingUses::increment, () -> {
+            });
+        } else {
+            boolean taken = takeReserved(promoCode.getPromoCodeId()) || allowance.tryTake()
+                    || (!TransactionSynchronizationManager.isActualTransactionActive()
+                    && leaseAndTake(promoCode.getPromoCodeId(), allowance));
+            if (!taken) {
+                bookingMetrics.recordPromoExhausted();
+                throw new InvalidPromoCodeException("Promo code usage limit reached");
+            }
+            redemption = new Redemption(() -> {
+            }, allowance.tokens::incrementAndGet);
+        }
+        onCompletion(redemption::settle);
+        bookingMetrics.recordPromoRedemption();
+        return redemption;
+    }
+
+    //     * Writes counted uses of unlimited codes and hands back leases nobody used for a while //
+    //     * Counts that fail to write are kept for the next run //
+
+    @Scheduled(fixedDelayString = "${promo.redemption.flush-interval-ms:1000}")
+    public void flush() {
+        long idleBefore = System.currentTimeMillis() - leaseIdleMs;
+        allowances.forEach((promoCodeId, allowance) -> {
+            int uses = (int) allowance.pendingUses.sumThenReset();
+            if (uses > 0) {
+                write(promoCodeId, uses, () -> allowance.pendingUses.add(uses));
+            }
+            if (allowance.lastUsedAt < idleBefore) {
+                returnLease(promoCodeId, allowance);
+            }
+        });
+    }
+
+    @PreDestroy
+    void returnAll() {
+        allowances.forEach((promoCodeId, allowance) -> {
+            int uses = (int) allowance.pendingUses.sumThenReset();
+            if (uses > 0) {
+                write(promoCodeId, uses, () -> log.warn("Lost {} uses of promo code {}", uses, promoCodeId));
+            }
+            returnLease(promoCodeId, allowance);
+        });
+    }
+
+    // Uses of the code this node holds but has not handed out //
+
+    public int getLeasedUses(Long promoCodeId) {
+        Allowance allowance = allowances.get(promoCodeId);
+        return allowance == null ? 0 : allowance.tokens.get();
+    }
+
+    // Takes a use outside any transaction, leasing a new block when this node has none left //
+
+    private boolean take(Long promoCodeId) {
+        Allowance allowance = allowances.computeIfAbsent(promoCodeId, id -> new Allowance());
+        allowance.lastUsedAt = System.currentTimeMillis();
+        return allowance.tryTake() || leaseAndTake(promoCodeId, allowance);
+    }
+
+    private boolean takeReserved(Long promoCodeId) {
+        Map<Long, Integer> reserved = reservedUses.get();
+        if (reserved == null || reserved.getOrDefault(promoCodeId, 0) == 0) {
+            return false;
+        }
+        reserved.merge(promoCodeId, -1, Integer::sum);
+        return true;
+    }
+
+    //     * Leases a new block, one thread per code at a time //
+    //     * Blocks shrink to a quarter of what is left, so the last uses spread across nodes //
+
+    private boolean leaseAndTake(Long promoCodeId, Allowance allowance) {
+        allowance.leaseLock.lock();
+        try {
+            // Another thread may have leased while this one waited
+            if (allowance.tryTake()) {
+                return true;
+            }
+            Integer leased = leaseTx.execute(status -> {
+                for (int attempt = 0; attempt < MAX_LEASE_ATTEMPTS; attempt++) {
+                    Integer remaining = promoCodeRepository.findRemainingUses(promoCodeId);
+                    if (remaining == null || remaining <= 0) {
+                        return 0;
+                    }
+                    int uses = Math.min(leaseSize, Math.max(1, remaining / 4));
+                    if (promoCodeRepository.leaseUses(promoCodeId, uses) == 1) {
+                        return uses;
+                    }
+                }
+                return 0;
+            });
+            if (leased == null || leased == 0) {
+                return false;
+            }
+            bookingMetrics.recordPromoLease();
+            // One use goes to the caller
+            allowance.tokens.addAndGet(leased - 1);
+            return true;
+        } finally {
+            allowance.leaseLock.unlock();
+        }
+    }
+
+    private void returnLease(Long promoCodeId, Allowance allowance) {
+        int unused = allowance.tokens.getAndSet(0);
+        if (unused > 0) {
+            write(promoCodeId, -unused, () -> allowance.tokens.addAndGet(unused));
+        }
+    }
+
+    private void write(Long promoCodeId, int uses, Runnable onFailure) {
+        try {
+            flushTx.executeWithoutResult(status -> promoCodeRepository.addUses(promoCodeId, uses));
+        } catch (RuntimeException ex) {
+            log.warn("Could not update uses of promo code {}", promoCodeId, ex);
+            onFailure.run();
+        }
+    }
+
+    private void onCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    // One use taken by redeem; settled once, by the transaction outcome or by giveBack //
+
+    public static final class Redemption {
+        private final Runnable onCommit;
+        private final Runnable onGiveBack;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Redemption(Runnable onCommit, Runnable onGiveBack) {
+            this.onCommit = onCommit;
+            this.onGiveBack = onGiveBack;
+        }
+
+        // Returns the use for a booking that will not be written; the transaction outcome is then ignored //
+
+        public void giveBack() {
+            if (settled.compareAndSet(false, true)) {
+                onGiveBack.run();
+            }
+        }
+
+        private void settle(boolean committed) {
+            if (settled.compareAndSet(false, true)) {
+                (committed ? onCommit : onGiveBack).run();
+            }
+        }
+    }
+
+    private static class Allowance {
+        private final AtomicInteger tokens = new AtomicInteger();
+        private final LongAdder pendingUses = new LongAdder();
+        private final ReentrantLock leaseLock = new ReentrantLock();
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        boolean tryTake() {
+            for (int left = tokens.get(); left > 0; left = tokens.get()) {
+                if (tokens.compareAndSet(left, left - 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
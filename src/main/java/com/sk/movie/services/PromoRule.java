@@ -0,0 +1,288 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.PromoCode;
+
+import java.time.ZoneId;
+
+// A promo code compiled into a condition tree and a discount function //
+// Rules are written in a small language, parsed once by PromoRuleParser, for example: //
+//   when hour in 10..16 and genre in drama, comedy then percent 20 max 300 //
+//   when seats >= 4 then tiered(4: free-seats 1, 8: free-seats 2) //
+// Codes without a rule are compiled from their discount type and value //
+
+public final class PromoRule {
+
+    private final PromoCode promoCode;
+    private final Condition when;
+    private final Discount then;
+    private final boolean stackable;
+    private final boolean usesGenre;
+    private final boolean usesUserTotals;
+    private final long validFrom;
+    private final long validUntil;
+
+    PromoRule(PromoCode promoCode, Condition when, Discount then, boolean usesGenre, boolean usesUserTotals) {
+        this.promoCode = promoCode;
+        this.when = when;
+        this.then = then;
+        this.stackable = Boolean.TRUE.equals(promoCode.getStackable());
+        this.usesGenre = usesGenre;
+        this.usesUserTotals = usesUserTotals;
+        this.validFrom = promoCode.getValidFrom().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        this.validUntil = promoCode.getValidUntil().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    //     * Compiles the rule of a promo code //
+    //     * Throws IllegalArgumentException when the rule text is not valid //
+
+    public static PromoRule compile(PromoCode promoCode) {
+        return PromoRuleParser.parse(promoCode);
+    }
+
+    // Compiles a bare condition, such as the promo eligibility rule //
+
+    public static Condition compileCondition(String condition) {
+        return PromoRuleParser.parseCondition(condition);
+    }
+
+    public PromoCode getPromoCode() { return promoCode; }
+    public boolean isStackable() { return stackable; }
+    public boolean usesGenre() { return usesGenre; }
+    public boolean usesUserTotals() { return usesUserTotals; }
+
+    boolean isValidAt(long millis) {
+        return millis >= validFrom && millis <= validUntil;
+    }
+
+    boolean applies(PricingContext ctx) {
+        return when.test(ctx);
+    }
+
+    long discount(PricingContext ctx) {
+        return then.discount(ctx);
+    }
+
+    // Compiled nodes //
+
+    public interface Condition {
+        boolean test(PricingContext ctx);
+    }
+
+    interface Discount {
+        long discount(PricingContext ctx);
+    }
+
+    enum Metric { SEATS, BOOKINGS, SPENDING, TOTAL }
+
+    enum Comparison { GT, GE, LT, LE, EQ, NE }
+
+    static final Condition ALWAYS = ctx -> true;
+
+    static final class Compare implements Condition {
+        private final Metric metric;
+        private final Comparison comparison;
+        private final long value;
+
+        Compare(Metric metric, Comparison comparison, long value) {
+            this.metric = metric;
+            this.comparison = comparison;
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(PricingContext ctx) {
+            long actual = switch (metric) {
+                case SEATS -> ctx.seatCount;
+                case BOOKINGS -> ctx.userBookings;
+                case SPENDING -> ctx.userSpending;
+                case TOTAL -> ctx.totalAmount;
+            };
+            return switch (comparison) {
+                case GT -> actual > value;
+                case GE -> actual >= value;
+                case LT -> actual < value;
+                case LE -> actual <= value;
+                case EQ -> actual == value;
+                case NE -> actual != value;
+            };
+        }
+    }
+
+    // Show start between from (inclusive) and to (exclusive), wrapping past midnight when from > to
+    static final class HourRange implements Condition {
+        private final int fromMinute;
+        private final int toMinute;
+
+        HourRange(int fromMinute, int toMinute) {
+            this.fromMinute = fromMinute;
+            this.toMinute = toMinute;
+        }
+
+        @Override
+        public boolean test(PricingContext ctx) {
+            int minute = ctx.showMinuteOfDay;
+            return fromMinute <= toMinute
+                    ? minute >= fromMinute && minute < toMinute
+                    : minute >= fromMinute || minute < toMinute;
+        }
+    }
+
+    static final class DayIn implements Condition {
+        private final int dayMask;
+
+        DayIn(int dayMask) {
+            this.dayMask = dayMask;
+        }
+
+        @Override
+        public boolean test(PricingContext ctx) {
+            return (dayMask & (1 << ctx.showDayOfWeek)) != 0;
+        }
+    }
+
+    static final class GenreIn implements Condition {
+        private final String[] genres;
+
+        GenreIn(String[] genres) {
+            this.genres = genres;
+        }
+
+        @Override
+        public boolean test(PricingContext ctx) {
+            if (ctx.genre == null) {
+                return false;
+            }
+            for (String genre : genres) {
+                if (genre.equals(ctx.genre)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static final class All implements Condition {
+        private final Condition[] conditions;
+
+        All(Condition[] conditions) {
+            this.conditions = conditions;
+        }
+
+        @Override
+        public boolean test(PricingContext ctx) {
+            for (Condition condition : conditions) {
+                if (!condition.test(ctx)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static final class Any implements Condition {
+        private final Condition[] conditions;
+
+        Any(Condition[] conditions) {
+            this.conditions = conditions;
+        }
+
+        @Override
+        public boolean test(PricingContext ctx) {
+            for (Condition condition : conditions) {
+                if (condition.test(ctx)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static final class Not implements Condition {
+        private final Condition condition;
+
+        Not(Condition condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        public boolean test(PricingContext ctx) {
+            return !condition.test(ctx);
+        }
+    }
+
+    // Percentage of the booking total in basis points, optionally capped
+    static final class Percent implements Discount {
+        private final long basisPoints;
+        private final long cap;
+
+        Percent(long basisPoints, long cap) {
+            this.basisPoints = basisPoints;
+            this.cap = cap;
+        }
+
+        @Override
+        public long discount(PricingContext ctx) {
+            return Math.min(ctx.totalAmount * basisPoints / 10_000, cap);
+        }
+    }
+
+    static final class Flat implements Discount {
+        private final long amount;
+
+        Flat(long amount) {
+            this.amount = amount;
+        }
+
+        @Override
+        public long discount(PricingContext ctx) {
+            return amount;
+        }
+    }
+
+    static final class PerSeat implements Discount {
+        private final long amount;
+
+        PerSeat(long amount) {
+            this.amount = amount;
+        }
+
+        @Override
+        public long discount(PricingContext ctx) {
+            return amount * ctx.seatCount;
+        }
+    }
+
+    static final class FreeSeats implements Discount {
+        private final int seats;
+
+        FreeSeats(int seats) {
+            this.seats = seats;
+        }
+
+        @Override
+        public long discount(PricingContext ctx) {
+            return ctx.pricePerSeat * Math.min(seats, ctx.seatCount);
+        }
+    }
+
+    // The tier with the highest seat threshold the booking reaches; thresholds are ascending
+    static final class Tiered implements Discount {
+        private final int[] minSeats;
+        private final Discount[] tiers;
+
+        Tiered(int[] minSeats, Discount[] tiers) {
+            this.minSeats = minSeats;
+            this.tiers = tiers;
+        }
+
+        @Override
+        public long discount(PricingContext ctx) {
+            for (int i = minSeats.length - 1; i >= 0; i--) {
+                if (ctx.seatCount >= minSeats[i]) {
+                    return tiers[i].discount(ctx);
+                }
+            }
+            return 0;
+        }
+    }
+}
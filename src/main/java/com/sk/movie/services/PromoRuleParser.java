@@ -0,0 +1,318 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.DiscountType;
+import com.sk.movie.entities.PromoCode;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Recursive-descent parser for promo rules //
+//   rule      := [ "when" or ] "then" discount //
+//   or        := and { "or" and }      and := unary { "and" unary } //
+//   unary     := "not" unary | "(" or ")" | clause //
+//   clause    := ( "seats" | "bookings" | "spending" | "total" ) op number //
+//              | "hour" "in" int ".." int | "day" "in" word { "," word } | "genre" "in" word { "," word } //
+//   discount  := "percent" number [ "max" number ] | "flat" number | "per-seat" number //
+//              | "free-seats" int | "tiered" "(" int ":" discount { "," int ":" discount } ")" //
+// Amounts are in rupees and compiled to paise; keywords are case-insensitive //
+
+final class PromoRuleParser {
+
+    private static final String[] DAYS = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+
+    private final List<String> tokens;
+    private int position;
+    private boolean usesGenre;
+    private boolean usesUserTotals;
+
+    private PromoRuleParser(String text) {
+        this.tokens = tokenize(text);
+    }
+
+    static PromoRule parse(PromoCode promoCode) {
+        String rule = promoCode.getRule();
+        if (rule == null || rule.isBlank()) {
+            // A free seat needs a seat that is paid for
+            PromoRule.Condition when = promoCode.getDiscountType() == DiscountType.FREE_SEAT
+                    ? new PromoRule.Compare(PromoRule.Metric.SEATS, PromoRule.Comparison.GE, 2)
+                    : PromoRule.ALWAYS;
+            return new PromoRule(promoCode, when, fromDiscountType(promoCode), false, false);
+        }
+        PromoRuleParser parser = new PromoRuleParser(rule);
+        PromoRule.Condition when = parser.accept("when") ? parser.or() : PromoRule.ALWAYS;
+        parser.expect("then");
+        PromoRule.Discount then = parser.discount();
+        parser.expectEnd();
+        return new PromoRule(promoCode, when, then, parser.usesGenre, parser.usesUserTotals);
+    }
+
+    static PromoRule.Condition parseCondition(String text) {
+        PromoRuleParser parser = new PromoRuleParser(text);
+        PromoRule.Condition condition = parser.or();
+        parser.expectEnd();
+        return condition;
+    }
+
+    private static PromoRule.Discount fromDiscountType(PromoCode promoCode) {
+        long value = amount(promoCode.getDiscountValue());
+        return switch (promoCode.getDiscountType()) {
+            case FREE_SEAT -> new PromoRule.FreeSeats(1);
+            case FLAT_DISCOUNT -> new PromoRule.Flat(value);
+            case PERCENTAGE -> new PromoRule.Percent(value, Long.MAX_VALUE);
+            case RULE -> throw new IllegalArgumentException("Promo code " + promoCode.getCode() + " has no rule");
+        };
+    }
+
+    // Conditions //
+
+    private PromoRule.Condition or() {
+        List<PromoRule.Condition> any = new ArrayList<>();
+        any.add(and());
+        while (accept("or")) {
+            any.add(and());
+        }
+        return any.size() == 1 ? any.get(0) : new PromoRule.Any(any.toArray(PromoRule.Condition[]::new));
+    }
+
+    private PromoRule.Condition and() {
+        List<PromoRule.Condition> all = new ArrayList<>();
+        all.add(unary());
+        while (accept("and")) {
+            all.add(unary());
+        }
+        return all.size() == 1 ? all.get(0) : new PromoRule.All(all.toArray(PromoRule.Condition[]::new));
+    }
+
+    private PromoRule.Condition unary() {
+        if (accept("not")) {
+            return new PromoRule.Not(unary());
+        }
+        if (accept("(")) {
+            PromoRule.Condition inner = or();
+            expect(")");
+            return inner;
+        }
+        return clause();
+    }
+
+    private PromoRule.Condition clause() {
+        String word = next();
+        switch (word) {
+            case "seats":
+                return new PromoRule.Compare(PromoRule.Metric.SEATS, comparison(), integer());
+            case "bookings":
+                usesUserTotals = true;
+                return new PromoRule.Compare(PromoRule.Metric.BOOKINGS, comparison(), integer());
+            case "spending":
+                usesUserTotals = true;
+                return new PromoRule.Compare(PromoRule.Metric.SPENDING, comparison(), amount(next()));
+            case "total":
+                return new PromoRule.Compare(PromoRule.Metric.TOTAL, comparison(), amount(next()));
+            case "hour": {
+                expect("in");
+                int from = integer();
+                expect("..");
+                int to = integer();
+                if (from < 0 || from > 24 || to < 0 || to > 24) {
+                    throw error("hours must be between 0 and 24");
+                }
+                return new PromoRule.HourRange(from * 60, to * 60);
+            }
+            case "day": {
+                expect("in");
+                int mask = 0;
+                do {
+                    mask |= 1 << day(next());
+                } while (accept(","));
+                return new PromoRule.DayIn(mask);
+            }
+            case "genre": {
+                expect("in");
+                usesGenre = true;
+                List<String> genres = new ArrayList<>();
+                do {
+                    genres.add(next());
+                } while (accept(","));
+                return new PromoRule.GenreIn(genres.toArray(String[]::new));
+            }
+            default:
+                throw error("unknown condition '" + word + "'");
+        }
+    }
+
+    private PromoRule.Comparison comparison() {
+        String op = next();
+        return switch (op) {
+            case ">" -> PromoRule.Comparison.GT;
+            case ">=" -> PromoRule.Comparison.GE;
+            case "<" -> PromoRule.Comparison.LT;
+            case "<=" -> PromoRule.Comparison.LE;
+            case "=" -> PromoRule.Comparison.EQ;
+            case "!=" -> PromoRule.Comparison.NE;
+            default -> throw error("expected a comparison, found '" + op + "'");
+        };
+    }
+
+    // Discounts //
+
+    private PromoRule.Discount discount() {
+        String word = next();
+        switch (word) {
+            case "percent": {
+                long basisPoints = new BigDecimal(number()).movePointRight(2)
+                        .setScale(0, RoundingMode.HALF_UP).longValueExact();
+                if (basisPoints <= 0 || basisPoints > 10_000) {
+                    throw error("percent must be above 0 and at most 100");
+                }
+                long cap = accept("max") ? amount(next()) : Long.MAX_VALUE;
+                return new PromoRule.Percent(basisPoints, cap);
+            }
+            case "flat":
+                return new PromoRule.Flat(amount(next()));
+            case "per-seat":
+                return new PromoRule.PerSeat(amount(next()));
+            case "free-seats":
+                return new PromoRule.FreeSeats(integer());
+            case "tiered": {
+                expect("(");
+                List<Integer> minSeats = new ArrayList<>();
+                List<PromoRule.Discount> tiers = new ArrayList<>();
+                do {
+                    int seats = integer();
+                    if (!minSeats.isEmpty() && seats <= minSeats.get(minSeats.size() - 1)) {
+                        throw error("tiers must be in ascending seat order");
+                    }
+                    expect(":");
+                    minSeats.add(seats);
+                    tiers.add(discount());
+                } while (accept(","));
+                expect(")");
+                return new PromoRule.Tiered(minSeats.stream().mapToInt(Integer::intValue).toArray(),
+                        tiers.toArray(PromoRule.Discount[]::new));
+            }
+            default:
+                throw error("unknown discount '" + word + "'");
+        }
+    }
+
+    // Tokens //
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isDigit(c)) {
+                int start = i;
+                while (i < text.length() && Character.isDigit(text.charAt(i))) {
+                    i++;
+                }
+                // A fraction, but not the start of a ".." range
+                if (i + 1 < text.length() && text.charAt(i) == '.' && Character.isDigit(text.charAt(i + 1))) {
+                    i++;
+                    while (i < text.length() && Character.isDigit(text.charAt(i))) {
+                        i++;
+                    }
+                }
+                tokens.add(text.substring(start, i));
+            } else if (Character.isLetter(c)) {
+                int start = i;
+                while (i < text.length() && (Character.isLetterOrDigit(text.charAt(i))
+                        || text.charAt(i) == '-' || text.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else if (c == '"') {
+                int end = text.indexOf('"', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated string in promo rule");
+                }
+                tokens.add(text.substring(i + 1, end).toLowerCase(Locale.ROOT));
+                i = end + 1;
+            } else if (text.startsWith(">=", i) || text.startsWith("<=", i)
+                    || text.startsWith("!=", i) || text.startsWith("..", i)) {
+                tokens.add(text.substring(i, i + 2));
+                i += 2;
+            } else if ("<>=(),:".indexOf(c) >= 0) {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                throw new IllegalArgumentException("Unexpected character '" + c + "' in promo rule");
+            }
+        }
+        return tokens;
+    }
+
+    private String next() {
+        if (position >= tokens.size()) {
+            throw error("unexpected end of rule");
+        }
+        return tokens.get(position++);
+    }
+
+    private boolean accept(String token) {
+        if (position < tokens.size() && tokens.get(position).equals(token)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw error("expected '" + token + "'");
+        }
+    }
+
+    private void expectEnd() {
+        if (position < tokens.size()) {
+            throw error("unexpected '" + tokens.get(position) + "'");
+        }
+    }
+
+    private String number() {
+        String token = next();
+        if (token.isEmpty() || !Character.isDigit(token.charAt(0))) {
+            throw error("expected a number, found '" + token + "'");
+        }
+        return token;
+    }
+
+    private int integer() {
+        String token = number();
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw error("expected a whole number, found '" + token + "'");
+        }
+    }
+
+    private int day(String word) {
+        for (int i = 0; i < DAYS.length; i++) {
+            if (word.startsWith(DAYS[i])) {
+                return i + 1;
+            }
+        }
+        throw error("unknown day '" + word + "'");
+    }
+
+    private long amount(String token) {
+        if (token.isEmpty() || !Character.isDigit(token.charAt(0))) {
+            throw error("expected an amount, found '" + token + "'");
+        }
+        return amount(new BigDecimal(token));
+    }
+
+    private static long amount(BigDecimal rupees) {
+        return rupees.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid promo rule at token " + position + ": " + message);
+    }
+}
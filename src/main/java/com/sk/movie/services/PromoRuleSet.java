@@ -0,0 +1,86 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.PromoCode;
+
+import java.util.List;
+import java.util.Set;
+
+// The automatic promotions in force, compiled, and how they combine with an entered code //
+// The best non-stackable discount wins and stackable ones are added to it; the total never exceeds //
+// the booking amount. Immutable, so bookings read it without locking //
+
+public final class PromoRuleSet {
+
+    public static final PromoRuleSet EMPTY = new PromoRuleSet(List.of());
+
+    private final PromoRule[] autoRules;
+    private final List<PromoCode> promoCodes;
+    private final boolean usesGenre;
+    private final boolean usesUserTotals;
+
+    public PromoRuleSet(List<PromoRule> autoRules) {
+        this.autoRules = autoRules.toArray(PromoRule[]::new);
+        this.promoCodes = autoRules.stream().map(PromoRule::getPromoCode).toList();
+        this.usesGenre = autoRules.stream().anyMatch(PromoRule::usesGenre);
+        this.usesUserTotals = autoRules.stream().anyMatch(PromoRule::usesUserTotals);
+    }
+
+    public boolean isEmpty() { return autoRules.length == 0; }
+    public int size() { return autoRules.length; }
+    public boolean usesGenre() { return usesGenre; }
+    public boolean usesUserTotals() { return usesUserTotals; }
+    public List<PromoCode> getPromoCodes() { return promoCodes; }
+
+    //     * Prices the booking in ctx; explicit is the rule of the entered code, already known to apply //
+    //     * The result is left in ctx; nothing is allocated per rule //
+
+    public void price(PricingContext ctx, PromoRule explicit) {
+        price(ctx, explicit, Set.of());
+    }
+
+    // As above, leaving out the automatic promotions with the given promo code ids, e.g. ones used up //
+
+    public void price(PricingContext ctx, PromoRule explicit, Set<Long> excluded) {
+        ctx.clearResult();
+        PromoRule best = null;
+        long bestDiscount = 0;
+        long stacked = 0;
+
+        if (explicit != null) {
+            long discount = explicit.discount(ctx);
+            if (explicit.isStackable()) {
+                stacked += discount;
+                ctx.addApplied(explicit);
+            } else {
+                best = explicit;
+                bestDiscount = discount;
+            }
+        }
+
+        for (PromoRule rule : autoRules) {
+            if (rule == explicit || !rule.isValidAt(ctx.now) || !rule.applies(ctx)
+                    || excluded.contains(rule.getPromoCode().getPromoCodeId())) {
+                continue;
+            }
+            long discount = rule.discount(ctx);
+            if (discount <= 0) {
+                continue;
+            }
+            if (rule.isStackable()) {
+                stacked += discount;
+                ctx.addApplied(rule);
+            } else if (discount > bestDiscount) {
+                best = rule;
+                bestDiscount = discount;
+            }
+        }
+
+        if (best != null) {
+            ctx.addApplied(best);
+            ctx.setPrimary(best);
+        } else if (ctx.getAppliedCount() > 0) {
+            ctx.setPrimary(ctx.getApplied(0));
+        }
+        ctx.setDiscount(bestDiscount + stacked);
+    }
+}
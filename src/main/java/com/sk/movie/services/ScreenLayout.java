@@ -0,0 +1,71 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.Seat;
+
+import java.util.Comparator;
+import java.util.List;
+
+// Immutable seat layout of one screen, sorted by seat id //
+// Loaded once per screen and shared by the seat maps of all its shows //
+
+public class ScreenLayout {
+
+    private final Long screenId;
+    private final long[] seatIds;
+    private final String[] rowNames;
+    private final String[] seatNumbers;
+    private final int[] rowIndexes;
+    private final int[] seatIndexes;
+
+    private ScreenLayout(Long screenId, int size) {
+        this.screenId = screenId;
+        this.seatIds = new long[size];
+        this.rowNames = new String[size];
+        this.seatNumbers = new String[size];
+        this.rowIndexes = new int[size];
+        this.seatIndexes = new int[size];
+    }
+
+    public static ScreenLayout of(Long screenId, List<Seat> seats) {
+        List<Seat> sorted = seats.stream().sorted(Comparator.comparing(Seat::getSeatId)).toList();
+        ScreenLayout layout = new ScreenLayout(screenId, sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            Seat seat = sorted.get(i);
+            layout.seatIds[i] = seat.getSeatId();
+            layout.rowNames[i] = seat.getRowName();
+            layout.seatNumbers[i] = seat.getSeatNumber();
+            layout.rowIndexes[i] = seat.getRowIndex();
+            layout.seatIndexes[i] = seat.getSeatIndex();
+        }
+        return layout;
+    }
+
+    // Layout without labels, for seat maps that only track ids; the seats form one row //
+
+    public static ScreenLayout ofSeatIds(long[] seatIds) {
+        ScreenLayout layout = new ScreenLayout(null, seatIds.length);
+        System.arraycopy(seatIds, 0, layout.seatIds, 0, seatIds.length);
+        for (int i = 0; i < seatIds.length; i++) {
+            layout.rowNames[i] = "";
+            layout.seatNumbers[i] = String.valueOf(seatIds[i]);
+            layout.seatIndexes[i] = i;
+        }
+        return layout;
+    }
+
+    public Long getScreenId() { return screenId; }
+
+    public int size() { return seatIds.length; }
+
+    long[] seatIds() { return seatIds; }
+
+    public long seatIdAt(int index) { return seatIds[index]; }
+
+    public String rowNameAt(int index) { return rowNames[index]; }
+
+    public String seatNumberAt(int index) { return seatNumbers[index]; }
+
+    public int rowIndexAt(int index) { return rowIndexes[index]; }
+
+    public int seatIndexAt(int index) { return seatIndexes[index]; }
+}
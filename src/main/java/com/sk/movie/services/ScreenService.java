@@ -0,0 +1,169 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.ScreenRequest;
+import com.sk.movie.dto.ScreenResponse;
+import com.sk.movie.entities.Screen;
+import com.sk.movie.entities.Seat;
+import com.sk.movie.exceptions.BusinessException;
+import com.sk.movie.repositories.ScreenRepository;
+import com.sk.movie.repositories.SeatRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Service managing reusable screen layout templates //
+
+@Service
+public class ScreenService {
+
+    private static final Pattern SEAT_LABEL = Pattern.compile("([A-Z]{1,3})(\\d+)");
+
+    // Seats per row for screens derived from a plain seat count
+    private static final int DEFAULT_SEATS_PER_ROW = 20;
+
+    @Autowired
+    private ScreenRepository screenRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Transactional
+    public ScreenResponse addScreen(ScreenRequest request) {
+        if (screenRepository.existsByName(request.getName())) {
+            throw new BusinessException("Screen name already exists");
+        }
+        Set<String> blocked = normalize(request.getBlockedSeats());
+        for (String label : blocked) {
+            if (!isInLayout(label, request.getRowCount(), request.getSeatsPerRow())) {
+                throw new BusinessException("Blocked seat " + label + " is outside the layout");
+            }
+        }
+
+        Screen screen = createScreen(request.getName(), request.getRowCount(), request.getSeatsPerRow(), blocked);
+        return mapToScreenResponse(screen);
+    }
+
+    //     * Creates a plain grid screen holding exactly totalSeats seats //
+    //     * Rows are filled 20 at a time; the unused tail of the last row is blocked //
+
+    @Transactional
+    public Screen createGridScreen(String name, int totalSeats) {
+        int rowCount = (totalSeats + DEFAULT_SEATS_PER_ROW - 1) / DEFAULT_SEATS_PER_ROW;
+        Set<String> blocked = new LinkedHashSet<>();
+        for (int n = totalSeats - (rowCount - 1) * DEFAULT_SEATS_PER_ROW + 1; n <= DEFAULT_SEATS_PER_ROW; n++) {
+            blocked.add(rowLabel(rowCount - 1) + n);
+        }
+        return createScreen(name, rowCount, DEFAULT_SEATS_PER_ROW, blocked);
+    }
+
+    //     * Saves the screen and its layout seats //
+    //     * The layout is written once here and shared by every show on the screen //
+
+    @Transactional
+    public Screen createScreen(String name, int rowCount, int seatsPerRow, Set<String> blocked) {
+        Screen screen = new Screen();
+        screen.setName(name);
+        screen.setRowCount(rowCount);
+        screen.setSeatsPerRow(seatsPerRow);
+        screen.setBlockedSeats(blocked.isEmpty() ? null : String.join(",", blocked));
+        screen = screenRepository.save(screen);
+
+        List<Seat> seats = new ArrayList<>(rowCount * seatsPerRow - blocked.size());
+        for (int r = 0; r < rowCount; r++) {
+            String rowName = rowLabel(r);
+            for (int n = 1; n <= seatsPerRow; n++) {
+                if (blocked.contains(rowName + n)) {
+                    continue;
+                }
+                Seat seat = new Seat();
+                seat.setScreen(screen);
+                seat.setRowName(rowName);
+                seat.setSeatNumber(String.valueOf(n));
+                seat.setRowIndex(r);
+                seat.setSeatIndex(n - 1);
+                seats.add(seat);
+            }
+        }
+        seatRepository.saveAll(seats);
+        return screen;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ScreenResponse> listScreens() {
+        return screenRepository.findAll().stream()
+                .map(this::mapToScreenResponse)
+                .collect(Collectors.toList());
+    }
+
+    public Set<String> blockedSeats(Screen screen) {
+        if (screen.getBlockedSeats() == null || screen.getBlockedSeats().isBlank()) {
+            return Set.of();
+        }
+        return normalize(Arrays.asList(screen.getBlockedSeats().split(",")));
+    }
+
+    public int sellableSeats(Screen screen) {
+        return screen.getRowCount() * screen.getSeatsPerRow() - blockedSeats(screen).size();
+    }
+
+    // Row labels: A..Z, then AA, AB, ... //
+
+    public static String rowLabel(int rowIndex) {
+        StringBuilder label = new StringBuilder();
+        for (int i = rowIndex + 1; i > 0; i = (i - 1) / 26) {
+            label.insert(0, (char) ('A' + (i - 1) % 26));
+        }
+        return label.toString();
+    }
+
+    // Parses a seat label into {row number, seat number}, both 1-based, or null if malformed //
+
+    public static int[] parseLabel(String label) {
+        Matcher matcher = SEAT_LABEL.matcher(label);
+        if (!matcher.matches() || matcher.group(2).length() > 4) {
+            return null;
+        }
+        int rowNumber = 0;
+        for (char c : matcher.group(1).toCharArray()) {
+            rowNumber = rowNumber * 26 + (c - 'A' + 1);
+        }
+        return new int[] {rowNumber, Integer.parseInt(matcher.group(2))};
+    }
+
+    private boolean isInLayout(String label, int rowCount, int seatsPerRow) {
+        int[] position = parseLabel(label);
+        return position != null && position[0] >= 1 && position[0] <= rowCount
+                && position[1] >= 1 && position[1] <= seatsPerRow;
+    }
+
+    private Set<String> normalize(List<String> labels) {
+        if (labels == null) {
+            return Set.of();
+        }
+        return labels.stream()
+                .map(String::trim)
+                .filter(label -> !label.isEmpty())
+                .map(String::toUpperCase)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private ScreenResponse mapToScreenResponse(Screen screen) {
+        ScreenResponse response = new ScreenResponse();
+        response.setScreenId(screen.getScreenId());
+        response.setName(screen.getName());
+        response.setRowCount(screen.getRowCount());
+        response.setSeatsPerRow(screen.getSeatsPerRow());
+        response.setBlockedSeats(List.copyOf(blockedSeats(screen)));
+        response.setTotalSeats(sellableSeats(screen));
+        return response;
+    }
+}
@@ -0,0 +1,193 @@
+package com.sk.movie.services;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+// Free-run index over one show's seat map, used for best-available allocation //
+// Each row keeps its runs of adjacent free seats; a max segment tree over the rows, ordered from //
+// the middle row outwards, finds the most central row that still fits a block in O(log rows). //
+// The index follows the seat map through its change journal and only rebuilds rows that changed //
+
+class SeatBlockIndex {
+
+    private final ShowSeatMap seatMap;
+    private final double centrePosition;  // horizontal centre of the screen, in seat positions
+    private final int[][] rowSeats;       // per slot: seat indexes ordered by position
+    private final int[][] rowPositions;   // per slot: physical seat positions, gaps are aisles or blocked seats
+    private final int[] slotOfSeat;       // seat index -> slot
+    private final int[][] runStarts;      // per slot: offsets into rowSeats where a free run starts
+    private final int[][] runLengths;     // per slot: length of each free run
+    private final int[] runCounts;        // per slot: number of free runs
+    private final int[] tree;             // longest free run, leaves are slots
+    private final int leaves;
+    private final BitSet dirtyRows;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long builtVersion;
+
+    SeatBlockIndex(ShowSeatMap seatMap) {
+        this.seatMap = seatMap;
+        ScreenLayout layout = seatMap.getLayout();
+
+        // Group seats by row, each row ordered by position
+        int[] sorted = IntStream.range(0, layout.size()).boxed()
+                .sorted(Comparator.comparingInt(layout::rowIndexAt).thenComparingInt(layout::seatIndexAt))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        TreeMap<Integer, int[]> rows = new TreeMap<>();
+        for (int from = 0, to; from < sorted.length; from = to) {
+            int row = layout.rowIndexAt(sorted[from]);
+            to = from + 1;
+            while (to < sorted.length && layout.rowIndexAt(sorted[to]) == row) {
+                to++;
+            }
+            rows.put(row, Arrays.copyOfRange(sorted, from, to));
+        }
+
+        // Slot 0 is the middle row, then rows further out; on a tie the row further back comes first
+        double centreRow = (rows.firstKey() + rows.lastKey()) / 2.0;
+        Integer[] order = rows.keySet().stream()
+                .sorted(Comparator.<Integer>comparingDouble(row -> Math.abs(row - centreRow))
+                        .thenComparing(Comparator.reverseOrder()))
+                .toArray(Integer[]::new);
+
+        int rowCount = order.length;
+        rowSeats = new int[rowCount][];
+        rowPositions = new int[rowCount][];
+        runStarts = new int[rowCount][];
+        runLengths = new int[rowCount][];
+        runCounts = new int[rowCount];
+        slotOfSeat = new int[layout.size()];
+        int minPosition = Integer.MAX_VALUE;
+        int maxPosition = Integer.MIN_VALUE;
+        for (int slot = 0; slot < rowCount; slot++) {
+            int[] seats = rows.get(order[slot]);
+            rowSeats[slot] = seats;
+            rowPositions[slot] = new int[seats.length];
+            for (int i = 0; i < seats.length; i++) {
+                rowPositions[slot][i] = layout.seatIndexAt(seats[i]);
+                slotOfSeat[seats[i]] = slot;
+            }
+            minPosition = Math.min(minPosition, rowPositions[slot][0]);
+            maxPosition = Math.max(maxPosition, rowPositions[slot][seats.length - 1]);
+            // Gaps split runs too, so a row can have as many runs as seats
+            runStarts[slot] = new int[seats.length];
+            runLengths[slot] = new int[seats.length];
+        }
+        centrePosition = (minPosition + maxPosition) / 2.0;
+
+        leaves = Integer.highestOneBit(Math.max(1, rowCount - 1)) << 1;
+        tree = new int[leaves * 2];
+        dirtyRows = new BitSet(rowCount);
+
+        // Version before the bits, so any change the rebuild misses is newer than builtVersion
+        builtVersion = seatMap.getVersion();
+        for (int slot = 0; slot < rowCount; slot++) {
+            rebuildRow(slot);
+        }
+    }
+
+    //     * Seat indexes of the best free block of count adjacent seats, or null if none is left //
+    //     * The most central row that fits wins, then the block closest to the middle of that row //
+
+    int[] findBest(int count) {
+        lock.lock();
+        try {
+            refresh();
+            if (count < 1 || tree[1] < count) {
+                return null;
+            }
+            int node = 1;
+            while (node < leaves) {
+                node = tree[2 * node] >= count ? 2 * node : 2 * node + 1;
+            }
+            int slot = node - leaves;
+
+            int bestStart = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for (int r = 0; r < runCounts[slot]; r++) {
+                if (runLengths[slot][r] < count) {
+                    continue;
+                }
+                // Ideal first position centres the block, clamped into the run
+                int first = rowPositions[slot][runStarts[slot][r]];
+                int last = first + runLengths[slot][r] - count;
+                int start = (int) Math.max(first, Math.min(last, Math.round(centrePosition - (count - 1) / 2.0)));
+                double distance = Math.abs(start + (count - 1) / 2.0 - centrePosition);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestStart = runStarts[slot][r] + (start - first);
+                }
+            }
+            return Arrays.copyOfRange(rowSeats[slot], bestStart, bestStart + count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Forces the rows of these seats to be re-read, after a claim on them lost a race //
+
+    void markDirty(int[] seatIndexes) {
+        lock.lock();
+        try {
+            for (int idx : seatIndexes) {
+                dirtyRows.set(slotOfSeat[idx]);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refresh() {
+        long version = seatMap.getVersion();
+        if (version != builtVersion) {
+            int[] changed = seatMap.changedSince(builtVersion);
+            if (changed == null) {
+                dirtyRows.set(0, rowSeats.length);
+            } else {
+                for (int idx : changed) {
+                    dirtyRows.set(slotOfSeat[idx]);
+                }
+            }
+            builtVersion = version;
+        }
+        for (int slot = dirtyRows.nextSetBit(0); slot >= 0; slot = dirtyRows.nextSetBit(slot + 1)) {
+            rebuildRow(slot);
+        }
+        dirtyRows.clear();
+    }
+
+    private void rebuildRow(int slot) {
+        int[] seats = rowSeats[slot];
+        int[] positions = rowPositions[slot];
+        int runs = 0;
+        int longest = 0;
+        int i = 0;
+        while (i < seats.length) {
+            if (seatMap.isTaken(seats[i])) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i + 1 < seats.length && positions[i + 1] == positions[i] + 1 && !seatMap.isTaken(seats[i + 1])) {
+                i++;
+            }
+            i++;
+            runStarts[slot][runs] = start;
+            runLengths[slot][runs] = i - start;
+            longest = Math.max(longest, i - start);
+            runs++;
+        }
+        runCounts[slot] = runs;
+
+        int node = leaves + slot;
+        tree[node] = longest;
+        for (node >>= 1; node > 0; node >>= 1) {
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.sk.movie.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sk.movie.dto.SeatChangeResponse;
+import com.sk.movie.dto.SeatEventResponse;
+import com.sk.movie.exceptions.AdmissionRejectedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Pushes live seat changes to Server-Sent Events subscribers, per show //
+// Idle subscribers are parked async requests, so they hold no thread; writes run on a small fixed pool of sender //
+// threads behind a bounded queue, or on a virtual thread each when virtual threads are enabled. A subscriber //
+// whose write has been queued or in flight longer than the write timeout is dropped, and so is one whose //
+// unsent changes outgrow the backlog limit; either reconnects for a fresh snapshot. Changes are coalesced per //
+// seat: once per flush for the show, and per subscriber while it is still busy writing. Every event carries //
+// the seat map version it was built at //
+
+@Service
+public class SeatEventPublisher {
+
+    @Autowired
+    private SeatMapService seatMapService;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Seconds a client turned away at the subscriber cap is asked to wait, polling the seat map meanwhile
+    private static final long SUBSCRIBE_RETRY_AFTER_SECONDS = 30;
+
+    @Value("${booking.events.sender-threads:8}")
+    private int senderThreads;
+
+    // Writes waiting for a sender thread; 0 hands writes only to an idle thread
+    @Value("${booking.events.send-queue-capacity:10000}")
+    private int sendQueueCapacity;
+
+    @Value("${booking.events.max-backlog-seats:500}")
+    private int maxBacklogSeats;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${booking.events.max-subscribers:50000}")
+    private int maxSubscribers;
+
+    @Value("${booking.events.timeout-ms:1800000}")
+    private long subscriptionTimeoutMs;
+
+    @Value("${booking.events.write-timeout-ms:5000}")
+    private long writeTimeoutMs;
+
+    private final Map<Long, ShowChannel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private Executor senders;
+
+    //     * A virtual thread per write when virtual threads are enabled, so a stalled client only parks its own write //
+    //     * Otherwise sender-threads platform threads; a subscriber has at most one write queued or running, //
+    //     * so the queue holds at most one write per subscriber and a full queue leaves changes in the backlog //
+
+    @PostConstruct
+    void initSenders() {
+        if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            senders = new VirtualThreadTaskExecutor("seat-events-");
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                sendQueueCapacity > 0 ? new ArrayBlockingQueue<>(sendQueueCapacity) : new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "seat-events-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdownSenders() {
+        if (senders instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    //     * Opens a stream for the show //
+    //     * The first event is the full seat map ("snapshot"), then coalesced changes ("seats") //
+    //     * The subscriber joins before the snapshot is read, so changes made meanwhile are buffered and sent after it //
+
+    public SseEmitter subscribe(Long showId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new AdmissionRejectedException("Too many live seat subscribers, please poll the seat map instead",
+                    false, SUBSCRIBE_RETRY_AFTER_SECONDS);
+        }
+
+        SseEmitter emitter = newEmitter();
+        Subscriber subscriber = new Subscriber(showId, emitter);
+        channels.compute(showId, (id, channel) -> {
+            ShowChannel joined = channel != null ? channel : new ShowChannel();
+            joined.subscribers.add(subscriber);
+            return joined;
+        });
+
+        String snapshot;
+        try {
+            snapshot = toJson(seatMapService.getSeatMap(showId, null, null, null));
+        } catch (RuntimeException e) {
+            unsubscribe(subscriber);
+            throw e;
+        }
+        if (!subscriber.start(snapshot)) {
+            unsubscribe(subscriber);
+            throw new AdmissionRejectedException("Live seat events are busy, please poll the seat map instead",
+                    false, 1);
+        }
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    // Stream of a new subscriber; overridden in tests //
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(subscriptionTimeoutMs);
+    }
+
+    public void publish(Long showId, List<Long> seatIds, SeatEventType type) {
+        ShowChannel channel = channels.get(showId);
+        if (channel != null) {
+            channel.add(seatIds, type);
+        }
+    }
+
+    // Seats a seat map reload found booked or freed elsewhere //
+
+    @EventListener
+    public void onSeatMapReloaded(SeatMapReloadedEvent event) {
+        if (!event.booked().isEmpty()) {
+            publish(event.showId(), event.booked(), SeatEventType.BOOKED);
+        }
+        if (!event.released().isEmpty()) {
+            publish(event.showId(), event.released(), SeatEventType.RELEASED);
+        }
+    }
+
+    // Publishes once the surrounding transaction commits //
+
+    public void publishAfterCommit(Long showId, List<Long> seatIds, SeatEventType type) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(showId, seatIds, type);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(showId, seatIds, type);
+            }
+        });
+    }
+
+    // Sends each show's pending changes to all of its subscribers as one shared payload //
+
+    @Scheduled(fixedDelayString = "${booking.events.flush-interval-ms:200}")
+    public void flush() {
+        channels.forEach((showId, channel) -> {
+            // Version first: the drained changes are at most this old
+            Long version = seatInventoryService.getVersion(showId);
+            Map<Long, SeatEventType> changes = channel.drain();
+            if (changes.isEmpty()) {
+                return;
+            }
+            String payload = toJson(toEvent(showId, version, changes));
+            channel.subscribers.forEach(subscriber -> subscriber.offer("seats", payload, changes));
+        });
+    }
+
+    // Keeps idle connections open through proxies //
+
+    @Scheduled(fixedDelayString = "${booking.events.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        channels.forEach((showId, channel) -> channel.subscribers.forEach(subscriber -> subscriber.offer(null, null, Map.of())));
+        channels.keySet().forEach(showId ->
+                channels.computeIfPresent(showId, (id, channel) -> channel.subscribers.isEmpty() ? null : channel));
+    }
+
+    //     * Drops subscribers whose write has been in flight longer than the write timeout //
+    //     * The blocked sender thread is freed when the connector's socket write times out; //
+    //     * the stream is closed once that write returns, so the client reconnects for a fresh snapshot //
+
+    @Scheduled(fixedDelayString = "${booking.events.write-check-interval-ms:1000}")
+    public void dropStalledSubscribers() {
+        long now = System.currentTimeMillis();
+        channels.forEach((showId, channel) -> channel.subscribers.forEach(subscriber -> {
+            if (subscriber.isStalled(now)) {
+                unsubscribe(subscriber);
+                subscriber.drop();
+            }
+        }));
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        ShowChannel channel = channels.get(subscriber.showId);
+        if (channel != null && channel.subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private SeatEventResponse toEvent(Long showId, Long version, Map<Long, SeatEventType> changes) {
+        List<SeatChangeResponse> seats = new ArrayList<>(changes.size());
+        changes.forEach((seatId, type) -> seats.add(new SeatChangeResponse(seatId, type.name())));
+        SeatEventResponse event = new SeatEventResponse();
+        event.setShowId(showId);
+        event.setEpoch(seatInventoryService.getEpoch());
+        event.setVersion(version);
+        event.setChanges(seats);
+        return event;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize seat event", e);
+        }
+    }
+
+    // Subscribers of one show and the changes not yet flushed to them //
+
+    private static class ShowChannel {
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<Long, SeatEventType> pending = new LinkedHashMap<>();
+
+        void add(List<Long> seatIds, SeatEventType type) {
+            lock.lock();
+            try {
+                for (Long seatId : seatIds) {
+                    pending.put(seatId, type);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Map<Long, SeatEventType> drain() {
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return Map.of();
+                }
+                Map<Long, SeatEventType> drained = pending;
+                pending = new LinkedHashMap<>();
+                return drained;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // One open stream; at most one write is in flight, later changes wait in the backlog //
+
+    private class Subscriber {
+        private final Long showId;
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, SeatEventType> backlog = new LinkedHashMap<>();   // guarded by lock
+        private boolean sending = true;                                            // guarded by lock; held until start
+        private volatile long sendingSince;
+        private boolean dropped;                                                   // guarded by lock
+
+        Subscriber(Long showId, SseEmitter emitter) {
+            this.showId = showId;
+            this.emitter = emitter;
+        }
+
+        // Sends the snapshot, then whatever was buffered while it was read; false when the send queue is full //
+
+        boolean start(String snapshot) {
+            sendingSince = System.currentTimeMillis();
+            try {
+                senders.execute(() -> send("snapshot", snapshot));
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        //     * A null event name is a heartbeat, which is skipped while a write is in flight //
+        //     * Changes left from a write that could not be started go out first, merged with these //
+        //     * A backlog past max-backlog-seats drops the subscriber; a fresh snapshot is cheaper to send //
+
+        void offer(String eventName, String payload, Map<Long, SeatEventType> changes) {
+            boolean busy;
+            lock.lock();
+            try {
+                if (dropped) {
+                    return;
+                }
+                busy = sending;
+                if (busy) {
+                    backlog.putAll(changes);
+                } else {
+                    if (!backlog.isEmpty()) {
+                        backlog.putAll(changes);
+                        changes = new LinkedHashMap<>(backlog);
+                        backlog.clear();
+                        eventName = "seats";
+                        payload = toJson(toEvent(showId, seatInventoryService.getVersion(showId), changes));
+                    }
+                    sending = true;
+                    sendingSince = System.currentTimeMillis();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (busy) {
+                dropIfOverflowing();
+                return;
+            }
+            String name = eventName;
+            String data = payload;
+            try {
+                senders.execute(() -> send(name, data));
+            } catch (RejectedExecutionException e) {
+                // The send queue is full; the changes wait for the next flush, newer ones win
+                lock.lock();
+                try {
+                    changes.forEach(backlog::putIfAbsent);
+                    sending = false;
+                    sendingSince = 0;
+                } finally {
+                    lock.unlock();
+                }
+                dropIfOverflowing();
+            }
+        }
+
+        //     * Stops all further writes; an idle stream is closed now, a stuck one by its writer once the write returns //
+        //     * Never closes under a write in flight, since closing waits for that write //
+
+        void drop() {
+            boolean idle;
+            lock.lock();
+            try {
+                dropped = true;
+                idle = !sending;
+                backlog.clear();
+            } finally {
+                lock.unlock();
+            }
+            if (idle) {
+                emitter.complete();
+            }
+        }
+
+        private void dropIfOverflowing() {
+            int backlogSize;
+            lock.lock();
+            try {
+                backlogSize = backlog.size();
+            } finally {
+                lock.unlock();
+            }
+            if (backlogSize > maxBacklogSeats) {
+                unsubscribe(this);
+                drop();
+            }
+        }
+
+        boolean isStalled(long now) {
+            long since = sendingSince;
+            return since > 0 && now - since > writeTimeoutMs;
+        }
+
+        private void send(String eventName, String payload) {
+            while (true) {
+                try {
+                    emitter.send(eventName == null
+                            ? SseEmitter.event().comment("keepalive")
+                            : SseEmitter.event().name(eventName).data(payload));
+                } catch (Exception e) {
+                    unsubscribe(this);
+                    return;
+                }
+                Map<Long, SeatEventType> next = null;
+                lock.lock();
+                try {
+                    sendingSince = 0;
+                    if (!dropped && !backlog.isEmpty()) {
+                        next = new LinkedHashMap<>(backlog);
+                        backlog.clear();
+                        sendingSince = System.currentTimeMillis();
+                    } else if (!dropped) {
+                        sending = false;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (next == null) {
+                    if (dropped) {
+                        // Events were missed while the write was stuck, so the client has to start over
+                        emitter.complete();
+                    }
+                    return;
+                }
+                eventName = "seats";
+                payload = toJson(toEvent(showId, seatInventoryService.getVersion(showId), next));
+            }
+        }
+    }
+}
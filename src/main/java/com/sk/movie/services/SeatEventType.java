@@ -0,0 +1,9 @@
+package com.sk.movie.services;
+
+// Seat change pushed to live seat-map subscribers //
+
+public enum SeatEventType {
+    BOOKED,     // booking committed
+    HELD,       // reserved by a seat hold
+    RELEASED    // available again
+}
@@ -0,0 +1,54 @@
+package com.sk.movie.services;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+// Temporary in-memory reservation of seats, ordered by expiry in the sweeper's delay queue //
+
+public class SeatHold implements Delayed {
+
+    private final String holdId;
+    private final Long showId;
+    private final Long userId;
+    private final List<Long> seatIds;
+    private final long expiresAtMillis;
+
+    public SeatHold(String holdId, Long showId, Long userId, List<Long> seatIds, long expiresAtMillis) {
+        this.holdId = holdId;
+        this.showId = showId;
+        this.userId = userId;
+        this.seatIds = List.copyOf(seatIds);
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getHoldId() { return holdId; }
+    public Long getShowId() { return showId; }
+    public Long getUserId() { return userId; }
+    public List<Long> getSeatIds() { return seatIds; }
+    public long getExpiresAtMillis() { return expiresAtMillis; }
+
+    public LocalDateTime getExpiresAt() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneId.systemDefault());
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other instanceof SeatHold hold) {
+            return Long.compare(expiresAtMillis, hold.expiresAtMillis);
+        }
+        return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+    }
+}
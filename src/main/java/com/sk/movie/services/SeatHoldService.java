@@ -0,0 +1,200 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.BookingRequest;
+import com.sk.movie.dto.BookingResponse;
+import com.sk.movie.dto.HoldRequest;
+import com.sk.movie.dto.HoldResponse;
+import com.sk.movie.entities.Show;
+import com.sk.movie.exceptions.BusinessException;
+import com.sk.movie.exceptions.HoldLimitExceededException;
+import com.sk.movie.exceptions.ResourceNotFoundException;
+import com.sk.movie.exceptions.SeatAlreadyBookedException;
+import com.sk.movie.exceptions.UnauthorizedException;
+import com.sk.movie.repositories.ShowRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+
+// Service handling temporary seat holds //
+// Held seats are claimed in the in-memory seat map, so checkout does not race other buyers //
+
+@Service
+public class SeatHoldService {
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ShowRepository showRepository;
+
+    @Autowired
+    private SeatEventPublisher seatEventPublisher;
+
+    @Value("${booking.hold.ttl-seconds:600}")
+    private long holdTtlSeconds;
+
+    // 0 or less: no limit
+    @Value("${booking.hold.max-per-user:5}")
+    private int maxHoldsPerUser;
+
+    private final Map<String, SeatHold> holds = new ConcurrentHashMap<>();
+    // Live holds per user, counted until the hold is confirmed, released or swept
+    private final Map<Long, Integer> holdsPerUser = new ConcurrentHashMap<>();
+    private final DelayQueue<SeatHold> expiryQueue = new DelayQueue<>();
+
+    //     * Reserves seats for the configured TTL //
+    //     * Fails with 409 if any of the seats is booked or held by someone else, //
+    //     * and with 429 if the user already has booking.hold.max-per-user holds //
+    //     * Holds live in the in-memory seat map, so they are refused while the inventory is disabled //
+
+    public HoldResponse createHold(HoldRequest request, Long userId) {
+        if (!seatInventoryService.isEnabled()) {
+            throw new BusinessException("Seat holds are not available, please book the seats directly");
+        }
+        Show show = showRepository.findById(request.getShowId())
+                .orElseThrow(() -> new ResourceNotFoundException("Show not found"));
+        if (!show.getIsActive()) {
+            throw new BusinessException("Show is not active");
+        }
+        if (show.getShowTime().isBefore(LocalDateTime.now())) {
+            throw new BusinessException("Cannot book seats for past shows");
+        }
+
+        takeHoldSlot(userId);
+        try {
+            if (!seatInventoryService.claim(show.getShowId(), request.getSeatIds())) {
+                throw new BusinessException("Invalid seat selection for this show");
+            }
+        } catch (RuntimeException ex) {
+            freeHoldSlot(userId);
+            throw ex;
+        }
+
+        SeatHold hold = new SeatHold(UUID.randomUUID().toString(), show.getShowId(), userId,
+                request.getSeatIds(), System.currentTimeMillis() + holdTtlSeconds * 1000);
+        holds.put(hold.getHoldId(), hold);
+        expiryQueue.add(hold);
+        seatEventPublisher.publish(hold.getShowId(), hold.getSeatIds(), SeatEventType.HELD);
+        return mapToHoldResponse(hold);
+    }
+
+    //     * Turns a hold into a confirmed booking //
+    //     * The seats are already claimed, so the in-memory availability check is skipped //
+
+    public BookingResponse confirmHold(String holdId, String promoCode, Long priceVersion, Long userId) {
+        SeatHold hold = takeHold(holdId, userId);
+
+        BookingRequest request = new BookingRequest();
+        request.setShowId(hold.getShowId());
+        request.setSeatIds(hold.getSeatIds());
+        request.setPromoCode(promoCode);
+        request.setPriceVersion(priceVersion);
+        boolean kept = false;
+        try {
+            return bookingService.bookHeldSeats(request, userId);
+        } catch (SeatAlreadyBookedException ex) {
+            // Seats were taken outside this node, the hold can never be confirmed
+            throw ex;
+        } catch (RuntimeException ex) {
+            // Keep the hold so the user can fix the request (e.g. promo code, changed prices) and retry
+            if (hold.isExpired(System.currentTimeMillis())) {
+                releaseSeats(hold);
+            } else {
+                kept = true;
+                holds.put(hold.getHoldId(), hold);
+                // The sweep may have polled the hold meanwhile; a second entry is harmless,
+                // only the poll that removes the hold from holds releases it
+                expiryQueue.add(hold);
+            }
+            throw ex;
+        } finally {
+            if (!kept) {
+                freeHoldSlot(userId);
+            }
+        }
+    }
+
+    public void releaseHold(String holdId, Long userId) {
+        SeatHold hold = takeHold(holdId, userId);
+        releaseSeats(hold);
+        freeHoldSlot(userId);
+    }
+
+    // Releases all expired holds in one pass, in expiry order //
+
+    @Scheduled(fixedDelayString = "${booking.hold.sweep-interval-ms:1000}")
+    public void releaseExpiredHolds() {
+        SeatHold hold;
+        while ((hold = expiryQueue.poll()) != null) {
+            if (holds.remove(hold.getHoldId(), hold)) {
+                releaseSeats(hold);
+                freeHoldSlot(hold.getUserId());
+            }
+        }
+    }
+
+    // Gives back the hold's claim; a reloaded seat map carries the claim, so it is found there //
+
+    private void releaseSeats(SeatHold hold) {
+        seatInventoryService.releaseClaim(hold.getShowId(), hold.getSeatIds());
+        seatEventPublisher.publish(hold.getShowId(), hold.getSeatIds(), SeatEventType.RELEASED);
+    }
+
+    // Counts a new hold against the user's limit, refusing it when the limit is reached //
+
+    private void takeHoldSlot(Long userId) {
+        if (maxHoldsPerUser <= 0) {
+            return;
+        }
+        holdsPerUser.compute(userId, (id, count) -> {
+            int held = count == null ? 0 : count;
+            if (held >= maxHoldsPerUser) {
+                throw new HoldLimitExceededException("You already have " + held
+                        + " seat holds, please confirm or release one first");
+            }
+            return held + 1;
+        });
+    }
+
+    private void freeHoldSlot(Long userId) {
+        holdsPerUser.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    // Removes the hold from the active set so only one caller can confirm or release it //
+
+    private SeatHold takeHold(String holdId, Long userId) {
+        SeatHold hold = holds.get(holdId);
+        if (hold == null) {
+            throw new ResourceNotFoundException("Seat hold not found or already used");
+        }
+        if (!hold.getUserId().equals(userId)) {
+            throw new UnauthorizedException("You can only use your own seat holds");
+        }
+        if (hold.isExpired(System.currentTimeMillis())) {
+            throw new BusinessException("Seat hold has expired");
+        }
+        if (!holds.remove(holdId, hold)) {
+            throw new ResourceNotFoundException("Seat hold not found or already used");
+        }
+        return hold;
+    }
+
+    private HoldResponse mapToHoldResponse(SeatHold hold) {
+        HoldResponse response = new HoldResponse();
+        response.setHoldId(hold.getHoldId());
+        response.setShowId(hold.getShowId());
+        response.setSeatIds(hold.getSeatIds());
+        response.setExpiresAt(hold.getExpiresAt());
+        return response;
+    }
+}
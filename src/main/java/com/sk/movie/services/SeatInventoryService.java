@@ -0,0 +1,293 @@
+package com.sk.movie.services;
+
+import com.sk.movie.exceptions.BusinessException;
+import com.sk.movie.exceptions.InsufficientSeatsException;
+import com.sk.movie.exceptions.SeatAlreadyBookedException;
+import com.sk.movie.repositories.BookedSeatRepository;
+import com.sk.movie.repositories.SeatRepository;
+import com.sk.movie.repositories.ShowRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory seat inventory sitting in front of the database booking path //
+// Conflicting requests for the same seats are rejected here without touching MySQL locks //
+
+@Service
+public class SeatInventoryService {
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private BookedSeatRepository bookedSeatRepository;
+
+    @Autowired
+    private ShowRepository showRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${booking.inventory.enabled:true}")
+    private boolean enabled;
+
+    @Value("${booking.best-available.max-attempts:5}")
+    private int bestAvailableAttempts;
+
+    @Value("${booking.inventory.idle-evict-ms:1800000}")
+    private long idleEvictMs;
+
+    private final Map<Long, ShowSeatMap> seatMaps = new ConcurrentHashMap<>();
+
+    // Layouts never change, so every show on a screen shares one
+    private final Map<Long, ScreenLayout> layouts = new ConcurrentHashMap<>();
+    private final Map<Long, Long> layoutsUsedAt = new ConcurrentHashMap<>();
+
+    // Seat map versions, node-wide so a reloaded map never reuses a version
+    private final AtomicLong versions = new AtomicLong();
+
+    // Names this node's run of versions; another node, or this one after a restart, counts from scratch
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private static final Logger log = LoggerFactory.getLogger(SeatInventoryService.class);
+
+    //     * Claims the requested seats in memory //
+    //     * Returns false when the show or a seat is not tracked, so the database decides //
+    //     * Throws SeatAlreadyBookedException when another request already holds a seat //
+    //     * The claim is given back with releaseClaim, or kept for good with confirm once booked //
+
+    public boolean claim(Long showId, List<Long> seatIds) {
+        if (!enabled) {
+            return false;
+        }
+        ShowSeatMap seatMap = getSeatMap(showId);
+        while (seatMap != null && seatMap.contains(seatIds)) {
+            if (seatMap.tryClaim(seatIds)) {
+                return true;
+            }
+            if (!seatMap.isRetired()) {
+                throw new SeatAlreadyBookedException("One or more selected seats are no longer available");
+            }
+            seatMap = successorOf(seatMap);
+        }
+        return false;
+    }
+
+    //     * Picks and claims the best block of count adjacent seats //
+    //     * Without the inventory the block is only picked from a fresh map and the database decides //
+
+    public List<Long> claimBestAvailable(Long showId, int count) {
+        if (count < 1) {
+            throw new BusinessException("At least one seat must be selected");
+        }
+        ShowSeatMap seatMap = readSeatMap(showId);
+        if (seatMap == null) {
+            throw new BusinessException("Show has no seat layout");
+        }
+        List<Long> seatIds = enabled
+                ? seatMap.claimBestAvailable(count, bestAvailableAttempts)
+                : seatMap.findBestAvailable(count);
+        while (seatIds == null && seatMap.isRetired() && (seatMap = successorOf(seatMap)) != null) {
+            seatIds = seatMap.claimBestAvailable(count, bestAvailableAttempts);
+        }
+        if (seatIds == null) {
+            throw new SeatAlreadyBookedException("Seats are selling fast, please retry");
+        }
+        if (seatIds.isEmpty()) {
+            throw new InsufficientSeatsException("No block of " + count + " adjacent seats is available");
+        }
+        return seatIds;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Frees the seats whatever holds them, e.g. after a cancellation //
+
+    public void release(Long showId, List<Long> seatIds) {
+        ShowSeatMap seatMap = seatMaps.get(showId);
+        while (seatMap != null && !seatMap.release(seatIds)) {
+            seatMap = successorOf(seatMap);
+        }
+    }
+
+    // Gives back a claim made through claim, for a booking or hold that did not go through //
+
+    public void releaseClaim(Long showId, List<Long> seatIds) {
+        ShowSeatMap seatMap = seatMaps.get(showId);
+        while (seatMap != null && !seatMap.releaseClaim(seatIds)) {
+            seatMap = successorOf(seatMap);
+        }
+    }
+
+    // Keeps a claim made through claim for good, once its booking has committed //
+
+    public void confirm(Long showId, List<Long> seatIds) {
+        ShowSeatMap seatMap = seatMaps.get(showId);
+        while (seatMap != null && !seatMap.confirm(seatIds)) {
+            seatMap = successorOf(seatMap);
+        }
+    }
+
+    // Releases seats once the surrounding transaction commits //
+
+    public void releaseAfterCommit(Long showId, List<Long> seatIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(showId, seatIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(showId, seatIds);
+            }
+        });
+    }
+
+    //     * Rebuilds the show's map from booked_seats and swaps it in, e.g. after the database rejected //
+    //     * a seat the map showed free, or a seat was freed on another node. Claims of holds and of //
+    //     * bookings in flight are carried over; seats that changed are published to live subscribers //
+    //     * A failed reload keeps the current map, the next reload tries again //
+
+    public void reload(Long showId) {
+        ShowSeatMap seatMap = seatMaps.get(showId);
+        if (seatMap == null || !seatMap.beginReload()) {
+            return;
+        }
+        ShowSeatMap next;
+        try {
+            next = seatMap.reload(bookedSeatRepository.findBookedSeatIds(showId));
+        } catch (RuntimeException ex) {
+            seatMap.abortReload();
+            log.warn("Could not reload the seat map of show {}", showId, ex);
+            return;
+        }
+        seatMaps.replace(showId, seatMap, next);
+
+        List<Long> booked = new ArrayList<>();
+        List<Long> released = new ArrayList<>();
+        for (int i = 0; i < next.size(); i++) {
+            if (next.isTaken(i) != seatMap.isTaken(i)) {
+                (next.isTaken(i) ? booked : released).add(next.seatIdAt(i));
+            }
+        }
+        if (!booked.isEmpty() || !released.isEmpty()) {
+            eventPublisher.publishEvent(new SeatMapReloadedEvent(showId, booked, released));
+        }
+    }
+
+    // Picks up seats booked or freed on other nodes //
+
+    @Scheduled(fixedDelayString = "${booking.inventory.reload-interval-ms:60000}")
+    public void reloadSeatMaps() {
+        seatMaps.keySet().forEach(this::reload);
+    }
+
+    //     * Drops the maps of shows that started, were deactivated or were not looked up for //
+    //     * idle-evict-ms, then the layouts no cached map uses and nobody looked up for as long //
+    //     * A map with open claims stays until they settle; an evicted show is loaded again on its next lookup //
+
+    @Scheduled(fixedDelayString = "${booking.inventory.cleanup-interval-ms:60000}")
+    public void evictIdleSeatMaps() {
+        long idleBefore = System.currentTimeMillis() - idleEvictMs;
+        Set<Long> closed = seatMaps.isEmpty() ? Set.of()
+                : new HashSet<>(showRepository.findClosedShowIds(new ArrayList<>(seatMaps.keySet()), LocalDateTime.now()));
+        seatMaps.keySet().forEach(showId -> seatMaps.computeIfPresent(showId, (id, seatMap) ->
+                (closed.contains(id) || seatMap.getLastUsedAt() < idleBefore) && seatMap.retireIfUnclaimed()
+                        ? null : seatMap));
+
+        Set<ScreenLayout> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+        seatMaps.values().forEach(seatMap -> inUse.add(seatMap.getLayout()));
+        layouts.keySet().forEach(screenId -> layouts.computeIfPresent(screenId, (id, layout) -> {
+            if (inUse.contains(layout) || layoutsUsedAt.getOrDefault(id, 0L) >= idleBefore) {
+                return layout;
+            }
+            layoutsUsedAt.remove(id);
+            return null;
+        }));
+    }
+
+    // Version of the show's cached seat map, or null when none is cached //
+
+    public Long getVersion(Long showId) {
+        ShowSeatMap seatMap = seatMaps.get(showId);
+        return seatMap == null ? null : seatMap.getVersion();
+    }
+
+    // A client's version is only comparable with getVersion when it came with this epoch //
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public ShowSeatMap getSeatMap(Long showId) {
+        ShowSeatMap seatMap = seatMaps.computeIfAbsent(showId, this::loadSeatMap);
+        if (seatMap != null) {
+            seatMap.touch();
+        }
+        return seatMap;
+    }
+
+    //     * Seat map for display //
+    //     * Without the inventory, bookings do not update the cached map, so it is read fresh //
+
+    public ShowSeatMap readSeatMap(Long showId) {
+        return enabled ? getSeatMap(showId) : loadSeatMap(showId);
+    }
+
+    // Shared seat layout of a screen, loaded on first use //
+
+    public ScreenLayout getLayout(Long screenId) {
+        layoutsUsedAt.put(screenId, System.currentTimeMillis());
+        return layouts.computeIfAbsent(screenId,
+                id -> ScreenLayout.of(id, seatRepository.findByScreenScreenIdOrderByRowIndexAscSeatIndexAsc(id)));
+    }
+
+    //     * The map that took over from a retired one, or null when the show is no longer cached //
+
+    private ShowSeatMap successorOf(ShowSeatMap seatMap) {
+        ShowSeatMap next = seatMap.getSuccessor();
+        return next != null ? next : seatMaps.get(seatMap.getShowId());
+    }
+
+    // Shared layout plus the show's booked seats, which is all that is stored per show //
+
+    private ShowSeatMap loadSeatMap(Long showId) {
+        Long screenId = showRepository.findScreenId(showId).orElse(null);
+        if (screenId == null) {
+            return null;
+        }
+        ScreenLayout layout = getLayout(screenId);
+        if (layout.size() == 0) {
+            return null;
+        }
+        boolean[] taken = new boolean[layout.size()];
+        for (Long seatId : bookedSeatRepository.findBookedSeatIds(showId)) {
+            int idx = Arrays.binarySearch(layout.seatIds(), seatId);
+            if (idx >= 0) {
+                taken[idx] = true;
+            }
+        }
+        return new ShowSeatMap(showId, layout, taken, versions::incrementAndGet);
+    }
+}
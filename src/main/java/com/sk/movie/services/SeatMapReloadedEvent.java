@@ -0,0 +1,8 @@
+package com.sk.movie.services;
+
+import java.util.List;
+
+// Published when a show's seat map was rebuilt from the database and seats changed state //
+
+public record SeatMapReloadedEvent(Long showId, List<Long> booked, List<Long> released) {
+}
@@ -0,0 +1,118 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.SeatMapResponse;
+import com.sk.movie.dto.SeatStatusResponse;
+import com.sk.movie.entities.Money;
+import com.sk.movie.exceptions.BusinessException;
+import com.sk.movie.exceptions.ResourceNotFoundException;
+import com.sk.movie.repositories.ShowRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Service serving show seat maps from the in-memory inventory //
+// Full snapshots are cached per show, version and price version; clients that know both versions //
+// get 304 or a delta, clients holding older prices get the full map. Seat versions are counted per node, //
+// so they only count as known together with this node's epoch //
+
+@Service
+public class SeatMapService {
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private ShowRepository showRepository;
+
+    @Autowired
+    private DemandPricingService demandPricingService;
+
+    //     * Returns null when the client already has the current version and prices //
+    //     * A known older version gets only the changed seats, anything else the full map //
+    //     * clientPriceVersion may be null when the client only tracks seat versions //
+    //     * A version from another epoch, e.g. read from another node, gets the full map //
+
+    public SeatMapResponse getSeatMap(Long showId, String clientEpoch, Long clientVersion, Long clientPriceVersion) {
+        if (!seatInventoryService.getEpoch().equals(clientEpoch)) {
+            clientVersion = null;
+        }
+        ShowSeatMap seatMap = seatInventoryService.readSeatMap(showId);
+        if (seatMap == null) {
+            if (!showRepository.existsById(showId)) {
+                throw new ResourceNotFoundException("Show not found");
+            }
+            throw new BusinessException("Show has no seat layout");
+        }
+
+        // Version first: seats read afterwards are at least this fresh
+        long version = seatMap.getVersion();
+        SeatPriceTable prices = priceTable(showId);
+        boolean samePrices = clientPriceVersion == null || clientPriceVersion == prices.getVersion();
+        if (clientVersion != null && clientVersion == version && samePrices) {
+            return null;
+        }
+        if (clientVersion != null && samePrices) {
+            int[] changed = seatMap.changedSince(clientVersion);
+            if (changed != null) {
+                return buildResponse(seatMap, version, prices, changed, true);
+            }
+        }
+
+        SeatMapResponse cached = seatMap.getSnapshot();
+        if (cached != null && cached.getVersion() == version && cached.getPriceVersion() == prices.getVersion()) {
+            return cached;
+        }
+        int[] all = new int[seatMap.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        SeatMapResponse snapshot = buildResponse(seatMap, version, prices, all, false);
+        seatMap.setSnapshot(snapshot);
+        return snapshot;
+    }
+
+    // Published prices, or the base price until the pricer has priced the show //
+
+    private SeatPriceTable priceTable(Long showId) {
+        SeatPriceTable prices = demandPricingService.current(showId);
+        if (prices != null) {
+            return prices;
+        }
+        Money basePrice = showRepository.findPricePerSeat(showId)
+                .orElseThrow(() -> new ResourceNotFoundException("Show not found"));
+        return SeatPriceTable.base(showId, basePrice.getMinor());
+    }
+
+    private SeatMapResponse buildResponse(ShowSeatMap seatMap, long version, SeatPriceTable prices,
+                                          int[] indexes, boolean delta) {
+        ScreenLayout layout = seatMap.getLayout();
+        // The seat map and the price table share the screen's layout, unless the show was repriced
+        // before its map was reloaded; then prices are looked up by seat id
+        boolean sameLayout = prices.getLayout() == layout;
+        List<SeatStatusResponse> seats = new ArrayList<>(indexes.length);
+        for (int idx : indexes) {
+            SeatStatusResponse seat = new SeatStatusResponse();
+            seat.setSeatId(layout.seatIdAt(idx));
+            seat.setRowName(layout.rowNameAt(idx));
+            seat.setSeatNumber(layout.seatNumberAt(idx));
+            seat.setAvailable(!seatMap.isTaken(idx));
+            long price = sameLayout ? prices.priceAt(idx) : prices.priceOf(layout.seatIdAt(idx));
+            seat.setPrice(Money.ofMinor(price));
+            SeatZone zone = sameLayout ? prices.zoneAt(idx) : null;
+            seat.setZone(zone == null ? null : zone.name());
+            seats.add(seat);
+        }
+
+        SeatMapResponse response = new SeatMapResponse();
+        response.setShowId(seatMap.getShowId());
+        response.setEpoch(seatInventoryService.getEpoch());
+        response.setVersion(version);
+        response.setPriceVersion(prices.getVersion());
+        response.setDelta(delta);
+        response.setAvailableSeats(seatMap.countFree());
+        response.setSeats(seats);
+        return response;
+    }
+}
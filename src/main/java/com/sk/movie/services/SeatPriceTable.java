@@ -0,0 +1,95 @@
+package com.sk.movie.services;
+
+import java.util.Arrays;
+
+// Immutable seat prices of one show, as published by the demand pricer //
+// Prices are in minor units (paise), one per seat of the show's layout in the layout's seat id order; //
+// a table without a layout prices every seat at the show's base price //
+
+public final class SeatPriceTable {
+
+    // Version of a show that the pricer has not priced yet: every seat at the base price
+    public static final long BASE_VERSION = 0;
+
+    private final Long showId;
+    private final long version;
+    private final long publishedAt;
+    private final ScreenLayout layout;
+    private final long[] prices;
+    private final byte[] zones;
+    private final long basePrice;
+
+    SeatPriceTable(Long showId, long version, ScreenLayout layout, long[] prices, byte[] zones, long basePrice) {
+        this.showId = showId;
+        this.version = version;
+        this.publishedAt = System.currentTimeMillis();
+        this.layout = layout;
+        this.prices = prices;
+        this.zones = zones;
+        this.basePrice = basePrice;
+    }
+
+    //     * Version of a table with these prices, derived from the prices alone so every node //
+    //     * publishing the same prices publishes the same version, also after a restart //
+    //     * 64-bit FNV-1a cut to 53 bits, so JavaScript clients read it back exactly; never BASE_VERSION //
+
+    static long versionOf(long basePrice, long[] prices) {
+        long hash = fnv(0xcbf29ce484222325L, basePrice);
+        for (long price : prices) {
+            hash = fnv(hash, price);
+        }
+        long version = hash >>> 11;
+        return version == BASE_VERSION ? 1 : version;
+    }
+
+    private static long fnv(long hash, long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public static SeatPriceTable base(Long showId, long basePrice) {
+        return new SeatPriceTable(showId, BASE_VERSION, null, null, null, basePrice);
+    }
+
+    public Long getShowId() { return showId; }
+
+    public long getVersion() { return version; }
+
+    public long getPublishedAt() { return publishedAt; }
+
+    public long getBasePrice() { return basePrice; }
+
+    ScreenLayout getLayout() { return layout; }
+
+    // Price of a seat of the show; seats outside the layout cost the base price //
+
+    public long priceOf(long seatId) {
+        int index = indexOf(seatId);
+        return index < 0 ? basePrice : prices[index];
+    }
+
+    // Price by layout index, for callers that walk the layout //
+
+    public long priceAt(int index) {
+        return prices == null ? basePrice : prices[index];
+    }
+
+    public SeatZone zoneAt(int index) {
+        return zones == null ? null : SeatZone.values()[zones[index]];
+    }
+
+    // Same prices as another table, so publishing this one would only bump the version //
+
+    boolean samePrices(long[] otherPrices, long otherBasePrice) {
+        return basePrice == otherBasePrice && Arrays.equals(prices, otherPrices);
+    }
+
+    private int indexOf(long seatId) {
+        if (prices == null) {
+            return -1;
+        }
+        return Arrays.binarySearch(layout.seatIds(), seatId);
+    }
+}
@@ -0,0 +1,27 @@
+package com.sk.movie.services;
+
+// Price zone of a seat, by how far back its row is: the front, middle and back third of the screen //
+
+public enum SeatZone {
+    FRONT,
+    MIDDLE,
+    BACK;
+
+    //     * Zone of every seat in the layout, by layout index //
+    //     * Rows are split into thirds between the first and last row of the screen //
+
+    static byte[] of(ScreenLayout layout) {
+        int firstRow = Integer.MAX_VALUE;
+        int lastRow = Integer.MIN_VALUE;
+        for (int i = 0; i < layout.size(); i++) {
+            firstRow = Math.min(firstRow, layout.rowIndexAt(i));
+            lastRow = Math.max(lastRow, layout.rowIndexAt(i));
+        }
+        int rows = lastRow - firstRow + 1;
+        byte[] zones = new byte[layout.size()];
+        for (int i = 0; i < zones.length; i++) {
+            zones[i] = (byte) ((layout.rowIndexAt(i) - firstRow) * 3 / rows);
+        }
+        return zones;
+    }
+}
@@ -0,0 +1,225 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.BookingRequest;
+import com.sk.movie.dto.BookingResponse;
+import com.sk.movie.exceptions.AdmissionRejectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// Per-show booking queue drained by a single writer at a time //
+// Queued requests are handed to the batch processor in groups, so N callers share one transaction //
+
+public class ShowBookingQueue {
+
+    private final Map<Long, ShowWriter> writers = new ConcurrentHashMap<>();
+    private final BiConsumer<Long, List<PendingBooking>> batchProcessor;
+    private final ExecutorService executor;
+    private final int maxBatchSize;
+    private final int maxPending;
+    private final long timeoutMs;
+
+    public ShowBookingQueue(BiConsumer<Long, List<PendingBooking>> batchProcessor,
+                            int writerThreads, int maxBatchSize, int maxPending, long timeoutMs) {
+        this.batchProcessor = batchProcessor;
+        this.maxBatchSize = maxBatchSize;
+        this.maxPending = maxPending;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "booking-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //     * Queues the booking behind other requests for the same show and waits for its result //
+    //     * A request that times out before the writer picks it up is withdrawn and never written //
+
+    public BookingResponse submit(BookingRequest request, Long userId) {
+        return submit(request, userId, response -> {
+        });
+    }
+
+    // recorder is called by the batch processor inside the batch transaction //
+
+    public BookingResponse submit(BookingRequest request, Long userId, Consumer<BookingResponse> recorder) {
+        // Counted inside compute, so an idle writer is never removed under a new request
+        ShowWriter writer = writers.compute(request.getShowId(), (showId, current) -> {
+            ShowWriter joined = current != null ? current : new ShowWriter(showId);
+            joined.depth.incrementAndGet();
+            return joined;
+        });
+        if (writer.depth.get() > maxPending) {
+            writer.depth.decrementAndGet();
+            throw new AdmissionRejectedException("Too many pending bookings for this show, please retry",
+                    true, Math.max(1, timeoutMs / 1000));
+        }
+        PendingBooking pending = new PendingBooking(request, userId, recorder);
+        writer.queue.add(pending);
+        writer.schedule();
+
+        try {
+            return pending.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.taken.compareAndSet(false, true)) {
+                throw new AdmissionRejectedException("Booking queue is busy, please retry",
+                        false, Math.max(1, timeoutMs / 1000));
+            }
+            // Already being written, the outcome is only moments away
+            try {
+                return pending.future.join();
+            } catch (CompletionException ex) {
+                throw unwrap(ex.getCause());
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.taken.compareAndSet(false, true);
+            throw new AdmissionRejectedException("Booking was interrupted, please retry", false, 1);
+        }
+    }
+
+    // The writer's own exception, e.g. SeatAlreadyBookedException, so callers handle it as usual //
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    // Shows with a writer, i.e. with bookings queued or being written //
+
+    int getActiveShows() {
+        return writers.size();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private class ShowWriter {
+        private final Long showId;
+        private final Queue<PendingBooking> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        ShowWriter(Long showId) {
+            this.showId = showId;
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<PendingBooking> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    scheduled.set(false);
+                    // A request may have arrived after the last poll but before the flag was cleared
+                    if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                        removeIfIdle();
+                        return;
+                    }
+                    continue;
+                }
+                process(batch);
+            }
+        }
+
+        // Drops the writer of a show nobody is booking; a later request starts a new one //
+
+        private void removeIfIdle() {
+            writers.computeIfPresent(showId, (id, current) ->
+                    current == this && depth.get() == 0 && !scheduled.get() ? null : current);
+        }
+
+        private List<PendingBooking> nextBatch() {
+            List<PendingBooking> batch = new ArrayList<>(maxBatchSize);
+            PendingBooking pending;
+            while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+                depth.decrementAndGet();
+                if (pending.taken.compareAndSet(false, true)) {
+                    batch.add(pending);
+                }
+            }
+            return batch;
+        }
+
+        private void process(List<PendingBooking> batch) {
+            try {
+                batchProcessor.accept(showId, batch);
+            } catch (RuntimeException ex) {
+                batch.forEach(pending -> pending.fail(ex));
+            }
+            // Outcomes are published only after the transaction has committed or rolled back
+            for (PendingBooking pending : batch) {
+                if (pending.error != null) {
+                    pending.future.completeExceptionally(pending.error);
+                } else if (pending.response != null) {
+                    pending.future.complete(pending.response);
+                } else {
+                    pending.future.completeExceptionally(
+                            new IllegalStateException("Booking was not processed"));
+                }
+            }
+        }
+    }
+
+    // A caller's booking request waiting in the queue //
+
+    public static class PendingBooking {
+        private final BookingRequest request;
+        private final Long userId;
+        private final Consumer<BookingResponse> recorder;
+        private final CompletableFuture<BookingResponse> future = new CompletableFuture<>();
+        private final AtomicBoolean taken = new AtomicBoolean();
+        private BookingResponse response;
+        private RuntimeException error;
+
+        PendingBooking(BookingRequest request, Long userId, Consumer<BookingResponse> recorder) {
+            this.request = request;
+            this.userId = userId;
+            this.recorder = recorder;
+        }
+
+        public BookingRequest getRequest() { return request; }
+        public Long getUserId() { return userId; }
+        public Consumer<BookingResponse> getRecorder() { return recorder; }
+
+        public void succeed(BookingResponse response) {
+            this.response = response;
+        }
+
+        public void fail(RuntimeException error) {
+            this.error = error;
+        }
+
+        // Clears the outcome of a batch that rolled back, before it is written again //
+
+        public void reset() {
+            this.response = null;
+            this.error = null;
+        }
+    }
+}
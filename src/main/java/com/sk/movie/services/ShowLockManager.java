@@ -0,0 +1,105 @@
+package com.sk.movie.services;
+
+import com.sk.movie.exceptions.AdmissionRejectedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Striped in-process locks keyed by showId //
+// Bookings for the same show run one at a time; different shows only meet on a shared stripe //
+
+@Component
+public class ShowLockManager {
+
+    @Value("${booking.lock.stripes:1024}")
+    private int stripeCount;
+
+    @Value("${booking.lock.timeout-ms:5000}")
+    private long lockTimeoutMs;
+
+    private ReentrantLock[] stripes;
+    private int mask;
+
+    @PostConstruct
+    void initStripes() {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public <T> T withShowLock(Long showId, Supplier<T> action) {
+        ReentrantLock lock = lockFor(showId);
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Booking was interrupted, please retry", false, 1);
+        }
+        if (!acquired) {
+            throw new AdmissionRejectedException("Too many concurrent bookings for this show, please retry",
+                    false, retryAfterSeconds());
+        }
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //     * Holds the locks of several shows at once //
+    //     * Stripes are taken in ascending stripe order, not show order, since two shows may share //
+    //     * a stripe; any two callers then acquire overlapping stripes in the same order and cannot deadlock //
+
+    public <T> T withShowLocks(Collection<Long> showIds, Supplier<T> action) {
+        int[] order = showIds.stream().mapToInt(this::stripeFor).distinct().sorted().toArray();
+        List<ReentrantLock> held = new ArrayList<>(order.length);
+        try {
+            for (int stripe : order) {
+                ReentrantLock lock = stripes[stripe];
+                boolean acquired;
+                try {
+                    acquired = lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AdmissionRejectedException("Booking was interrupted, please retry", false, 1);
+                }
+                if (!acquired) {
+                    throw new AdmissionRejectedException("Too many concurrent bookings for these shows, please retry",
+                            false, retryAfterSeconds());
+                }
+                held.add(lock);
+            }
+            return action.get();
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    // A lock wait timed out, so the show is busy for about that long //
+
+    private long retryAfterSeconds() {
+        return Math.max(1, lockTimeoutMs / 1000);
+    }
+
+    private ReentrantLock lockFor(Long showId) {
+        return stripes[stripeFor(showId)];
+    }
+
+    private int stripeFor(Long showId) {
+        long h = showId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,465 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.SeatMapResponse;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Compact in-memory seat map for a single show //
+// Each seat is one bit in a long word; claims are made with lock-free compare-and-set //
+// Every change gets a new version and a journal entry, so readers can ask for what changed since a version //
+// Seats claimed in memory but not yet committed are tracked apart, so a reload from the database keeps them //
+
+public class ShowSeatMap {
+
+    // Recent seat changes kept per show; older versions get a full snapshot instead of a delta
+    private static final int JOURNAL_SIZE = 256;
+
+    private final Long showId;
+    private final ScreenLayout layout;
+    private final long[] seatIds;          // sorted, index = bit position
+    private final AtomicLongArray words;   // bit set = seat taken
+    private final LongSupplier versions;
+    private volatile long version;
+
+    // Ring buffer of {version, seat index}, allocated on the first change; guarded by journalLock
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private long[] journalVersions;
+    private int[] journalSeats;
+    private long journalWrites;
+    private long journalFloor;             // journal is complete for every version >= floor
+
+    // Last full response built from this map, reused while the version is unchanged
+    private volatile SeatMapResponse snapshot;
+
+    // Free-run index for best-available requests, built on first use
+    private volatile SeatBlockIndex blockIndex;
+
+    // Seats claimed in memory whose booking has not committed; guarded by journalLock
+    private final BitSet claims = new BitSet();
+
+    // Seats confirmed or freed while a reload reads the database, null when no reload runs; guarded by journalLock
+    private BitSet confirmedDuringReload;
+    private BitSet freedDuringReload;
+
+    // Set once the map is replaced or evicted; changes are then made in the successor, if any
+    private volatile ShowSeatMap successor;
+    private volatile boolean retired;
+
+    // Last lookup of the map, for evicting idle shows
+    private volatile long lastUsedAt = System.currentTimeMillis();
+
+    public ShowSeatMap(Long showId, long[] seatIds, boolean[] taken) {
+        this(showId, ScreenLayout.ofSeatIds(seatIds), taken, new AtomicLong()::incrementAndGet);
+    }
+
+    //     * versions must be shared by every map that can replace this one, //
+    //     * so a reloaded show keeps moving forward instead of reusing version numbers //
+
+    public ShowSeatMap(Long showId, ScreenLayout layout, boolean[] taken, LongSupplier versions) {
+        this.showId = showId;
+        this.layout = layout;
+        this.seatIds = layout.seatIds();
+        this.words = new AtomicLongArray((seatIds.length + 63) >>> 6);
+        for (int i = 0; i < seatIds.length; i++) {
+            if (taken[i]) {
+                words.set(i >>> 6, words.get(i >>> 6) | (1L << i));
+            }
+        }
+        this.versions = versions;
+        this.version = versions.getAsLong();
+        this.journalFloor = version;
+    }
+
+    public Long getShowId() { return showId; }
+
+    public ScreenLayout getLayout() { return layout; }
+
+    // Version of the latest change; read it before the seat bits when taking a snapshot //
+
+    public long getVersion() { return version; }
+
+    public boolean isRetired() { return retired; }
+
+    // Map that replaced this one on reload; null while this map is current or when it was evicted //
+
+    public ShowSeatMap getSuccessor() { return successor; }
+
+    public long getLastUsedAt() { return lastUsedAt; }
+
+    public void touch() { lastUsedAt = System.currentTimeMillis(); }
+
+    public SeatMapResponse getSnapshot() { return snapshot; }
+    public void setSnapshot(SeatMapResponse snapshot) { this.snapshot = snapshot; }
+
+    public int size() { return seatIds.length; }
+
+    // Returns the bit index of the seat, or -1 if the seat does not belong to this show //
+
+    public int indexOf(long seatId) {
+        int idx = Arrays.binarySearch(seatIds, seatId);
+        return idx >= 0 ? idx : -1;
+    }
+
+    public long seatIdAt(int index) {
+        return seatIds[index];
+    }
+
+    public boolean contains(List<Long> requested) {
+        for (Long seatId : requested) {
+            if (seatId == null || indexOf(seatId) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isTaken(int index) {
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    //     * Claims all seats or none; partially claimed bits are rolled back on conflict //
+    //     * Also fails once the map is retired; the caller then claims in the successor //
+
+    public boolean tryClaim(List<Long> requested) {
+        int[] indexes = new int[requested.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = indexOf(requested.get(i));
+            if (indexes[i] < 0) {
+                return false;
+            }
+        }
+        for (int i = 0; i < indexes.length; i++) {
+            if (!claimBit(indexes[i])) {
+                for (int j = 0; j < i; j++) {
+                    clearBit(indexes[j]);
+                }
+                // A reader may have seen the rolled-back bits, so the rollback is a change too
+                if (i > 0) {
+                    recordChange(indexes, i);
+                }
+                return false;
+            }
+        }
+        journalLock.lock();
+        try {
+            if (retired) {
+                // A reload copies claims under this lock, so this one was not carried over
+                for (int idx : indexes) {
+                    clearBit(idx);
+                }
+                return false;
+            }
+            for (int idx : indexes) {
+                claims.set(idx);
+            }
+            appendChange(indexes, indexes.length);
+        } finally {
+            journalLock.unlock();
+        }
+        return true;
+    }
+
+    //     * Claims the best free block of count adjacent seats and returns their ids //
+    //     * Returns an empty list when no such block is left, null when every attempt lost a race //
+    //     * or the map was retired meanwhile //
+
+    public List<Long> claimBestAvailable(int count, int maxAttempts) {
+        SeatBlockIndex index = blockIndex();
+        for (int attempt = 0; attempt < maxAttempts && !retired; attempt++) {
+            int[] block = index.findBest(count);
+            if (block == null) {
+                return List.of();
+            }
+            List<Long> ids = Arrays.stream(block).mapToObj(idx -> seatIds[idx]).toList();
+            if (tryClaim(ids)) {
+                return ids;
+            }
+            // The winner may not have recorded its change yet, so re-read those rows
+            index.markDirty(block);
+        }
+        return null;
+    }
+
+    //     * Best free block without claiming it, for callers that let the database decide //
+
+    public List<Long> findBestAvailable(int count) {
+        int[] block = blockIndex().findBest(count);
+        return block == null ? List.of() : Arrays.stream(block).mapToObj(idx -> seatIds[idx]).toList();
+    }
+
+    //     * Frees seats whatever holds them, e.g. once a cancellation commits //
+    //     * Returns false when the map is retired; the seats are then freed in the successor //
+
+    public boolean release(List<Long> requested) {
+        journalLock.lock();
+        try {
+            if (retired) {
+                return false;
+            }
+            int[] indexes = new int[requested.size()];
+            int cleared = 0;
+            for (Long seatId : requested) {
+                int idx = seatId == null ? -1 : indexOf(seatId);
+                if (idx < 0) {
+                    continue;
+                }
+                claims.clear(idx);
+                if (freedDuringReload != null) {
+                    confirmedDuringReload.clear(idx);
+                    freedDuringReload.set(idx);
+                }
+                if (clearBit(idx)) {
+                    indexes[cleared++] = idx;
+                }
+            }
+            if (cleared > 0) {
+                appendChange(indexes, cleared);
+            }
+            return true;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    //     * Gives back seats claimed in memory by a booking or hold that did not go through //
+    //     * Seats without a claim, such as seats a reload found booked in the database, stay taken //
+    //     * Returns false when the map is retired; the claim then lives in the successor //
+
+    public boolean releaseClaim(List<Long> requested) {
+        journalLock.lock();
+        try {
+            if (retired) {
+                return false;
+            }
+            int[] indexes = new int[requested.size()];
+            int cleared = 0;
+            for (Long seatId : requested) {
+                int idx = seatId == null ? -1 : indexOf(seatId);
+                if (idx >= 0 && claims.get(idx)) {
+                    claims.clear(idx);
+                    if (clearBit(idx)) {
+                        indexes[cleared++] = idx;
+                    }
+                }
+            }
+            if (cleared > 0) {
+                appendChange(indexes, cleared);
+            }
+            return true;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    //     * Turns claims into bookings once their transaction has committed; the seats stay taken //
+    //     * Returns false when the map is retired; the claim then lives in the successor //
+
+    public boolean confirm(List<Long> requested) {
+        journalLock.lock();
+        try {
+            if (retired) {
+                return false;
+            }
+            for (Long seatId : requested) {
+                int idx = seatId == null ? -1 : indexOf(seatId);
+                if (idx < 0) {
+                    continue;
+                }
+                claims.clear(idx);
+                if (confirmedDuringReload != null) {
+                    freedDuringReload.clear(idx);
+                    confirmedDuringReload.set(idx);
+                }
+            }
+            return true;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    //     * Starts tracking the commits a reload must carry over, before it reads the database //
+    //     * Returns false when the map is retired or another reload is running //
+
+    public boolean beginReload() {
+        journalLock.lock();
+        try {
+            if (retired || confirmedDuringReload != null) {
+                return false;
+            }
+            confirmedDuringReload = new BitSet();
+            freedDuringReload = new BitSet();
+            return true;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    public void abortReload() {
+        journalLock.lock();
+        try {
+            confirmedDuringReload = null;
+            freedDuringReload = null;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    //     * Retires the map for eviction, unless claims are open or a reload runs //
+    //     * Changes made afterwards fail and go to whichever map is loaded next //
+
+    public boolean retireIfUnclaimed() {
+        journalLock.lock();
+        try {
+            if (retired || !claims.isEmpty() || confirmedDuringReload != null) {
+                return false;
+            }
+            retired = true;
+            return true;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    //     * Builds the replacement map and retires this one; booked holds the show's booked seats, //
+    //     * read after beginReload. Claims still open and seats confirmed since beginReload are //
+    //     * carried over; seats freed since then are dropped from booked, which may predate the free //
+
+    public ShowSeatMap reload(Collection<Long> booked) {
+        journalLock.lock();
+        try {
+            boolean[] taken = new boolean[seatIds.length];
+            for (Long seatId : booked) {
+                int idx = seatId == null ? -1 : indexOf(seatId);
+                if (idx >= 0 && !freedDuringReload.get(idx)) {
+                    taken[idx] = true;
+                }
+            }
+            claims.stream().forEach(idx -> taken[idx] = true);
+            confirmedDuringReload.stream().forEach(idx -> taken[idx] = true);
+
+            ShowSeatMap next = new ShowSeatMap(showId, layout, taken, versions);
+            next.claims.or(claims);
+            confirmedDuringReload = null;
+            freedDuringReload = null;
+            successor = next;
+            retired = true;
+            return next;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    //     * Seat indexes changed after the given version, read their current state with isTaken //
+    //     * Returns null when the journal no longer reaches back that far or the version is unknown //
+
+    public int[] changedSince(long since) {
+        journalLock.lock();
+        try {
+            if (since < journalFloor || since > version) {
+                return null;
+            }
+            BitSet changed = new BitSet(seatIds.length);
+            long oldest = Math.max(0, journalWrites - JOURNAL_SIZE);
+            for (long n = journalWrites - 1; n >= oldest; n--) {
+                int slot = (int) (n % JOURNAL_SIZE);
+                if (journalVersions[slot] <= since) {
+                    break;
+                }
+                changed.set(journalSeats[slot]);
+            }
+            return changed.stream().toArray();
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    public int countFree() {
+        int taken = 0;
+        for (int w = 0; w < words.length(); w++) {
+            taken += Long.bitCount(words.get(w));
+        }
+        return seatIds.length - taken;
+    }
+
+    private SeatBlockIndex blockIndex() {
+        SeatBlockIndex index = blockIndex;
+        if (index == null) {
+            journalLock.lock();
+            try {
+                if (blockIndex == null) {
+                    blockIndex = new SeatBlockIndex(this);
+                }
+                index = blockIndex;
+            } finally {
+                journalLock.unlock();
+            }
+        }
+        return index;
+    }
+
+    private boolean claimBit(int index) {
+        int w = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = words.get(w);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(w, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    // Returns whether the seat was taken //
+
+    private boolean clearBit(int index) {
+        int w = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = words.get(w);
+            if ((current & mask) == 0) {
+                return false;
+            }
+            if (words.compareAndSet(w, current, current & ~mask)) {
+                return true;
+            }
+        }
+    }
+
+    private void recordChange(int[] indexes, int count) {
+        journalLock.lock();
+        try {
+            appendChange(indexes, count);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // Caller holds journalLock //
+
+    private void appendChange(int[] indexes, int count) {
+        if (journalVersions == null) {
+            journalVersions = new long[JOURNAL_SIZE];
+            journalSeats = new int[JOURNAL_SIZE];
+        }
+        long next = versions.getAsLong();
+        for (int i = 0; i < count; i++) {
+            int slot = (int) (journalWrites % JOURNAL_SIZE);
+            if (journalWrites >= JOURNAL_SIZE) {
+                journalFloor = journalVersions[slot];
+            }
+            journalVersions[slot] = next;
+            journalSeats[slot] = indexes[i];
+            journalWrites++;
+        }
+        version = next;
+    }
+}
@@ -1,16 +1,26 @@
 package com.sk.movie.services;
 
+import com.sk.movie.dto.BulkShowRequest;
 import com.sk.movie.dto.ShowRequest;
 import com.sk.movie.dto.ShowResponse;
+import com.sk.movie.entities.Money;
 import com.sk.movie.entities.Movie;
+import com.sk.movie.entities.Screen;
 import com.sk.movie.entities.Show;
+import com.sk.movie.exceptions.BusinessException;
+import com.sk.movie.exceptions.ResourceNotFoundException;
 import com.sk.movie.repositories.MovieRepository;
+import com.sk.movie.repositories.ScreenRepository;
 import com.sk.movie.repositories.ShowRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,24 +32,77 @@ public class ShowService {
     @Autowired
     private MovieRepository movieRepository;
 
+    @Autowired
+    private ScreenRepository screenRepository;
+
+    @Autowired
+    private ScreenService screenService;
+
+    //     * Creates a show on a screen layout //
+    //     * The layout comes from screenId, or the screen named screenName, //
+    //     * or else a new plain grid screen of totalSeats under that name //
+
+    @Transactional
     public ShowResponse addShow(ShowRequest req) {
         Movie movie = movieRepository.findById(req.getMovieId())
                 .orElseThrow(() -> new RuntimeException("Movie not found"));
-        Show show = new Show();
-        show.setMovie(movie);
-        show.setShowTime(req.getShowTime());
-        show.setScreenName(req.getScreenName());
-        show.setPricePerSeat(BigDecimal.valueOf(req.getPricePerSeat()));
-        show.setTotalSeats(req.getTotalSeats());
-        show.setAvailableSeats(req.getTotalSeats());
-        showRepository.save(show);
-        return map(show);
+        Screen screen = req.getScreenId() != null
+                ? screenRepository.findById(req.getScreenId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Screen not found"))
+                : screenRepository.findByName(req.getScreenName()).orElse(null);
+
+        if (screen == null) {
+            if (req.getTotalSeats() == null || req.getTotalSeats() < 1) {
+                throw new BusinessException("totalSeats is required when the screen has no layout");
+            }
+            screen = screenService.createGridScreen(req.getScreenName(), req.getTotalSeats());
+        }
+        return map(createShow(movie, screen.getName(), req.getShowTime(), req.getPricePerSeat(), screen));
+    }
+
+    //     * Creates one show per screen per show time in a single transaction //
+    //     * Shows only reference the screen layout, so no seat rows are written //
+
+    @Transactional
+    public List<ShowResponse> addShows(BulkShowRequest req) {
+        Movie movie = movieRepository.findById(req.getMovieId())
+                .orElseThrow(() -> new ResourceNotFoundException("Movie not found"));
+        Map<Long, Screen> screens = screenRepository.findAllById(req.getScreenIds()).stream()
+                .collect(Collectors.toMap(Screen::getScreenId, Function.identity()));
+        for (Long screenId : req.getScreenIds()) {
+            if (!screens.containsKey(screenId)) {
+                throw new ResourceNotFoundException("Screen not found: " + screenId);
+            }
+        }
+
+        List<ShowResponse> responses = new ArrayList<>();
+        for (Long screenId : req.getScreenIds()) {
+            Screen screen = screens.get(screenId);
+            for (LocalDateTime showTime : req.getShowTimes()) {
+                Show show = createShow(movie, screen.getName(), showTime, req.getPricePerSeat(), screen);
+                responses.add(map(show));
+            }
+        }
+        return responses;
     }
 
     public List<ShowResponse> listShows() {
         return showRepository.findAll().stream().map(this::map).collect(Collectors.toList());
     }
 
+    private Show createShow(Movie movie, String screenName, LocalDateTime showTime, Money price, Screen screen) {
+        int totalSeats = screenService.sellableSeats(screen);
+        Show show = new Show();
+        show.setMovie(movie);
+        show.setScreen(screen);
+        show.setShowTime(showTime);
+        show.setScreenName(screenName);
+        show.setPricePerSeat(price);
+        show.setTotalSeats(totalSeats);
+        show.setAvailableSeats(totalSeats);
+        return showRepository.save(show);
+    }
+
     private ShowResponse map(Show s) {
         ShowResponse r = new ShowResponse();
         r.setShowId(s.getShowId());
@@ -48,7 +111,7 @@ public class ShowService {
         r.setScreenName(s.getScreenName());
         r.setTotalSeats(s.getTotalSeats());
         r.setAvailableSeats(s.getAvailableSeats());
-        r.setPricePerSeat(s.getPricePerSeat().doubleValue());
+        r.setPricePerSeat(s.getPricePerSeat());
         return r;
     }
 }
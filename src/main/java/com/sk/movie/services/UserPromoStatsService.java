@@ -0,0 +1,225 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.Booking;
+import com.sk.movie.entities.Money;
+import com.sk.movie.entities.UserPromoStats;
+import com.sk.movie.repositories.BookingRepository;
+import com.sk.movie.repositories.UserPromoStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Per-user booking count and spending, kept current so promo eligibility needs no aggregate query //
+// Bookings and cancellations add to the user_promo_stats row inside their own transaction and to the //
+// cached copy once they commit; the rebuild job recomputes the rows from bookings to correct any drift //
+
+@Service
+public class UserPromoStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserPromoStatsService.class);
+
+    @Autowired
+    private UserPromoStatsRepository userPromoStatsRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Bounds how long another node's bookings can go unseen by this node's cache
+    @Value("${promo.user-stats.cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    @Value("${promo.user-stats.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${promo.user-stats.rebuild-chunk-size:1000}")
+    private int rebuildChunkSize;
+
+    // Access-ordered, so the least recently checked user is dropped first; guarded by cacheLock
+    private final Map<Long, CachedTotals> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedTotals> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private final ReentrantLock cacheLock = new ReentrantLock();
+
+    //     * Confirmed bookings and spending of a user //
+    //     * Served from memory; a miss costs one primary-key lookup //
+
+    public Totals getTotals(Long userId) {
+        long now = System.currentTimeMillis();
+        cacheLock.lock();
+        try {
+            CachedTotals cached = cache.get(userId);
+            if (cached != null && cached.expiresAt > now) {
+                return cached.totals;
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+
+        Totals totals = userPromoStatsRepository.findById(userId)
+                .map(stats -> new Totals(stats.getConfirmedBookings(), Money.of(stats.getTotalSpending())))
+                // Users without a row yet (created before the first rebuild) are counted the slow way
+                .orElseGet(() -> new Totals(bookingRepository.countConfirmedBookingsByUser(userId),
+                        Money.of(bookingRepository.getTotalSpendingByUser(userId))));
+        cacheLock.lock();
+        try {
+            cache.put(userId, new CachedTotals(totals, now + cacheTtlSeconds * 1000));
+        } finally {
+            cacheLock.unlock();
+        }
+        return totals;
+    }
+
+    // Starts a new user at zero //
+
+    public void createFor(Long userId) {
+        UserPromoStats stats = new UserPromoStats();
+        stats.setUserId(userId);
+        stats.setUpdatedAt(LocalDateTime.now());
+        userPromoStatsRepository.save(stats);
+    }
+
+    // Counts newly confirmed bookings; must run inside the booking transaction //
+
+    public void recordConfirmed(List<Booking> bookings) {
+        // Rows are updated in user id order, so two batches sharing users cannot deadlock on them
+        Map<Long, Totals> perUser = new TreeMap<>();
+        for (Booking booking : bookings) {
+            perUser.merge(booking.getUser().getUserId(), new Totals(1, booking.getFinalAmount()), Totals::plus);
+        }
+        perUser.forEach(this::add);
+    }
+
+    // Takes a cancelled booking back out of its user's totals //
+
+    public void recordCancelled(Booking booking) {
+        add(booking.getUser().getUserId(), new Totals(-1, booking.getFinalAmount().negate()));
+    }
+
+    //     * Recomputes all stats rows from the bookings table, a chunk of users per transaction //
+    //     * Users without a row get one first. Returns the number of rows recomputed //
+
+    @Scheduled(cron = "${promo.user-stats.rebuild-cron:0 30 3 * * *}")
+    public int rebuild() {
+        int created = insertMissing();
+        int recomputed = recomputeAll();
+        log.info("Rebuilt promo stats of {} users ({} new rows)", recomputed, created);
+        return recomputed;
+    }
+
+    // Fills the table on the first start after this feature ships, and for any user missed since //
+
+    @EventListener(ApplicationReadyEvent.class)
+    void seedMissing() {
+        int created = insertMissing();
+        if (created > 0) {
+            log.info("Created promo stats of {} users from their bookings", created);
+        }
+    }
+
+    private int insertMissing() {
+        Integer created = new TransactionTemplate(transactionManager)
+                .execute(status -> userPromoStatsRepository.insertMissing(LocalDateTime.now()));
+        return created == null ? 0 : created;
+    }
+
+    private int recomputeAll() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int recomputed = 0;
+        long afterUserId = 0;
+        while (true) {
+            long after = afterUserId;
+            List<Long> userIds = tx.execute(status -> {
+                List<Long> ids = userPromoStatsRepository.findUserIdsAfter(after, Limit.of(rebuildChunkSize));
+                if (!ids.isEmpty()) {
+                    userPromoStatsRepository.recomputeRange(ids.get(0), ids.get(ids.size() - 1), LocalDateTime.now());
+                }
+                return ids;
+            });
+            if (userIds == null || userIds.isEmpty()) {
+                return recomputed;
+            }
+            evict(userIds);
+            recomputed += userIds.size();
+            afterUserId = userIds.get(userIds.size() - 1);
+        }
+    }
+
+    private void add(Long userId, Totals delta) {
+        int updated = userPromoStatsRepository.addToTotals(userId, delta.confirmedBookings,
+                delta.totalSpending.toBigDecimal(), LocalDateTime.now());
+        if (updated == 0) {
+            // The next rebuild creates the row from bookings, which will include this one
+            log.debug("No promo stats row for user {}, left to the rebuild job", userId);
+            afterCommit(() -> evict(List.of(userId)));
+            return;
+        }
+        afterCommit(() -> applyToCache(userId, delta));
+    }
+
+    private void applyToCache(Long userId, Totals delta) {
+        cacheLock.lock();
+        try {
+            CachedTotals cached = cache.get(userId);
+            if (cached != null) {
+                cache.put(userId, new CachedTotals(cached.totals.plus(delta), cached.expiresAt));
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private void evict(List<Long> userIds) {
+        cacheLock.lock();
+        try {
+            userIds.forEach(cache::remove);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public record Totals(long confirmedBookings, Money totalSpending) {
+        Totals plus(Totals other) {
+            return new Totals(confirmedBookings + other.confirmedBookings, totalSpending.plus(other.totalSpending));
+        }
+    }
+
+    private record CachedTotals(Totals totals, long expiresAt) {
+    }
+}
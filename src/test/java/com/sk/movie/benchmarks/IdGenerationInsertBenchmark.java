@@ -0,0 +1,145 @@
+package com.sk.movie.benchmarks;
+
+import org.h2.tools.Server;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+// Seat-map insert throughput: IDENTITY ids (one round trip per row, as Hibernate must do) //
+// versus pooled table ids (one generator update per 50 ids, JDBC batches of 20 rows) //
+// Runs against an H2 TCP server on localhost by default so every statement is a real round trip; //
+// point -Dbenchmark.jdbc.url/user/password at MySQL (with rewriteBatchedStatements=true) instead //
+
+@Tag("benchmark")
+class IdGenerationInsertBenchmark {
+
+	private static final int SEATS_PER_SHOW = 400;
+	private static final int SHOWS = 50;
+	private static final int BATCH_SIZE = 20;
+	private static final int ALLOCATION_SIZE = 50;
+
+	@Test
+	void seatMapInsertThroughput() throws Exception {
+		Server server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+		String url = System.getProperty("benchmark.jdbc.url",
+				"jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:idbench;DB_CLOSE_DELAY=-1");
+		try (Connection connection = DriverManager.getConnection(url,
+				System.getProperty("benchmark.jdbc.user", "sa"),
+				System.getProperty("benchmark.jdbc.password", ""))) {
+			connection.setAutoCommit(false);
+			createTables(connection);
+
+			// Warm up both paths before measuring
+			insertWithIdentity(connection, 5);
+			insertWithPooledIds(connection, 5);
+
+			long identityNanos = time(() -> insertWithIdentity(connection, SHOWS));
+			long pooledNanos = time(() -> insertWithPooledIds(connection, SHOWS));
+
+			long rows = (long) SHOWS * SEATS_PER_SHOW;
+			System.out.printf("IDENTITY: %,d rows in %d ms (%,.0f rows/s)%n",
+					rows, identityNanos / 1_000_000, rows * 1e9 / identityNanos);
+			System.out.printf("POOLED:   %,d rows in %d ms (%,.0f rows/s)%n",
+					rows, pooledNanos / 1_000_000, rows * 1e9 / pooledNanos);
+
+			dropTables(connection);
+		} finally {
+			server.stop();
+		}
+	}
+
+	private void insertWithIdentity(Connection connection, int shows) throws Exception {
+		try (PreparedStatement insert = connection.prepareStatement(
+				"INSERT INTO bench_seats_identity (show_id, row_name, seat_number, is_booked, version) " +
+						"VALUES (?, ?, ?, false, 0)", Statement.RETURN_GENERATED_KEYS)) {
+			for (int show = 0; show < shows; show++) {
+				for (int seat = 0; seat < SEATS_PER_SHOW; seat++) {
+					bindSeat(insert, show, seat);
+					insert.executeUpdate();
+					try (ResultSet keys = insert.getGeneratedKeys()) {
+						keys.next();
+					}
+				}
+				connection.commit();
+			}
+		}
+	}
+
+	private void insertWithPooledIds(Connection connection, int shows) throws Exception {
+		try (PreparedStatement nextHi = connection.prepareStatement(
+				"UPDATE bench_id_generators SET next_val = next_val + ? WHERE gen_name = 'seats'");
+			 PreparedStatement readHi = connection.prepareStatement(
+					 "SELECT next_val FROM bench_id_generators WHERE gen_name = 'seats'");
+			 PreparedStatement insert = connection.prepareStatement(
+					 "INSERT INTO bench_seats_pooled (seat_id, show_id, row_name, seat_number, is_booked, version) " +
+							 "VALUES (?, ?, ?, ?, false, 0)")) {
+			long nextId = 0;
+			long hi = 0;
+			for (int show = 0; show < shows; show++) {
+				for (int seat = 0; seat < SEATS_PER_SHOW; seat++) {
+					if (nextId >= hi) {
+						nextHi.setInt(1, ALLOCATION_SIZE);
+						nextHi.executeUpdate();
+						try (ResultSet rs = readHi.executeQuery()) {
+							rs.next();
+							hi = rs.getLong(1);
+						}
+						nextId = hi - ALLOCATION_SIZE;
+					}
+					insert.setLong(1, nextId++);
+					insert.setLong(2, show);
+					insert.setString(3, String.valueOf((char) ('A' + seat / 20)));
+					insert.setString(4, String.valueOf(seat % 20 + 1));
+					insert.addBatch();
+					if (seat % BATCH_SIZE == BATCH_SIZE - 1) {
+						insert.executeBatch();
+					}
+				}
+				insert.executeBatch();
+				connection.commit();
+			}
+		}
+	}
+
+	private void bindSeat(PreparedStatement insert, int show, int seat) throws Exception {
+		insert.setLong(1, show);
+		insert.setString(2, String.valueOf((char) ('A' + seat / 20)));
+		insert.setString(3, String.valueOf(seat % 20 + 1));
+	}
+
+	private void createTables(Connection connection) throws Exception {
+		try (Statement ddl = connection.createStatement()) {
+			ddl.execute("CREATE TABLE bench_seats_identity (seat_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+					"show_id BIGINT, row_name VARCHAR(5), seat_number VARCHAR(10), is_booked BOOLEAN, version BIGINT)");
+			ddl.execute("CREATE TABLE bench_seats_pooled (seat_id BIGINT PRIMARY KEY, " +
+					"show_id BIGINT, row_name VARCHAR(5), seat_number VARCHAR(10), is_booked BOOLEAN, version BIGINT)");
+			ddl.execute("CREATE TABLE bench_id_generators (gen_name VARCHAR(50) PRIMARY KEY, next_val BIGINT)");
+			ddl.execute("INSERT INTO bench_id_generators VALUES ('seats', 1)");
+		}
+		connection.commit();
+	}
+
+	private void dropTables(Connection connection) throws Exception {
+		try (Statement ddl = connection.createStatement()) {
+			ddl.execute("DROP TABLE bench_seats_identity");
+			ddl.execute("DROP TABLE bench_seats_pooled");
+			ddl.execute("DROP TABLE bench_id_generators");
+		}
+		connection.commit();
+	}
+
+	private long time(ThrowingRunnable runnable) throws Exception {
+		long start = System.nanoTime();
+		runnable.run();
+		return System.nanoTime() - start;
+	}
+
+	private interface ThrowingRunnable {
+		void run() throws Exception;
+	}
+}
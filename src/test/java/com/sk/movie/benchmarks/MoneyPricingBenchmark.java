@@ -0,0 +1,114 @@
+package com.sk.movie.benchmarks;
+
+import com.sk.movie.entities.Money;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Per-booking amount arithmetic, BigDecimal as BookingService used to price versus Money in minor units //
+// Both sides read the base price and the user's spending, total the seats, apply a discount and keep //
+// the three amounts on a booking, which is where they escape to in production //
+// Reports ns and bytes allocated per booking on this thread for each //
+
+@Tag("benchmark")
+class MoneyPricingBenchmark {
+
+	private static final int WARMUP_BOOKINGS = 500_000;
+	private static final int BOOKINGS = 5_000_000;
+
+	@Test
+	void pricingCostPerBooking() {
+		BigDecimal[] decimalPrices = new BigDecimal[8];
+		BigDecimal[] decimalSpending = new BigDecimal[8];
+		Money[] prices = new Money[8];
+		Money[] spending = new Money[8];
+		for (int i = 0; i < prices.length; i++) {
+			decimalPrices[i] = new BigDecimal(150 + i * 25 + ".50");
+			decimalSpending[i] = new BigDecimal(i * 400 + ".75");
+			prices[i] = Money.of(decimalPrices[i]);
+			spending[i] = Money.of(decimalSpending[i]);
+		}
+		Amounts[] bookings = new Amounts[64];
+		for (int i = 0; i < bookings.length; i++) {
+			bookings[i] = new Amounts();
+		}
+
+		long checksum = priceWithBigDecimal(decimalPrices, decimalSpending, bookings, WARMUP_BOOKINGS)
+				+ priceWithMoney(prices, spending, bookings, WARMUP_BOOKINGS);
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		long bytesBefore = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		long decimalChecksum = priceWithBigDecimal(decimalPrices, decimalSpending, bookings, BOOKINGS);
+		long decimalNanos = System.nanoTime() - start;
+		long decimalBytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+
+		bytesBefore = threads.getThreadAllocatedBytes(thread);
+		start = System.nanoTime();
+		long moneyChecksum = priceWithMoney(prices, spending, bookings, BOOKINGS);
+		long moneyNanos = System.nanoTime() - start;
+		long moneyBytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+
+		System.out.printf("BigDecimal: %,.1f ns/booking, %.1f bytes/booking%n",
+				(double) decimalNanos / BOOKINGS, (double) decimalBytes / BOOKINGS);
+		System.out.printf("Money:      %,.1f ns/booking, %.1f bytes/booking (checksum %d)%n",
+				(double) moneyNanos / BOOKINGS, (double) moneyBytes / BOOKINGS, checksum);
+		assertEquals(decimalChecksum, moneyChecksum);
+	}
+
+	// The arithmetic BookingService and DiscountRuleEngine did with BigDecimal
+	private long priceWithBigDecimal(BigDecimal[] prices, BigDecimal[] spending, Amounts[] bookings, int count) {
+		long checksum = 0;
+		for (int i = 0; i < count; i++) {
+			BigDecimal basePrice = prices[i & 7];
+			int seats = 1 + (i & 3);
+			long userSpending = spending[(i >> 3) & 7].movePointRight(2).longValue();
+			BigDecimal totalAmount = basePrice.multiply(BigDecimal.valueOf(seats));
+			long discount = discount(basePrice.movePointRight(2).longValue() * seats, userSpending);
+			BigDecimal discountAmount = BigDecimal.valueOf(discount, 2);
+			BigDecimal finalAmount = totalAmount.subtract(discountAmount);
+
+			Amounts booking = bookings[i & 63];
+			booking.total = totalAmount;
+			booking.discount = discountAmount;
+			booking.result = finalAmount;
+			checksum += finalAmount.unscaledValue().longValue();
+		}
+		return checksum;
+	}
+
+	private long priceWithMoney(Money[] prices, Money[] spending, Amounts[] bookings, int count) {
+		long checksum = 0;
+		for (int i = 0; i < count; i++) {
+			long basePrice = prices[i & 7].getMinor();
+			int seats = 1 + (i & 3);
+			long userSpending = spending[(i >> 3) & 7].getMinor();
+			long totalAmount = Math.multiplyExact(basePrice, seats);
+			long discount = discount(totalAmount, userSpending);
+
+			Amounts booking = bookings[i & 63];
+			booking.total = Money.ofMinor(totalAmount);
+			booking.discount = Money.ofMinor(discount);
+			booking.result = Money.ofMinor(totalAmount - discount);
+			checksum += totalAmount - discount;
+		}
+		return checksum;
+	}
+
+	// Stands in for the promo rules, which work in minor units on both sides
+	private static long discount(long totalAmount, long userSpending) {
+		return userSpending > 150_000 ? Math.min(totalAmount / 10, 30_000) : 0;
+	}
+
+	private static final class Amounts {
+		Object total;
+		Object discount;
+		Object result;
+	}
+}
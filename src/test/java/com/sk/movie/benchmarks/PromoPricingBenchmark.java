@@ -0,0 +1,100 @@
+package com.sk.movie.benchmarks;
+
+import com.sk.movie.entities.DiscountType;
+import com.sk.movie.entities.PromoCode;
+import com.sk.movie.services.PricingContext;
+import com.sk.movie.services.PromoRule;
+import com.sk.movie.services.PromoRuleSet;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Promo pricing cost per booking with 1,000 active automatic promotions //
+// Rules mix time-of-day, day, genre, seat-count, spending and tiered conditions; a share is stackable. //
+// Reports compile time once, then ns and bytes allocated per priced booking on this thread //
+
+@Tag("benchmark")
+class PromoPricingBenchmark {
+
+	private static final int RULES = 1_000;
+	private static final int WARMUP_BOOKINGS = 200_000;
+	private static final int BOOKINGS = 1_000_000;
+	private static final String[] GENRES = {"action", "drama", "comedy", "horror", "family"};
+
+	@Test
+	void pricingCostPerBooking() {
+		long compileStart = System.nanoTime();
+		List<PromoRule> rules = new ArrayList<>();
+		for (int i = 0; i < RULES; i++) {
+			rules.add(PromoRule.compile(promo(i)));
+		}
+		PromoRuleSet ruleSet = new PromoRuleSet(rules);
+		long compileNanos = System.nanoTime() - compileStart;
+
+		// One context per booking in production; a fixed pool here so only pricing itself is measured
+		PricingContext[] bookings = new PricingContext[64];
+		for (int i = 0; i < bookings.length; i++) {
+			LocalDateTime showTime = LocalDateTime.of(2030, 6, 1 + i % 7, 9 + i % 15, 0);
+			bookings[i] = new PricingContext()
+					.booking(1 + i % 10, 15_000 + (i % 4) * 5_000, showTime, GENRES[i % GENRES.length])
+					.user(i % 12, (i % 30) * 10_000L);
+		}
+
+		long checksum = price(ruleSet, bookings, WARMUP_BOOKINGS);
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long bytesBefore = threads.getThreadAllocatedBytes(thread);
+		long start = System.nanoTime();
+		checksum += price(ruleSet, bookings, BOOKINGS);
+		long elapsed = System.nanoTime() - start;
+		long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+
+		System.out.printf("Compiled %,d rules in %d ms%n", RULES, compileNanos / 1_000_000);
+		System.out.printf("Priced %,d bookings against %,d rules: %,.0f ns/booking, %.2f bytes/booking " +
+						"(checksum %d)%n",
+				BOOKINGS, RULES, (double) elapsed / BOOKINGS, (double) bytes / BOOKINGS, checksum);
+		assertTrue(checksum > 0);
+	}
+
+	private long price(PromoRuleSet ruleSet, PricingContext[] bookings, int count) {
+		long checksum = 0;
+		for (int i = 0; i < count; i++) {
+			PricingContext ctx = bookings[i & (bookings.length - 1)];
+			ruleSet.price(ctx, null);
+			checksum += ctx.getDiscount() + ctx.getAppliedCount();
+		}
+		return checksum;
+	}
+
+	private PromoCode promo(int i) {
+		String rule = switch (i % 6) {
+			case 0 -> "when hour in " + (9 + i % 6) + ".." + (13 + i % 6) + " and genre in "
+					+ GENRES[i % 5] + ", " + GENRES[(i + 2) % 5] + " then percent " + (5 + i % 20) + " max 300";
+			case 1 -> "when day in sat, sun and seats >= " + (2 + i % 4) + " then flat " + (50 + i % 200);
+			case 2 -> "when seats >= 4 then tiered(4: free-seats 1, 8: free-seats 2)";
+			case 3 -> "when (bookings > " + (i % 10) + " or spending > 1500) and not genre in horror then per-seat "
+					+ (10 + i % 40);
+			case 4 -> "when total >= " + (500 + i % 1000) + " then percent 10";
+			default -> "when hour in 22..2 or day in mon, tue then flat 75";
+		};
+		PromoCode promo = new PromoCode();
+		promo.setPromoCodeId((long) i);
+		promo.setCode("AUTO" + i);
+		promo.setDiscountType(DiscountType.RULE);
+		promo.setDiscountValue(BigDecimal.ZERO);
+		promo.setRule(rule);
+		promo.setStackable(i % 10 == 3);
+		promo.setAutoApply(true);
+		promo.setValidFrom(LocalDateTime.now().minusDays(1));
+		promo.setValidUntil(LocalDateTime.now().plusDays(30));
+		return promo;
+	}
+}
@@ -0,0 +1,137 @@
+package com.sk.movie.benchmarks;
+
+import com.sk.movie.exceptions.AdmissionRejectedException;
+import com.sk.movie.exceptions.BusinessException;
+import com.sk.movie.services.ConnectionAdmissionLimiter;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Ticket-release burst against the two servlet execution modes //
+// Platform: 200 Tomcat threads, bookings queue inside the 20-connection pool (30 s timeout) //
+// Virtual: a thread per request, bookings pass the ConnectionAdmissionLimiter before the pool //
+// Half of the requests are seat-map reads that need no connection; their latency shows whether //
+// booking traffic starves the rest of the server. The virtual run needs Java 21 (mvn -Pjava21,benchmark test); //
+// on Java 17 the per-request run stands in for it with a platform thread per request and the same limiter //
+
+@Tag("benchmark")
+class VirtualThreadLoadBenchmark {
+
+	private static final int BOOKINGS = 4000;
+	private static final int READS = 4000;
+	private static final int TOMCAT_THREADS = 200;
+	private static final int POOL_SIZE = 20;
+	private static final long DB_MILLIS = 20;   // lock wait + statements inside createBooking
+	private static final long READ_MILLIS = 1;  // serializing a cached seat map
+
+	@Test
+	void platformThreads() throws Exception {
+		run("PLATFORM", Executors.newFixedThreadPool(TOMCAT_THREADS), null);
+	}
+
+	@Test
+	void virtualThreads() throws Exception {
+		Assumptions.assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21");
+		ExecutorService executor = (ExecutorService) Executors.class
+				.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		run("VIRTUAL", executor, limiter());
+	}
+
+	@Test
+	void platformThreadPerRequest() throws Exception {
+		run("PER-REQUEST", Executors.newCachedThreadPool(), limiter());
+	}
+
+	private ConnectionAdmissionLimiter limiter() {
+		ConnectionAdmissionLimiter limiter = new ConnectionAdmissionLimiter();
+		ReflectionTestUtils.setField(limiter, "enabled", true);
+		ReflectionTestUtils.setField(limiter, "permits", POOL_SIZE - 4);
+		ReflectionTestUtils.setField(limiter, "waitMs", 2000L);
+		ReflectionTestUtils.invokeMethod(limiter, "initSemaphore");
+		return limiter;
+	}
+
+	private void run(String mode, ExecutorService executor, ConnectionAdmissionLimiter limiter) throws Exception {
+		Semaphore pool = new Semaphore(POOL_SIZE, true);
+		List<Long> bookingLatencies = Collections.synchronizedList(new ArrayList<>());
+		List<Long> readLatencies = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger rejected = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(BOOKINGS + READS);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < BOOKINGS + READS; i++) {
+			boolean booking = i % 2 == 0;
+			long submitted = System.nanoTime();
+			executor.execute(() -> {
+				try {
+					if (booking) {
+						if (limiter == null) {
+							book(pool);
+						} else {
+							limiter.withPermit(() -> book(pool));
+						}
+						bookingLatencies.add(System.nanoTime() - submitted);
+					} else {
+						Thread.sleep(READ_MILLIS);
+						readLatencies.add(System.nanoTime() - submitted);
+					}
+				} catch (BusinessException | AdmissionRejectedException e) {
+					rejected.incrementAndGet();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					done.countDown();
+				}
+			});
+		}
+		done.await(5, TimeUnit.MINUTES);
+		long elapsed = System.nanoTime() - start;
+		executor.shutdownNow();
+
+		System.out.printf("%s: %d ms total, bookings %d ok / %d rejected (%,.0f/s), " +
+						"booking p50 %d ms p99 %d ms, read p50 %d ms p99 %d ms%n",
+				mode, elapsed / 1_000_000, bookingLatencies.size(), rejected.get(),
+				bookingLatencies.size() * 1e9 / elapsed,
+				percentile(bookingLatencies, 50), percentile(bookingLatencies, 99),
+				percentile(readLatencies, 50), percentile(readLatencies, 99));
+	}
+
+	// Holds a pooled connection for the duration of the booking transaction //
+
+	private Boolean book(Semaphore pool) {
+		try {
+			if (!pool.tryAcquire(30, TimeUnit.SECONDS)) {
+				throw new BusinessException("Connection is not available, request timed out");
+			}
+			try {
+				Thread.sleep(DB_MILLIS);
+				return Boolean.TRUE;
+			} finally {
+				pool.release();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException("Booking was interrupted");
+		}
+	}
+
+	private long percentile(List<Long> latencies, int percentile) {
+		if (latencies.isEmpty()) {
+			return 0;
+		}
+		List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+		return sorted.get(Math.min(sorted.size() - 1, sorted.size() * percentile / 100)) / 1_000_000;
+	}
+}
@@ -0,0 +1,108 @@
+package com.sk.movie.config;
+
+import com.sk.movie.entities.IdGenerators;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(IdGeneratorMigration.class)
+class IdGeneratorMigrationTest {
+
+	private static final long EMPTY_FLOOR = IdGenerators.ALLOCATION_SIZE + 1;
+
+	@Autowired
+	private IdGeneratorMigration migration;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@BeforeEach
+	void setUp() {
+		// Start each test as a database that has never been migrated
+		jdbcTemplate.update("DELETE FROM " + IdGenerators.TABLE);
+	}
+
+	@Test
+	void emptyDatabaseSeedsEveryGeneratorPastOnePool() {
+		migration.migrate();
+
+		Map<String, Long> generators = generators();
+		assertEquals(9, generators.size());
+		generators.forEach((name, value) -> assertEquals(EMPTY_FLOOR, value, name));
+	}
+
+	@Test
+	void generatorsStartPastTheHighestExistingId() {
+		jdbcTemplate.update("INSERT INTO movies (movie_id, title, duration_minutes, is_active) VALUES (500, 'Heat', 170, TRUE)");
+
+		migration.migrate();
+
+		assertEquals(500 + EMPTY_FLOOR, generators().get("movies"));
+		assertEquals(EMPTY_FLOOR, generators().get("shows"));
+	}
+
+	@Test
+	void rerunOnAMigratedDatabaseChangesNothing() {
+		jdbcTemplate.update("INSERT INTO movies (movie_id, title, duration_minutes, is_active) VALUES (500, 'Heat', 170, TRUE)");
+		migration.migrate();
+		// Ids were handed out since, so this generator is already ahead of its floor
+		jdbcTemplate.update("UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN + " = 10000 WHERE "
+				+ IdGenerators.NAME_COLUMN + " = 'users'");
+		Map<String, Long> before = generators();
+
+		migration.migrate();
+
+		assertEquals(before, generators());
+		assertEquals(10000L, generators().get("users"));
+	}
+
+	@Test
+	void rowSeededByAnotherNodeIsOnlyMovedForward() {
+		// The other node inserts its rows between our count and our insert
+		ReflectionTestUtils.setField(migration, "jdbcTemplate", new JdbcTemplate(dataSource) {
+			@Override
+			public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+				if (sql.startsWith("SELECT COUNT(*)")) {
+					long value = "users".equals(args[0]) ? 10000 : 1;
+					jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.NAME_COLUMN + ", "
+							+ IdGenerators.VALUE_COLUMN + ") VALUES (?, ?)", args[0], value);
+					return requiredType.cast(0);
+				}
+				return super.queryForObject(sql, requiredType, args);
+			}
+		});
+		try {
+			migration.migrate();
+		} finally {
+			ReflectionTestUtils.setField(migration, "jdbcTemplate", jdbcTemplate);
+		}
+
+		Map<String, Long> generators = generators();
+		assertEquals(9, generators.size());
+		assertEquals(10000L, generators.get("users"));
+		assertEquals(EMPTY_FLOOR, generators.get("movies"));
+	}
+
+	private Map<String, Long> generators() {
+		Map<String, Long> generators = new HashMap<>();
+		jdbcTemplate.query("SELECT " + IdGenerators.NAME_COLUMN + ", " + IdGenerators.VALUE_COLUMN + " FROM "
+				+ IdGenerators.TABLE, rs -> {
+			generators.put(rs.getString(1), rs.getLong(2));
+		});
+		return generators;
+	}
+}
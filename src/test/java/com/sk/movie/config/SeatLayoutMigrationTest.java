@@ -0,0 +1,246 @@
+package com.sk.movie.config;
+
+import com.sk.movie.entities.*;
+import com.sk.movie.repositories.BookingRepository;
+import com.sk.movie.repositories.MovieRepository;
+import com.sk.movie.repositories.ShowRepository;
+import com.sk.movie.repositories.UserRepository;
+import com.sk.movie.services.ScreenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({SeatLayoutMigrationTest.Migrations.class, SeatLayoutMigration.class, ScreenService.class})
+// The migration commits a transaction per show, so the fixtures must be committed too
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SeatLayoutMigrationTest {
+
+	@Autowired
+	private SeatLayoutMigration migration;
+
+	@Autowired
+	private ScreenService screenService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MovieRepository movieRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ShowRepository showRepository;
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	private Movie movie;
+	private User user;
+	private long nextLegacySeatId = 9001;
+
+	@BeforeEach
+	void setUp() {
+		// Tables of the per-show seat model, which the entities no longer map
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS seats (seat_id BIGINT PRIMARY KEY, row_name VARCHAR(10), "
+				+ "seat_number VARCHAR(5), show_id BIGINT, is_booked BOOLEAN)");
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS booking_seats (booking_id BIGINT, seat_id BIGINT)");
+
+		movie = new Movie();
+		movie.setTitle("Test Movie");
+		movie.setDurationMinutes(120);
+		movie = movieRepository.save(movie);
+
+		user = new User();
+		user.setUsername("customer");
+		user.setEmail("customer@example.com");
+		user.setPasswordHash("hash");
+		user = userRepository.save(user);
+	}
+
+	@AfterEach
+	void tearDown() {
+		JdbcTestUtils.deleteFromTables(jdbcTemplate, "booking_seats", "seats", "booked_seats", "booking_layout_seats",
+				"bookings", "shows", "screen_seats", "screens", "movies", "users");
+	}
+
+	@Test
+	void legacySeatsAndBookingsMoveOntoADerivedScreen() {
+		Show show = legacyShow("Hall 9");
+		Map<String, Long> seats = legacySeats(show, "A1", "A2", "A3", "B1", "B2");
+		Booking confirmed = booking(show, BookingStatus.CONFIRMED);
+		Booking cancelled = booking(show, BookingStatus.CANCELLED);
+		link(confirmed, seats.get("A1"), seats.get("A2"));
+		link(cancelled, seats.get("B1"));
+		jdbcTemplate.update("UPDATE seats SET is_booked = TRUE WHERE seat_id IN (?, ?)", seats.get("A1"), seats.get("A2"));
+
+		migration.migrate();
+
+		Long screenId = screenOf(show);
+		assertNotNull(screenId);
+		Map<String, Object> screen = jdbcTemplate.queryForMap(
+				"SELECT name, row_count, seats_per_row, blocked_seats FROM screens WHERE screen_id = ?", screenId);
+		assertEquals("Hall 9", screen.get("NAME"));
+		assertEquals(2, screen.get("ROW_COUNT"));
+		assertEquals(3, screen.get("SEATS_PER_ROW"));
+		assertEquals("B3", screen.get("BLOCKED_SEATS"));
+		assertEquals(5, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "screen_seats", "screen_id = " + screenId));
+
+		Map<Long, Set<String>> history = labelsByBooking(
+				"SELECT l.booking_id, s.row_name, s.seat_number FROM booking_layout_seats l "
+						+ "JOIN screen_seats s ON s.seat_id = l.seat_id");
+		assertEquals(Map.of(confirmed.getBookingId(), Set.of("A1", "A2"), cancelled.getBookingId(), Set.of("B1")), history);
+
+		// Only seats still held by a confirmed booking stay booked
+		Map<Long, Set<String>> booked = labelsByBooking(
+				"SELECT b.booking_id, s.row_name, s.seat_number FROM booked_seats b "
+						+ "JOIN screen_seats s ON s.seat_id = b.seat_id WHERE b.show_id = " + show.getShowId());
+		assertEquals(Map.of(confirmed.getBookingId(), Set.of("A1", "A2")), booked);
+	}
+
+	@Test
+	void rerunOnAMigratedDatabaseChangesNothing() {
+		Show show = legacyShow("Hall 9");
+		Map<String, Long> seats = legacySeats(show, "A1", "A2");
+		Booking confirmed = booking(show, BookingStatus.CONFIRMED);
+		link(confirmed, seats.get("A1"));
+		jdbcTemplate.update("UPDATE seats SET is_booked = TRUE WHERE seat_id = ?", seats.get("A1"));
+		migration.migrate();
+		Long screenId = screenOf(show);
+
+		migration.migrate();
+
+		assertEquals(screenId, screenOf(show));
+		assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "screens"));
+		assertEquals(2, JdbcTestUtils.countRowsInTable(jdbcTemplate, "screen_seats"));
+		assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "booking_layout_seats"));
+		assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "booked_seats"));
+	}
+
+	@Test
+	void emptyDatabaseHasNothingToMove() {
+		migration.migrate();
+
+		assertEquals(0, JdbcTestUtils.countRowsInTable(jdbcTemplate, "screens"));
+		assertEquals(0, JdbcTestUtils.countRowsInTable(jdbcTemplate, "booking_layout_seats"));
+	}
+
+	@Test
+	void showReusesTheNamedScreenWhenItsLayoutHasEverySeat() {
+		Screen hall = screenService.createScreen("Hall 9", 2, 4, Set.of());
+		Show show = legacyShow("Hall 9");
+		legacySeats(show, "A1", "B4");
+
+		migration.migrate();
+
+		assertEquals(hall.getScreenId(), screenOf(show));
+		assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "screens"));
+	}
+
+	@Test
+	void namedScreenMissingSeatsIsLeftAloneForANewOne() {
+		Screen hall = screenService.createScreen("Hall 9", 1, 2, Set.of());
+		Show show = legacyShow("Hall 9");
+		legacySeats(show, "A1", "A2", "A3");
+
+		migration.migrate();
+
+		Long screenId = screenOf(show);
+		assertNotEquals(hall.getScreenId(), screenId);
+		assertEquals("Hall 9 #" + show.getShowId(),
+				jdbcTemplate.queryForObject("SELECT name FROM screens WHERE screen_id = ?", String.class, screenId));
+		assertEquals(2, JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "screen_seats", "screen_id = " + hall.getScreenId()));
+	}
+
+	@Test
+	void showWithoutLegacySeatsIsSkipped() {
+		Show show = legacyShow("Hall 9");
+
+		migration.migrate();
+
+		assertNull(screenOf(show));
+	}
+
+	private Show legacyShow(String screenName) {
+		Show show = new Show();
+		show.setMovie(movie);
+		show.setShowTime(LocalDateTime.now().plusDays(1));
+		show.setScreenName(screenName);
+		show.setTotalSeats(5);
+		show.setAvailableSeats(5);
+		show.setPricePerSeat(Money.of(new BigDecimal("200.00")));
+		return showRepository.save(show);
+	}
+
+	private Map<String, Long> legacySeats(Show show, String... labels) {
+		Map<String, Long> ids = new HashMap<>();
+		for (String label : labels) {
+			long seatId = nextLegacySeatId++;
+			jdbcTemplate.update("INSERT INTO seats (seat_id, row_name, seat_number, show_id, is_booked) VALUES (?, ?, ?, ?, FALSE)",
+					seatId, label.substring(0, 1), label.substring(1), show.getShowId());
+			ids.put(label, seatId);
+		}
+		return ids;
+	}
+
+	private Booking booking(Show show, BookingStatus status) {
+		Booking booking = new Booking();
+		booking.setUser(user);
+		booking.setShow(show);
+		booking.setBookingReference(UUID.randomUUID().toString());
+		booking.setTotalSeats(1);
+		booking.setTotalAmount(Money.of(new BigDecimal("200.00")));
+		booking.setFinalAmount(Money.of(new BigDecimal("200.00")));
+		booking.setBookingStatus(status);
+		return bookingRepository.save(booking);
+	}
+
+	private void link(Booking booking, Long... seatIds) {
+		for (Long seatId : seatIds) {
+			jdbcTemplate.update("INSERT INTO booking_seats (booking_id, seat_id) VALUES (?, ?)", booking.getBookingId(), seatId);
+		}
+	}
+
+	private Long screenOf(Show show) {
+		return jdbcTemplate.queryForObject("SELECT screen_id FROM shows WHERE show_id = ?", Long.class, show.getShowId());
+	}
+
+	private Map<Long, Set<String>> labelsByBooking(String sql) {
+		Map<Long, Set<String>> labels = new HashMap<>();
+		jdbcTemplate.query(sql, rs -> {
+			labels.computeIfAbsent(rs.getLong(1), id -> new HashSet<>()).add(rs.getString(2) + rs.getString(3));
+		});
+		return labels;
+	}
+
+	// Registered under the name component scanning gives it, which SeatLayoutMigration depends on
+	@TestConfiguration
+	static class Migrations {
+
+		@Bean
+		IdGeneratorMigration idGeneratorMigration() {
+			return new IdGeneratorMigration();
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.sk.movie.repositories;
+
+import com.sk.movie.entities.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class BookedSeatRepositoryTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private BookedSeatRepository bookedSeatRepository;
+
+	private User user;
+	private Show show;
+	private Show otherShow;
+	private List<Seat> seats;
+
+	@BeforeEach
+	void setUp() {
+		user = new User();
+		user.setUsername("customer");
+		user.setEmail("customer@example.com");
+		user.setPasswordHash("hash");
+		entityManager.persist(user);
+
+		Movie movie = new Movie();
+		movie.setTitle("Test Movie");
+		movie.setDurationMinutes(120);
+		entityManager.persist(movie);
+
+		Screen screen = new Screen();
+		screen.setName("Screen 1");
+		screen.setRowCount(1);
+		screen.setSeatsPerRow(4);
+		entityManager.persist(screen);
+
+		seats = new ArrayList<>();
+		for (int i = 1; i <= 4; i++) {
+			seats.add(newSeat(screen, i));
+		}
+
+		// Both shows share the same layout seats
+		show = newShow(movie, screen);
+		otherShow = newShow(movie, screen);
+		entityManager.flush();
+	}
+
+	@Test
+	void uniqueKeyRejectsSecondBookingOfSameSeat() {
+		book(show, seats.subList(0, 2));
+
+		assertThrows(DataIntegrityViolationException.class, () -> book(show, seats.subList(1, 3)));
+	}
+
+	@Test
+	void sameLayoutSeatCanBeBookedForAnotherShow() {
+		book(show, seats);
+		book(otherShow, seats);
+
+		assertEquals(4, bookedSeatRepository.findBookedSeatIds(otherShow.getShowId()).size());
+	}
+
+	@Test
+	void findBookedSeatIdsOnlyReturnsRequestedSeatsOfTheShow() {
+		book(show, seats.subList(0, 2));
+
+		List<Long> requested = List.of(seats.get(1).getSeatId(), seats.get(2).getSeatId());
+		assertEquals(List.of(seats.get(1).getSeatId()), bookedSeatRepository.findBookedSeatIds(show.getShowId(), requested));
+		assertTrue(bookedSeatRepository.findBookedSeatIds(otherShow.getShowId(), requested).isEmpty());
+	}
+
+	@Test
+	void findBookedSeatsReturnsPairsAcrossShows() {
+		book(show, seats.subList(0, 1));
+		book(otherShow, seats.subList(1, 2));
+
+		List<Object[]> booked = bookedSeatRepository.findBookedSeats(
+				List.of(show.getShowId(), otherShow.getShowId()),
+				List.of(seats.get(0).getSeatId(), seats.get(1).getSeatId()));
+
+		assertEquals(2, booked.size());
+		assertTrue(booked.stream().anyMatch(row -> row[0].equals(show.getShowId()) && row[1].equals(seats.get(0).getSeatId())));
+		assertTrue(booked.stream().anyMatch(row -> row[0].equals(otherShow.getShowId()) && row[1].equals(seats.get(1).getSeatId())));
+	}
+
+	@Test
+	void deleteByBookingIdFreesOnlyThatBooking() {
+		Booking first = book(show, seats.subList(0, 2));
+		book(show, seats.subList(2, 4));
+
+		assertEquals(2, bookedSeatRepository.deleteByBookingId(first.getBookingId()));
+		assertEquals(0, bookedSeatRepository.deleteByBookingId(first.getBookingId()));
+		assertEquals(2, bookedSeatRepository.findBookedSeatIds(show.getShowId()).size());
+
+		// Freed seats can be booked again
+		book(show, seats.subList(0, 2));
+	}
+
+	private Booking book(Show s, List<Seat> bookedSeats) {
+		Booking booking = new Booking();
+		booking.setUser(user);
+		booking.setShow(s);
+		booking.setBookingReference(UUID.randomUUID().toString());
+		booking.setTotalSeats(bookedSeats.size());
+		booking.setTotalAmount(Money.of(new BigDecimal("400.00")));
+		booking.setFinalAmount(Money.of(new BigDecimal("400.00")));
+		entityManager.persist(booking);
+		bookedSeatRepository.saveAllAndFlush(
+				bookedSeats.stream().map(seat -> new BookedSeat(s, seat, booking)).toList());
+		return booking;
+	}
+
+	private Show newShow(Movie movie, Screen screen) {
+		Show s = new Show();
+		s.setMovie(movie);
+		s.setScreen(screen);
+		s.setShowTime(LocalDateTime.now().plusDays(1));
+		s.setScreenName(screen.getName());
+		s.setTotalSeats(4);
+		s.setPricePerSeat(Money.of(new BigDecimal("200.00")));
+		return entityManager.persist(s);
+	}
+
+	private Seat newSeat(Screen screen, int number) {
+		Seat seat = new Seat();
+		seat.setScreen(screen);
+		seat.setRowName("A");
+		seat.setSeatNumber(String.valueOf(number));
+		seat.setRowIndex(0);
+		seat.setSeatIndex(number - 1);
+		return entityManager.persist(seat);
+	}
+}
@@ -0,0 +1,157 @@
+package com.sk.movie.repositories;
+
+import com.sk.movie.entities.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Query-count guard for the booking listings: the number of statements must not grow with the bookings //
+// Also covers the admin keyset pages //
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookingRepositoryTest {
+
+	private static final int BOOKINGS = 6;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private BookingRepository bookingRepository;
+
+	private User user;
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		user = new User();
+		user.setUsername("customer");
+		user.setEmail("customer@example.com");
+		user.setPasswordHash("hash");
+		entityManager.persist(user);
+
+		Screen screen = new Screen();
+		screen.setName("Screen 1");
+		screen.setRowCount(1);
+		screen.setSeatsPerRow(BOOKINGS * 2);
+		entityManager.persist(screen);
+
+		List<Seat> seats = new ArrayList<>();
+		for (int i = 0; i < BOOKINGS * 2; i++) {
+			Seat seat = new Seat();
+			seat.setScreen(screen);
+			seat.setRowName("A");
+			seat.setSeatNumber(String.valueOf(i + 1));
+			seat.setRowIndex(0);
+			seat.setSeatIndex(i);
+			seats.add(entityManager.persist(seat));
+		}
+
+		PromoCode promo = new PromoCode();
+		promo.setCode("SAVE10");
+		promo.setDiscountType(DiscountType.FLAT_DISCOUNT);
+		promo.setDiscountValue(BigDecimal.TEN);
+		promo.setValidFrom(LocalDateTime.now().minusDays(1));
+		promo.setValidUntil(LocalDateTime.now().plusDays(1));
+		entityManager.persist(promo);
+
+		// Every booking has its own movie and show, so lazy loading would cost queries per booking
+		for (int i = 0; i < BOOKINGS; i++) {
+			Movie movie = new Movie();
+			movie.setTitle("Movie " + i);
+			movie.setDurationMinutes(120);
+			entityManager.persist(movie);
+
+			Show show = new Show();
+			show.setMovie(movie);
+			show.setScreen(screen);
+			show.setShowTime(LocalDateTime.now().plusDays(1));
+			show.setScreenName(screen.getName());
+			show.setTotalSeats(BOOKINGS * 2);
+			show.setPricePerSeat(Money.of(new BigDecimal("200.00")));
+			entityManager.persist(show);
+
+			Booking booking = new Booking();
+			booking.setUser(user);
+			booking.setShow(show);
+			booking.setBookingReference(UUID.randomUUID().toString());
+			booking.setTotalSeats(2);
+			booking.setTotalAmount(Money.of(new BigDecimal("400.00")));
+			booking.setFinalAmount(Money.of(new BigDecimal("400.00")));
+			booking.setPromoCode(i % 2 == 0 ? promo : null);
+			booking.getSeats().addAll(seats.subList(i * 2, i * 2 + 2));
+			entityManager.persist(booking);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void userBookingsAreListedInOneQuery() {
+		List<Booking> bookings = bookingRepository.findByUserUserIdOrderByBookingTimeDesc(user.getUserId());
+		readLikeBookingResponse(bookings);
+
+		assertEquals(BOOKINGS, bookings.size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void keysetPageCostsTwoQueriesAndPagesDoNotOverlap() {
+		List<Long> firstIds = bookingRepository.findPageIds(null, null, null, null, null, null, Limit.of(4));
+		List<Booking> first = bookingRepository.findAllWithDetailsByIds(firstIds);
+		readLikeBookingResponse(first);
+		assertEquals(4, first.size());
+		assertEquals(2, statistics.getPrepareStatementCount());
+
+		Booking last = first.stream().filter(b -> b.getBookingId().equals(firstIds.get(3))).findFirst().orElseThrow();
+		List<Long> secondIds = bookingRepository.findPageIds(null, null, null, null,
+				last.getBookingTime(), last.getBookingId(), Limit.of(4));
+
+		Set<Long> all = new HashSet<>(firstIds);
+		all.addAll(secondIds);
+		assertEquals(2, secondIds.size());
+		assertEquals(BOOKINGS, all.size());
+	}
+
+	@Test
+	void keysetPageAppliesFilters() {
+		Long showId = bookingRepository.findAll().get(0).getShow().getShowId();
+
+		assertEquals(1, bookingRepository.findPageIds(showId, BookingStatus.CONFIRMED, null, null, null, null, Limit.of(10)).size());
+		assertTrue(bookingRepository.findPageIds(null, BookingStatus.CANCELLED, null, null, null, null, Limit.of(10)).isEmpty());
+		assertTrue(bookingRepository.findPageIds(null, null, LocalDateTime.now().plusMinutes(1), null, null, null, Limit.of(10)).isEmpty());
+		assertEquals(BOOKINGS, bookingRepository.findPageIds(null, null, null, LocalDateTime.now().plusMinutes(1), null, null, Limit.of(10)).size());
+	}
+
+	// Touches everything BookingService.mapToBookingResponse reads //
+
+	private void readLikeBookingResponse(List<Booking> bookings) {
+		for (Booking booking : bookings) {
+			assertNotNull(booking.getShow().getMovie().getTitle());
+			assertNotNull(booking.getShow().getShowTime());
+			assertEquals(2, booking.getSeats().stream().map(seat -> seat.getRowName() + seat.getSeatNumber()).count());
+			if (booking.getPromoCode() != null) {
+				assertEquals("SAVE10", booking.getPromoCode().getCode());
+			}
+		}
+	}
+}
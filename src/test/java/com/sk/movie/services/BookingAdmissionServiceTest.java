@@ -0,0 +1,93 @@
+package com.sk.movie.services;
+
+import com.sk.movie.exceptions.AdmissionRejectedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingAdmissionServiceTest {
+
+	private BookingAdmissionService admission;
+
+	@BeforeEach
+	void setUp() {
+		admission = new BookingAdmissionService();
+		ReflectionTestUtils.setField(admission, "enabled", true);
+		ReflectionTestUtils.setField(admission, "perShowConcurrency", 1);
+		ReflectionTestUtils.setField(admission, "queueCapacity", 1);
+		ReflectionTestUtils.setField(admission, "maxWaitMs", 200L);
+	}
+
+	@Test
+	void fullQueueIsRejectedWith429AndWaitTimeoutWith503() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(1);
+		CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> admission.admit(1L, () -> {
+			running.countDown();
+			await(finish);
+			return "first";
+		}));
+		assertTrue(running.await(1, TimeUnit.SECONDS));
+
+		// Second request takes the only queue slot and eventually gives up
+		CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> admission.admit(1L, () -> "second"));
+		Thread.sleep(50);
+
+		AdmissionRejectedException full = assertThrows(AdmissionRejectedException.class,
+				() -> admission.admit(1L, () -> "third"));
+		assertTrue(full.isQueueFull());
+		assertTrue(full.getRetryAfterSeconds() >= 1);
+
+		Exception timedOut = assertThrows(Exception.class, second::join);
+		assertFalse(((AdmissionRejectedException) timedOut.getCause()).isQueueFull());
+
+		// Other shows are not affected
+		assertEquals("other", admission.admit(2L, () -> "other"));
+
+		finish.countDown();
+		assertEquals("first", first.get(1, TimeUnit.SECONDS));
+		assertEquals("next", admission.admit(1L, () -> "next"));
+	}
+
+	@Test
+	void gateIsEvictedOnlyOnceNothingRunsOrWaits() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(1);
+		CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> admission.admit(1L, () -> {
+			running.countDown();
+			await(finish);
+			return "first";
+		}));
+		assertTrue(running.await(1, TimeUnit.SECONDS));
+		admission.admit(2L, () -> "done");
+
+		admission.evictIdleGates();
+		assertEquals(Set.of(1L), gates().keySet());
+
+		finish.countDown();
+		first.get(1, TimeUnit.SECONDS);
+		admission.evictIdleGates();
+		assertTrue(gates().isEmpty());
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<Long, ?> gates() {
+		return (Map<Long, ?>) ReflectionTestUtils.getField(admission, "gates");
+	}
+
+	private void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
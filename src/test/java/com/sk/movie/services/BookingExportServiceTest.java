@@ -0,0 +1,128 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.BookingFilter;
+import com.sk.movie.entities.*;
+import com.sk.movie.exceptions.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// H2 rejects MySQL's streaming fetch size, so the test uses a plain one //
+
+@DataJpaTest(properties = "booking.export.fetch-size=100")
+@Import(BookingExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class BookingExportServiceTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private BookingExportService bookingExportService;
+
+	private Show show;
+
+	@BeforeEach
+	void setUp() {
+		User user = new User();
+		user.setUsername("customer");
+		user.setEmail("customer@example.com");
+		user.setPasswordHash("hash");
+		entityManager.persist(user);
+
+		Movie movie = new Movie();
+		movie.setTitle("Heat, Director's Cut");
+		movie.setDurationMinutes(170);
+		entityManager.persist(movie);
+
+		Screen screen = new Screen();
+		screen.setName("Screen 1");
+		screen.setRowCount(1);
+		screen.setSeatsPerRow(3);
+		entityManager.persist(screen);
+
+		show = new Show();
+		show.setMovie(movie);
+		show.setScreen(screen);
+		show.setShowTime(LocalDateTime.now().plusDays(1));
+		show.setScreenName(screen.getName());
+		show.setTotalSeats(3);
+		show.setPricePerSeat(Money.of(new BigDecimal("200.00")));
+		entityManager.persist(show);
+
+		List<Seat> seats = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			Seat seat = new Seat();
+			seat.setScreen(screen);
+			seat.setRowName("A");
+			seat.setSeatNumber(String.valueOf(i));
+			seat.setRowIndex(0);
+			seat.setSeatIndex(i - 1);
+			seats.add(entityManager.persist(seat));
+		}
+
+		book(user, "BKG1", seats.subList(0, 2));
+		book(user, "BKG2", seats.subList(2, 3));
+		entityManager.flush();
+	}
+
+	@Test
+	void csvHasOneLinePerBookingWithItsSeats() {
+		List<String> lines = export(new BookingFilter(), "csv");
+
+		assertEquals(3, lines.size());
+		assertTrue(lines.get(0).startsWith("booking_id,booking_reference"));
+		assertTrue(lines.get(1).contains(",BKG1,"));
+		assertTrue(lines.get(1).contains("\"Heat, Director's Cut\""));
+		assertTrue(lines.get(1).endsWith(",A1 A2") || lines.get(1).endsWith(",A2 A1"));
+		assertTrue(lines.get(2).endsWith(",A3"));
+	}
+
+	@Test
+	void ndjsonAppliesFilters() {
+		BookingFilter filter = new BookingFilter();
+		filter.setShowId(show.getShowId());
+		filter.setStatus(BookingStatus.CONFIRMED);
+		List<String> lines = export(filter, "ndjson");
+		assertEquals(2, lines.size());
+		assertTrue(lines.get(0).startsWith("{\"bookingId\":"));
+		assertTrue(lines.get(1).contains("\"seatNumbers\":[\"A3\"]"));
+
+		filter.setStatus(BookingStatus.CANCELLED);
+		assertTrue(export(filter, "ndjson").isEmpty());
+		assertThrows(BusinessException.class, () -> bookingExportService.isCsv("xml"));
+	}
+
+	private void book(User user, String reference, List<Seat> seats) {
+		Booking booking = new Booking();
+		booking.setUser(user);
+		booking.setShow(show);
+		booking.setBookingReference(reference);
+		booking.setTotalSeats(seats.size());
+		booking.setTotalAmount(Money.of(new BigDecimal("200.00")));
+		booking.setFinalAmount(Money.of(new BigDecimal("200.00")));
+		booking.getSeats().addAll(seats);
+		entityManager.persist(booking);
+	}
+
+	private List<String> export(BookingFilter filter, String format) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		bookingExportService.export(filter, format, out);
+		String text = out.toString(StandardCharsets.UTF_8);
+		return text.isEmpty() ? List.of() : List.of(text.split("\n"));
+	}
+}
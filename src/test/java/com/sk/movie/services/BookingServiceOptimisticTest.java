@@ -0,0 +1,228 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.BookingRequest;
+import com.sk.movie.dto.BookingResponse;
+import com.sk.movie.dto.ShowContentionResponse;
+import com.sk.movie.entities.*;
+import com.sk.movie.exceptions.AdmissionRejectedException;
+import com.sk.movie.exceptions.GlobalExceptionHandler;
+import com.sk.movie.repositories.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// OPTIMISTIC bookings through the full booking path; every booking commits, so the rows are removed afterwards //
+// Version conflicts are simulated by a limiter that fails the first tries as if another booking had updated //
+// the show first. One screen row of four seats, two days ahead //
+
+@DataJpaTest(properties = {
+		"booking.concurrency.mode=OPTIMISTIC",
+		"booking.optimistic.max-attempts=3",
+		"booking.optimistic.backoff-ms=1"
+})
+@Import({BookingService.class, PromotionService.class, UserPromoStatsService.class, PromoRedemptionService.class,
+		PromoCatalogService.class, DiscountRuleEngine.class, DemandPricingService.class, SeatInventoryService.class,
+		SeatMapService.class, SeatEventPublisher.class, ShowLockManager.class, ContentionMonitor.class,
+		ConnectionAdmissionLimiter.class, BookingAdmissionService.class, IdempotencyService.class,
+		BookingMetrics.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingServiceOptimisticTest {
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private ContentionMonitor contentionMonitor;
+
+	@Autowired
+	private BookingMetrics bookingMetrics;
+
+	@Autowired
+	private ConnectionAdmissionLimiter connectionAdmissionLimiter;
+
+	@Autowired
+	private MovieRepository movieRepository;
+
+	@Autowired
+	private ScreenRepository screenRepository;
+
+	@Autowired
+	private SeatRepository seatRepository;
+
+	@Autowired
+	private ShowRepository showRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final AtomicInteger conflictsLeft = new AtomicInteger();
+
+	private Show show;
+	private List<Seat> seats;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(bookingService, "connectionAdmissionLimiter", new ConflictingLimiter());
+
+		Movie movie = new Movie();
+		movie.setTitle("Test Movie");
+		movie.setDurationMinutes(120);
+		movieRepository.save(movie);
+
+		Screen screen = new Screen();
+		screen.setName("Screen 1");
+		screen.setRowCount(1);
+		screen.setSeatsPerRow(4);
+		screenRepository.save(screen);
+
+		seats = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Seat seat = new Seat();
+			seat.setScreen(screen);
+			seat.setRowName("A");
+			seat.setSeatNumber(String.valueOf(i + 1));
+			seat.setRowIndex(0);
+			seat.setSeatIndex(i);
+			seats.add(seatRepository.save(seat));
+		}
+
+		show = new Show();
+		show.setMovie(movie);
+		show.setScreen(screen);
+		show.setShowTime(LocalDateTime.now().plusDays(2));
+		show.setScreenName(screen.getName());
+		show.setTotalSeats(4);
+		show.setPricePerSeat(Money.of(new BigDecimal("200.00")));
+		showRepository.save(show);
+
+		user = new User();
+		user.setUsername("optimistic-user");
+		user.setEmail("optimistic-user@example.com");
+		user.setPasswordHash("hash");
+		userRepository.save(user);
+	}
+
+	@AfterEach
+	void tearDown() {
+		ReflectionTestUtils.setField(bookingService, "connectionAdmissionLimiter", connectionAdmissionLimiter);
+		JdbcTestUtils.deleteFromTables(jdbcTemplate, "booked_seats", "booking_layout_seats", "bookings",
+				"user_promo_stats", "shows", "screen_seats", "screens", "movies", "users");
+	}
+
+	@Test
+	void everyTryIsAContentionAttemptOfItsOwn() {
+		conflictsLeft.set(2);
+
+		assertNotNull(bookingService.createBooking(request(0), user.getUserId()));
+
+		// Three tries, two of them conflicting: the conflict rate stays within 0..1
+		ShowContentionResponse contention = contention();
+		assertEquals(3, contention.getAttempts());
+		assertEquals(2, contention.getConflicts());
+		assertEquals(2.0 / 3, contention.getConflictRate(), 1e-9);
+	}
+
+	@Test
+	void conflictIsRetriedUntilTheBookingCommits() {
+		Map<String, Long> before = bookingMetrics.snapshot();
+		conflictsLeft.set(2);
+
+		BookingResponse response = bookingService.createBooking(request(0), user.getUserId());
+
+		assertEquals(List.of("A1"), response.getSeatNumbers());
+		assertEquals(1, bookedSeats());
+		Map<String, Long> counted = countedSince(before);
+		assertEquals(3, counted.get("optimistic.attempts"));
+		assertEquals(2, counted.get("optimistic.conflicts"));
+		assertEquals(2, counted.get("optimistic.retries"));
+		assertEquals(0, counted.get("optimistic.exhausted"));
+	}
+
+	@Test
+	void exhaustedRetriesAreRejectedWith503AndFreeTheSeats() {
+		Map<String, Long> before = bookingMetrics.snapshot();
+		conflictsLeft.set(3);
+
+		AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class,
+				() -> bookingService.createBooking(request(0), user.getUserId()));
+
+		ResponseEntity<Map<String, Object>> error = new GlobalExceptionHandler().handleAdmissionRejected(rejected);
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, error.getStatusCode());
+		assertEquals("1", error.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+		assertEquals(0, bookedSeats());
+		Map<String, Long> counted = countedSince(before);
+		assertEquals(3, counted.get("optimistic.attempts"));
+		assertEquals(3, counted.get("optimistic.conflicts"));
+		assertEquals(2, counted.get("optimistic.retries"));
+		assertEquals(1, counted.get("optimistic.exhausted"));
+
+		// The in-memory claim was given back, so the seat can be booked
+		assertNotNull(bookingService.createBooking(request(0), user.getUserId()));
+	}
+
+	private Map<String, Long> countedSince(Map<String, Long> before) {
+		Map<String, Long> counted = new HashMap<>();
+		bookingMetrics.snapshot().forEach((name, value) -> counted.put(name, value - before.get(name)));
+		return counted;
+	}
+
+	private int bookedSeats() {
+		return JdbcTestUtils.countRowsInTable(jdbcTemplate, "booked_seats");
+	}
+
+	private ShowContentionResponse contention() {
+		return contentionMonitor.snapshot().stream()
+				.filter(stats -> stats.getShowId().equals(show.getShowId()))
+				.findFirst()
+				.orElseThrow();
+	}
+
+	private BookingRequest request(int seat) {
+		BookingRequest request = new BookingRequest();
+		request.setShowId(show.getShowId());
+		request.setSeatIds(List.of(seats.get(seat).getSeatId()));
+		return request;
+	}
+
+	// Fails tries with a version conflict while conflictsLeft lasts, before their transaction starts //
+
+	private class ConflictingLimiter extends ConnectionAdmissionLimiter {
+		@Override
+		public <T> T withPermit(Supplier<T> work) {
+			if (conflictsLeft.getAndDecrement() > 0) {
+				throw new ObjectOptimisticLockingFailureException(Show.class, show.getShowId());
+			}
+			return super.withPermit(work);
+		}
+	}
+}
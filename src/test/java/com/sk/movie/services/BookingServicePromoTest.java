@@ -0,0 +1,170 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.BookingRequest;
+import com.sk.movie.dto.BookingResponse;
+import com.sk.movie.entities.*;
+import com.sk.movie.repositories.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Promo bookings through the full booking path; every booking commits, so the rows are removed afterwards //
+// One screen row of four seats, two days ahead, at 200.00 a seat; every user may use promo codes //
+
+@DataJpaTest(properties = {
+		"booking.concurrency.mode=SERIALIZABLE",
+		"promo.rules.eligibility=bookings >= 0",
+		"promo.redemption.lease-size=8"
+})
+@Import({BookingService.class, PromotionService.class, UserPromoStatsService.class, PromoRedemptionService.class,
+		PromoCatalogService.class, DiscountRuleEngine.class, DemandPricingService.class, SeatInventoryService.class,
+		SeatMapService.class, SeatEventPublisher.class, ShowLockManager.class, ContentionMonitor.class,
+		ConnectionAdmissionLimiter.class, BookingAdmissionService.class, IdempotencyService.class,
+		BookingMetrics.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingServicePromoTest {
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private PromoCodeRepository promoCodeRepository;
+
+	@Autowired
+	private MovieRepository movieRepository;
+
+	@Autowired
+	private ScreenRepository screenRepository;
+
+	@Autowired
+	private SeatRepository seatRepository;
+
+	@Autowired
+	private ShowRepository showRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Show show;
+	private List<Seat> seats;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		Movie movie = new Movie();
+		movie.setTitle("Test Movie");
+		movie.setDurationMinutes(120);
+		movieRepository.save(movie);
+
+		Screen screen = new Screen();
+		screen.setName("Screen 1");
+		screen.setRowCount(1);
+		screen.setSeatsPerRow(4);
+		screenRepository.save(screen);
+
+		seats = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Seat seat = new Seat();
+			seat.setScreen(screen);
+			seat.setRowName("A");
+			seat.setSeatNumber(String.valueOf(i + 1));
+			seat.setRowIndex(0);
+			seat.setSeatIndex(i);
+			seats.add(seatRepository.save(seat));
+		}
+
+		show = new Show();
+		show.setMovie(movie);
+		show.setScreen(screen);
+		show.setShowTime(LocalDateTime.now().plusDays(2));
+		show.setScreenName(screen.getName());
+		show.setTotalSeats(4);
+		show.setPricePerSeat(Money.of(new BigDecimal("200.00")));
+		showRepository.save(show);
+
+		user = new User();
+		user.setUsername("promo-user");
+		user.setEmail("promo-user@example.com");
+		user.setPasswordHash("hash");
+		userRepository.save(user);
+	}
+
+	@AfterEach
+	void tearDown() {
+		JdbcTestUtils.deleteFromTables(jdbcTemplate, "booked_seats", "booking_layout_seats", "bookings",
+				"user_promo_stats", "shows", "screen_seats", "screens", "movies", "users", "promo_codes");
+	}
+
+	@Test
+	void serializableBookingWithLimitedPromoCommits() {
+		PromoCode promo = promo("LIMITED", 5, false);
+
+		// Cold catalog, so the code is loaded and a use leased just before the SERIALIZABLE booking opens; on
+		// MySQL a read of the promo row in the booking would make the lease wait for the booking. H2 takes no
+		// read locks, so here this only shows the whole path commits
+		BookingResponse response = assertTimeoutPreemptively(Duration.ofSeconds(20),
+				() -> bookingService.createBooking(request(0, "LIMITED"), user.getUserId()));
+
+		assertEquals(5_000, response.getDiscountAmount().getMinor());
+		// A quarter of what is left is leased, at least one use
+		assertEquals(1, promoCodeRepository.findById(promo.getPromoCodeId()).orElseThrow().getCurrentUses());
+	}
+
+	@Test
+	void automaticPromoStopsApplyingAtItsLimit() {
+		PromoCode promo = promo("AUTO2", 2, true);
+
+		for (int seat = 0; seat < 2; seat++) {
+			BookingResponse response = bookingService.createBooking(request(seat, null), user.getUserId());
+			assertEquals(5_000, response.getDiscountAmount().getMinor());
+			assertEquals("AUTO2", response.getPromoCodeUsed());
+		}
+
+		// Both uses are taken, so the third booking is priced without it
+		BookingResponse full = bookingService.createBooking(request(2, null), user.getUserId());
+		assertEquals(0, full.getDiscountAmount().getMinor());
+		assertNull(full.getPromoCodeUsed());
+		assertEquals(2, promoCodeRepository.findById(promo.getPromoCodeId()).orElseThrow().getCurrentUses());
+	}
+
+	private BookingRequest request(int seat, String promoCode) {
+		BookingRequest request = new BookingRequest();
+		request.setShowId(show.getShowId());
+		request.setSeatIds(List.of(seats.get(seat).getSeatId()));
+		request.setPromoCode(promoCode);
+		return request;
+	}
+
+	private PromoCode promo(String code, Integer maxUses, boolean autoApply) {
+		PromoCode promo = new PromoCode();
+		promo.setCode(code);
+		promo.setDiscountType(DiscountType.FLAT_DISCOUNT);
+		promo.setDiscountValue(new BigDecimal("50.00"));
+		promo.setValidFrom(LocalDateTime.now().minusDays(1));
+		promo.setValidUntil(LocalDateTime.now().plusDays(1));
+		promo.setMaxUses(maxUses);
+		promo.setAutoApply(autoApply);
+		return promoCodeRepository.save(promo);
+	}
+}
@@ -0,0 +1,187 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.BookingRequest;
+import com.sk.movie.dto.BookingResponse;
+import com.sk.movie.entities.*;
+import com.sk.movie.repositories.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// QUEUED bookings through the full booking path; every booking commits, so the rows are removed afterwards //
+// The per-show admission gate turns every request away, so only bookings that skip it can get through; //
+// batches are also handed to the batch writer directly, to control what they contain. //
+// One screen row of four seats, two days ahead //
+
+@DataJpaTest(properties = {
+		"booking.concurrency.mode=QUEUED",
+		"booking.admission.per-show-concurrency=1",
+		"booking.admission.queue-capacity=0"
+})
+@Import({BookingService.class, PromotionService.class, UserPromoStatsService.class, PromoRedemptionService.class,
+		PromoCatalogService.class, DiscountRuleEngine.class, DemandPricingService.class, SeatInventoryService.class,
+		SeatMapService.class, SeatEventPublisher.class, ShowLockManager.class, ContentionMonitor.class,
+		ConnectionAdmissionLimiter.class, BookingAdmissionService.class, IdempotencyService.class,
+		BookingMetrics.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingServiceQueuedTest {
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private MovieRepository movieRepository;
+
+	@Autowired
+	private ScreenRepository screenRepository;
+
+	@Autowired
+	private SeatRepository seatRepository;
+
+	@Autowired
+	private ShowRepository showRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ConnectionAdmissionLimiter connectionAdmissionLimiter;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Show show;
+	private List<Seat> seats;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		Movie movie = new Movie();
+		movie.setTitle("Test Movie");
+		movie.setDurationMinutes(120);
+		movieRepository.save(movie);
+
+		Screen screen = new Screen();
+		screen.setName("Screen 1");
+		screen.setRowCount(1);
+		screen.setSeatsPerRow(4);
+		screenRepository.save(screen);
+
+		seats = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Seat seat = new Seat();
+			seat.setScreen(screen);
+			seat.setRowName("A");
+			seat.setSeatNumber(String.valueOf(i + 1));
+			seat.setRowIndex(0);
+			seat.setSeatIndex(i);
+			seats.add(seatRepository.save(seat));
+		}
+
+		show = new Show();
+		show.setMovie(movie);
+		show.setScreen(screen);
+		show.setShowTime(LocalDateTime.now().plusDays(2));
+		show.setScreenName(screen.getName());
+		show.setTotalSeats(4);
+		show.setPricePerSeat(Money.of(new BigDecimal("200.00")));
+		showRepository.save(show);
+
+		user = new User();
+		user.setUsername("queued-user");
+		user.setEmail("queued-user@example.com");
+		user.setPasswordHash("hash");
+		userRepository.save(user);
+	}
+
+	@AfterEach
+	void tearDown() {
+		JdbcTestUtils.deleteFromTables(jdbcTemplate, "booked_seats", "booking_layout_seats", "bookings",
+				"user_promo_stats", "shows", "screen_seats", "screens", "movies", "users");
+	}
+
+	@Test
+	void queuedBookingsDoNotWaitForAPerShowPermit() {
+		BookingResponse response = bookingService.createBooking(request(0), user.getUserId());
+
+		assertEquals(List.of("A1"), response.getSeatNumbers());
+		assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "booked_seats"));
+	}
+
+	@Test
+	void failedRecorderFailsOnlyItsOwnBookingInTheBatch() {
+		List<BookingResponse> recorded = new ArrayList<>();
+		ShowBookingQueue.PendingBooking recordedBooking =
+				new ShowBookingQueue.PendingBooking(request(0), user.getUserId(), recorded::add);
+		ShowBookingQueue.PendingBooking unrecordedBooking =
+				new ShowBookingQueue.PendingBooking(request(1), user.getUserId(), response -> {
+					throw new IllegalStateException("Could not serialize booking response");
+				});
+
+		ReflectionTestUtils.invokeMethod(bookingService, "persistBatch", show.getShowId(),
+				List.of(recordedBooking, unrecordedBooking));
+
+		// The batch was rolled back once and written again without the failed request
+		assertEquals(List.of("A1"), recorded.get(recorded.size() - 1).getSeatNumbers());
+		assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "bookings"));
+		assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "booked_seats"));
+	}
+
+	@Test
+	void batchChosenAsADeadlockVictimIsWrittenAgain() {
+		ReflectionTestUtils.setField(bookingService, "connectionAdmissionLimiter", new DeadlockingLimiter());
+		List<BookingResponse> recorded = new ArrayList<>();
+		try {
+			ReflectionTestUtils.invokeMethod(bookingService, "persistBatch", show.getShowId(), List.of(
+					new ShowBookingQueue.PendingBooking(request(0), user.getUserId(), recorded::add),
+					new ShowBookingQueue.PendingBooking(request(1), user.getUserId(), recorded::add)));
+		} finally {
+			ReflectionTestUtils.setField(bookingService, "connectionAdmissionLimiter", connectionAdmissionLimiter);
+		}
+
+		assertEquals(2, recorded.size());
+		assertEquals(2, JdbcTestUtils.countRowsInTable(jdbcTemplate, "booked_seats"));
+	}
+
+	private BookingRequest request(int seat) {
+		BookingRequest request = new BookingRequest();
+		request.setShowId(show.getShowId());
+		request.setSeatIds(List.of(seats.get(seat).getSeatId()));
+		return request;
+	}
+
+	// Fails the first batch transaction as MySQL does its deadlock victim //
+
+	private static class DeadlockingLimiter extends ConnectionAdmissionLimiter {
+		private final AtomicBoolean deadlocked = new AtomicBoolean();
+
+		@Override
+		public <T> T withPermit(Supplier<T> work) {
+			if (deadlocked.compareAndSet(false, true)) {
+				throw new CannotAcquireLockException("Deadlock found when trying to get lock");
+			}
+			return super.withPermit(work);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.ShowContentionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Default thresholds on a hand-moved clock: a 10 s window of 1 s buckets, hot at 20% conflicts //
+// over 20 samples or 8 bookings in flight, cold again at 5% //
+
+class ContentionMonitorTest {
+
+	private static final long BUCKET_MS = 1_000;
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+	private final ContentionMonitor monitor = new ContentionMonitor();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(monitor, "windowSeconds", 10L);
+		ReflectionTestUtils.setField(monitor, "minSamples", 20L);
+		ReflectionTestUtils.setField(monitor, "hotConflictRate", 0.2);
+		ReflectionTestUtils.setField(monitor, "coldConflictRate", 0.05);
+		ReflectionTestUtils.setField(monitor, "hotInFlight", 8);
+		ReflectionTestUtils.setField(monitor, "hotLockWaitMs", 50L);
+		ReflectionTestUtils.setField(monitor, "hotMode", BookingConcurrencyMode.STRIPED_LOCK);
+		ReflectionTestUtils.setField(monitor, "coldMode", BookingConcurrencyMode.OPTIMISTIC);
+		ReflectionTestUtils.setField(monitor, "clock", (LongSupplier) now::get);
+	}
+
+	@Test
+	void windowForgetsBucketsOlderThanTenSeconds() {
+		tries(1L, 5, 2);
+		now.addAndGet(5 * BUCKET_MS);
+		tries(1L, 3, 0);
+
+		assertEquals(8, stats(1L).getAttempts());
+		assertEquals(2, stats(1L).getConflicts());
+
+		// The first bucket has left the window, the second is still in it
+		now.addAndGet(5 * BUCKET_MS);
+		assertEquals(3, stats(1L).getAttempts());
+		assertEquals(0, stats(1L).getConflicts());
+
+		now.addAndGet(5 * BUCKET_MS);
+		assertEquals(0, stats(1L).getAttempts());
+	}
+
+	@Test
+	void showTurnsHotAboveTheHighWaterMarkAndColdOnlyBelowTheLowOne() {
+		assertEquals(BookingConcurrencyMode.OPTIMISTIC, monitor.modeFor(1L));
+
+		// A high rate over too few samples is not enough
+		tries(1L, 10, 5);
+		nextDecision();
+		assertEquals(BookingConcurrencyMode.OPTIMISTIC, monitor.modeFor(1L));
+
+		tries(1L, 10, 0);
+		nextDecision();
+		assertEquals(BookingConcurrencyMode.STRIPED_LOCK, monitor.modeFor(1L));
+
+		// 10% is below the high-water mark but above the low one, so the show stays hot
+		tries(1L, 30, 0);
+		nextDecision();
+		assertEquals(BookingConcurrencyMode.STRIPED_LOCK, monitor.modeFor(1L));
+
+		tries(1L, 60, 0);
+		nextDecision();
+		assertEquals(BookingConcurrencyMode.OPTIMISTIC, monitor.modeFor(1L));
+	}
+
+	@Test
+	void modeIsOnlyReconsideredOncePerBucket() {
+		assertEquals(BookingConcurrencyMode.OPTIMISTIC, monitor.modeFor(1L));
+		tries(1L, 20, 20);
+
+		now.addAndGet(BUCKET_MS - 1);
+		assertEquals(BookingConcurrencyMode.OPTIMISTIC, monitor.modeFor(1L));
+		now.incrementAndGet();
+		assertEquals(BookingConcurrencyMode.STRIPED_LOCK, monitor.modeFor(1L));
+	}
+
+	@Test
+	void bookingsInFlightAndLockWaitsMakeAShowHot() {
+		for (int i = 0; i < 8; i++) {
+			monitor.enter(1L);
+		}
+		assertEquals(BookingConcurrencyMode.STRIPED_LOCK, monitor.modeFor(1L));
+		for (int i = 0; i < 8; i++) {
+			monitor.exit(1L);
+		}
+		nextDecision();
+		assertEquals(BookingConcurrencyMode.OPTIMISTIC, monitor.modeFor(1L));
+
+		// 60 ms of lock wait per booking
+		for (int i = 0; i < 20; i++) {
+			monitor.recordAttempt(2L);
+			monitor.recordLockWait(2L, 60_000_000L);
+		}
+		assertEquals(BookingConcurrencyMode.STRIPED_LOCK, monitor.modeFor(2L));
+		assertEquals(60, stats(2L).getAvgLockWaitMs());
+	}
+
+	@Test
+	void modesAreDecidedPerShow() {
+		ReflectionTestUtils.setField(monitor, "hotMode", BookingConcurrencyMode.QUEUED);
+		tries(1L, 20, 10);
+		tries(2L, 20, 0);
+
+		assertEquals(BookingConcurrencyMode.QUEUED, monitor.modeFor(1L));
+		assertEquals(BookingConcurrencyMode.OPTIMISTIC, monitor.modeFor(2L));
+	}
+
+	@Test
+	void idleShowsAreEvicted() {
+		tries(1L, 1, 0);
+		monitor.enter(2L);
+		tries(3L, 1, 0);
+		now.addAndGet(5 * BUCKET_MS);
+		tries(3L, 1, 0);
+
+		now.addAndGet(6 * BUCKET_MS);
+		monitor.evictIdleShows();
+
+		// Show 1 is out of the window, show 2 still has a booking in flight, show 3 had one 6 s ago
+		assertNull(find(1L));
+		assertNotNull(find(2L));
+		assertNotNull(find(3L));
+
+		monitor.exit(2L);
+		now.addAndGet(5 * BUCKET_MS);
+		monitor.evictIdleShows();
+		assertTrue(monitor.snapshot().isEmpty());
+	}
+
+	private void tries(Long showId, int attempts, int conflicts) {
+		for (int i = 0; i < attempts; i++) {
+			monitor.recordAttempt(showId);
+			if (i < conflicts) {
+				monitor.recordConflict(showId);
+			}
+		}
+	}
+
+	private void nextDecision() {
+		now.addAndGet(BUCKET_MS);
+	}
+
+	private ShowContentionResponse stats(Long showId) {
+		ShowContentionResponse stats = find(showId);
+		assertNotNull(stats);
+		return stats;
+	}
+
+	private ShowContentionResponse find(Long showId) {
+		return monitor.snapshot().stream()
+				.filter(stats -> stats.getShowId().equals(showId))
+				.findFirst()
+				.orElse(null);
+	}
+}
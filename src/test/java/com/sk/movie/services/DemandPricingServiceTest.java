@@ -0,0 +1,162 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.*;
+import com.sk.movie.exceptions.PriceChangedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Three rows of two seats, two days ahead: only the zone and occupancy multipliers apply //
+// The scheduled reprice is pushed out of the way so it cannot hold the lock while a test reprices //
+
+@DataJpaTest(properties = {"pricing.dynamic.enabled=true", "pricing.dynamic.refresh-ms=3600000"})
+@Import({DemandPricingService.class, SeatInventoryService.class, BookingMetrics.class})
+class DemandPricingServiceTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private DemandPricingService demandPricingService;
+
+	private Show show;
+	private List<Seat> seats;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(demandPricingService, "quoteGraceMs", 120_000L);
+		ReflectionTestUtils.setField(demandPricingService, "enabled", true);
+		ReflectionTestUtils.setField(demandPricingService, "roundingMinor", 100L);
+
+		Movie movie = new Movie();
+		movie.setTitle("Test Movie");
+		movie.setDurationMinutes(120);
+		entityManager.persist(movie);
+
+		Screen screen = new Screen();
+		screen.setName("Screen 1");
+		screen.setRowCount(3);
+		screen.setSeatsPerRow(2);
+		entityManager.persist(screen);
+
+		seats = new ArrayList<>();
+		for (int row = 0; row < 3; row++) {
+			for (int i = 0; i < 2; i++) {
+				seats.add(newSeat(screen, row, i));
+			}
+		}
+
+		show = new Show();
+		show.setMovie(movie);
+		show.setScreen(screen);
+		show.setShowTime(LocalDateTime.now().plusDays(2));
+		show.setScreenName(screen.getName());
+		show.setTotalSeats(6);
+		show.setPricePerSeat(Money.of(new BigDecimal("200.00")));
+		entityManager.persist(show);
+		entityManager.flush();
+	}
+
+	@Test
+	void pricesFollowZoneAndOccupancy() {
+		demandPricingService.reprice();
+		SeatPriceTable empty = demandPricingService.current(show.getShowId());
+		assertNotNull(empty);
+		assertEquals(18_000, empty.priceOf(seats.get(0).getSeatId()));
+		assertEquals(20_000, empty.priceOf(seats.get(2).getSeatId()));
+		assertEquals(24_000, empty.priceOf(seats.get(5).getSeatId()));
+
+		// Nothing changed, so the version stays
+		demandPricingService.reprice();
+		assertSame(empty, demandPricingService.current(show.getShowId()));
+
+		// A full show is 30% dearer
+		show.setAvailableSeats(0);
+		entityManager.flush();
+		demandPricingService.reprice();
+		SeatPriceTable full = demandPricingService.current(show.getShowId());
+		assertNotEquals(empty.getVersion(), full.getVersion());
+		assertEquals(23_400, full.priceOf(seats.get(0).getSeatId()));
+		assertEquals(31_200, full.priceOf(seats.get(5).getSeatId()));
+	}
+
+	@Test
+	void disabledPricingKeepsTheBasePrice() {
+		ReflectionTestUtils.setField(demandPricingService, "enabled", false);
+		demandPricingService.reprice();
+
+		assertNull(demandPricingService.current(show.getShowId()));
+		assertEquals(20_000, demandPricingService.quote(show, null).priceOf(seats.get(5).getSeatId()));
+	}
+
+	@Test
+	void onlyAdjustedPricesAreRoundedToTheConfiguredStep() {
+		byte[] zones = {0, 1, 2};
+		Duration twoDays = Duration.ofDays(2);
+
+		// The middle zone's multiplier is exactly 1, so its price is the base price to the paisa
+		assertArrayEquals(new long[]{22_500, 24_950, 29_900},
+				demandPricingService.prices(zones, 24_950, 6, 6, twoDays));
+
+		ReflectionTestUtils.setField(demandPricingService, "roundingMinor", 1L);
+		assertArrayEquals(new long[]{22_455, 24_950, 29_940},
+				demandPricingService.prices(zones, 24_950, 6, 6, twoDays));
+	}
+
+	@Test
+	void versionIsDerivedFromThePrices() {
+		demandPricingService.reprice();
+		SeatPriceTable table = demandPricingService.current(show.getShowId());
+
+		// What another node, or this one after a restart, publishes for the same prices
+		long[] prices = new long[seats.size()];
+		for (int i = 0; i < prices.length; i++) {
+			prices[i] = table.priceAt(i);
+		}
+		assertEquals(SeatPriceTable.versionOf(20_000, prices), table.getVersion());
+		assertNotEquals(table.getVersion(), SeatPriceTable.versionOf(25_000, prices));
+		assertNotEquals(SeatPriceTable.BASE_VERSION, table.getVersion());
+		assertTrue(table.getVersion() < 1L << 53);
+	}
+
+	@Test
+	void quoteHonoursTheReplacedVersionOnlyDuringTheGracePeriod() {
+		assertEquals(SeatPriceTable.BASE_VERSION, demandPricingService.quote(show, null).getVersion());
+		demandPricingService.reprice();
+		SeatPriceTable first = demandPricingService.current(show.getShowId());
+		show.setAvailableSeats(0);
+		entityManager.flush();
+		demandPricingService.reprice();
+		SeatPriceTable second = demandPricingService.current(show.getShowId());
+
+		assertSame(second, demandPricingService.quote(show, null));
+		assertSame(second, demandPricingService.quote(show, second.getVersion()));
+		assertSame(first, demandPricingService.quote(show, first.getVersion()));
+		assertThrows(PriceChangedException.class, () -> demandPricingService.quote(show, SeatPriceTable.BASE_VERSION));
+
+		ReflectionTestUtils.setField(demandPricingService, "quoteGraceMs", -1L);
+		assertThrows(PriceChangedException.class, () -> demandPricingService.quote(show, first.getVersion()));
+	}
+
+	private Seat newSeat(Screen screen, int row, int index) {
+		Seat seat = new Seat();
+		seat.setScreen(screen);
+		seat.setRowName(String.valueOf((char) ('A' + row)));
+		seat.setSeatNumber(String.valueOf(index + 1));
+		seat.setRowIndex(row);
+		seat.setSeatIndex(index);
+		return entityManager.persist(seat);
+	}
+}
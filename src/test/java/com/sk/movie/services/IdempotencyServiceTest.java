@@ -0,0 +1,201 @@
+package com.sk.movie.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sk.movie.dto.BookingRequest;
+import com.sk.movie.dto.BookingResponse;
+import com.sk.movie.entities.IdempotencyRecord;
+import com.sk.movie.entities.Money;
+import com.sk.movie.exceptions.BusinessException;
+import com.sk.movie.exceptions.IdempotencyKeyConflictException;
+import com.sk.movie.repositories.IdempotencyRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Keys are reserved and completed in transactions of their own, so every test commits and the rows are removed afterwards //
+
+@DataJpaTest(properties = {
+		"booking.idempotency.in-flight-wait-ms=1000",
+		"booking.idempotency.poll-interval-ms=20"
+})
+@Import({IdempotencyService.class, BookingMetrics.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private IdempotencyRecordRepository idempotencyRecordRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@AfterEach
+	void tearDown() {
+		idempotencyRecordRepository.deleteAll();
+	}
+
+	@Test
+	void retryWithSameKeyReplaysFirstResponseWithoutBookingAgain() {
+		AtomicInteger bookings = new AtomicInteger();
+		BookingRequest request = request(List.of(3L, 1L, 2L));
+
+		BookingResponse first = idempotencyService.execute(7L, "key-1", request, recorder -> book(bookings, recorder));
+		BookingResponse retry = idempotencyService.execute(7L, "key-1", request(List.of(1L, 2L, 3L)), recorder -> book(bookings, recorder));
+
+		assertEquals(1, bookings.get());
+		assertEquals(first.getBookingReference(), retry.getBookingReference());
+		assertThrows(BusinessException.class,
+				() -> idempotencyService.execute(7L, "key-1", request(List.of(4L)), recorder -> book(bookings, recorder)));
+
+		// Keys are scoped per user
+		idempotencyService.execute(8L, "key-1", request, recorder -> book(bookings, recorder));
+		assertEquals(2, bookings.get());
+	}
+
+	@Test
+	void persistedKeyIsReplayedAfterMemoryIsLost() {
+		AtomicInteger bookings = new AtomicInteger();
+		BookingResponse first = idempotencyService.execute(7L, "key-2", request(List.of(1L)), recorder -> book(bookings, recorder));
+		assertTrue(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(7L, "key-2").isPresent());
+
+		// Another node, or this one after a restart
+		((Map<?, ?>) ReflectionTestUtils.getField(idempotencyService, "cache")).clear();
+		BookingResponse retry = idempotencyService.execute(7L, "key-2", request(List.of(1L)), recorder -> book(bookings, recorder));
+
+		assertEquals(1, bookings.get());
+		assertEquals(first.getBookingReference(), retry.getBookingReference());
+		assertEquals(first.getSeatNumbers(), retry.getSeatNumbers());
+		assertEquals(Money.ofMinor(25_050), retry.getFinalAmount());
+	}
+
+	@Test
+	void failedAttemptIsNotStored() {
+		AtomicInteger bookings = new AtomicInteger();
+		assertThrows(BusinessException.class, () -> idempotencyService.execute(7L, "key-3", request(List.of(1L)), recorder -> {
+			throw new BusinessException("Show is not active");
+		}));
+
+		idempotencyService.execute(7L, "key-3", request(List.of(1L)), recorder -> book(bookings, recorder));
+		assertEquals(1, bookings.get());
+	}
+
+	@Test
+	void keyPendingOnAnotherNodeIsAwaitedInsteadOfBookedAgain() throws Exception {
+		AtomicInteger bookings = new AtomicInteger();
+		BookingRequest request = request(List.of(1L));
+		IdempotencyRecord pending = reserveElsewhere(7L, "key-4", request, LocalDateTime.now().plusMinutes(1));
+
+		// The other node's booking commits while this retry polls the row
+		BookingResponse original = book(new AtomicInteger(41), response -> {
+		});
+		CompletableFuture.runAsync(() -> {
+			sleep(200);
+			idempotencyRecordRepository.complete(pending.getIdempotencyRecordId(), json(original),
+					LocalDateTime.now().plusDays(1));
+		});
+		BookingResponse retry = idempotencyService.execute(7L, "key-4", request, recorder -> book(bookings, recorder));
+
+		assertEquals(0, bookings.get());
+		assertEquals(original.getBookingReference(), retry.getBookingReference());
+	}
+
+	@Test
+	void keyStillPendingOnAnotherNodeIsAConflict() {
+		AtomicInteger bookings = new AtomicInteger();
+		BookingRequest request = request(List.of(1L));
+		reserveElsewhere(7L, "key-5", request, LocalDateTime.now().plusMinutes(1));
+
+		assertThrows(IdempotencyKeyConflictException.class,
+				() -> idempotencyService.execute(7L, "key-5", request, recorder -> book(bookings, recorder)));
+		assertEquals(0, bookings.get());
+	}
+
+	@Test
+	void keyLeftPendingByAStoppedNodeIsTakenOver() {
+		AtomicInteger bookings = new AtomicInteger();
+		BookingRequest request = request(List.of(1L));
+		reserveElsewhere(7L, "key-6", request, LocalDateTime.now().minusSeconds(1));
+
+		idempotencyService.execute(7L, "key-6", request, recorder -> book(bookings, recorder));
+
+		assertEquals(1, bookings.get());
+		assertFalse(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(7L, "key-6").orElseThrow().isPending());
+	}
+
+	@Test
+	void failedRecordWriteFailsTheBooking() {
+		AtomicInteger bookings = new AtomicInteger();
+
+		// The reservation was taken over while the booking ran, so its transaction must not commit
+		assertThrows(IdempotencyKeyConflictException.class,
+				() -> idempotencyService.execute(7L, "key-7", request(List.of(1L)), recorder -> {
+					idempotencyRecordRepository.deleteAll();
+					return book(bookings, recorder);
+				}));
+	}
+
+	private IdempotencyRecord reserveElsewhere(Long userId, String key, BookingRequest request, LocalDateTime expiresAt) {
+		IdempotencyRecord record = new IdempotencyRecord();
+		record.setUserId(userId);
+		record.setIdempotencyKey(key);
+		record.setRequestHash(ReflectionTestUtils.invokeMethod(idempotencyService, "hash", request));
+		record.setResponseBody("");
+		record.setPending(true);
+		record.setCreatedAt(LocalDateTime.now());
+		record.setExpiresAt(expiresAt);
+		return idempotencyRecordRepository.save(record);
+	}
+
+	private String json(BookingResponse response) {
+		try {
+			return objectMapper.writeValueAsString(response);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private BookingResponse book(AtomicInteger bookings, Consumer<BookingResponse> recorder) {
+		BookingResponse response = new BookingResponse();
+		response.setBookingId((long) bookings.incrementAndGet());
+		response.setBookingReference("BKG" + bookings.get());
+		response.setSeatNumbers(List.of("A1"));
+		response.setFinalAmount(Money.ofMinor(25_050));
+		recorder.accept(response);
+		return response;
+	}
+
+	private BookingRequest request(List<Long> seatIds) {
+		BookingRequest request = new BookingRequest();
+		request.setShowId(1L);
+		request.setSeatIds(seatIds);
+		return request;
+	}
+}
@@ -0,0 +1,133 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.DiscountType;
+import com.sk.movie.entities.PromoCode;
+import com.sk.movie.repositories.PromoCodeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Changes are committed so the after-commit eviction runs; the promo rows are removed afterwards //
+
+@DataJpaTest
+@Import({PromoCatalogService.class, BookingMetrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PromoCatalogServiceTest {
+
+	@Autowired
+	private PromoCatalogService promoCatalogService;
+
+	@Autowired
+	private PromoCodeRepository promoCodeRepository;
+
+	@Autowired
+	private BookingMetrics bookingMetrics;
+
+	private long hitsBefore;
+	private long missesBefore;
+
+	@BeforeEach
+	void setUp() {
+		hitsBefore = bookingMetrics.snapshot().get("promo.catalog.hits");
+		missesBefore = bookingMetrics.snapshot().get("promo.catalog.misses");
+	}
+
+	@AfterEach
+	void tearDown() {
+		promoCodeRepository.deleteAll();
+		promoCatalogService.evictAll();
+		ReflectionTestUtils.setField(promoCatalogService, "maxEntries", 10000);
+		ReflectionTestUtils.setField(promoCatalogService, "maxNegativeEntries", 1000);
+	}
+
+	@Test
+	void repeatedLookupsAreHitsUntilTheCodeChanges() {
+		PromoCode promo = promoCodeRepository.save(promo("WEEKEND", LocalDateTime.now().plusDays(1)));
+		assertTrue(promoCatalogService.find("NOPE").isEmpty());
+		assertEquals(new BigDecimal("250.00"), promoCatalogService.find("WEEKEND").orElseThrow().getDiscountValue());
+		promoCatalogService.find("WEEKEND");
+		promoCatalogService.find("NOPE");
+		assertCounters(2, 2);
+
+		promo.setDiscountValue(new BigDecimal("300.00"));
+		promoCodeRepository.save(promo);
+		assertEquals(new BigDecimal("300.00"), promoCatalogService.find("WEEKEND").orElseThrow().getDiscountValue());
+		assertCounters(2, 3);
+
+		promo.setIsActive(false);
+		promoCodeRepository.save(promo);
+		assertTrue(promoCatalogService.find("WEEKEND").isEmpty());
+	}
+
+	@Test
+	void entryExpiresAtValidUntil() throws InterruptedException {
+		promoCodeRepository.save(promo("FLASH", LocalDateTime.now().plusNanos(300_000_000)));
+		assertTrue(promoCatalogService.find("FLASH").isPresent());
+		assertCounters(0, 1);
+
+		Thread.sleep(400);
+		promoCatalogService.sweep();
+		assertEquals(0, promoCatalogService.size());
+		// Still returned, so the booking reports it as expired, and cached briefly as such
+		assertTrue(promoCatalogService.find("FLASH").isPresent());
+		promoCatalogService.find("FLASH");
+		assertCounters(1, 2);
+	}
+
+	@Test
+	void badCodesAreCappedApartAndAFullCatalogStillCachesNewCodes() {
+		ReflectionTestUtils.setField(promoCatalogService, "maxEntries", 2);
+		ReflectionTestUtils.setField(promoCatalogService, "maxNegativeEntries", 2);
+		promoCodeRepository.save(promo("SOON", LocalDateTime.now().plusMinutes(1)));
+		promoCodeRepository.save(promo("LATER", LocalDateTime.now().plusDays(1)));
+		promoCodeRepository.save(promo("NEW", LocalDateTime.now().plusDays(1)));
+		promoCatalogService.find("SOON");
+		promoCatalogService.find("LATER");
+
+		// Bad codes only push out each other
+		for (int i = 0; i < 5; i++) {
+			promoCatalogService.find("BAD" + i);
+		}
+		assertEquals(4, promoCatalogService.size());
+		promoCatalogService.find("SOON");
+		promoCatalogService.find("LATER");
+		promoCatalogService.find("BAD4");
+		assertCounters(3, 7);
+
+		// A new code takes the place of the one closest to expiry
+		promoCatalogService.find("NEW");
+		promoCatalogService.find("NEW");
+		promoCatalogService.find("LATER");
+		assertCounters(5, 8);
+		promoCatalogService.find("SOON");
+		assertCounters(5, 9);
+	}
+
+	private void assertCounters(long hits, long misses) {
+		Map<String, Long> counters = bookingMetrics.snapshot();
+		assertEquals(hits, counters.get("promo.catalog.hits") - hitsBefore);
+		assertEquals(misses, counters.get("promo.catalog.misses") - missesBefore);
+	}
+
+	private PromoCode promo(String code, LocalDateTime validUntil) {
+		PromoCode promo = new PromoCode();
+		promo.setCode(code);
+		promo.setDiscountType(DiscountType.FLAT_DISCOUNT);
+		promo.setDiscountValue(new BigDecimal("250.00"));
+		promo.setValidFrom(LocalDateTime.now().minusDays(1));
+		promo.setValidUntil(validUntil);
+		return promo;
+	}
+}
@@ -0,0 +1,152 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.DiscountType;
+import com.sk.movie.entities.PromoCode;
+import com.sk.movie.exceptions.InvalidPromoCodeException;
+import com.sk.movie.repositories.PromoCodeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Leases commit in their own transactions, so the promo rows are committed too and removed afterwards //
+
+@DataJpaTest(properties = "promo.redemption.lease-size=8")
+@Import({PromoRedemptionService.class, BookingMetrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PromoRedemptionServiceTest {
+
+	@Autowired
+	private PromoRedemptionService promoRedemptionService;
+
+	@Autowired
+	private PromoCodeRepository promoCodeRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void tearDown() {
+		promoCodeRepository.deleteAll();
+	}
+
+	@Test
+	void concurrentRedemptionsNeverPassMaxUses() throws Exception {
+		PromoCode promo = promo("FLASH", 30);
+
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		AtomicInteger redeemed = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			futures.add(executor.submit(() -> {
+				try {
+					promoRedemptionService.redeem(promo);
+					redeemed.incrementAndGet();
+				} catch (InvalidPromoCodeException e) {
+					rejected.incrementAndGet();
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		assertEquals(30, redeemed.get());
+		assertEquals(70, rejected.get());
+		assertEquals(0, promoRedemptionService.getLeasedUses(promo.getPromoCodeId()));
+		assertEquals(30, promoCodeRepository.findById(promo.getPromoCodeId()).orElseThrow().getCurrentUses());
+	}
+
+	@Test
+	void rolledBackBookingGivesItsUseBack() {
+		PromoCode promo = promo("ONCE", 1);
+
+		promoRedemptionService.withReservedUses(List.of(promo), () ->
+				new TransactionTemplate(transactionManager).execute(status -> {
+					promoRedemptionService.redeem(promo);
+					status.setRollbackOnly();
+					return null;
+				}));
+		promoRedemptionService.redeem(promo);
+		assertThrows(InvalidPromoCodeException.class, () -> promoRedemptionService.redeem(promo));
+	}
+
+	@Test
+	void useGivenBackInsideACommittedTransactionIsNotConsumed() {
+		PromoCode promo = promo("TWICE", 2);
+		PromoCode unlimited = promo("ALWAYS", null);
+
+		// A queued batch commits, but one of its bookings failed after redeeming
+		promoRedemptionService.withReservedUses(List.of(promo, promo, unlimited), () ->
+				new TransactionTemplate(transactionManager).execute(status -> {
+					promoRedemptionService.redeem(promo);
+					promoRedemptionService.redeem(promo).giveBack();
+					promoRedemptionService.redeem(unlimited).giveBack();
+					return null;
+				}));
+		promoRedemptionService.redeem(promo);
+		assertThrows(InvalidPromoCodeException.class, () -> promoRedemptionService.redeem(promo));
+
+		promoRedemptionService.flush();
+		assertEquals(0, promoCodeRepository.findById(unlimited.getPromoCodeId()).orElseThrow().getCurrentUses());
+	}
+
+	@Test
+	void noBlockIsLeasedInsideATransaction() {
+		PromoCode promo = promo("FLASH", 100);
+
+		// Leasing would wait for a second connection while the booking holds one
+		assertThrows(InvalidPromoCodeException.class, () ->
+				new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+						promoRedemptionService.redeem(promo)));
+		assertEquals(0, promoCodeRepository.findById(promo.getPromoCodeId()).orElseThrow().getCurrentUses());
+
+		// A use reserved beforehand is handed out, and the uses not redeemed stay with this node
+		promoRedemptionService.withReservedUses(List.of(promo, promo), () ->
+				new TransactionTemplate(transactionManager).execute(status -> promoRedemptionService.redeem(promo)));
+		assertEquals(8, promoCodeRepository.findById(promo.getPromoCodeId()).orElseThrow().getCurrentUses());
+		assertEquals(7, promoRedemptionService.getLeasedUses(promo.getPromoCodeId()));
+	}
+
+	@Test
+	void unusedLeaseIsReturnedToTheRow() {
+		PromoCode promo = promo("WEEKEND", 100);
+
+		promoRedemptionService.redeem(promo);
+		assertEquals(7, promoRedemptionService.getLeasedUses(promo.getPromoCodeId()));
+		assertEquals(8, promoCodeRepository.findById(promo.getPromoCodeId()).orElseThrow().getCurrentUses());
+
+		promoRedemptionService.returnAll();
+		assertEquals(0, promoRedemptionService.getLeasedUses(promo.getPromoCodeId()));
+		assertEquals(1, promoCodeRepository.findById(promo.getPromoCodeId()).orElseThrow().getCurrentUses());
+	}
+
+	private PromoCode promo(String code, Integer maxUses) {
+		PromoCode promo = new PromoCode();
+		promo.setCode(code);
+		promo.setDiscountType(DiscountType.FLAT_DISCOUNT);
+		promo.setDiscountValue(new BigDecimal("250.00"));
+		promo.setValidFrom(LocalDateTime.now().minusDays(1));
+		promo.setValidUntil(LocalDateTime.now().plusDays(1));
+		promo.setMaxUses(maxUses);
+		return promoCodeRepository.save(promo);
+	}
+}
@@ -0,0 +1,94 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.DiscountType;
+import com.sk.movie.entities.PromoCode;
+import com.sk.movie.exceptions.InvalidPromoCodeException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromoRuleTest {
+
+	// A Saturday matinee
+	private static final LocalDateTime SHOW_TIME = LocalDateTime.of(2030, 6, 1, 14, 30);
+
+	@Test
+	void conditionsAndDiscountsAreEvaluated() {
+		PromoRule matinee = rule("MATINEE", "when hour in 10..16 and genre in drama, \"Comedy\" then percent 20 max 300");
+		assertEquals(24_000, price(matinee, 3, "Comedy"));   // 20% of 1200
+		assertEquals(30_000, price(matinee, 8, "Drama"));    // capped at 300
+		assertThrows(InvalidPromoCodeException.class, () -> price(matinee, 3, "Action"));
+
+		PromoRule tiered = rule("GROUP", "when seats >= 4 then tiered(4: free-seats 1, 8: free-seats 2)");
+		assertEquals(40_000, price(tiered, 5, null));
+		assertEquals(80_000, price(tiered, 8, null));
+
+		PromoRule lateNight = rule("LATE", "when hour in 22..2 or not day in sat, sun then flat 100");
+		assertThrows(InvalidPromoCodeException.class, () -> price(lateNight, 2, null));
+
+		PromoRule legacy = PromoRule.compile(promo("FREE", DiscountType.FREE_SEAT, null));
+		assertEquals(40_000, price(legacy, 2, null));
+	}
+
+	@Test
+	void bestExclusivePromotionWinsAndStackableOnesAreAdded() {
+		PromoRule small = rule("SMALL", "then flat 50");
+		PromoRule large = rule("LARGE", "when total >= 1000 then percent 10");
+		PromoCode loyaltyCode = promo("LOYAL", DiscountType.RULE, "when bookings > 10 then per-seat 20");
+		loyaltyCode.setStackable(true);
+		PromoRule loyalty = PromoRule.compile(loyaltyCode);
+		PromoRuleSet rules = new PromoRuleSet(List.of(small, large, loyalty));
+
+		PricingContext ctx = new PricingContext().booking(3, 40_000, SHOW_TIME, null).user(12, 0);
+		rules.price(ctx, null);
+		assertEquals(12_000 + 6_000, ctx.getDiscount());
+		assertSame(large, ctx.getPrimary());
+		assertEquals(2, ctx.getAppliedCount());
+
+		// Never more than the booking itself
+		PromoRule huge = rule("HUGE", "then flat 5000");
+		ctx = new PricingContext().booking(1, 40_000, SHOW_TIME, null);
+		new PromoRuleSet(List.of(huge)).price(ctx, null);
+		assertEquals(40_000, ctx.getDiscount());
+	}
+
+	@Test
+	void invalidRulesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> rule("BAD", "when seats >> 2 then flat 10"));
+		assertThrows(IllegalArgumentException.class, () -> rule("BAD", "when weather = 1 then flat 10"));
+		assertThrows(IllegalArgumentException.class, () -> rule("BAD", "then percent 120"));
+		assertThrows(IllegalArgumentException.class, () -> rule("BAD", "then tiered(4: flat 1, 2: flat 2)"));
+		assertThrows(IllegalArgumentException.class, () -> rule("BAD", "then flat 10 extra"));
+	}
+
+	// Price of one rule on its own, failing like an entered code when its conditions are not met //
+
+	private long price(PromoRule rule, int seats, String genre) {
+		PricingContext ctx = new PricingContext().booking(seats, 40_000, SHOW_TIME, genre);
+		if (!rule.applies(ctx)) {
+			throw new InvalidPromoCodeException(rule.getPromoCode().getCode());
+		}
+		PromoRuleSet.EMPTY.price(ctx, rule);
+		return ctx.getDiscount();
+	}
+
+	private PromoRule rule(String code, String rule) {
+		return PromoRule.compile(promo(code, DiscountType.RULE, rule));
+	}
+
+	private PromoCode promo(String code, DiscountType type, String rule) {
+		PromoCode promo = new PromoCode();
+		promo.setPromoCodeId((long) code.hashCode());
+		promo.setCode(code);
+		promo.setDiscountType(type);
+		promo.setDiscountValue(BigDecimal.ZERO);
+		promo.setRule(rule);
+		promo.setValidFrom(LocalDateTime.now().minusDays(1));
+		promo.setValidUntil(LocalDateTime.now().plusDays(1));
+		return promo;
+	}
+}
@@ -0,0 +1,318 @@
+package com.sk.movie.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sk.movie.dto.SeatChangeResponse;
+import com.sk.movie.dto.SeatEventResponse;
+import com.sk.movie.dto.SeatMapResponse;
+import com.sk.movie.exceptions.AdmissionRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Publisher wired to stub services; each subscriber writes to a StubEmitter that records its events //
+// and can be paused mid-write, standing in for a client that stops reading //
+
+class SeatEventPublisherTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private Runnable whileSnapshotIsRead = () -> {
+	};
+	private StubEmitter nextEmitter;
+
+	private final SeatEventPublisher publisher = new SeatEventPublisher() {
+		@Override
+		SseEmitter newEmitter() {
+			return nextEmitter;
+		}
+	};
+
+	private final SeatMapService seatMapService = new SeatMapService() {
+		@Override
+		public SeatMapResponse getSeatMap(Long showId, String clientEpoch, Long clientVersion, Long clientPriceVersion) {
+			whileSnapshotIsRead.run();
+			SeatMapResponse response = new SeatMapResponse();
+			response.setShowId(showId);
+			return response;
+		}
+	};
+
+	private final SeatInventoryService seatInventoryService = new SeatInventoryService() {
+		@Override
+		public Long getVersion(Long showId) {
+			return 1L;
+		}
+	};
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(publisher, "seatMapService", seatMapService);
+		ReflectionTestUtils.setField(publisher, "seatInventoryService", seatInventoryService);
+		ReflectionTestUtils.setField(publisher, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(publisher, "maxSubscribers", 10);
+		ReflectionTestUtils.setField(publisher, "subscriptionTimeoutMs", 60_000L);
+		ReflectionTestUtils.setField(publisher, "writeTimeoutMs", 5_000L);
+		ReflectionTestUtils.setField(publisher, "maxBacklogSeats", 500);
+		startSenders(2, 100);
+	}
+
+	@AfterEach
+	void tearDown() {
+		publisher.shutdownSenders();
+	}
+
+	@Test
+	void changesMadeWhileTheSnapshotIsReadFollowIt() throws Exception {
+		whileSnapshotIsRead = () -> publisher.publish(1L, List.of(5L), SeatEventType.BOOKED);
+		StubEmitter emitter = subscribe(1L, new StubEmitter());
+
+		publisher.flush();
+
+		assertEquals("snapshot", emitter.next().name());
+		assertEquals(Map.of(5L, "BOOKED"), changes(emitter.next()));
+	}
+
+	@Test
+	void changesQueuedBehindASlowWriteGoOutAsOneCoalescedEvent() throws Exception {
+		StubEmitter emitter = new StubEmitter();
+		emitter.pause();
+		subscribe(1L, emitter);
+		emitter.awaitWrite();
+
+		publisher.publish(1L, List.of(1L), SeatEventType.BOOKED);
+		publisher.flush();
+		publisher.publish(1L, List.of(1L), SeatEventType.RELEASED);
+		publisher.publish(1L, List.of(2L), SeatEventType.HELD);
+		publisher.flush();
+		emitter.resume();
+
+		assertEquals("snapshot", emitter.next().name());
+		assertEquals(Map.of(1L, "RELEASED", 2L, "HELD"), changes(emitter.next()));
+		assertNull(emitter.events.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void writeWaitsInTheQueueWhileEverySenderIsBusy() throws Exception {
+		publisher.shutdownSenders();
+		startSenders(1, 10);
+		StubEmitter waiting = subscribe(2L, new StubEmitter());
+		assertEquals("snapshot", waiting.next().name());
+		letSenderGoBackToThePool();
+
+		StubEmitter stuck = new StubEmitter();
+		stuck.pause();
+		subscribe(1L, stuck);
+		stuck.awaitWrite();
+
+		publisher.publish(2L, List.of(7L), SeatEventType.BOOKED);
+		publisher.flush();
+		assertNull(waiting.events.poll(100, TimeUnit.MILLISECONDS));
+
+		stuck.resume();
+		assertEquals(Map.of(7L, "BOOKED"), changes(waiting.next()));
+	}
+
+	@Test
+	void writeThatCannotStartKeepsItsChangesForTheNextRound() throws Exception {
+		publisher.shutdownSenders();
+		startSenders(1, 0);
+		StubEmitter idle = subscribe(2L, new StubEmitter());
+		assertEquals("snapshot", idle.next().name());
+		letSenderGoBackToThePool();
+
+		// The only sender thread is stuck on this write
+		StubEmitter stuck = new StubEmitter();
+		stuck.pause();
+		subscribe(1L, stuck);
+		stuck.awaitWrite();
+
+		publisher.publish(2L, List.of(7L), SeatEventType.BOOKED);
+		publisher.flush();
+		assertNull(idle.events.poll(100, TimeUnit.MILLISECONDS));
+
+		// Nor can a new subscriber's snapshot go out, so it is turned away
+		nextEmitter = new StubEmitter();
+		assertThrows(AdmissionRejectedException.class, () -> publisher.subscribe(3L));
+		assertEquals(2, publisher.getSubscriberCount());
+
+		// Once a thread is free, the kept change goes out merged with the next one
+		stuck.resume();
+		assertEquals("snapshot", stuck.next().name());
+		letSenderGoBackToThePool();
+		publisher.publish(2L, List.of(8L), SeatEventType.HELD);
+		publisher.flush();
+		assertEquals(Map.of(7L, "BOOKED", 8L, "HELD"), changes(idle.next()));
+	}
+
+	@Test
+	void stalledSubscriberIsDroppedAndClosedOnceItsWriteReturns() throws Exception {
+		ReflectionTestUtils.setField(publisher, "writeTimeoutMs", 50L);
+		StubEmitter stuck = new StubEmitter();
+		stuck.pause();
+		subscribe(1L, stuck);
+		stuck.awaitWrite();
+		StubEmitter healthy = subscribe(1L, new StubEmitter());
+		assertEquals("snapshot", healthy.next().name());
+		letSenderGoBackToThePool();
+
+		Thread.sleep(100);
+		publisher.dropStalledSubscribers();
+
+		assertEquals(1, publisher.getSubscriberCount());
+		// Closing would wait for the stuck write, so it is left to the writer
+		assertEquals(1, stuck.completed.getCount());
+		publisher.publish(1L, List.of(3L), SeatEventType.BOOKED);
+		publisher.flush();
+		stuck.resume();
+
+		assertTrue(stuck.completed.await(5, TimeUnit.SECONDS));
+		assertEquals("snapshot", stuck.next().name());
+		assertNull(stuck.events.poll(100, TimeUnit.MILLISECONDS));
+		assertEquals(Map.of(3L, "BOOKED"), changes(healthy.next()));
+	}
+
+	@Test
+	void subscriberWhoseBacklogOutgrowsTheLimitIsDropped() throws Exception {
+		publisher.shutdownSenders();
+		startSenders(1, 0);
+		ReflectionTestUtils.setField(publisher, "maxBacklogSeats", 2);
+		StubEmitter idle = subscribe(2L, new StubEmitter());
+		assertEquals("snapshot", idle.next().name());
+		letSenderGoBackToThePool();
+		StubEmitter stuck = new StubEmitter();
+		stuck.pause();
+		subscribe(1L, stuck);
+		stuck.awaitWrite();
+
+		// No sender can take the write, so the changes pile up and the idle stream is closed at once
+		publisher.publish(2L, List.of(1L, 2L, 3L), SeatEventType.BOOKED);
+		publisher.flush();
+		assertTrue(idle.completed.await(5, TimeUnit.SECONDS));
+		assertEquals(1, publisher.getSubscriberCount());
+
+		// Changes behind a stuck write overflow too; that stream is closed once its write returns
+		publisher.publish(1L, List.of(4L, 5L, 6L), SeatEventType.HELD);
+		publisher.flush();
+		assertEquals(0, publisher.getSubscriberCount());
+		assertEquals(1, stuck.completed.getCount());
+		stuck.resume();
+		assertTrue(stuck.completed.await(5, TimeUnit.SECONDS));
+		assertEquals("snapshot", stuck.next().name());
+		assertNull(stuck.events.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void subscribersOverTheCapAreTurnedAway() throws Exception {
+		ReflectionTestUtils.setField(publisher, "maxSubscribers", 1);
+		StubEmitter first = subscribe(1L, new StubEmitter());
+		assertEquals("snapshot", first.next().name());
+
+		nextEmitter = new StubEmitter();
+		AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class,
+				() -> publisher.subscribe(2L));
+		assertEquals(30, rejected.getRetryAfterSeconds());
+		assertEquals(1, publisher.getSubscriberCount());
+	}
+
+	private StubEmitter subscribe(Long showId, StubEmitter emitter) {
+		nextEmitter = emitter;
+		assertSame(emitter, publisher.subscribe(showId));
+		return emitter;
+	}
+
+	private void startSenders(int threads, int queueCapacity) {
+		ReflectionTestUtils.setField(publisher, "senderThreads", threads);
+		ReflectionTestUtils.setField(publisher, "sendQueueCapacity", queueCapacity);
+		publisher.initSenders();
+	}
+
+	// A finished write hands its thread back to the pool a moment after the event is recorded //
+
+	private void letSenderGoBackToThePool() throws InterruptedException {
+		Thread.sleep(50);
+	}
+
+	private Map<Long, String> changes(Event event) throws Exception {
+		assertEquals("seats", event.name());
+		SeatEventResponse response = objectMapper.readValue(event.data(), SeatEventResponse.class);
+		Map<Long, String> changes = new LinkedHashMap<>();
+		for (SeatChangeResponse change : response.getChanges()) {
+			changes.put(change.getSeatId(), change.getStatus());
+		}
+		return changes;
+	}
+
+	private record Event(String name, String data) {
+	}
+
+	// Records each event sent; while paused, a write blocks until resume //
+
+	private static class StubEmitter extends SseEmitter {
+		private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+		private final CountDownLatch completed = new CountDownLatch(1);
+		private final CountDownLatch writing = new CountDownLatch(1);
+		private volatile CountDownLatch paused;
+
+		@Override
+		public void send(SseEventBuilder builder) {
+			writing.countDown();
+			CountDownLatch gate = paused;
+			if (gate != null) {
+				try {
+					gate.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			StringBuilder text = new StringBuilder();
+			builder.build().forEach(part -> text.append(part.getData()));
+			String name = null;
+			String data = null;
+			for (String line : text.toString().split("\n")) {
+				if (line.startsWith("event:")) {
+					name = line.substring("event:".length());
+				} else if (line.startsWith("data:")) {
+					data = line.substring("data:".length());
+				}
+			}
+			if (name != null) {
+				events.add(new Event(name, data));
+			}
+		}
+
+		@Override
+		public void complete() {
+			completed.countDown();
+		}
+
+		void pause() {
+			paused = new CountDownLatch(1);
+		}
+
+		void resume() {
+			paused.countDown();
+		}
+
+		void awaitWrite() throws InterruptedException {
+			assertTrue(writing.await(5, TimeUnit.SECONDS));
+		}
+
+		Event next() throws InterruptedException {
+			Event event = events.poll(5, TimeUnit.SECONDS);
+			assertNotNull(event, "no event was sent");
+			return event;
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.BookingResponse;
+import com.sk.movie.dto.HoldRequest;
+import com.sk.movie.dto.HoldResponse;
+import com.sk.movie.entities.*;
+import com.sk.movie.exceptions.BusinessException;
+import com.sk.movie.exceptions.HoldLimitExceededException;
+import com.sk.movie.exceptions.InvalidPromoCodeException;
+import com.sk.movie.exceptions.ResourceNotFoundException;
+import com.sk.movie.exceptions.SeatAlreadyBookedException;
+import com.sk.movie.repositories.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Holds through the full booking path; confirmed holds commit, so the rows are removed afterwards //
+// One screen row of four seats, two days ahead, and two users //
+
+@DataJpaTest(properties = "booking.concurrency.mode=SERIALIZABLE")
+@Import({SeatHoldService.class, BookingService.class, PromotionService.class, UserPromoStatsService.class,
+		PromoRedemptionService.class, PromoCatalogService.class, DiscountRuleEngine.class, DemandPricingService.class,
+		SeatInventoryService.class, SeatMapService.class, SeatEventPublisher.class, ShowLockManager.class,
+		ContentionMonitor.class, ConnectionAdmissionLimiter.class, BookingAdmissionService.class,
+		IdempotencyService.class, BookingMetrics.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SeatHoldServiceTest {
+
+	@Autowired
+	private SeatHoldService seatHoldService;
+
+	@Autowired
+	private SeatInventoryService seatInventoryService;
+
+	@Autowired
+	private MovieRepository movieRepository;
+
+	@Autowired
+	private ScreenRepository screenRepository;
+
+	@Autowired
+	private SeatRepository seatRepository;
+
+	@Autowired
+	private ShowRepository showRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Show show;
+	private List<Seat> seats;
+	private User user;
+	private User otherUser;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(seatHoldService, "holdTtlSeconds", 600L);
+		ReflectionTestUtils.setField(seatHoldService, "maxHoldsPerUser", 5);
+
+		Movie movie = new Movie();
+		movie.setTitle("Test Movie");
+		movie.setDurationMinutes(120);
+		movieRepository.save(movie);
+
+		Screen screen = new Screen();
+		screen.setName("Screen 1");
+		screen.setRowCount(1);
+		screen.setSeatsPerRow(4);
+		screenRepository.save(screen);
+
+		seats = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Seat seat = new Seat();
+			seat.setScreen(screen);
+			seat.setRowName("A");
+			seat.setSeatNumber(String.valueOf(i + 1));
+			seat.setRowIndex(0);
+			seat.setSeatIndex(i);
+			seats.add(seatRepository.save(seat));
+		}
+
+		show = new Show();
+		show.setMovie(movie);
+		show.setScreen(screen);
+		show.setShowTime(LocalDateTime.now().plusDays(2));
+		show.setScreenName(screen.getName());
+		show.setTotalSeats(4);
+		show.setPricePerSeat(Money.of(new BigDecimal("200.00")));
+		showRepository.save(show);
+
+		user = newUser("hold-user");
+		otherUser = newUser("other-user");
+	}
+
+	@AfterEach
+	void tearDown() {
+		ReflectionTestUtils.setField(seatInventoryService, "enabled", true);
+		JdbcTestUtils.deleteFromTables(jdbcTemplate, "booked_seats", "booking_layout_seats", "bookings",
+				"user_promo_stats", "shows", "screen_seats", "screens", "movies", "users");
+	}
+
+	@Test
+	void heldSeatsAreBookedOnlyByTheHolder() {
+		HoldResponse hold = seatHoldService.createHold(request(0, 1), user.getUserId());
+		assertThrows(SeatAlreadyBookedException.class,
+				() -> seatHoldService.createHold(request(1, 2), otherUser.getUserId()));
+
+		BookingResponse booking = seatHoldService.confirmHold(hold.getHoldId(), null, null, user.getUserId());
+		assertEquals(2, booking.getSeatNumbers().size());
+		assertTrue(booking.getSeatNumbers().containsAll(List.of("A1", "A2")));
+
+		// The hold is used up, and the seats stay taken
+		assertThrows(ResourceNotFoundException.class,
+				() -> seatHoldService.confirmHold(hold.getHoldId(), null, null, user.getUserId()));
+		assertThrows(SeatAlreadyBookedException.class,
+				() -> seatHoldService.createHold(request(1), otherUser.getUserId()));
+	}
+
+	@Test
+	void sweepReleasesExpiredHolds() {
+		ReflectionTestUtils.setField(seatHoldService, "holdTtlSeconds", 0L);
+		HoldResponse hold = seatHoldService.createHold(request(0), user.getUserId());
+
+		seatHoldService.releaseExpiredHolds();
+
+		assertThrows(ResourceNotFoundException.class,
+				() -> seatHoldService.confirmHold(hold.getHoldId(), null, null, user.getUserId()));
+		assertNotNull(seatHoldService.createHold(request(0), otherUser.getUserId()));
+	}
+
+	@Test
+	void holdIsKeptAfterARetryableFailureAndStillExpires() throws Exception {
+		ReflectionTestUtils.setField(seatHoldService, "holdTtlSeconds", 1L);
+		HoldResponse hold = seatHoldService.createHold(request(0), user.getUserId());
+		// As if the sweep had polled the hold while it was being confirmed
+		((DelayQueue<?>) ReflectionTestUtils.getField(seatHoldService, "expiryQueue")).clear();
+
+		assertThrows(InvalidPromoCodeException.class,
+				() -> seatHoldService.confirmHold(hold.getHoldId(), "NO-SUCH-CODE", null, user.getUserId()));
+		assertThrows(SeatAlreadyBookedException.class,
+				() -> seatHoldService.createHold(request(0), otherUser.getUserId()));
+
+		Thread.sleep(1100);
+		seatHoldService.releaseExpiredHolds();
+		assertNotNull(seatHoldService.createHold(request(0), otherUser.getUserId()));
+	}
+
+	@Test
+	void holdsBeyondThePerUserLimitAreRefused() {
+		ReflectionTestUtils.setField(seatHoldService, "maxHoldsPerUser", 2);
+		HoldResponse first = seatHoldService.createHold(request(0), user.getUserId());
+		seatHoldService.createHold(request(1), user.getUserId());
+
+		assertThrows(HoldLimitExceededException.class, () -> seatHoldService.createHold(request(2), user.getUserId()));
+		// The refused hold claimed nothing, and other users are not affected
+		assertNotNull(seatHoldService.createHold(request(2), otherUser.getUserId()));
+
+		// A released hold frees its place
+		seatHoldService.releaseHold(first.getHoldId(), user.getUserId());
+		assertNotNull(seatHoldService.createHold(request(3), user.getUserId()));
+	}
+
+	@Test
+	void failedHoldsAndConfirmedOnesDoNotCountTowardsTheLimit() {
+		ReflectionTestUtils.setField(seatHoldService, "maxHoldsPerUser", 1);
+		HoldResponse taken = seatHoldService.createHold(request(0), otherUser.getUserId());
+		assertThrows(SeatAlreadyBookedException.class, () -> seatHoldService.createHold(request(0), user.getUserId()));
+
+		HoldResponse hold = seatHoldService.createHold(request(1), user.getUserId());
+		// A hold kept after a failed confirm still counts
+		assertThrows(InvalidPromoCodeException.class,
+				() -> seatHoldService.confirmHold(hold.getHoldId(), "NO-SUCH-CODE", null, user.getUserId()));
+		assertThrows(HoldLimitExceededException.class, () -> seatHoldService.createHold(request(2), user.getUserId()));
+
+		seatHoldService.confirmHold(hold.getHoldId(), null, null, user.getUserId());
+		assertNotNull(seatHoldService.createHold(request(2), user.getUserId()));
+		seatHoldService.releaseHold(taken.getHoldId(), otherUser.getUserId());
+	}
+
+	@Test
+	void holdsAreRefusedWithoutTheInventory() {
+		ReflectionTestUtils.setField(seatInventoryService, "enabled", false);
+
+		assertThrows(BusinessException.class, () -> seatHoldService.createHold(request(0), user.getUserId()));
+	}
+
+	private HoldRequest request(int... seatIndexes) {
+		HoldRequest request = new HoldRequest();
+		request.setShowId(show.getShowId());
+		List<Long> seatIds = new ArrayList<>();
+		for (int seat : seatIndexes) {
+			seatIds.add(seats.get(seat).getSeatId());
+		}
+		request.setSeatIds(seatIds);
+		return request;
+	}
+
+	private User newUser(String username) {
+		User newUser = new User();
+		newUser.setUsername(username);
+		newUser.setEmail(username + "@example.com");
+		newUser.setPasswordHash("hash");
+		return userRepository.save(newUser);
+	}
+}
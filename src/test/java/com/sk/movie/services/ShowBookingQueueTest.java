@@ -0,0 +1,157 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.BookingRequest;
+import com.sk.movie.dto.BookingResponse;
+import com.sk.movie.exceptions.AdmissionRejectedException;
+import com.sk.movie.exceptions.SeatAlreadyBookedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShowBookingQueueTest {
+
+	private final Set<Long> bookedSeats = new HashSet<>();
+	private final AtomicInteger batches = new AtomicInteger();
+	private final AtomicInteger activeWriters = new AtomicInteger();
+	private final AtomicInteger maxActiveWriters = new AtomicInteger();
+
+	// Fake batch writer: books free seats, rejects taken ones per request //
+	private final ShowBookingQueue queue = new ShowBookingQueue((showId, batch) -> {
+		maxActiveWriters.accumulateAndGet(activeWriters.incrementAndGet(), Math::max);
+		batches.incrementAndGet();
+		for (ShowBookingQueue.PendingBooking pending : batch) {
+			Long seatId = pending.getRequest().getSeatIds().get(0);
+			if (bookedSeats.add(seatId)) {
+				BookingResponse response = new BookingResponse();
+				response.setSeatNumbers(List.of(String.valueOf(seatId)));
+				pending.succeed(response);
+			} else {
+				pending.fail(new SeatAlreadyBookedException("taken"));
+			}
+		}
+		activeWriters.decrementAndGet();
+	}, 4, 50, 1000, 5000);
+
+	@AfterEach
+	void tearDown() {
+		queue.shutdown();
+	}
+
+	@Test
+	void singleWriterPerShowAndEachCallerGetsOwnOutcome() throws Exception {
+		ExecutorService callers = Executors.newFixedThreadPool(32);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			long seatId = i % 100; // every seat requested twice
+			results.add(callers.submit(() -> {
+				BookingRequest request = new BookingRequest();
+				request.setShowId(1L);
+				request.setSeatIds(List.of(seatId));
+				try {
+					return queue.submit(request, 1L).getSeatNumbers().equals(List.of(String.valueOf(seatId)));
+				} catch (SeatAlreadyBookedException e) {
+					return false;
+				}
+			}));
+		}
+		int succeeded = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get()) {
+				succeeded++;
+			}
+		}
+		callers.shutdown();
+
+		assertEquals(100, succeeded);
+		assertEquals(1, maxActiveWriters.get());
+		assertTrue(batches.get() <= 200);
+	}
+
+	@Test
+	void writerOfAShowIsDroppedOnceItsQueueIsDrained() throws Exception {
+		for (long showId = 1; showId <= 20; showId++) {
+			BookingRequest request = new BookingRequest();
+			request.setShowId(showId);
+			request.setSeatIds(List.of(showId));
+			assertNotNull(queue.submit(request, 1L));
+		}
+
+		// The writer removes itself just after completing the last request
+		long deadline = System.currentTimeMillis() + 5000;
+		while (queue.getActiveShows() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, queue.getActiveShows());
+
+		BookingRequest again = new BookingRequest();
+		again.setShowId(1L);
+		again.setSeatIds(List.of(100L));
+		assertNotNull(queue.submit(again, 1L));
+	}
+
+	@Test
+	void requestNotPickedUpInTimeIsAnOverloadRejection() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		ShowBookingQueue slowQueue = new ShowBookingQueue((showId, batch) -> {
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			batch.forEach(pending -> pending.succeed(new BookingResponse()));
+		}, 1, 1, 10, 200);
+		try {
+			BookingRequest request = new BookingRequest();
+			request.setShowId(1L);
+			request.setSeatIds(List.of(1L));
+			CompletableFuture<BookingResponse> first = CompletableFuture.supplyAsync(() -> slowQueue.submit(request, 1L));
+
+			// The writer is busy with the first request, so the second one is withdrawn at the timeout
+			Thread.sleep(50);
+			AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class,
+					() -> slowQueue.submit(request, 2L));
+			assertFalse(rejected.isQueueFull());
+			assertEquals(1, rejected.getRetryAfterSeconds());
+
+			release.countDown();
+			assertNotNull(first.get(10, TimeUnit.SECONDS));
+		} finally {
+			slowQueue.shutdown();
+		}
+	}
+
+	@Test
+	void failureOfARequestBeingWrittenAtTheTimeoutKeepsItsType() {
+		ShowBookingQueue slowQueue = new ShowBookingQueue((showId, batch) -> {
+			try {
+				Thread.sleep(400);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			batch.forEach(pending -> pending.fail(new SeatAlreadyBookedException("taken")));
+		}, 1, 1, 10, 200);
+		try {
+			BookingRequest request = new BookingRequest();
+			request.setShowId(1L);
+			request.setSeatIds(List.of(1L));
+
+			// Picked up before the timeout, failed after it
+			assertThrows(SeatAlreadyBookedException.class, () -> slowQueue.submit(request, 1L));
+		} finally {
+			slowQueue.shutdown();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.sk.movie.services;
+
+import com.sk.movie.exceptions.AdmissionRejectedException;
+import com.sk.movie.exceptions.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShowLockManagerTest {
+
+	private ShowLockManager lockManager;
+
+	@BeforeEach
+	void setUp() {
+		lockManager = new ShowLockManager();
+		// Few stripes, so most shows share one
+		ReflectionTestUtils.setField(lockManager, "stripeCount", 4);
+		ReflectionTestUtils.setField(lockManager, "lockTimeoutMs", 2000L);
+		ReflectionTestUtils.invokeMethod(lockManager, "initStripes");
+	}
+
+	@Test
+	void groupsListingShowsInOppositeOrderDoNotDeadlock() throws Exception {
+		List<Long> ascending = LongStream.rangeClosed(1, 20).boxed().toList();
+		List<Long> descending = new ArrayList<>(ascending);
+		Collections.reverse(descending);
+
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int i = 0; i < 400; i++) {
+			List<Long> showIds = i % 2 == 0 ? ascending : descending;
+			results.add(callers.submit(() -> lockManager.withShowLocks(showIds, () -> Boolean.TRUE)));
+		}
+		for (Future<Boolean> result : results) {
+			assertTrue(result.get(10, TimeUnit.SECONDS));
+		}
+		callers.shutdown();
+	}
+
+	@Test
+	void locksAreReleasedWhenTheActionFails() {
+		assertThrows(BusinessException.class, () -> lockManager.withShowLocks(List.of(1L, 2L, 3L), () -> {
+			throw new BusinessException("Show is not active");
+		}));
+
+		// Another thread can take the same shows straight away
+		assertTrue(CompletableFuture.supplyAsync(() -> lockManager.withShowLock(2L, () -> Boolean.TRUE)).join());
+	}
+
+	@Test
+	void lockWaitTimeoutIsAnOverloadRejection() throws Exception {
+		ReflectionTestUtils.setField(lockManager, "lockTimeoutMs", 100L);
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Boolean> holder = CompletableFuture.supplyAsync(() -> lockManager.withShowLock(2L, () -> {
+			locked.countDown();
+			try {
+				return release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}));
+		assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+		AdmissionRejectedException single = assertThrows(AdmissionRejectedException.class,
+				() -> lockManager.withShowLock(2L, () -> Boolean.TRUE));
+		assertFalse(single.isQueueFull());
+		assertEquals(1, single.getRetryAfterSeconds());
+		assertThrows(AdmissionRejectedException.class,
+				() -> lockManager.withShowLocks(List.of(1L, 2L), () -> Boolean.TRUE));
+
+		release.countDown();
+		assertTrue(holder.get(10, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,230 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.Seat;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShowSeatMapTest {
+
+	private ShowSeatMap newMap(int seats) {
+		long[] ids = new long[seats];
+		for (int i = 0; i < seats; i++) {
+			ids[i] = 100 + i;
+		}
+		return new ShowSeatMap(1L, ids, new boolean[seats]);
+	}
+
+	// rows x seatsPerRow layout, seat id = row * 100 + position //
+	private ShowSeatMap newGrid(int rows, int seatsPerRow) {
+		List<Seat> seats = new ArrayList<>();
+		for (int r = 0; r < rows; r++) {
+			for (int n = 0; n < seatsPerRow; n++) {
+				Seat seat = new Seat();
+				seat.setSeatId((long) r * 100 + n);
+				seat.setRowName(String.valueOf((char) ('A' + r)));
+				seat.setSeatNumber(String.valueOf(n + 1));
+				seat.setRowIndex(r);
+				seat.setSeatIndex(n);
+				seats.add(seat);
+			}
+		}
+		return new ShowSeatMap(1L, ScreenLayout.of(1L, seats), new boolean[seats.size()], new AtomicLong()::incrementAndGet);
+	}
+
+	@Test
+	void bestAvailableTakesCentreOfMiddleRowThenNextRowOut() {
+		ShowSeatMap map = newGrid(5, 10);
+
+		assertEquals(List.of(203L, 204L, 205L, 206L), map.claimBestAvailable(4, 3));
+		// Row C now only has runs of three, so the row behind it is next
+		assertEquals(List.of(303L, 304L, 305L, 306L), map.claimBestAvailable(4, 3));
+		// Both ends of row C are equally central, the first one wins
+		assertEquals(List.of(200L, 201L, 202L), map.claimBestAvailable(3, 3));
+
+		// Index follows seats released elsewhere
+		map.release(List.of(204L, 205L));
+		assertEquals(List.of(204L, 205L), map.claimBestAvailable(2, 3));
+		assertTrue(map.claimBestAvailable(11, 3).isEmpty());
+	}
+
+	@Test
+	void blockedSeatsSplitRunsOfSingleSeats() {
+		// One row with seats at positions 0, 2 and 4; positions 1 and 3 are blocked
+		List<Seat> seats = new ArrayList<>();
+		for (int n = 0; n < 5; n += 2) {
+			Seat seat = new Seat();
+			seat.setSeatId(100L + n);
+			seat.setRowName("A");
+			seat.setSeatNumber(String.valueOf(n + 1));
+			seat.setRowIndex(0);
+			seat.setSeatIndex(n);
+			seats.add(seat);
+		}
+		ShowSeatMap map = new ShowSeatMap(1L, ScreenLayout.of(1L, seats), new boolean[3], new AtomicLong()::incrementAndGet);
+
+		assertTrue(map.claimBestAvailable(2, 3).isEmpty(), "blocked seats are not adjacent");
+		assertEquals(List.of(102L), map.claimBestAvailable(1, 3));
+		assertEquals(2, map.countFree());
+	}
+
+	@Test
+	void concurrentBestAvailableClaimsNeverOverlap() throws Exception {
+		ShowSeatMap map = newGrid(10, 20);
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		List<Future<List<Long>>> results = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			results.add(pool.submit(() -> map.claimBestAvailable(2, 50)));
+		}
+		Set<Long> claimed = new HashSet<>();
+		for (Future<List<Long>> result : results) {
+			List<Long> seats = result.get();
+			if (seats.isEmpty()) {
+				continue; // only single seats left
+			}
+			assertEquals(seats.get(0) + 1, seats.get(1), "seats must be adjacent");
+			assertTrue(claimed.addAll(seats), "seats must not be handed out twice");
+		}
+		pool.shutdown();
+		assertEquals(200 - map.countFree(), claimed.size());
+		assertTrue(map.claimBestAvailable(2, 50).isEmpty());
+	}
+
+	@Test
+	void claimIsAllOrNothing() {
+		ShowSeatMap map = newMap(130);
+		assertTrue(map.tryClaim(List.of(100L, 164L)));
+		assertFalse(map.tryClaim(List.of(101L, 164L)));
+		assertFalse(map.isTaken(map.indexOf(101L)), "partial claim must be rolled back");
+		assertEquals(128, map.countFree());
+
+		map.release(List.of(164L));
+		assertTrue(map.tryClaim(List.of(101L, 164L)));
+	}
+
+	@Test
+	void reloadFollowsTheDatabaseAndKeepsOpenClaims() {
+		ShowSeatMap map = newMap(10);
+		assertTrue(map.tryClaim(List.of(101L, 102L)));   // a hold
+		assertTrue(map.tryClaim(List.of(103L)));
+		map.confirm(List.of(103L));                        // booked here, cancelled on another node since
+
+		// The database has 104 booked by another node, and no longer 103
+		assertTrue(map.beginReload());
+		ShowSeatMap reloaded = map.reload(List.of(104L));
+
+		assertTrue(map.isRetired());
+		assertSame(reloaded, map.getSuccessor());
+		assertTrue(reloaded.getVersion() > map.getVersion(), "versions keep moving forward");
+		assertNull(reloaded.changedSince(map.getVersion()), "old versions get the full map");
+		assertTrue(reloaded.isTaken(reloaded.indexOf(101L)));
+		assertFalse(reloaded.isTaken(reloaded.indexOf(103L)));
+		assertTrue(reloaded.isTaken(reloaded.indexOf(104L)));
+
+		// The hold's claim moved with it; the database's seat is not a claim
+		assertFalse(map.releaseClaim(List.of(101L, 102L)), "retired map forwards to its successor");
+		assertTrue(reloaded.releaseClaim(List.of(101L, 102L, 104L)));
+		assertEquals(9, reloaded.countFree());
+		assertFalse(map.tryClaim(List.of(105L)));
+		assertFalse(map.isTaken(map.indexOf(105L)), "claim on a retired map is rolled back");
+	}
+
+	@Test
+	void reloadKeepsSeatsConfirmedOrFreedWhileTheDatabaseIsRead() {
+		ShowSeatMap map = newMap(10);
+		assertTrue(map.tryClaim(List.of(101L)));
+		assertTrue(map.tryClaim(List.of(102L)));
+		assertTrue(map.beginReload());
+		assertFalse(map.beginReload(), "one reload at a time");
+
+		// Read before 101 committed and before 102's booking was cancelled
+		map.confirm(List.of(101L));
+		map.confirm(List.of(102L));
+		map.release(List.of(102L));
+		ShowSeatMap reloaded = map.reload(List.of(102L));
+
+		assertTrue(reloaded.isTaken(reloaded.indexOf(101L)));
+		assertFalse(reloaded.isTaken(reloaded.indexOf(102L)));
+		assertEquals(9, reloaded.countFree());
+	}
+
+	@Test
+	void unknownSeatIsNotClaimed() {
+		ShowSeatMap map = newMap(10);
+		assertFalse(map.contains(List.of(100L, 999L)));
+		assertFalse(map.tryClaim(List.of(100L, 999L)));
+		assertEquals(10, map.countFree());
+	}
+
+	@Test
+	void changesSinceVersionListOnlyChangedSeats() {
+		ShowSeatMap map = newMap(10);
+		long start = map.getVersion();
+		assertArrayEquals(new int[0], map.changedSince(start));
+
+		map.tryClaim(List.of(101L, 102L));
+		long afterClaim = map.getVersion();
+		assertTrue(afterClaim > start);
+		map.release(List.of(102L, 105L)); // 105 was free, so it is not a change
+
+		assertArrayEquals(new int[] {1, 2}, map.changedSince(start));
+		assertArrayEquals(new int[] {2}, map.changedSince(afterClaim));
+		assertNull(map.changedSince(map.getVersion() + 1), "unknown version");
+	}
+
+	@Test
+	void mapWithOpenClaimsIsNotRetiredForEviction() {
+		ShowSeatMap map = newMap(10);
+		assertTrue(map.tryClaim(List.of(101L)));
+		assertFalse(map.retireIfUnclaimed());
+
+		assertTrue(map.confirm(List.of(101L)));
+		assertTrue(map.retireIfUnclaimed());
+		assertTrue(map.isRetired());
+		assertNull(map.getSuccessor());
+
+		// Changes now go to whichever map is loaded next
+		assertFalse(map.tryClaim(List.of(102L)));
+		assertFalse(map.isTaken(2));
+		assertFalse(map.release(List.of(101L)));
+	}
+
+	@Test
+	void journalOverflowForcesFullSnapshot() {
+		ShowSeatMap map = newMap(10);
+		long start = map.getVersion();
+		for (int i = 0; i < 300; i++) {
+			map.tryClaim(List.of(100L));
+			map.release(List.of(100L));
+		}
+		assertNull(map.changedSince(start));
+		assertArrayEquals(new int[] {0}, map.changedSince(map.getVersion() - 1));
+	}
+
+	@Test
+	void concurrentClaimsOnSameSeatsHaveOneWinner() throws Exception {
+		ShowSeatMap map = newMap(64);
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		List<Future<Boolean>> futures = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			futures.add(executor.submit(() -> map.tryClaim(List.of(110L, 111L))));
+		}
+		int winners = 0;
+		for (Future<Boolean> f : futures) {
+			if (f.get()) {
+				winners++;
+			}
+		}
+		executor.shutdown();
+		assertEquals(1, winners);
+	}
+}
@@ -0,0 +1,108 @@
+package com.sk.movie.services;
+
+import com.sk.movie.dto.BulkShowRequest;
+import com.sk.movie.dto.ShowResponse;
+import com.sk.movie.entities.Money;
+import com.sk.movie.entities.Movie;
+import com.sk.movie.entities.Screen;
+import com.sk.movie.entities.Show;
+import com.sk.movie.exceptions.ResourceNotFoundException;
+import com.sk.movie.repositories.SeatRepository;
+import com.sk.movie.repositories.ShowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ShowService.class, ScreenService.class})
+class ShowServiceTest {
+
+	@Autowired
+	private ShowService showService;
+
+	@Autowired
+	private ScreenService screenService;
+
+	@Autowired
+	private ShowRepository showRepository;
+
+	@Autowired
+	private SeatRepository seatRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private Movie movie;
+	private Screen small;
+	private Screen large;
+
+	@BeforeEach
+	void setUp() {
+		movie = new Movie();
+		movie.setTitle("Test Movie");
+		movie.setDurationMinutes(120);
+		entityManager.persist(movie);
+
+		small = screenService.createScreen("Screen 1", 2, 4, Set.of("B4"));
+		large = screenService.createGridScreen("Screen 2", 50);
+		entityManager.flush();
+	}
+
+	@Test
+	void bulkRequestCreatesOneShowPerScreenPerTime() {
+		LocalDateTime first = LocalDateTime.now().plusDays(1).withNano(0);
+		List<LocalDateTime> times = List.of(first, first.plusHours(3), first.plusHours(6));
+		long seatRows = seatRepository.count();
+
+		List<ShowResponse> created = showService.addShows(bulkRequest(List.of(small.getScreenId(), large.getScreenId()), times));
+
+		assertEquals(6, created.size());
+		List<Show> shows = showRepository.findAll();
+		assertEquals(6, shows.size());
+		for (Show show : shows) {
+			int sellable = show.getScreen().getScreenId().equals(small.getScreenId()) ? 7 : 50;
+			assertEquals(sellable, show.getTotalSeats());
+			assertEquals(sellable, show.getAvailableSeats());
+			assertEquals(show.getScreen().getName(), show.getScreenName());
+			assertTrue(times.contains(show.getShowTime()));
+		}
+		// Shows share their screen's layout, so no seat rows were written
+		assertEquals(seatRows, seatRepository.count());
+	}
+
+	@Test
+	void unknownScreenRejectsTheWholeRequest() {
+		BulkShowRequest request = bulkRequest(List.of(small.getScreenId(), large.getScreenId() + 1000),
+				List.of(LocalDateTime.now().plusDays(1)));
+
+		assertThrows(ResourceNotFoundException.class, () -> showService.addShows(request));
+		assertEquals(0, showRepository.count());
+	}
+
+	@Test
+	void unknownMovieIsNotFound() {
+		BulkShowRequest request = bulkRequest(List.of(small.getScreenId()), List.of(LocalDateTime.now().plusDays(1)));
+		request.setMovieId(movie.getMovieId() + 1000);
+
+		assertThrows(ResourceNotFoundException.class, () -> showService.addShows(request));
+	}
+
+	private BulkShowRequest bulkRequest(List<Long> screenIds, List<LocalDateTime> times) {
+		BulkShowRequest request = new BulkShowRequest();
+		request.setMovieId(movie.getMovieId());
+		request.setScreenIds(screenIds);
+		request.setShowTimes(times);
+		request.setPricePerSeat(Money.of(new BigDecimal("200.00")));
+		return request;
+	}
+}
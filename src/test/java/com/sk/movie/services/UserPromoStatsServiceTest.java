@@ -0,0 +1,151 @@
+package com.sk.movie.services;
+
+import com.sk.movie.entities.*;
+import com.sk.movie.repositories.UserPromoStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(UserPromoStatsService.class)
+class UserPromoStatsServiceTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private UserPromoStatsService userPromoStatsService;
+
+	@Autowired
+	private UserPromoStatsRepository userPromoStatsRepository;
+
+	private User user;
+	private Show show;
+
+	@BeforeEach
+	void setUp() {
+		user = new User();
+		user.setUsername("customer");
+		user.setEmail("customer@example.com");
+		user.setPasswordHash("hash");
+		entityManager.persist(user);
+
+		Movie movie = new Movie();
+		movie.setTitle("Heat");
+		movie.setDurationMinutes(170);
+		entityManager.persist(movie);
+
+		show = new Show();
+		show.setMovie(movie);
+		show.setShowTime(LocalDateTime.now().plusDays(1));
+		show.setScreenName("Screen 1");
+		show.setTotalSeats(100);
+		show.setPricePerSeat(Money.of(new BigDecimal("200.00")));
+		entityManager.persist(show);
+	}
+
+	@Test
+	void rebuildCreatesMissingRowsAndCorrectsDrift() {
+		book("BKG1", "400.00", BookingStatus.CONFIRMED);
+		book("BKG2", "300.00", BookingStatus.CONFIRMED);
+		book("BKG3", "900.00", BookingStatus.CANCELLED);
+		entityManager.flush();
+
+		assertEquals(1, userPromoStatsService.rebuild());
+		assertTotals(2, "700.00");
+
+		// Drift, e.g. an update lost while a node was going down
+		userPromoStatsRepository.addToTotals(user.getUserId(), 5, new BigDecimal("1000"), LocalDateTime.now());
+		userPromoStatsService.rebuild();
+		assertTotals(2, "700.00");
+	}
+
+	@Test
+	void bookingsAndCancellationsAdjustTotalsIncrementally() {
+		userPromoStatsService.createFor(user.getUserId());
+		entityManager.flush();
+
+		Booking first = book("BKG1", "400.00", BookingStatus.CONFIRMED);
+		Booking second = book("BKG2", "300.00", BookingStatus.CONFIRMED);
+		userPromoStatsService.recordConfirmed(List.of(first, second));
+		assertTotals(2, "700.00");
+
+		userPromoStatsService.recordCancelled(first);
+		assertTotals(1, "300.00");
+	}
+
+	@Test
+	void usersWithoutARowAreTotalledFromBookings() {
+		book("BKG1", "400.00", BookingStatus.CONFIRMED);
+		book("BKG2", "300.50", BookingStatus.CONFIRMED);
+		book("BKG3", "900.00", BookingStatus.CANCELLED);
+		entityManager.flush();
+
+		UserPromoStatsService.Totals totals = userPromoStatsService.getTotals(user.getUserId());
+		assertEquals(2, totals.confirmedBookings());
+		assertEquals(Money.ofMinor(70_050), totals.totalSpending());
+	}
+
+	@Test
+	void usersOfABatchAreUpdatedInIdOrder() {
+		List<Long> updated = new ArrayList<>();
+		UserPromoStatsRepository recording = (UserPromoStatsRepository) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[]{UserPromoStatsRepository.class},
+				(proxy, method, args) -> {
+					if (method.getName().equals("addToTotals")) {
+						updated.add((Long) args[0]);
+					}
+					return method.invoke(userPromoStatsRepository, args);
+				});
+		ReflectionTestUtils.setField(userPromoStatsService, "userPromoStatsRepository", recording);
+		try {
+			userPromoStatsService.recordConfirmed(List.of(bookingOf(30L), bookingOf(10L), bookingOf(20L),
+					bookingOf(10L)));
+		} finally {
+			ReflectionTestUtils.setField(userPromoStatsService, "userPromoStatsRepository", userPromoStatsRepository);
+		}
+
+		// Two batches sharing users lock their stats rows in the same order
+		assertEquals(List.of(10L, 20L, 30L), updated);
+	}
+
+	private Booking bookingOf(Long userId) {
+		User other = new User();
+		other.setUserId(userId);
+		Booking booking = new Booking();
+		booking.setUser(other);
+		booking.setFinalAmount(Money.of(new BigDecimal("100.00")));
+		return booking;
+	}
+
+	private Booking book(String reference, String amount, BookingStatus status) {
+		Booking booking = new Booking();
+		booking.setUser(user);
+		booking.setShow(show);
+		booking.setBookingReference(reference);
+		booking.setTotalSeats(1);
+		booking.setTotalAmount(Money.of(new BigDecimal(amount)));
+		booking.setFinalAmount(Money.of(new BigDecimal(amount)));
+		booking.setBookingStatus(status);
+		return entityManager.persist(booking);
+	}
+
+	private void assertTotals(long bookings, String spending) {
+		entityManager.clear();
+		UserPromoStats stats = userPromoStatsRepository.findById(user.getUserId()).orElseThrow();
+		assertEquals(bookings, stats.getConfirmedBookings());
+		assertEquals(0, new BigDecimal(spending).compareTo(stats.getTotalSpending()));
+	}
+}